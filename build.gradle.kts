@@ -2,6 +2,7 @@ plugins {
     id("java")
     id("org.springframework.boot") version "3.2.2"
     id("io.spring.dependency-management") version "1.1.4"
+    id("me.champeau.jmh") version "0.7.2"
 }
 
 group = "org.example"
@@ -11,6 +12,19 @@ java {
     sourceCompatibility = JavaVersion.VERSION_21
 }
 
+// The SIMD indicator kernels use the incubating Vector API. They are a source set of their own, so
+// theirs is the only compile that needs the module, and javac's warning for using an incubating
+// module is silenced there alone. At runtime the module is optional; without it the scalar kernels run.
+val vectorModule = listOf("--add-modules", "jdk.incubator.vector")
+
+val vector: SourceSet by sourceSets.creating {
+    compileClasspath += sourceSets.main.get().output + sourceSets.main.get().compileClasspath
+}
+
+tasks.named<JavaCompile>(vector.compileJavaTaskName) {
+    options.compilerArgs.addAll(vectorModule + "-Xlint:none")
+}
+
 repositories {
     mavenCentral()
 }
@@ -21,6 +35,13 @@ dependencies {
     implementation("org.springframework.boot:spring-boot-starter-web")
     implementation("org.springframework.boot:spring-boot-starter-thymeleaf")
     implementation("org.springframework.boot:spring-boot-starter-websocket")
+    implementation("org.springframework.boot:spring-boot-starter-actuator")
+
+    // Metrics, scraped from /actuator/prometheus
+    runtimeOnly("io.micrometer:micrometer-registry-prometheus")
+
+    // Loaded reflectively by IndicatorKernels
+    runtimeOnly(vector.output)
 
     // WebSocket Client
     implementation("org.java-websocket:Java-WebSocket:1.5.4")
@@ -41,6 +62,31 @@ tasks.jar {
     enabled = false
 }
 
+tasks.withType<JavaExec> {
+    jvmArgs(vectorModule)
+}
+
 tasks.test {
     useJUnitPlatform()
+    jvmArgs(vectorModule)
+}
+
+// Benchmarks: ./gradlew jmh (filter with -PjmhIncludes=IndicatorBenchmark)
+jmh {
+    jmhVersion.set("1.37")
+    includes.set(listOfNotNull(project.findProperty("jmhIncludes")?.toString()))
+    fork.set(1)
+    warmupIterations.set(3)
+    iterations.set(5)
+    profilers.set(listOf("gc"))
+    jvmArgsAppend.addAll(vectorModule)
+    resultFormat.set("JSON")
+    resultsFile.set(layout.buildDirectory.file("results/jmh/results.json"))
+}
+
+// Promote the last jmh run to src/jmh/baseline/results.json, the baseline later runs are compared
+// against. Check it in only from a real run on the machine the comparisons will be made on.
+tasks.register<Copy>("jmhBaseline") {
+    from(layout.buildDirectory.file("results/jmh/results.json"))
+    into(layout.projectDirectory.dir("src/jmh/baseline"))
 }
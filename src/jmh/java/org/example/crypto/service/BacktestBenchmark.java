@@ -0,0 +1,39 @@
+package org.example.crypto.service;
+
+import org.example.crypto.dto.BacktestResult;
+import org.example.crypto.dto.CandleColumns;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Single-threaded replay throughput; the score is bars per second.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class BacktestBenchmark {
+
+    private static final int BARS = 1_000_000;
+
+    private CandleColumns candles;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        candles = Fixtures.candles(BARS, 13);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BARS)
+    public BacktestResult replay() {
+        return Backtester.run("XRP_USDT", "1m", candles, Backtester.Config.DEFAULT);
+    }
+}
@@ -0,0 +1,79 @@
+package org.example.crypto.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.example.crypto.dto.CandleColumns;
+import org.example.crypto.dto.CandleStick;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Candle ingest and read paths of {@link CandleStickService}, with and without the
+ * incremental indicator engine listening to updates.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class CandleStoreBenchmark {
+
+    private static final String CONTRACT = "XRP_USDT";
+    private static final String INTERVAL = "1m";
+
+    @Param({"false", "true"})
+    public boolean withIndicators;
+
+    private CandleStickService service;
+    private CandleColumns history;
+    private long nextTime;
+    private double price;
+    private int tick;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        MeterRegistry meters = new SimpleMeterRegistry();
+        ContractRegistry registry = Fixtures.registry();
+        service = new CandleStickService(registry, new CandleArchive(), meters);
+        if (withIndicators) {
+            new IncrementalIndicatorEngine(service, meters);
+        }
+        history = Fixtures.candles(CandleStickService.MAX_CANDLES, 42);
+        Fixtures.load(service, CONTRACT, INTERVAL, history);
+        nextTime = history.time()[history.size() - 1] + 60;
+        price = history.close()[history.size() - 1];
+    }
+
+    /** A ticker-rate update of the live bar. */
+    @Benchmark
+    public CandleSeries.UpdateResult updateLiveBar() {
+        double c = price + (++tick & 7) * 0.0001;
+        return service.updateCandle(CONTRACT, INTERVAL, nextTime - 60, price, c + 0.001, price - 0.001, c, tick);
+    }
+
+    /** A new bar on a full series, evicting the oldest one. */
+    @Benchmark
+    public CandleSeries.UpdateResult appendBar() {
+        long t = nextTime;
+        nextTime += 60;
+        return service.updateCandle(CONTRACT, INTERVAL, t, price, price + 0.001, price - 0.001, price, 1000);
+    }
+
+    @Benchmark
+    public List<CandleStick> getCandles() {
+        return service.getCandles(CONTRACT, INTERVAL);
+    }
+
+    @Benchmark
+    public CandleColumns getColumns() {
+        return service.getColumns(CONTRACT, INTERVAL);
+    }
+}
@@ -0,0 +1,79 @@
+package org.example.crypto.service;
+
+import org.example.crypto.dto.CandleColumns;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Benchmark fixtures: recorded Gate.io websocket frames and deterministic candle histories.
+ */
+final class Fixtures {
+
+    private Fixtures() {
+    }
+
+    /**
+     * Websocket frames in Gate.io wire format (subscribe acks, tickers, candlesticks, pong).
+     */
+    static List<String> frames() {
+        InputStream in = Fixtures.class.getResourceAsStream("/fixtures/gateio-frames.jsonl");
+        if (in == null) {
+            throw new IllegalStateException("fixtures/gateio-frames.jsonl not on the classpath");
+        }
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8))) {
+            return reader.lines().filter(line -> !line.isBlank()).toList();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Registry with the contracts the fixture frames refer to.
+     */
+    static ContractRegistry registry() {
+        ContractRegistry registry = new ContractRegistry();
+        registry.add(List.of("XRP_USDT", "BTC_USDT"));
+        return registry;
+    }
+
+    /**
+     * 1m candles following a seeded random walk, so every run sees the same series.
+     */
+    static CandleColumns candles(int bars, long seed) {
+        Random random = new Random(seed);
+        long[] time = new long[bars];
+        double[] open = new double[bars];
+        double[] high = new double[bars];
+        double[] low = new double[bars];
+        double[] close = new double[bars];
+        long[] volume = new long[bars];
+
+        long t0 = 1_700_000_000L - bars * 60L;
+        double price = 0.6;
+        for (int i = 0; i < bars; i++) {
+            double o = price;
+            price = Math.max(0.01, price * (1 + random.nextGaussian() * 0.002));
+            time[i] = t0 + i * 60L;
+            open[i] = o;
+            close[i] = price;
+            high[i] = Math.max(o, price) * (1 + random.nextDouble() * 0.001);
+            low[i] = Math.min(o, price) * (1 - random.nextDouble() * 0.001);
+            volume[i] = 1_000 + random.nextInt(50_000);
+        }
+        return new CandleColumns(time, open, high, low, close, volume);
+    }
+
+    static void load(CandleStickService service, String contract, String interval, CandleColumns candles) {
+        for (int i = 0; i < candles.size(); i++) {
+            service.updateCandle(contract, interval, candles.time()[i], candles.open()[i], candles.high()[i],
+                candles.low()[i], candles.close()[i], candles.volume()[i]);
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package org.example.crypto.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Websocket frame handling: parse plus dispatch into the price maps and candle store,
+ * cycling through the recorded frames.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class FrameParsingBenchmark {
+
+    private GateIoWebSocketClient client;
+    private String[] frames;
+    private String tickerFrame;
+    private String candleFrame;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        MeterRegistry meters = new SimpleMeterRegistry();
+        ContractRegistry registry = Fixtures.registry();
+        CandleStickService candleStickService = new CandleStickService(registry, new CandleArchive(), meters);
+        client = new GateIoWebSocketClient(candleStickService, registry, meters);
+        List<String> recorded = Fixtures.frames();
+        frames = recorded.toArray(String[]::new);
+        tickerFrame = recorded.stream().filter(f -> f.contains("\"futures.tickers\",\"event\":\"update\"")).findFirst().orElseThrow();
+        candleFrame = recorded.stream().filter(f -> f.contains("\"futures.candlesticks\",\"event\":\"update\"")).findFirst().orElseThrow();
+    }
+
+    @Benchmark
+    public void tickerFrame() {
+        client.handleMessage(tickerFrame);
+    }
+
+    @Benchmark
+    public void candlestickFrame() {
+        client.handleMessage(candleFrame);
+    }
+
+    @Benchmark
+    public void mixedFrames() {
+        client.handleMessage(frames[next]);
+        next = next + 1 == frames.length ? 0 : next + 1;
+    }
+}
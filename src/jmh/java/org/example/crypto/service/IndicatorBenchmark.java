@@ -0,0 +1,76 @@
+package org.example.crypto.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.example.crypto.dto.CandleColumns;
+import org.example.crypto.dto.EMACloudResult;
+import org.example.crypto.dto.MAAnglesResult;
+import org.example.crypto.dto.SMIResult;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Batch indicator calculation over histories of increasing length.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class IndicatorBenchmark {
+
+    @Param({"2000", "20000", "200000"})
+    public int bars;
+
+    private CandleColumns candles;
+    private SMIIndicatorService smi;
+    private EMACloudIndicatorService emaCloud;
+    private MAAnglesIndicatorService maAngles;
+    private List<IndicatorNode> allSeries;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        MeterRegistry meters = new SimpleMeterRegistry();
+        candles = Fixtures.candles(bars, 7);
+        smi = new SMIIndicatorService(meters);
+        emaCloud = new EMACloudIndicatorService(meters);
+        maAngles = new MAAnglesIndicatorService(meters);
+        allSeries = List.of(
+            IndicatorNodes.smi(SMIIndicatorService.PERCENT_K_LENGTH, SMIIndicatorService.SMOOTH_PERIOD),
+            IndicatorNodes.smiSignal(SMIIndicatorService.PERCENT_K_LENGTH, SMIIndicatorService.SMOOTH_PERIOD),
+            IndicatorNodes.ema(IndicatorNodes.Price.CLOSE, EMACloudIndicatorService.FAST_LENGTH),
+            IndicatorNodes.ema(IndicatorNodes.Price.CLOSE, EMACloudIndicatorService.SLOW_LENGTH),
+            IndicatorNodes.ema(IndicatorNodes.Price.CLOSE, MAAnglesIndicatorService.MA27_LENGTH),
+            IndicatorNodes.jmaSlope(MAAnglesIndicatorService.JMA_LENGTH, MAAnglesIndicatorService.JMA_PHASE));
+    }
+
+    @Benchmark
+    public SMIResult smi() {
+        return smi.calculate(candles);
+    }
+
+    @Benchmark
+    public EMACloudResult emaCloud() {
+        return emaCloud.calculate(candles);
+    }
+
+    @Benchmark
+    public MAAnglesResult maAngles() {
+        return maAngles.calculate(candles);
+    }
+
+    // the series behind all three indicators in one graph, without building the point lists
+    @Benchmark
+    public Map<IndicatorNode, double[]> allSeries() {
+        return IndicatorGraph.evaluate(candles, allSeries);
+    }
+}
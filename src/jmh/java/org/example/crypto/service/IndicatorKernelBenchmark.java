@@ -0,0 +1,71 @@
+package org.example.crypto.service;
+
+import org.example.crypto.dto.CandleColumns;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The vectorizable indicator stages, scalar loops against Vector API lanes. Run with
+ * {@code jdk.incubator.vector} in the module graph (the build adds it), otherwise the
+ * {@code simd} case falls back to scalar and the two match.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class IndicatorKernelBenchmark {
+
+    @Param({"2000", "200000"})
+    public int bars;
+
+    @Param({"scalar", "simd"})
+    public String kernels;
+
+    private IndicatorKernels impl;
+    private double[] high;
+    private double[] low;
+    private double[] close;
+    private double[] a;
+    private double[] b;
+    private double[] out;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        impl = "scalar".equals(kernels) ? IndicatorKernels.SCALAR : IndicatorKernels.INSTANCE;
+        CandleColumns candles = Fixtures.candles(bars, 7);
+        high = candles.high();
+        low = candles.low();
+        close = candles.close();
+        a = new double[bars];
+        b = new double[bars];
+        out = new double[bars];
+        IndicatorKernels.SCALAR.trueRange(high, low, close, b);
+        IndicatorKernels.rma(b, MAAnglesIndicatorService.ATR_LENGTH, b);
+    }
+
+    @Benchmark
+    public double[] stochasticRange() {
+        impl.stochasticRange(high, low, close, SMIIndicatorService.PERCENT_K_LENGTH, a, out);
+        return out;
+    }
+
+    @Benchmark
+    public double[] trueRange() {
+        impl.trueRange(high, low, close, out);
+        return out;
+    }
+
+    @Benchmark
+    public double[] angles() {
+        impl.angles(close, b, out);
+        return out;
+    }
+}
@@ -0,0 +1,91 @@
+package org.example.crypto.service;
+
+import org.example.crypto.dto.CandleColumns;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link Rolling} windows against rescanning every window, over 200k bars: 10 is the SMI %K
+ * length, 1440 the health check's 24h of 1m bars.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class RollingBenchmark {
+
+    private static final int BARS = 200_000;
+
+    @Param({"10", "1440"})
+    public int window;
+
+    private double[] high;
+    private double[] close;
+    private double[] out;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        CandleColumns candles = Fixtures.candles(BARS, 11);
+        high = candles.high();
+        close = candles.close();
+        out = new double[BARS];
+    }
+
+    @Benchmark
+    public double[] rescanMax() {
+        for (int i = window - 1; i < BARS; i++) {
+            double max = high[i];
+            for (int j = 1; j < window; j++) {
+                max = Math.max(max, high[i - j]);
+            }
+            out[i] = max;
+        }
+        return out;
+    }
+
+    @Benchmark
+    public double[] rollingMax() {
+        Rolling.Extreme max = Rolling.max(window);
+        for (int i = 0; i < BARS; i++) {
+            max.add(high[i]);
+            out[i] = max.value();
+        }
+        return out;
+    }
+
+    @Benchmark
+    public double[] rescanSma() {
+        for (int i = window - 1; i < BARS; i++) {
+            double sum = 0;
+            for (int j = 0; j < window; j++) {
+                sum += close[i - j];
+            }
+            out[i] = sum / window;
+        }
+        return out;
+    }
+
+    @Benchmark
+    public double[] rollingSma() {
+        IndicatorKernels.sma(close, window, out);
+        return out;
+    }
+
+    @Benchmark
+    public double[] rollingVariance() {
+        Rolling.Variance variance = new Rolling.Variance(window);
+        for (int i = 0; i < BARS; i++) {
+            variance.add(close[i]);
+            out[i] = variance.populationVariance();
+        }
+        return out;
+    }
+}
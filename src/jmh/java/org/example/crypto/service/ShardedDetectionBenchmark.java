@@ -0,0 +1,90 @@
+package org.example.crypto.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.example.crypto.dto.CandleColumns;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One detection cycle across many contracts: a tick on every contract's live bar, then the
+ * wait until every shard has evaluated its contracts. Each contract starts from a reloaded
+ * 1m history, so a cycle measures the steady state (indicator update on the caller thread,
+ * hand-off, live-bar evaluation on the shards), not the initial replay.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class ShardedDetectionBenchmark {
+
+    private static final int BARS = 1_500;
+
+    @Param({"500"})
+    public int contracts;
+
+    private CandleStickService candleStickService;
+    private SignalDetectionService detection;
+    private String[] names;
+    private double[][] lastBar;
+    private long tick;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        List<String> watched = new ArrayList<>(contracts);
+        for (int i = 0; i < contracts; i++) {
+            watched.add(String.format("C%03d_USDT", i));
+        }
+        MeterRegistry meters = new SimpleMeterRegistry();
+        ContractRegistry registry = new ContractRegistry();
+        registry.add(watched);
+        candleStickService = new CandleStickService(registry, new CandleArchive(), meters);
+        IncrementalIndicatorEngine engine = new IncrementalIndicatorEngine(candleStickService, meters);
+        GateIoWebSocketClient webSocketClient = new GateIoWebSocketClient(candleStickService, registry, meters);
+        NotificationDispatcher notifications = new NotificationDispatcher(
+            List.of(new SlackNotificationService(), new TelegramNotificationService()), meters);
+        detection = new SignalDetectionService(candleStickService, registry, engine, webSocketClient, notifications,
+            new StrategyService(), meters);
+        detection.init();
+        detection.watch(watched);
+
+        names = watched.toArray(String[]::new);
+        lastBar = new double[contracts][];
+        for (int i = 0; i < contracts; i++) {
+            CandleColumns history = Fixtures.candles(BARS, i);
+            candleStickService.replaceCandles(names[i], "1m", history);
+            int last = history.size() - 1;
+            lastBar[i] = new double[] {history.time()[last], history.open()[last], history.high()[last],
+                history.low()[last], history.close()[last]};
+        }
+        detection.awaitIdle();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        detection.shutdown();
+    }
+
+    @Benchmark
+    public void cycle() {
+        // alternate the live close between two values inside the bar's range
+        double nudge = (tick++ & 1) == 0 ? 0.25 : 0.75;
+        for (int i = 0; i < names.length; i++) {
+            double[] bar = lastBar[i];
+            double close = bar[3] + (bar[2] - bar[3]) * nudge;
+            candleStickService.updateCandle(names[i], "1m", (long) bar[0], bar[1], bar[2], bar[3], close, 1_000);
+        }
+        detection.awaitIdle();
+    }
+}
@@ -0,0 +1,61 @@
+package org.example.crypto.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.example.crypto.dto.CandleColumns;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One end-to-end {@code detectAndNotify} pass over a full 1m series. The first pass replays the
+ * whole history through the strategy machine; in the steady state measured here nothing has
+ * closed since, so a pass evaluates only the live bar. A pass includes the hand-off to the
+ * contract's detection shard and back. Notification channels are left unconfigured, so a
+ * detected signal costs only the formatting and a log line.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class SignalDetectionBenchmark {
+
+    private static final String CONTRACT = "XRP_USDT";
+
+    private SignalDetectionService detection;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        MeterRegistry meters = new SimpleMeterRegistry();
+        ContractRegistry registry = Fixtures.registry();
+        CandleStickService candleStickService = new CandleStickService(registry, new CandleArchive(), meters);
+        IncrementalIndicatorEngine engine = new IncrementalIndicatorEngine(candleStickService, meters);
+        CandleColumns history = Fixtures.candles(CandleStickService.MAX_CANDLES, 11);
+        Fixtures.load(candleStickService, CONTRACT, "1m", history);
+
+        GateIoWebSocketClient webSocketClient = new GateIoWebSocketClient(candleStickService, registry, meters);
+        NotificationDispatcher notifications = new NotificationDispatcher(
+            List.of(new SlackNotificationService(), new TelegramNotificationService()), meters);
+        detection = new SignalDetectionService(candleStickService, registry, engine, webSocketClient, notifications,
+            new StrategyService(), meters);
+        detection.init();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        detection.shutdown();
+    }
+
+    @Benchmark
+    public void detectAndNotify() {
+        detection.detectAndNotify(CONTRACT);
+    }
+}
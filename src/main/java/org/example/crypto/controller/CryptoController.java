@@ -1,118 +1,415 @@
 package org.example.crypto.controller;
 
+import org.example.crypto.dto.BacktestResult;
+import org.example.crypto.dto.CandleColumns;
 import org.example.crypto.dto.CandleStick;
 import org.example.crypto.dto.EMACloudResult;
+import org.example.crypto.dto.HistoryManifest;
 import org.example.crypto.dto.MAAnglesResult;
+import org.example.crypto.dto.NotificationStats;
 import org.example.crypto.dto.SMIResult;
+import org.example.crypto.dto.SeriesDelta;
+import org.example.crypto.dto.SignalDetectionStats;
+import org.example.crypto.dto.SweepResult;
+import org.example.crypto.dto.WebSocketConnectionStats;
+import org.example.crypto.service.BacktestService;
 import org.example.crypto.service.CandleStickService;
-import org.example.crypto.service.EMACloudIndicatorService;
+import org.example.crypto.service.ChartSnapshotService;
+import org.example.crypto.service.ColumnarEncoder;
+import org.example.crypto.service.ContractRegistry;
 import org.example.crypto.service.GateIoWebSocketClient;
-import org.example.crypto.service.MAAnglesIndicatorService;
-import org.example.crypto.service.SMIIndicatorService;
+import org.example.crypto.service.HistorySegmentService;
+import org.example.crypto.service.IncrementalIndicatorEngine;
+import org.example.crypto.service.NotificationDispatcher;
+import org.example.crypto.service.SignalDetectionService;
+import org.example.crypto.service.StrategyService;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
 
+/**
+ * Per-contract market data endpoints. {contract} accepts the full name ("XRP_USDT") or the
+ * coin alone ("xrp"), so the original /xrp/... and /btc/... URLs keep working.
+ *
+ * The candle and indicator endpoints take an optional {@code since} cursor. Every response
+ * carries the series version in {@value #VERSION_HEADER}; passing it back as {@code since}
+ * returns only the bars written after it (merged by time on the client). When the cursor
+ * cannot be served, e.g. after a reload, the full series comes back with
+ * {@value #RESET_HEADER}{@code : true}.
+ */
 @RestController
 @RequestMapping("/api/crypto")
 public class CryptoController {
 
+    private static final int MAX_RANGE_CANDLES = 20_000;
+    static final String VERSION_HEADER = "X-Series-Version";
+    static final String RESET_HEADER = "X-Series-Reset";
+    static final String EPOCH_HEADER = "X-History-Epoch";
+
     private final GateIoWebSocketClient webSocketClient;
     private final CandleStickService candleStickService;
-    private final SMIIndicatorService smiIndicatorService;
-    private final MAAnglesIndicatorService maAnglesIndicatorService;
-    private final EMACloudIndicatorService emaCloudIndicatorService;
+    private final IncrementalIndicatorEngine indicatorEngine;
+    private final ContractRegistry contractRegistry;
+    private final NotificationDispatcher notificationDispatcher;
+    private final SignalDetectionService signalDetectionService;
+    private final ChartSnapshotService chartSnapshotService;
+    private final HistorySegmentService historySegmentService;
+    private final BacktestService backtestService;
+    private final StrategyService strategyService;
 
     public CryptoController(GateIoWebSocketClient webSocketClient,
                            CandleStickService candleStickService,
-                           SMIIndicatorService smiIndicatorService,
-                           MAAnglesIndicatorService maAnglesIndicatorService,
-                           EMACloudIndicatorService emaCloudIndicatorService) {
+                           IncrementalIndicatorEngine indicatorEngine,
+                           ContractRegistry contractRegistry,
+                           NotificationDispatcher notificationDispatcher,
+                           SignalDetectionService signalDetectionService,
+                           ChartSnapshotService chartSnapshotService,
+                           HistorySegmentService historySegmentService,
+                           BacktestService backtestService,
+                           StrategyService strategyService) {
         this.webSocketClient = webSocketClient;
         this.candleStickService = candleStickService;
-        this.smiIndicatorService = smiIndicatorService;
-        this.maAnglesIndicatorService = maAnglesIndicatorService;
-        this.emaCloudIndicatorService = emaCloudIndicatorService;
+        this.indicatorEngine = indicatorEngine;
+        this.contractRegistry = contractRegistry;
+        this.notificationDispatcher = notificationDispatcher;
+        this.signalDetectionService = signalDetectionService;
+        this.chartSnapshotService = chartSnapshotService;
+        this.historySegmentService = historySegmentService;
+        this.backtestService = backtestService;
+        this.strategyService = strategyService;
     }
 
-    // === XRP Endpoints ===
+    @GetMapping("/signals/stats")
+    public SignalDetectionStats getSignalStats() {
+        return signalDetectionService.stats();
+    }
 
-    @GetMapping("/xrp/price")
-    public Map<String, String> getXrpPrice() {
-        return Map.of(
-            "pair", "XRP_USDT",
-            "price", webSocketClient.getCurrentPrice("XRP_USDT"),
-            "unit", "USDT",
-            "lastUpdate", webSocketClient.getLastUpdateTime("XRP_USDT")
-        );
+    @GetMapping("/notifications/stats")
+    public List<NotificationStats> getNotificationStats() {
+        return notificationDispatcher.stats();
     }
 
-    @GetMapping("/xrp/candles")
-    public List<CandleStick> getXrpCandles(@RequestParam(defaultValue = "1m") String interval) {
-        return candleStickService.getCandles("XRP_USDT", interval);
+    @GetMapping("/websocket/stats")
+    public List<WebSocketConnectionStats> getWebSocketStats() {
+        return webSocketClient.stats();
     }
 
-    @GetMapping("/xrp/smi")
-    public SMIResult getXrpSMI(@RequestParam(defaultValue = "1m") String interval) {
-        return smiIndicatorService.calculate(candleStickService.getCandles("XRP_USDT", interval));
+    /**
+     * Replays every contract over every time range ({@code from[i]..to[i]}, epoch seconds,
+     * inclusive) through the signal strategies, in parallel. {@code feeBps} is charged per side.
+     */
+    @PostMapping("/backtest")
+    public List<BacktestResult> backtest(@RequestParam List<String> contracts,
+                                         @RequestParam(defaultValue = "1m") String interval,
+                                         @RequestParam(defaultValue = "0") List<Long> from,
+                                         @RequestParam(defaultValue = "" + Long.MAX_VALUE) List<Long> to,
+                                         @RequestParam(defaultValue = "5") double feeBps) {
+        if (from.size() != to.size()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "from and to must pair up");
+        }
+        List<BacktestService.Job> jobs = new ArrayList<>();
+        for (String contract : contracts) {
+            String pair = resolve(contract);
+            for (int i = 0; i < from.size(); i++) {
+                jobs.add(new BacktestService.Job(pair, interval, from.get(i), to.get(i)));
+            }
+        }
+        return backtestService.run(jobs, feeBps / 10_000);
     }
 
-    @GetMapping("/xrp/ma-angles")
-    public MAAnglesResult getXrpMAAngles(@RequestParam(defaultValue = "1m") String interval) {
-        return maAnglesIndicatorService.calculate(candleStickService.getCandles("XRP_USDT", interval));
+    /**
+     * Backtests every combination of the given parameter values (or {@code samples} random
+     * ones) on one contract and returns the best {@code top}, ranked by {@code rankBy}:
+     * return, profit-factor or return-over-drawdown. Omitted parameters keep their live value.
+     */
+    @PostMapping("/backtest/sweep")
+    public SweepResult sweep(@RequestParam String contract,
+                             @RequestParam(defaultValue = "1m") String interval,
+                             @RequestParam(defaultValue = "0") long from,
+                             @RequestParam(defaultValue = "" + Long.MAX_VALUE) long to,
+                             @RequestParam(required = false) List<Integer> percentKLength,
+                             @RequestParam(required = false) List<Integer> smoothPeriod,
+                             @RequestParam(required = false) List<Integer> fastLength,
+                             @RequestParam(required = false) List<Integer> slowLength,
+                             @RequestParam(required = false) List<Integer> jmaLength,
+                             @RequestParam(required = false) List<Integer> jmaPhase,
+                             @RequestParam(required = false) List<Double> oversold,
+                             @RequestParam(required = false) List<Double> overbought,
+                             @RequestParam(required = false) List<Integer> minDwell,
+                             @RequestParam(defaultValue = "5") double feeBps,
+                             @RequestParam(defaultValue = "0") int samples,
+                             @RequestParam(defaultValue = "0") long seed,
+                             @RequestParam(defaultValue = "return") String rankBy,
+                             @RequestParam(defaultValue = "10") int minTrades,
+                             @RequestParam(defaultValue = "50") int top) {
+        BacktestService.Job job = new BacktestService.Job(resolve(contract), interval, from, to);
+        try {
+            return backtestService.sweep(job, new BacktestService.Sweep(percentKLength, smoothPeriod,
+                fastLength, slowLength, jmaLength, jmaPhase, oversold, overbought, minDwell,
+                feeBps / 10_000, samples, seed, rankBy, minTrades, Math.max(1, top)));
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
     }
 
-    @GetMapping("/xrp/ema-cloud")
-    public EMACloudResult getXrpEMACloud(@RequestParam(defaultValue = "1m") String interval) {
-        return emaCloudIndicatorService.calculate(candleStickService.getCandles("XRP_USDT", interval));
+    /**
+     * Reads and compiles the strategies file again; live detection and later backtests use the
+     * new strategies. A file that does not compile is rejected and the running strategies stay.
+     */
+    @PostMapping("/strategies/reload")
+    public Map<String, Object> reloadStrategies() {
+        try {
+            return Map.of("status", "ok", "groups", strategyService.reload());
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
     }
 
-    @PostMapping("/xrp/interval")
-    public Map<String, String> changeXrpInterval(@RequestParam(defaultValue = "1m") String interval) {
-        webSocketClient.changeInterval("XRP_USDT", interval);
-        return Map.of("status", "ok", "contract", "XRP_USDT", "interval", interval);
+    // === Contract registry ===
+
+    @GetMapping("/contracts")
+    public List<String> getContracts() {
+        return contractRegistry.contracts();
+    }
+
+    @PostMapping("/contracts")
+    public Map<String, Object> addContracts(@RequestParam List<String> contracts) {
+        try {
+            return Map.of("status", "ok", "added", contractRegistry.add(contracts));
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
     }
 
-    // === BTC Endpoints ===
+    @DeleteMapping("/contracts")
+    public Map<String, Object> removeContracts(@RequestParam List<String> contracts) {
+        try {
+            return Map.of("status", "ok", "removed", contractRegistry.remove(contracts));
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+    }
 
-    @GetMapping("/btc/price")
-    public Map<String, String> getBtcPrice() {
+    // === Per-contract endpoints ===
+
+    @GetMapping("/{contract}/price")
+    public Map<String, String> getPrice(@PathVariable String contract) {
+        String pair = resolve(contract);
         return Map.of(
-            "pair", "BTC_USDT",
-            "price", webSocketClient.getCurrentPrice("BTC_USDT"),
+            "pair", pair,
+            "price", webSocketClient.getCurrentPrice(pair),
             "unit", "USDT",
-            "lastUpdate", webSocketClient.getLastUpdateTime("BTC_USDT")
+            "lastUpdate", webSocketClient.getLastUpdateTime(pair)
         );
     }
 
-    @GetMapping("/btc/candles")
-    public List<CandleStick> getBtcCandles(@RequestParam(defaultValue = "1m") String interval) {
-        return candleStickService.getCandles("BTC_USDT", interval);
+    @GetMapping("/{contract}/candles")
+    public ResponseEntity<List<CandleStick>> getCandles(@PathVariable String contract,
+                                                        @RequestParam(defaultValue = "1m") String interval,
+                                                        @RequestParam(defaultValue = "-1") long since) {
+        SeriesDelta<CandleColumns> delta = candleStickService.getColumnsChangedSince(resolve(contract), interval, since);
+        return versioned(delta, delta.data().toCandles());
+    }
+
+    /**
+     * Candles by time range (epoch seconds, inclusive), served from the on-disk history
+     * so it can reach further back than the in-memory series. {@code format} selects the
+     * encoding, see {@link ColumnarEncoder}.
+     */
+    @GetMapping("/{contract}/candles/range")
+    public ResponseEntity<?> getCandleRange(@PathVariable String contract,
+                                            @RequestParam(defaultValue = "1m") String interval,
+                                            @RequestParam(defaultValue = "0") long from,
+                                            @RequestParam(defaultValue = "" + Long.MAX_VALUE) long to,
+                                            @RequestParam(defaultValue = "" + CandleStickService.MAX_CANDLES) int limit,
+                                            @RequestParam(defaultValue = "json") String format) {
+        ColumnarEncoder.Format encoding = format(format);
+        String pair = resolve(contract);
+        int capped = Math.max(1, Math.min(limit, MAX_RANGE_CANDLES));
+        CandleColumns candles = candleStickService.getColumns(pair, interval, from, to, capped);
+        return switch (encoding) {
+            case JSON -> ResponseEntity.ok(candles.toCandles());
+            case COLUMNAR -> encoded(encoding, ColumnarEncoder.columnarJson(pair, interval, 0, candles, null));
+            case BINARY -> encoded(encoding, ColumnarEncoder.binary(0, candles, null));
+        };
+    }
+
+    /**
+     * Candles plus all indicators in one response, built once per series version and format
+     * and shared by every viewer. Answers 304 when {@code If-None-Match} still matches.
+     * {@code format} selects the encoding, see {@link ColumnarEncoder}.
+     */
+    @GetMapping("/{contract}/snapshot")
+    public ResponseEntity<byte[]> getSnapshot(@PathVariable String contract,
+                                              @RequestParam(defaultValue = "1m") String interval,
+                                              @RequestParam(defaultValue = "json") String format,
+                                              @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        ColumnarEncoder.Format encoding = format(format);
+        String pair = resolve(contract);
+        String etag = chartSnapshotService.currentETag(pair, interval, encoding);
+        if (etag != null && ifNoneMatch != null && ifNoneMatch.contains(etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).cacheControl(CacheControl.noCache()).build();
+        }
+        ChartSnapshotService.Snapshot snapshot = chartSnapshotService.snapshot(pair, interval, encoding);
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+            .contentType(mediaType(encoding))
+            .cacheControl(CacheControl.noCache())
+            .header(VERSION_HEADER, Long.toString(snapshot.version()));
+        if (snapshot.etag() != null) {
+            response.eTag(snapshot.etag());
+        }
+        return response.body(snapshot.body());
+    }
+
+    /**
+     * Immutable history segments currently available for the chart, and where the live tail starts.
+     */
+    @GetMapping("/{contract}/history")
+    public ResponseEntity<HistoryManifest> getHistoryManifest(@PathVariable String contract,
+                                                              @RequestParam(defaultValue = "1m") String interval) {
+        return ResponseEntity.ok()
+            .cacheControl(CacheControl.noCache())
+            .body(historySegmentService.manifest(resolve(contract), interval));
+    }
+
+    /**
+     * One sealed history segment. The bytes behind a URL never change, so it is cached for a year;
+     * a stale epoch or an unsealed segment is 404.
+     */
+    @GetMapping("/{contract}/history/{epoch}/{segment}")
+    public ResponseEntity<byte[]> getHistorySegment(@PathVariable String contract,
+                                                    @PathVariable String epoch,
+                                                    @PathVariable long segment,
+                                                    @RequestParam(defaultValue = "1m") String interval,
+                                                    @RequestParam(defaultValue = "binary") String format,
+                                                    @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding,
+                                                    @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        ColumnarEncoder.Format encoding = historyFormat(format);
+        HistorySegmentService.Segment body = historySegmentService.segment(resolve(contract), interval, epoch, segment, encoding);
+        if (body == null) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "No sealed segment " + segment + " in epoch " + epoch);
+        }
+        CacheControl immutable = CacheControl.maxAge(365, TimeUnit.DAYS).cachePublic().immutable();
+        if (ifNoneMatch != null && ifNoneMatch.contains(body.etag())) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(body.etag()).cacheControl(immutable).build();
+        }
+        boolean gzip = acceptEncoding != null && acceptEncoding.contains("gzip");
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+            .contentType(mediaType(encoding))
+            .cacheControl(immutable)
+            .eTag(body.etag())
+            .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        if (gzip) {
+            response.header(HttpHeaders.CONTENT_ENCODING, "gzip");
+        }
+        return response.body(gzip ? body.gzip() : body.uncompressed());
+    }
+
+    /**
+     * Bars after the last sealed segment, computed per request.
+     */
+    @GetMapping("/{contract}/history/tail")
+    public ResponseEntity<byte[]> getHistoryTail(@PathVariable String contract,
+                                                 @RequestParam(defaultValue = "1m") String interval,
+                                                 @RequestParam(defaultValue = "binary") String format) {
+        ColumnarEncoder.Format encoding = historyFormat(format);
+        HistorySegmentService.Tail tail = historySegmentService.tail(resolve(contract), interval, encoding);
+        return ResponseEntity.ok()
+            .contentType(mediaType(encoding))
+            .cacheControl(CacheControl.noCache())
+            .header(EPOCH_HEADER, tail.epoch())
+            .header(VERSION_HEADER, Long.toString(tail.version()))
+            .body(tail.body());
+    }
+
+    @GetMapping("/{contract}/smi")
+    public ResponseEntity<SMIResult> getSMI(@PathVariable String contract,
+                                            @RequestParam(defaultValue = "1m") String interval,
+                                            @RequestParam(defaultValue = "-1") long since) {
+        return versioned(indicatorEngine.smiChangedSince(resolve(contract), interval, since));
+    }
+
+    @GetMapping("/{contract}/ma-angles")
+    public ResponseEntity<MAAnglesResult> getMAAngles(@PathVariable String contract,
+                                                      @RequestParam(defaultValue = "1m") String interval,
+                                                      @RequestParam(defaultValue = "-1") long since) {
+        return versioned(indicatorEngine.maAnglesChangedSince(resolve(contract), interval, since));
+    }
+
+    @GetMapping("/{contract}/ema-cloud")
+    public ResponseEntity<EMACloudResult> getEMACloud(@PathVariable String contract,
+                                                      @RequestParam(defaultValue = "1m") String interval,
+                                                      @RequestParam(defaultValue = "-1") long since) {
+        return versioned(indicatorEngine.emaCloudChangedSince(resolve(contract), interval, since));
+    }
+
+    @PostMapping("/{contract}/interval")
+    public Map<String, String> changeInterval(@PathVariable String contract,
+                                              @RequestParam(defaultValue = "1m") String interval) {
+        String pair = resolve(contract);
+        if (!CandleStickService.isSupportedInterval(interval)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Unknown interval: " + interval);
+        }
+        webSocketClient.changeInterval(pair, interval);
+        return Map.of("status", "ok", "contract", pair, "interval", interval);
+    }
+
+    private static <T> ResponseEntity<T> versioned(SeriesDelta<T> delta) {
+        return versioned(delta, delta.data());
+    }
+
+    private static <T> ResponseEntity<T> versioned(SeriesDelta<?> delta, T body) {
+        return ResponseEntity.ok()
+            .header(VERSION_HEADER, Long.toString(delta.version()))
+            .header(RESET_HEADER, Boolean.toString(delta.reset()))
+            .body(body);
+    }
+
+    private static ResponseEntity<byte[]> encoded(ColumnarEncoder.Format format, byte[] body) {
+        return ResponseEntity.ok().contentType(mediaType(format)).body(body);
     }
 
-    @GetMapping("/btc/smi")
-    public SMIResult getBtcSMI(@RequestParam(defaultValue = "1m") String interval) {
-        return smiIndicatorService.calculate(candleStickService.getCandles("BTC_USDT", interval));
+    private static MediaType mediaType(ColumnarEncoder.Format format) {
+        return format == ColumnarEncoder.Format.BINARY ? MediaType.APPLICATION_OCTET_STREAM : MediaType.APPLICATION_JSON;
     }
 
-    @GetMapping("/btc/ma-angles")
-    public MAAnglesResult getBtcMAAngles(@RequestParam(defaultValue = "1m") String interval) {
-        return maAnglesIndicatorService.calculate(candleStickService.getCandles("BTC_USDT", interval));
+    private static ColumnarEncoder.Format format(String format) {
+        try {
+            return ColumnarEncoder.Format.parse(format);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Unknown format: " + format);
+        }
     }
 
-    @GetMapping("/btc/ema-cloud")
-    public EMACloudResult getBtcEMACloud(@RequestParam(defaultValue = "1m") String interval) {
-        return emaCloudIndicatorService.calculate(candleStickService.getCandles("BTC_USDT", interval));
+    private static ColumnarEncoder.Format historyFormat(String format) {
+        ColumnarEncoder.Format encoding = format(format);
+        if (encoding == ColumnarEncoder.Format.JSON) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "History is served as columnar or binary");
+        }
+        return encoding;
     }
 
-    @PostMapping("/btc/interval")
-    public Map<String, String> changeBtcInterval(@RequestParam(defaultValue = "1m") String interval) {
-        webSocketClient.changeInterval("BTC_USDT", interval);
-        return Map.of("status", "ok", "contract", "BTC_USDT", "interval", interval);
+    private String resolve(String contract) {
+        String pair = contractRegistry.resolve(contract);
+        if (pair == null) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Unknown contract: " + contract);
+        }
+        return pair;
     }
 }
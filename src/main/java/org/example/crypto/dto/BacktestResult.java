@@ -0,0 +1,31 @@
+package org.example.crypto.dto;
+
+import java.util.List;
+
+/**
+ * One replay of a contract's history through the signal strategies. Returns are fractions
+ * (0.01 = 1%) after fees; {@code maxDrawdown} is measured on equity marked to every close.
+ */
+public record BacktestResult(
+    String contract,
+    String interval,
+    long from,
+    long to,
+    int bars,
+    List<Signal> signals,
+    List<Trade> trades,
+    int wins,
+    int losses,
+    double totalReturn,
+    double maxDrawdown,
+    double profitFactor,
+    double elapsedMillis
+) {
+
+    /** {@code side} is LONG or SHORT, {@code strategy} 2 or 3. */
+    public record Signal(long time, String side, int strategy, double price, double smi, double jmaSlope) {}
+
+    /** A position from one signal to the opposite one, or to the last bar. */
+    public record Trade(String side, int strategy, long entryTime, double entryPrice,
+                        long exitTime, double exitPrice, double returnPct) {}
+}
@@ -0,0 +1,115 @@
+package org.example.crypto.dto;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Column-oriented candle data: one primitive array per field, oldest bar first.
+ * All arrays have the same length.
+ */
+public record CandleColumns(
+    long[] time,
+    double[] open,
+    double[] high,
+    double[] low,
+    double[] close,
+    long[] volume
+) {
+    public static final CandleColumns EMPTY =
+        new CandleColumns(new long[0], new double[0], new double[0], new double[0], new double[0], new long[0]);
+
+    public int size() {
+        return time.length;
+    }
+
+    public boolean isEmpty() {
+        return time.length == 0;
+    }
+
+    public CandleStick candle(int i) {
+        return new CandleStick(time[i], open[i], high[i], low[i], close[i], volume[i]);
+    }
+
+    public CandleStick last() {
+        return isEmpty() ? null : candle(size() - 1);
+    }
+
+    /**
+     * Bars {@code [from, to)} as new arrays.
+     */
+    public CandleColumns slice(int from, int to) {
+        if (from == 0 && to == size()) {
+            return this;
+        }
+        return new CandleColumns(
+            Arrays.copyOfRange(time, from, to),
+            Arrays.copyOfRange(open, from, to),
+            Arrays.copyOfRange(high, from, to),
+            Arrays.copyOfRange(low, from, to),
+            Arrays.copyOfRange(close, from, to),
+            Arrays.copyOfRange(volume, from, to)
+        );
+    }
+
+    /**
+     * Index of the first bar with {@code time >= t}, or {@link #size()} if there is none.
+     */
+    public int indexOf(long t) {
+        int i = Arrays.binarySearch(time, t);
+        return i >= 0 ? i : -i - 1;
+    }
+
+    public List<CandleStick> toCandles() {
+        List<CandleStick> list = new ArrayList<>(size());
+        for (int i = 0; i < size(); i++) {
+            list.add(candle(i));
+        }
+        return list;
+    }
+
+    /**
+     * {@code a} followed by {@code b}; the caller keeps times ascending.
+     */
+    public static CandleColumns concat(CandleColumns a, CandleColumns b) {
+        if (a.isEmpty()) return b;
+        if (b.isEmpty()) return a;
+        int n = a.size() + b.size();
+        long[] time = Arrays.copyOf(a.time, n);
+        double[] open = Arrays.copyOf(a.open, n);
+        double[] high = Arrays.copyOf(a.high, n);
+        double[] low = Arrays.copyOf(a.low, n);
+        double[] close = Arrays.copyOf(a.close, n);
+        long[] volume = Arrays.copyOf(a.volume, n);
+        System.arraycopy(b.time, 0, time, a.size(), b.size());
+        System.arraycopy(b.open, 0, open, a.size(), b.size());
+        System.arraycopy(b.high, 0, high, a.size(), b.size());
+        System.arraycopy(b.low, 0, low, a.size(), b.size());
+        System.arraycopy(b.close, 0, close, a.size(), b.size());
+        System.arraycopy(b.volume, 0, volume, a.size(), b.size());
+        return new CandleColumns(time, open, high, low, close, volume);
+    }
+
+    public static CandleColumns of(List<CandleStick> candles) {
+        if (candles == null || candles.isEmpty()) {
+            return EMPTY;
+        }
+        int size = candles.size();
+        long[] time = new long[size];
+        double[] open = new double[size];
+        double[] high = new double[size];
+        double[] low = new double[size];
+        double[] close = new double[size];
+        long[] volume = new long[size];
+        for (int i = 0; i < size; i++) {
+            CandleStick c = candles.get(i);
+            time[i] = c.time();
+            open[i] = c.open();
+            high[i] = c.high();
+            low[i] = c.low();
+            close[i] = c.close();
+            volume[i] = c.volume();
+        }
+        return new CandleColumns(time, open, high, low, close, volume);
+    }
+}
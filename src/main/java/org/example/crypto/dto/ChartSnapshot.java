@@ -0,0 +1,16 @@
+package org.example.crypto.dto;
+
+import java.util.List;
+
+/**
+ * Candles and every indicator of one contract/interval as of a single series version.
+ */
+public record ChartSnapshot(
+    String contract,
+    String interval,
+    long version,
+    List<CandleStick> candles,
+    SMIResult smi,
+    MAAnglesResult maAngles,
+    EMACloudResult emaCloud
+) {}
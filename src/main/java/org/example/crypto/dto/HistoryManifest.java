@@ -0,0 +1,16 @@
+package org.example.crypto.dto;
+
+import java.util.List;
+
+/**
+ * Which immutable history segments make up a chart right now, and where its live tail begins.
+ * Segment ids are only valid together with {@code epoch}.
+ */
+public record HistoryManifest(
+    String contract,
+    String interval,
+    String epoch,
+    int segmentBars,
+    List<Long> segments,
+    long tailFrom
+) {}
@@ -0,0 +1,34 @@
+package org.example.crypto.dto;
+
+import java.util.Arrays;
+
+/**
+ * Indicator values aligned index for index with the candle series they were computed from,
+ * oldest bar first. {@code NaN} marks a bar without a value (warmup, or too little history).
+ * {@code ma27Trend} is 1 while the MA27 rises, -1 while it falls and 0 otherwise.
+ */
+public record IndicatorColumns(
+    long[] time,
+    double[] smi,
+    double[] signal,
+    double[] fastEma,
+    double[] slowEma,
+    double[] jmaSlope,
+    byte[] ma27Trend
+) {
+    public static final IndicatorColumns EMPTY =
+        new IndicatorColumns(new long[0], new double[0], new double[0], new double[0], new double[0], new double[0],
+            new byte[0]);
+
+    public int size() {
+        return time.length;
+    }
+
+    /**
+     * Index of the bar at {@code t}, or -1.
+     */
+    public int indexOf(long t) {
+        int i = Arrays.binarySearch(time, t);
+        return i >= 0 ? i : -1;
+    }
+}
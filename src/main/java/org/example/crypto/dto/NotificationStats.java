@@ -0,0 +1,13 @@
+package org.example.crypto.dto;
+
+public record NotificationStats(
+    String channel,
+    boolean enabled,
+    int queueDepth,
+    long delivered,
+    long failed,
+    long dropped,
+    long retries,
+    double avgLatencyMillis,
+    double maxLatencyMillis
+) {}
@@ -0,0 +1,14 @@
+package org.example.crypto.dto;
+
+import java.util.Map;
+
+public record PriceStreamStats(
+    int subscribers,
+    Map<String, Integer> subscribersByContract,
+    long eventsPublished,
+    long framesSent,
+    long framesSkipped,
+    long clientsEvicted,
+    double avgSendMicros,
+    double maxSendMicros
+) {}
@@ -0,0 +1,14 @@
+package org.example.crypto.dto;
+
+/**
+ * The part of a series that changed after a client's cursor.
+ *
+ * {@code version} is the cursor for the next request. When {@code reset} is true,
+ * {@code data} holds the whole series and the client must replace what it has; otherwise
+ * it holds only the bars written since the cursor, which replace any bars with the same time.
+ */
+public record SeriesDelta<T>(
+    long version,
+    boolean reset,
+    T data
+) {}
@@ -0,0 +1,27 @@
+package org.example.crypto.dto;
+
+import java.util.List;
+
+public record SignalDetectionStats(
+    long evaluations,
+    long signals,
+    double avgEvaluationMicros,
+    double avgSignalLatencyMicros,
+    double maxSignalLatencyMicros,
+    long deadlineMillis,
+    List<Shard> shards
+) {
+
+    /**
+     * Latency is measured from the candle update to the end of its evaluation; an overrun is an
+     * evaluation that ended after the deadline.
+     */
+    public record Shard(
+        int shard,
+        int contracts,
+        long evaluations,
+        long overruns,
+        double avgLatencyMicros,
+        double maxLatencyMicros
+    ) {}
+}
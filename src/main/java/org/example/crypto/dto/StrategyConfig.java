@@ -0,0 +1,37 @@
+package org.example.crypto.dto;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Signal strategies as declared in {@code strategies.json} (or {@code crypto.strategies-file}).
+ *
+ * Strategies are grouped, and a group fires at most once per episode: on each bar the enabled
+ * strategy with the lowest {@code priority} whose conditions all hold fires, then the group
+ * stays quiet until its {@code rearm} condition holds (a group without one is re-armed on
+ * every bar). Nothing fires before {@code minBars} bars. {@code params} are named numbers the
+ * conditions refer to as {@code $name}; backtest sweeps override {@code oversold},
+ * {@code overbought} and {@code minDwell}.
+ */
+public record StrategyConfig(Integer minBars, Map<String, Double> params, List<Group> groups) {
+
+    /** {@code side} is LONG or SHORT; {@code label} describes the setup in notifications. */
+    public record Group(String name, String side, String label, Condition rearm, List<Strategy> strategies) {}
+
+    /**
+     * {@code id} is unique among the strategies of one side; {@code priority} defaults to the list
+     * position, {@code enabled} to true.
+     */
+    public record Strategy(int id, Integer priority, Boolean enabled, List<Condition> when) {}
+
+    /**
+     * {@code left op right}. Operands are an indicator series ({@code smi}, {@code signal},
+     * {@code fastEma}, {@code slowEma}, {@code jmaSlope}, with {@code [n]} for the value n bars
+     * back), a number or a {@code $param}. {@code op} is one of {@code > >= < <=},
+     * {@code crossesAbove} or {@code crossesBelow}; a comparison with NaN never holds. {@code dwell} requires the comparison to have held for that many bars in a
+     * row, this one included; {@code turn} additionally requires {@code left} to have come off
+     * its extreme of that run (above its low for {@code <}/{@code <=}, below its high for
+     * {@code >}/{@code >=}).
+     */
+    public record Condition(String left, String op, String right, String dwell, Boolean turn) {}
+}
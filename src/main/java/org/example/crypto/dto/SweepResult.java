@@ -0,0 +1,38 @@
+package org.example.crypto.dto;
+
+import java.util.List;
+
+/**
+ * A parameter sweep over one history, best combination first. {@code combinations} counts every
+ * setting evaluated; only the top ones with enough trades are listed.
+ */
+public record SweepResult(
+    String contract,
+    String interval,
+    int bars,
+    int combinations,
+    String rankBy,
+    double elapsedMillis,
+    List<Row> rows
+) {
+
+    /** Settings of one combination and its backtest statistics (see {@link BacktestResult}). */
+    public record Row(
+        int rank,
+        int percentKLength,
+        int smoothPeriod,
+        int fastLength,
+        int slowLength,
+        int jmaLength,
+        int jmaPhase,
+        double oversold,
+        double overbought,
+        int minDwell,
+        int trades,
+        double winRate,
+        double totalReturn,
+        double maxDrawdown,
+        double profitFactor,
+        double score
+    ) {}
+}
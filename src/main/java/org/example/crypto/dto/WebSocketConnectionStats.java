@@ -0,0 +1,12 @@
+package org.example.crypto.dto;
+
+public record WebSocketConnectionStats(
+    int connection,
+    boolean open,
+    int contracts,
+    long frames,
+    double framesPerSecond,
+    long reconnects,
+    long lastFrameAgeMillis,
+    long downMillis
+) {}
@@ -0,0 +1,179 @@
+package org.example.crypto.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.example.crypto.dto.BacktestResult;
+import org.example.crypto.dto.CandleColumns;
+import org.example.crypto.dto.SweepResult;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Runs {@link Backtester} replays for many contracts and time ranges at once, and
+ * {@link ParameterSweep}s, on a dedicated fork-join pool, so backtests never compete with the
+ * common pool used by the request threads. Histories come from
+ * {@link CandleStickService#getColumns(String, String, long, long, int)}: the on-disk archive
+ * followed by the live series.
+ */
+@Service
+public class BacktestService {
+
+    private static final Logger log = LoggerFactory.getLogger(BacktestService.class);
+    // bars loaded per job, about 48 MB of columns
+    static final int MAX_BARS = 1_000_000;
+
+    @Value("${crypto.backtest.parallelism:0}")
+    private int parallelism = 0;
+
+    private final CandleStickService candleStickService;
+    private final StrategyService strategyService;
+    private volatile ForkJoinPool pool;
+
+    public BacktestService(CandleStickService candleStickService, StrategyService strategyService) {
+        this.candleStickService = candleStickService;
+        this.strategyService = strategyService;
+    }
+
+    /**
+     * One replay: bars with {@code from <= time <= to} (epoch seconds), newest
+     * {@link #MAX_BARS} kept.
+     */
+    public record Job(String contract, String interval, long from, long to) {}
+
+    /**
+     * The values to try per parameter; a null or empty list means the live setting only
+     * ({@code oversold}, {@code overbought} and {@code minDwell} are the live strategies' params;
+     * sweeping one they do not declare is rejected).
+     * {@code samples > 0} draws that many combinations at random instead of the whole grid.
+     * Results are ranked by {@code rankBy} (return, profit-factor or return-over-drawdown),
+     * combinations with fewer than {@code minTrades} trades left out, the best {@code top} kept.
+     */
+    public record Sweep(
+        List<Integer> percentKLength,
+        List<Integer> smoothPeriod,
+        List<Integer> fastLength,
+        List<Integer> slowLength,
+        List<Integer> jmaLength,
+        List<Integer> jmaPhase,
+        List<Double> oversold,
+        List<Double> overbought,
+        List<Integer> minDwell,
+        double feeRate,
+        int samples,
+        long seed,
+        String rankBy,
+        int minTrades,
+        int top
+    ) {
+
+        public Sweep {
+            IndicatorSettings live = IndicatorSettings.DEFAULT;
+            percentKLength = orDefault(percentKLength, live.percentKLength());
+            smoothPeriod = orDefault(smoothPeriod, live.smoothPeriod());
+            fastLength = orDefault(fastLength, live.fastLength());
+            slowLength = orDefault(slowLength, live.slowLength());
+            jmaLength = orDefault(jmaLength, live.jmaLength());
+            jmaPhase = orDefault(jmaPhase, live.jmaPhase());
+            oversold = orEmpty(oversold);
+            overbought = orEmpty(overbought);
+            minDwell = orEmpty(minDwell);
+        }
+
+        private static <T> List<T> orDefault(List<T> values, T live) {
+            return values == null || values.isEmpty() ? List.of(live) : List.copyOf(values);
+        }
+
+        private static <T> List<T> orEmpty(List<T> values) {
+            return values == null ? List.of() : List.copyOf(values);
+        }
+    }
+
+    @PostConstruct
+    public void init() {
+        pool = new ForkJoinPool(parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (pool != null) {
+            pool.shutdownNow();
+        }
+    }
+
+    /**
+     * Runs every job with the live strategies; results are in job order.
+     */
+    public List<BacktestResult> run(List<Job> jobs, double feeRate) {
+        return run(jobs, Backtester.Config.of(strategyService.config()).withFeeRate(feeRate));
+    }
+
+    List<BacktestResult> run(List<Job> jobs, Backtester.Config config) {
+        if (jobs.isEmpty()) {
+            return List.of();
+        }
+        long started = System.nanoTime();
+        List<BacktestResult> results = pool.invoke(new Batch(jobs, 0, jobs.size(), config));
+        if (log.isInfoEnabled()) {
+            long bars = results.stream().mapToLong(BacktestResult::bars).sum();
+            double millis = (System.nanoTime() - started) / 1e6;
+            log.info("Backtested {} job(s), {} bars in {} ms", jobs.size(), bars, String.format("%.1f", millis));
+        }
+        return results;
+    }
+
+    /**
+     * Sweeps one job's history; throws {@link IllegalArgumentException} for an invalid sweep.
+     */
+    public SweepResult sweep(Job job, Sweep sweep) {
+        CandleColumns candles = candleStickService.getColumns(job.contract(), job.interval(), job.from(), job.to(), MAX_BARS);
+        Backtester.Config live = Backtester.Config.of(strategyService.config());
+        SweepResult result = pool.invoke(ForkJoinTask.adapt(() ->
+            ParameterSweep.run(job.contract(), job.interval(), candles, sweep, live)));
+        log.info("Swept {} combination(s) over {} bars of {} in {} ms", result.combinations(), result.bars(),
+            job.contract(), String.format("%.1f", result.elapsedMillis()));
+        return result;
+    }
+
+    private BacktestResult replay(Job job, Backtester.Config config) {
+        CandleColumns candles = candleStickService.getColumns(job.contract(), job.interval(), job.from(), job.to(), MAX_BARS);
+        return Backtester.run(job.contract(), job.interval(), candles, config);
+    }
+
+    // splits the job list in halves until one job is left
+    private final class Batch extends RecursiveTask<List<BacktestResult>> {
+        private final List<Job> jobs;
+        private final int from;
+        private final int to;
+        private final Backtester.Config config;
+
+        Batch(List<Job> jobs, int from, int to, Backtester.Config config) {
+            this.jobs = jobs;
+            this.from = from;
+            this.to = to;
+            this.config = config;
+        }
+
+        @Override
+        protected List<BacktestResult> compute() {
+            if (to - from == 1) {
+                return List.of(replay(jobs.get(from), config));
+            }
+            int mid = (from + to) >>> 1;
+            Batch left = new Batch(jobs, from, mid, config);
+            left.fork();
+            List<BacktestResult> right = new Batch(jobs, mid, to, config).compute();
+            List<BacktestResult> results = new ArrayList<>(to - from);
+            results.addAll(left.join());
+            results.addAll(right);
+            return results;
+        }
+    }
+}
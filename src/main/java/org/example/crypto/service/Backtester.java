@@ -0,0 +1,226 @@
+package org.example.crypto.service;
+
+import org.example.crypto.dto.BacktestResult;
+import org.example.crypto.dto.BacktestResult.Signal;
+import org.example.crypto.dto.BacktestResult.Trade;
+import org.example.crypto.dto.CandleColumns;
+import org.example.crypto.dto.StrategyConfig;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Replays a candle history through the signal strategies ({@link StrategyProgram}) and trades
+ * every signal: a position opens at the close of its signal bar, is reversed by the opposite
+ * signal and closed at the last bar.
+ *
+ * Bars are streamed once through a one-slot {@link IndicatorState} and a
+ * {@link StrategyProgram.Machine}, so a replay is O(1) per bar and allocates only for signals
+ * and trades. Every bar is evaluated once, as closed: live detection also evaluates a bar while
+ * it is still forming and withdraws a signal if the bar closes outside the rules, which cannot
+ * happen on closed bars.
+ */
+final class Backtester {
+
+    static final String LONG = "LONG";
+    static final String SHORT = "SHORT";
+
+    /**
+     * Indicator settings, the strategies with their {@code oversold}, {@code overbought} and
+     * {@code minDwell} params overridden, and the fee charged per side as a fraction of the
+     * notional.
+     */
+    record Config(IndicatorSettings indicators, StrategyConfig strategies, double oversold, double overbought,
+                  int minDwell, double feeRate) {
+
+        static final Config DEFAULT = of(StrategyProgram.builtIn());
+
+        /**
+         * Live indicator settings and the strategies' own params.
+         */
+        static Config of(StrategyConfig strategies) {
+            Map<String, Double> params = strategies.params() != null ? strategies.params() : Map.of();
+            return new Config(IndicatorSettings.DEFAULT, strategies,
+                params.getOrDefault("oversold", Double.NaN),
+                params.getOrDefault("overbought", Double.NaN),
+                params.getOrDefault("minDwell", 0.0).intValue(),
+                0.0005);
+        }
+
+        Config withFeeRate(double feeRate) {
+            return new Config(indicators, strategies, oversold, overbought, minDwell, feeRate);
+        }
+
+        StrategyProgram program() {
+            Map<String, Double> declared = strategies.params() != null ? strategies.params() : Map.of();
+            Map<String, Double> overrides = new HashMap<>();
+            // params the strategies do not declare keep their placeholders and are not overridden
+            if (declared.containsKey("oversold")) overrides.put("oversold", oversold);
+            if (declared.containsKey("overbought")) overrides.put("overbought", overbought);
+            if (declared.containsKey("minDwell")) overrides.put("minDwell", (double) minDwell);
+            return StrategyProgram.compile(strategies, overrides);
+        }
+    }
+
+    /**
+     * Trade statistics of one replay, without the logs.
+     */
+    record Stats(int trades, int wins, int losses, double totalReturn, double maxDrawdown, double profitFactor) {}
+
+    private Backtester() {
+    }
+
+    static BacktestResult run(String contract, String interval, CandleColumns candles, Config config) {
+        long started = System.nanoTime();
+        int n = candles.size();
+        long[] time = candles.time();
+        double[] high = candles.high();
+        double[] low = candles.low();
+        double[] close = candles.close();
+
+        IndicatorState state = new IndicatorState(1, config.indicators());
+        double[] out = new double[5];
+        Replay replay = new Replay(config, true);
+        for (int i = 0; i < n; i++) {
+            state.update(i, true, time[i], high[i], low[i], close[i]);
+            state.latest(out);
+            replay.step(time[i], close[i], out[0], out[1], out[2], out[3], out[4]);
+        }
+        if (n > 0) {
+            replay.ledger.close(time[n - 1], close[n - 1]);
+        }
+
+        Stats stats = replay.ledger.stats();
+        return new BacktestResult(
+            contract,
+            interval,
+            n > 0 ? time[0] : 0,
+            n > 0 ? time[n - 1] : 0,
+            n,
+            replay.signals,
+            replay.ledger.trades,
+            stats.wins(),
+            stats.losses(),
+            stats.totalReturn(),
+            stats.maxDrawdown(),
+            stats.profitFactor(),
+            (System.nanoTime() - started) / 1e6
+        );
+    }
+
+    /**
+     * Replays indicator columns computed beforehand with {@code config.indicators()}, keeping no
+     * logs. Lets many rule settings share one indicator pass.
+     */
+    static Stats evaluate(long[] time, double[] close, double[] smi, double[] signal, double[] fastEma,
+                          double[] slowEma, double[] jmaSlope, Config config) {
+        int n = time.length;
+        Replay replay = new Replay(config, false);
+        for (int i = 0; i < n; i++) {
+            replay.step(time[i], close[i], smi[i], signal[i], fastEma[i], slowEma[i], jmaSlope[i]);
+        }
+        if (n > 0) {
+            replay.ledger.close(time[n - 1], close[n - 1]);
+        }
+        return replay.ledger.stats();
+    }
+
+    // the strategy state carried from bar to bar
+    private static final class Replay {
+        final StrategyProgram program;
+        final StrategyProgram.Machine machine;
+        final double[] bar = new double[StrategyProgram.SERIES];
+        final Ledger ledger;
+        final List<Signal> signals;
+
+        Replay(Config config, boolean logs) {
+            this.program = config.program();
+            this.machine = program.newMachine();
+            this.ledger = new Ledger(config.feeRate(), logs);
+            this.signals = logs ? new ArrayList<>() : null;
+        }
+
+        void step(long time, double close, double smi, double signal, double fast, double slow, double slope) {
+            ledger.mark(close);
+            bar[StrategyProgram.SMI] = smi;
+            bar[StrategyProgram.SIGNAL] = signal;
+            bar[StrategyProgram.FAST_EMA] = fast;
+            bar[StrategyProgram.SLOW_EMA] = slow;
+            bar[StrategyProgram.JMA_SLOPE] = slope;
+            int[] fired = machine.advance(bar);
+            for (int g = 0; g < fired.length; g++) {
+                int strategy = fired[g];
+                if (strategy == StrategyProgram.NONE) continue;
+                int side = program.side(g);
+                if (signals != null) {
+                    signals.add(new Signal(time, side > 0 ? LONG : SHORT, strategy, close, smi, slope));
+                }
+                ledger.signal(side, strategy, time, close);
+            }
+        }
+    }
+
+    // at most one open position; equity compounds trade by trade starting from 1
+    private static final class Ledger {
+        final double feeRate;
+        final List<Trade> trades;
+        int side;
+        int strategy;
+        long entryTime;
+        double entryPrice;
+        double equity = 1;
+        double peak = 1;
+        double maxDrawdown;
+        double grossWin;
+        double grossLoss;
+        int wins;
+        int losses;
+
+        Ledger(double feeRate, boolean logs) {
+            this.feeRate = feeRate;
+            this.trades = logs ? new ArrayList<>() : null;
+        }
+
+        void mark(double price) {
+            double value = side == 0 ? equity : equity * (1 + side * (price / entryPrice - 1));
+            if (value > peak) {
+                peak = value;
+            } else if (1 - value / peak > maxDrawdown) {
+                maxDrawdown = 1 - value / peak;
+            }
+        }
+
+        void signal(int direction, int strategy, long time, double price) {
+            if (side == direction) return;
+            close(time, price);
+            side = direction;
+            this.strategy = strategy;
+            entryTime = time;
+            entryPrice = price;
+        }
+
+        void close(long time, double price) {
+            if (side == 0) return;
+            double ret = side * (price / entryPrice - 1) - 2 * feeRate;
+            if (trades != null) {
+                trades.add(new Trade(side > 0 ? LONG : SHORT, strategy, entryTime, entryPrice, time, price, ret));
+            }
+            equity *= 1 + ret;
+            if (ret > 0) {
+                wins++;
+                grossWin += ret;
+            } else {
+                losses++;
+                grossLoss -= ret;
+            }
+            side = 0;
+        }
+
+        Stats stats() {
+            double profitFactor = grossLoss > 0 ? grossWin / grossLoss : grossWin > 0 ? Double.POSITIVE_INFINITY : 0;
+            return new Stats(wins + losses, wins, losses, equity - 1, maxDrawdown, profitFactor);
+        }
+    }
+}
@@ -0,0 +1,305 @@
+package org.example.crypto.service;
+
+import jakarta.annotation.PreDestroy;
+import org.example.crypto.dto.CandleColumns;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Derives higher-interval bars (3m ... 1d) from the live 1m series, so every interval of a
+ * contract stays hot off a single websocket subscription.
+ *
+ * Each derived bar is the closed 1m bars of its bucket folded together plus the 1m bar that
+ * is still forming, re-emitted on every 1m update. Buckets are aligned to the epoch in UTC,
+ * like Gate.io's own candles. When the 1m history is (re)loaded, derived series are
+ * backfilled from the REST API where Gate.io offers the interval, with the roll-up of the
+ * 1m history taking over from the first bucket it covers completely.
+ *
+ * Backfills run one contract at a time, and reloads of a contract queued before its backfill
+ * starts share one run. An interval whose series already holds enough bars older than the
+ * roll-up, as after a reconnect, keeps those instead of fetching; the fetches that remain are
+ * spaced by {@code crypto.candles.rest-interval-millis}.
+ */
+@Service
+public class CandleAggregator implements CandleUpdateListener {
+
+    private static final Logger log = LoggerFactory.getLogger(CandleAggregator.class);
+    static final String BASE_INTERVAL = "1m";
+
+    private static final String[] INTERVALS = {"3m", "5m", "10m", "15m", "30m", "1h", "4h", "8h", "1d"};
+    private static final long[] SECONDS = {180, 300, 600, 900, 1_800, 3_600, 14_400, 28_800, 86_400};
+    // Gate.io has no REST candles for 3m and 10m; those are built from 1m history only
+    private static final boolean[] REST_HISTORY = {false, true, false, true, true, true, true, true, true};
+
+    private final CandleStickService candleStickService;
+    // contract -> one roll-up per derived interval, guarded by the contract's 1m series monitor
+    private final Map<String, Rollup[]> rollups = new ConcurrentHashMap<>();
+    private final ExecutorService backfillExecutor = Executors.newSingleThreadExecutor();
+    // contracts with a backfill queued but not started
+    private final Set<String> pendingBackfills = ConcurrentHashMap.newKeySet();
+    // backfill thread only
+    private long lastFetchNanos;
+
+    @Value("${crypto.candles.rest-interval-millis:250}")
+    private long restIntervalMillis = 250;
+
+    public CandleAggregator(CandleStickService candleStickService) {
+        this.candleStickService = candleStickService;
+        candleStickService.addListener(this);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        backfillExecutor.shutdownNow();
+    }
+
+    /**
+     * True if {@code interval} is derived from 1m bars rather than subscribed separately.
+     */
+    public static boolean derives(String interval) {
+        return indexOf(interval) >= 0;
+    }
+
+    @Override
+    public void onCandleUpdated(String contract, String interval, CandleSeries series, boolean appended,
+                                long time, double open, double high, double low, double close, long volume) {
+        if (!BASE_INTERVAL.equals(interval)) {
+            return;
+        }
+        Rollup[] state = rollups.get(contract);
+        if (state == null) {
+            // series already contains this bar
+            state = rebuild(contract, series.snapshot());
+        } else {
+            for (Rollup rollup : state) {
+                rollup.add(time, open, high, low, close, volume);
+            }
+        }
+        for (Rollup rollup : state) {
+            rollup.emit(candleStickService, contract);
+        }
+    }
+
+    @Override
+    public void onCandlesReloaded(String contract, String interval, CandleSeries series, CandleColumns candles) {
+        if (!BASE_INTERVAL.equals(interval)) {
+            return;
+        }
+        rebuild(contract, candles);
+        if (pendingBackfills.add(contract)) {
+            backfillExecutor.execute(() -> {
+                // a reload from here on needs a run of its own
+                pendingBackfills.remove(contract);
+                backfill(contract);
+            });
+        }
+    }
+
+    @Override
+    public void onSeriesRemoved(String contract) {
+        rollups.remove(contract);
+    }
+
+    /**
+     * Folds 1m bars into bars of {@code seconds}, oldest first. The first bar may be partial.
+     */
+    static CandleColumns rollUp(CandleColumns minutes, long seconds) {
+        Rollup rollup = new Rollup(null, seconds);
+        int n = minutes.size();
+        long[] t = new long[n];
+        double[] o = new double[n];
+        double[] h = new double[n];
+        double[] l = new double[n];
+        double[] c = new double[n];
+        long[] v = new long[n];
+        int count = 0;
+        for (int i = 0; i < n; i++) {
+            rollup.add(minutes.time()[i], minutes.open()[i], minutes.high()[i],
+                minutes.low()[i], minutes.close()[i], minutes.volume()[i]);
+            if (count == 0 || t[count - 1] != rollup.bucket) {
+                count++;
+            }
+            int k = count - 1;
+            t[k] = rollup.bucket;
+            o[k] = rollup.open();
+            h[k] = rollup.high();
+            l[k] = rollup.low();
+            c[k] = rollup.liveClose;
+            v[k] = rollup.volume();
+        }
+        return new CandleColumns(t, o, h, l, c, v).slice(0, count);
+    }
+
+    // caller holds the 1m series monitor
+    private Rollup[] rebuild(String contract, CandleColumns minutes) {
+        Rollup[] state = new Rollup[INTERVALS.length];
+        for (int k = 0; k < state.length; k++) {
+            state[k] = new Rollup(INTERVALS[k], SECONDS[k]);
+        }
+        for (int i = 0; i < minutes.size(); i++) {
+            for (Rollup rollup : state) {
+                rollup.add(minutes.time()[i], minutes.open()[i], minutes.high()[i],
+                    minutes.low()[i], minutes.close()[i], minutes.volume()[i]);
+            }
+        }
+        rollups.put(contract, state);
+        return state;
+    }
+
+    private void backfill(String contract) {
+        int fetched = 0;
+        for (int k = 0; k < INTERVALS.length; k++) {
+            String interval = INTERVALS[k];
+            CandleSeries minutes = candleStickService.findSeries(contract, BASE_INTERVAL);
+            if (minutes == null) {
+                // contract removed meanwhile
+                return;
+            }
+            // bars the series already has, kept where the roll-up does not reach
+            CandleColumns history = candleStickService.getColumns(contract, interval);
+            CandleColumns base = minutes.snapshot();
+            boolean covered = merge(history, rollUp(base, SECONDS[k]), base).size() >= CandleStickService.MAX_CANDLES;
+            if (REST_HISTORY[k] && !covered) {
+                try {
+                    pace();
+                    history = candleStickService.fetchCandles(contract, interval);
+                    fetched++;
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                } catch (Exception e) {
+                    log.warn("Failed to fetch {} history for {}, using the bars held and the 1m roll-up", interval, contract, e);
+                }
+            }
+            // under the 1m monitor so no live update lands between the roll-up and the replace
+            synchronized (minutes) {
+                base = minutes.snapshot();
+                CandleColumns rolled = rollUp(base, SECONDS[k]);
+                candleStickService.replaceCandles(contract, interval, merge(history, rolled, base));
+            }
+        }
+        log.info("Backfilled derived intervals for {} ({} fetched)", contract, fetched);
+    }
+
+    // keeps at least restIntervalMillis between two REST requests
+    private void pace() throws InterruptedException {
+        long gap = TimeUnit.MILLISECONDS.toNanos(restIntervalMillis);
+        long wait = lastFetchNanos + gap - System.nanoTime();
+        if (gap > 0 && lastFetchNanos != 0 && wait > 0) {
+            TimeUnit.NANOSECONDS.sleep(wait);
+        }
+        lastFetchNanos = System.nanoTime();
+    }
+
+    // history bars before the first bucket the 1m history covers completely, roll-up from there
+    private static CandleColumns merge(CandleColumns history, CandleColumns rolled, CandleColumns minutes) {
+        if (rolled.isEmpty()) {
+            return history;
+        }
+        int from = rolled.time()[0] == minutes.time()[0] ? 0 : 1;
+        if (from >= rolled.size()) {
+            return history;
+        }
+        CandleColumns older = history.slice(0, history.indexOf(rolled.time()[from]));
+        return CandleColumns.concat(older, rolled.slice(from, rolled.size()));
+    }
+
+    private static int indexOf(String interval) {
+        for (int k = 0; k < INTERVALS.length; k++) {
+            if (INTERVALS[k].equals(interval)) {
+                return k;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * One derived bar in progress: closed 1m bars of the bucket folded into {@code c*},
+     * the forming 1m bar in {@code live*}.
+     */
+    private static final class Rollup {
+        final String interval;
+        final long seconds;
+        long bucket = Long.MIN_VALUE;
+
+        boolean committed;
+        double cOpen;
+        double cHigh;
+        double cLow;
+        long cVolume;
+
+        long liveTime = Long.MIN_VALUE;
+        double liveOpen;
+        double liveHigh;
+        double liveLow;
+        double liveClose;
+        long liveVolume;
+
+        Rollup(String interval, long seconds) {
+            this.interval = interval;
+            this.seconds = seconds;
+        }
+
+        void add(long time, double open, double high, double low, double close, long volume) {
+            if (time != liveTime) {
+                long b = time - Math.floorMod(time, seconds);
+                if (b != bucket) {
+                    bucket = b;
+                    committed = false;
+                    cVolume = 0;
+                } else if (liveTime != Long.MIN_VALUE) {
+                    commitLive();
+                }
+                liveTime = time;
+            }
+            liveOpen = open;
+            liveHigh = high;
+            liveLow = low;
+            liveClose = close;
+            liveVolume = volume;
+        }
+
+        private void commitLive() {
+            if (!committed) {
+                cOpen = liveOpen;
+                cHigh = liveHigh;
+                cLow = liveLow;
+                committed = true;
+            } else {
+                cHigh = Math.max(cHigh, liveHigh);
+                cLow = Math.min(cLow, liveLow);
+            }
+            cVolume += liveVolume;
+        }
+
+        double open() {
+            return committed ? cOpen : liveOpen;
+        }
+
+        double high() {
+            return committed ? Math.max(cHigh, liveHigh) : liveHigh;
+        }
+
+        double low() {
+            return committed ? Math.min(cLow, liveLow) : liveLow;
+        }
+
+        long volume() {
+            return cVolume + liveVolume;
+        }
+
+        void emit(CandleStickService candleStickService, String contract) {
+            if (liveTime == Long.MIN_VALUE) return;
+            candleStickService.updateCandle(contract, interval, bucket, open(), high(), low(), liveClose, volume());
+        }
+    }
+}
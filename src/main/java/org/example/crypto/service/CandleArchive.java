@@ -0,0 +1,255 @@
+package org.example.crypto.service;
+
+import jakarta.annotation.PreDestroy;
+import org.example.crypto.dto.CandleColumns;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Persists closed candles of every contract/interval to {@link CandleFile}s under
+ * {@code crypto.history.dir}, one file per {@code <contract>/<interval>.bin}.
+ *
+ * A bar is written once the next bar of its series appears, so the file only ever holds
+ * bars that have closed. A reload writes all its closed bars, replacing stored ones at the same
+ * time and filling in missing ones: after a websocket outage the backfilled gap, and the bar
+ * that was still forming when the connection dropped, reach the file even though newer live
+ * bars were written first. Leave {@code crypto.history.dir} empty to disable persistence.
+ * Only well-formed contract names and supported intervals get a file, always under that
+ * directory.
+ *
+ * The listener callbacks run on the websocket thread under the series monitor, so they only
+ * track the forming bar and queue the closed ones; opening, creating and writing the files
+ * happens on a single writer thread, which keeps every series' writes in order. Reads open the
+ * file on the calling thread and see the bars written so far.
+ */
+@Service
+public class CandleArchive implements CandleUpdateListener {
+
+    private static final Logger log = LoggerFactory.getLogger(CandleArchive.class);
+
+    @Value("${crypto.history.dir:}")
+    private String historyDir;
+
+    // contract -> interval -> track
+    private final Map<String, Map<String, Track>> tracks = new ConcurrentHashMap<>();
+    private final ExecutorService writer = Executors.newSingleThreadExecutor(r -> new Thread(r, "candle-archive-writer"));
+
+    public CandleArchive() {
+    }
+
+    public CandleArchive(String historyDir) {
+        this.historyDir = historyDir;
+    }
+
+    public boolean isEnabled() {
+        return historyDir != null && !historyDir.isBlank();
+    }
+
+    /**
+     * The newest {@code limit} stored bars, or {@link CandleColumns#EMPTY}.
+     */
+    public CandleColumns tail(String contract, String interval, int limit) {
+        CandleFile file = file(contract, interval);
+        return file != null ? file.tail(limit) : CandleColumns.EMPTY;
+    }
+
+    /**
+     * Stored bars with {@code from <= time <= to}, newest {@code limit} kept.
+     */
+    public CandleColumns range(String contract, String interval, long from, long to, int limit) {
+        CandleFile file = file(contract, interval);
+        return file != null ? file.range(from, to, limit) : CandleColumns.EMPTY;
+    }
+
+    @Override
+    public void onCandleUpdated(String contract, String interval, CandleSeries series, boolean appended,
+                                long time, double open, double high, double low, double close, long volume) {
+        Track track = track(contract, interval);
+        if (track == null) return;
+        if (appended && track.pendingTime != Long.MIN_VALUE && track.pendingTime < time) {
+            // the previous bar just closed
+            long t = track.pendingTime;
+            double o = track.pendingOpen;
+            double h = track.pendingHigh;
+            double l = track.pendingLow;
+            double c = track.pendingClose;
+            long v = track.pendingVolume;
+            submit(() -> track.write(t, o, h, l, c, v));
+        }
+        track.pendingTime = time;
+        track.pendingOpen = open;
+        track.pendingHigh = high;
+        track.pendingLow = low;
+        track.pendingClose = close;
+        track.pendingVolume = volume;
+    }
+
+    @Override
+    public void onCandlesReloaded(String contract, String interval, CandleSeries series, CandleColumns candles) {
+        Track track = track(contract, interval);
+        if (track == null || candles.isEmpty()) return;
+        int last = candles.size() - 1;
+        // every bar but the last is closed; listeners never modify the reloaded columns
+        submit(() -> track.merge(candles.slice(0, last)));
+        track.pendingTime = candles.time()[last];
+        track.pendingOpen = candles.open()[last];
+        track.pendingHigh = candles.high()[last];
+        track.pendingLow = candles.low()[last];
+        track.pendingClose = candles.close()[last];
+        track.pendingVolume = candles.volume()[last];
+    }
+
+    @Override
+    public void onSeriesRemoved(String contract) {
+        Map<String, Track> byInterval = tracks.remove(contract);
+        if (byInterval != null) {
+            // after the writes already queued for the contract
+            submit(() -> byInterval.values().forEach(Track::close));
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        writer.shutdown();
+        try {
+            if (!writer.awaitTermination(10, TimeUnit.SECONDS)) {
+                log.warn("Candle archive writer did not finish, closing the files anyway");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        for (Map<String, Track> byInterval : tracks.values()) {
+            byInterval.values().forEach(Track::close);
+        }
+        tracks.clear();
+    }
+
+    /**
+     * Waits until every write queued so far has reached the files.
+     */
+    void awaitIdle() {
+        CountDownLatch done = new CountDownLatch(1);
+        submit(done::countDown);
+        try {
+            done.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void submit(Runnable task) {
+        try {
+            writer.execute(task);
+        } catch (RejectedExecutionException e) {
+            log.debug("Candle archive is shut down, dropping a write");
+        }
+    }
+
+    // the track's file, opened on the calling thread if need be; null if it cannot be
+    private CandleFile file(String contract, String interval) {
+        Track track = track(contract, interval);
+        return track != null ? track.file() : null;
+    }
+
+    // null when persistence is disabled or the names are not a contract and interval; never touches the disk
+    private Track track(String contract, String interval) {
+        if (!isEnabled()) {
+            return null;
+        }
+        // checked before anything is cached or created, the names come from requests
+        if (!ContractRegistry.isValid(contract) || !CandleStickService.isSupportedInterval(interval)) {
+            return null;
+        }
+        Map<String, Track> byInterval = tracks.get(contract);
+        if (byInterval == null) {
+            byInterval = tracks.computeIfAbsent(contract, k -> new ConcurrentHashMap<>());
+        }
+        Track track = byInterval.get(interval);
+        if (track == null) {
+            track = byInterval.computeIfAbsent(interval, k -> new Track(Path.of(historyDir), contract, interval));
+        }
+        return track;
+    }
+
+    // file, opened on first use, plus the bar still forming, guarded by the series monitor
+    private static final class Track {
+        private final Path root;
+        private final String contract;
+        private final String interval;
+        private CandleFile file;
+        private boolean opened;
+        long pendingTime = Long.MIN_VALUE;
+        double pendingOpen;
+        double pendingHigh;
+        double pendingLow;
+        double pendingClose;
+        long pendingVolume;
+
+        Track(Path root, String contract, String interval) {
+            this.root = root.toAbsolutePath().normalize();
+            this.contract = contract;
+            this.interval = interval;
+        }
+
+        // null if the file cannot be opened; a failed open is not retried
+        synchronized CandleFile file() {
+            if (opened) {
+                return file;
+            }
+            opened = true;
+            Path path = root.resolve(contract).resolve(interval + ".bin").normalize();
+            if (!path.startsWith(root)) {
+                log.error("Candle history {} lies outside {}", path, root);
+                return null;
+            }
+            try {
+                file = new CandleFile(path);
+                log.info("Opened candle history {} ({} bars)", path, file.size());
+            } catch (IOException e) {
+                log.error("Failed to open candle history {}", path, e);
+            }
+            return file;
+        }
+
+        void write(long t, double o, double h, double l, double c, long v) {
+            CandleFile file = file();
+            if (file == null) return;
+            try {
+                file.append(t, o, h, l, c, v);
+            } catch (IOException e) {
+                log.error("Failed to append candle to {}", file.path(), e);
+            }
+        }
+
+        void merge(CandleColumns bars) {
+            CandleFile file = file();
+            if (file == null) return;
+            try {
+                file.merge(bars);
+            } catch (IOException e) {
+                log.error("Failed to merge candles into {}", file.path(), e);
+            }
+        }
+
+        synchronized void close() {
+            if (file == null) return;
+            try {
+                file.close();
+            } catch (IOException e) {
+                log.warn("Failed to close {}", file.path(), e);
+            }
+        }
+    }
+}
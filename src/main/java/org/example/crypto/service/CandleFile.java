@@ -0,0 +1,261 @@
+package org.example.crypto.service;
+
+import org.example.crypto.dto.CandleColumns;
+
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Memory-mapped file of closed candles for one contract/interval, appended to as bars close
+ * and merged into when recent history is corrected (see {@link #merge}).
+ *
+ * Layout: a 16-byte header (magic, version, record count) followed by fixed 48-byte records
+ * {@code time, open, high, low, close, volume} in ascending time order. The file is mapped
+ * in chunks of {@link #CHUNK_RECORDS} records, so history lives in the page cache rather than
+ * on the heap. The record count in the header is written after the record itself, so a crash
+ * mid-append loses at most that record.
+ *
+ * One writer at a time; reads may run concurrently with appends, though one overlapping a
+ * merge can see the rewritten range half done.
+ */
+public class CandleFile implements AutoCloseable {
+
+    static final int RECORD_BYTES = 48;
+    static final int HEADER_BYTES = 16;
+    static final int CHUNK_RECORDS = 1 << 16; // 3 MB, about 45 days of 1m bars
+    private static final int MAGIC = 0x434E444C; // "CNDL"
+    private static final int VERSION = 1;
+    private static final long CHUNK_BYTES = (long) CHUNK_RECORDS * RECORD_BYTES;
+
+    private final Path path;
+    private final FileChannel channel;
+    private final MappedByteBuffer header;
+    private volatile MappedByteBuffer[] chunks;
+    // published after the record is written
+    private volatile long count;
+
+    public CandleFile(Path path) throws IOException {
+        this.path = path;
+        Files.createDirectories(path.getParent());
+        this.channel = FileChannel.open(path,
+            StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        boolean fresh = channel.size() < HEADER_BYTES;
+        this.header = map(0, HEADER_BYTES);
+        if (fresh) {
+            header.putInt(0, MAGIC);
+            header.putInt(4, VERSION);
+            header.putLong(8, 0);
+        } else if (header.getInt(0) != MAGIC || header.getInt(4) != VERSION) {
+            channel.close();
+            throw new IOException("Not a candle file: " + path);
+        }
+        long stored = header.getLong(8);
+        long complete = (channel.size() - HEADER_BYTES) / RECORD_BYTES;
+        this.count = Math.max(0, Math.min(stored, complete));
+        this.chunks = new MappedByteBuffer[0];
+        ensureChunk(count == 0 ? 0 : (int) ((count - 1) / CHUNK_RECORDS));
+    }
+
+    public Path path() {
+        return path;
+    }
+
+    public long size() {
+        return count;
+    }
+
+    /**
+     * Time of the newest stored bar, or {@link Long#MIN_VALUE} if the file is empty.
+     */
+    public long lastTime() {
+        long n = count;
+        return n == 0 ? Long.MIN_VALUE : time(n - 1);
+    }
+
+    /**
+     * Appends a closed bar. Bars not newer than the last stored one are ignored.
+     */
+    public synchronized boolean append(long t, double o, double h, double l, double c, long v) throws IOException {
+        long n = count;
+        if (n > 0 && t <= time(n - 1)) {
+            return false;
+        }
+        put(n, t, o, h, l, c, v);
+        header.putLong(8, n + 1);
+        count = n + 1;
+        return true;
+    }
+
+    /**
+     * Writes closed bars, in ascending time order, into the stored history: a bar at a stored
+     * time replaces that record, one between stored bars is inserted and a newer one appended.
+     * The records from the first change on are rewritten, so this suits recent ranges such as a
+     * backfilled gap. They are rewritten oldest first and every record moves to a later slot, so
+     * an interrupted merge leaves the file in order. Returns the number of records written.
+     */
+    public synchronized int merge(CandleColumns bars) throws IOException {
+        if (bars.isEmpty()) {
+            return 0;
+        }
+        long n = count;
+        long from = lowerBound(bars.time()[0], n);
+        CandleColumns stored = read(from, n);
+        int size = stored.size() + bars.size();
+        long[] t = new long[size];
+        double[] o = new double[size];
+        double[] h = new double[size];
+        double[] l = new double[size];
+        double[] c = new double[size];
+        long[] v = new long[size];
+        int m = 0;
+        int a = 0;
+        int b = 0;
+        while (a < stored.size() || b < bars.size()) {
+            CandleColumns source;
+            int i;
+            if (b == bars.size() || a < stored.size() && stored.time()[a] < bars.time()[b]) {
+                source = stored;
+                i = a++;
+            } else {
+                if (a < stored.size() && stored.time()[a] == bars.time()[b]) {
+                    a++;
+                }
+                source = bars;
+                i = b++;
+            }
+            t[m] = source.time()[i];
+            o[m] = source.open()[i];
+            h[m] = source.high()[i];
+            l[m] = source.low()[i];
+            c[m] = source.close()[i];
+            v[m] = source.volume()[i];
+            m++;
+        }
+        int same = 0;
+        while (same < stored.size() && t[same] == stored.time()[same] && o[same] == stored.open()[same]
+                && h[same] == stored.high()[same] && l[same] == stored.low()[same]
+                && c[same] == stored.close()[same] && v[same] == stored.volume()[same]) {
+            same++;
+        }
+        if (same == m) {
+            return 0;
+        }
+        ensureChunk((int) ((from + m - 1) / CHUNK_RECORDS));
+        for (int i = same; i < m; i++) {
+            put(from + i, t[i], o[i], h[i], l[i], c[i], v[i]);
+        }
+        header.putLong(8, from + m);
+        count = from + m;
+        return m - same;
+    }
+
+    private void put(long index, long t, double o, double h, double l, double c, long v) throws IOException {
+        MappedByteBuffer chunk = ensureChunk((int) (index / CHUNK_RECORDS));
+        int offset = (int) (index % CHUNK_RECORDS) * RECORD_BYTES;
+        chunk.putLong(offset, t);
+        chunk.putDouble(offset + 8, o);
+        chunk.putDouble(offset + 16, h);
+        chunk.putDouble(offset + 24, l);
+        chunk.putDouble(offset + 32, c);
+        chunk.putLong(offset + 40, v);
+    }
+
+    /**
+     * The newest {@code limit} bars.
+     */
+    public CandleColumns tail(int limit) {
+        long n = count;
+        return read(Math.max(0, n - limit), n);
+    }
+
+    /**
+     * Bars with {@code from <= time <= to}, at most {@code limit} of them, newest kept.
+     */
+    public CandleColumns range(long from, long to, int limit) {
+        long n = count;
+        long lo = lowerBound(from, n);
+        long hi = lowerBound(to == Long.MAX_VALUE ? to : to + 1, n);
+        return read(Math.max(lo, hi - limit), hi);
+    }
+
+    public void force() {
+        for (MappedByteBuffer chunk : chunks) {
+            chunk.force();
+        }
+        header.force();
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        force();
+        channel.close();
+    }
+
+    private CandleColumns read(long from, long to) {
+        int n = (int) Math.max(0, to - from);
+        long[] t = new long[n];
+        double[] o = new double[n];
+        double[] h = new double[n];
+        double[] l = new double[n];
+        double[] c = new double[n];
+        long[] v = new long[n];
+        MappedByteBuffer[] mapped = chunks;
+        for (int i = 0; i < n; i++) {
+            long index = from + i;
+            MappedByteBuffer chunk = mapped[(int) (index / CHUNK_RECORDS)];
+            int offset = (int) (index % CHUNK_RECORDS) * RECORD_BYTES;
+            t[i] = chunk.getLong(offset);
+            o[i] = chunk.getDouble(offset + 8);
+            h[i] = chunk.getDouble(offset + 16);
+            l[i] = chunk.getDouble(offset + 24);
+            c[i] = chunk.getDouble(offset + 32);
+            v[i] = chunk.getLong(offset + 40);
+        }
+        return new CandleColumns(t, o, h, l, c, v);
+    }
+
+    // first index whose time is >= target
+    private long lowerBound(long target, long n) {
+        long lo = 0;
+        long hi = n;
+        while (lo < hi) {
+            long mid = (lo + hi) >>> 1;
+            if (time(mid) < target) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+
+    private long time(long index) {
+        MappedByteBuffer chunk = chunks[(int) (index / CHUNK_RECORDS)];
+        return chunk.getLong((int) (index % CHUNK_RECORDS) * RECORD_BYTES);
+    }
+
+    private MappedByteBuffer ensureChunk(int index) throws IOException {
+        MappedByteBuffer[] current = chunks;
+        if (index < current.length) {
+            return current[index];
+        }
+        MappedByteBuffer[] next = Arrays.copyOf(current, index + 1);
+        for (int i = current.length; i <= index; i++) {
+            next[i] = map(HEADER_BYTES + i * CHUNK_BYTES, CHUNK_BYTES);
+        }
+        chunks = next;
+        return next[index];
+    }
+
+    private MappedByteBuffer map(long position, long size) throws IOException {
+        MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, position, size);
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+        return buffer;
+    }
+}
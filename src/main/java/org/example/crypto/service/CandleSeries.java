@@ -0,0 +1,386 @@
+package org.example.crypto.service;
+
+import org.example.crypto.dto.CandleColumns;
+import org.example.crypto.dto.CandleStick;
+import org.example.crypto.dto.SeriesDelta;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Fixed-capacity columnar ring buffer holding one contract/interval candle series.
+ *
+ * Writes are serialized on the instance monitor (in practice a single websocket thread),
+ * reads are lock-free: a seqlock counter is odd while a write is in progress and readers
+ * retry their copy if the counter moved underneath them. Updating the live bar or
+ * appending a new one does not allocate.
+ *
+ * Every write also bumps a modification sequence and stamps the written slot with it, so
+ * {@link #changedSince} can hand a client only the bars that changed after the version it
+ * last saw. Since writes only ever touch the last bar or append one, the stamps grow along
+ * the ring and the changed bars are always a suffix.
+ */
+public class CandleSeries {
+
+    public enum UpdateResult { APPENDED, REPLACED, IGNORED }
+
+    private static final VarHandle SEQ;
+    // seeded from the clock so ids stay unique across restarts and can go into client cache keys
+    private static final AtomicLong IDS = new AtomicLong(System.currentTimeMillis() * 1_000);
+
+    static {
+        try {
+            SEQ = MethodHandles.lookup().findVarHandle(CandleSeries.class, "seq", long.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    private final long id = IDS.incrementAndGet();
+    private final int capacity;
+    private final long[] time;
+    private final double[] open;
+    private final double[] high;
+    private final double[] low;
+    private final double[] close;
+    private final long[] volume;
+    // modification sequence of the last write to each slot
+    private final long[] modified;
+
+    // ring state, only mutated inside a seqlock write section
+    private int start;
+    private int count;
+    private long version;
+    // version of the last replaceAll; older cursors cannot be served a delta
+    private long resetVersion;
+
+    @SuppressWarnings("unused") // accessed through SEQ
+    private volatile long seq;
+
+    public CandleSeries(int capacity) {
+        this.capacity = capacity;
+        this.time = new long[capacity];
+        this.open = new double[capacity];
+        this.high = new double[capacity];
+        this.low = new double[capacity];
+        this.close = new double[capacity];
+        this.volume = new long[capacity];
+        this.modified = new long[capacity];
+    }
+
+    public int capacity() {
+        return capacity;
+    }
+
+    /**
+     * Identifies this series instance; a contract removed and added again gets a new one.
+     */
+    public long id() {
+        return id;
+    }
+
+    /**
+     * Replaces the last bar if {@code t} equals its time, appends if it is newer
+     * (evicting the oldest bar once full) and ignores out-of-order bars.
+     */
+    public synchronized UpdateResult update(long t, double o, double h, double l, double c, long v) {
+        int slot;
+        UpdateResult result;
+        if (count > 0) {
+            int last = slot(count - 1);
+            long lastTime = time[last];
+            if (t < lastTime) {
+                return UpdateResult.IGNORED;
+            }
+            if (t == lastTime) {
+                slot = last;
+                result = UpdateResult.REPLACED;
+            } else {
+                slot = -1;
+                result = UpdateResult.APPENDED;
+            }
+        } else {
+            slot = -1;
+            result = UpdateResult.APPENDED;
+        }
+
+        beginWrite();
+        if (slot < 0) {
+            if (count == capacity) {
+                slot = start;
+                start = (start + 1) % capacity;
+            } else {
+                slot = slot(count);
+                count++;
+            }
+        }
+        write(slot, t, o, h, l, c, v);
+        modified[slot] = ++version;
+        endWrite();
+        return result;
+    }
+
+    /**
+     * Replaces the whole series with {@code candles}, keeping the newest {@code capacity} bars.
+     */
+    public synchronized void replaceAll(CandleColumns candles) {
+        int n = Math.min(candles.size(), capacity);
+        int offset = candles.size() - n;
+
+        beginWrite();
+        System.arraycopy(candles.time(), offset, time, 0, n);
+        System.arraycopy(candles.open(), offset, open, 0, n);
+        System.arraycopy(candles.high(), offset, high, 0, n);
+        System.arraycopy(candles.low(), offset, low, 0, n);
+        System.arraycopy(candles.close(), offset, close, 0, n);
+        System.arraycopy(candles.volume(), offset, volume, 0, n);
+        start = 0;
+        count = n;
+        resetVersion = ++version;
+        Arrays.fill(modified, 0, n, resetVersion);
+        endWrite();
+    }
+
+    /**
+     * Copies the series into fresh primitive columns, oldest bar first.
+     */
+    public CandleColumns snapshot() {
+        while (true) {
+            long s1 = (long) SEQ.getAcquire(this);
+            if ((s1 & 1) != 0) {
+                Thread.onSpinWait();
+                continue;
+            }
+            int n = count;
+            int st = start;
+            if (n < 0 || n > capacity || st < 0 || st >= capacity) {
+                continue;
+            }
+
+            long[] t = new long[n];
+            double[] o = new double[n];
+            double[] h = new double[n];
+            double[] l = new double[n];
+            double[] c = new double[n];
+            long[] v = new long[n];
+
+            int head = Math.min(n, capacity - st);
+            copy(st, 0, head, t, o, h, l, c, v);
+            copy(0, head, n - head, t, o, h, l, c, v);
+
+            VarHandle.loadLoadFence();
+            if ((long) SEQ.getOpaque(this) == s1) {
+                return new CandleColumns(t, o, h, l, c, v);
+            }
+        }
+    }
+
+    /**
+     * Bars written after {@code since}, with the version to pass next time. The whole series
+     * is returned with {@code reset} set when {@code since} predates the last reload or is
+     * not a version of this series (e.g. negative, or issued before the series was recreated).
+     */
+    public SeriesDelta<CandleColumns> changedSince(long since) {
+        while (true) {
+            long s1 = (long) SEQ.getAcquire(this);
+            if ((s1 & 1) != 0) {
+                Thread.onSpinWait();
+                continue;
+            }
+            int n = count;
+            int st = start;
+            long ver = version;
+            boolean reset = since < resetVersion || since > ver;
+            if (n < 0 || n > capacity || st < 0 || st >= capacity) {
+                continue;
+            }
+            int from = n;
+            if (reset) {
+                from = 0;
+            } else {
+                while (from > 0 && modified[(st + from - 1) % capacity] > since) {
+                    from--;
+                }
+            }
+
+            int len = n - from;
+            long[] t = new long[len];
+            double[] o = new double[len];
+            double[] h = new double[len];
+            double[] l = new double[len];
+            double[] c = new double[len];
+            long[] v = new long[len];
+            int first = (st + from) % capacity;
+            int head = Math.min(len, capacity - first);
+            copy(first, 0, head, t, o, h, l, c, v);
+            copy(0, head, len - head, t, o, h, l, c, v);
+
+            VarHandle.loadLoadFence();
+            if ((long) SEQ.getOpaque(this) == s1) {
+                return new SeriesDelta<>(ver, reset, new CandleColumns(t, o, h, l, c, v));
+            }
+        }
+    }
+
+    /**
+     * Copies the bars with {@code time >= fromTime}, oldest first.
+     */
+    public CandleColumns snapshotFrom(long fromTime) {
+        while (true) {
+            long s1 = (long) SEQ.getAcquire(this);
+            if ((s1 & 1) != 0) {
+                Thread.onSpinWait();
+                continue;
+            }
+            int n = count;
+            int st = start;
+            if (n < 0 || n > capacity || st < 0 || st >= capacity) {
+                continue;
+            }
+            // scanning back costs no more than the copy itself
+            int from = n;
+            while (from > 0 && time[(st + from - 1) % capacity] >= fromTime) {
+                from--;
+            }
+
+            int len = n - from;
+            long[] t = new long[len];
+            double[] o = new double[len];
+            double[] h = new double[len];
+            double[] l = new double[len];
+            double[] c = new double[len];
+            long[] v = new long[len];
+            int first = (st + from) % capacity;
+            int head = Math.min(len, capacity - first);
+            copy(first, 0, head, t, o, h, l, c, v);
+            copy(0, head, len - head, t, o, h, l, c, v);
+
+            VarHandle.loadLoadFence();
+            if ((long) SEQ.getOpaque(this) == s1) {
+                return new CandleColumns(t, o, h, l, c, v);
+            }
+        }
+    }
+
+    /**
+     * Version of the last {@link #replaceAll}. Closed bars keep their values until it changes.
+     */
+    public long resetVersion() {
+        while (true) {
+            long s1 = (long) SEQ.getAcquire(this);
+            long ver = resetVersion;
+            VarHandle.loadLoadFence();
+            if ((s1 & 1) == 0 && (long) SEQ.getOpaque(this) == s1) {
+                return ver;
+            }
+            Thread.onSpinWait();
+        }
+    }
+
+    /**
+     * Current modification sequence; grows with every write.
+     */
+    public long version() {
+        while (true) {
+            long s1 = (long) SEQ.getAcquire(this);
+            long ver = version;
+            VarHandle.loadLoadFence();
+            if ((s1 & 1) == 0 && (long) SEQ.getOpaque(this) == s1) {
+                return ver;
+            }
+            Thread.onSpinWait();
+        }
+    }
+
+    public CandleStick latest() {
+        while (true) {
+            long s1 = (long) SEQ.getAcquire(this);
+            if ((s1 & 1) != 0) {
+                Thread.onSpinWait();
+                continue;
+            }
+            int n = count;
+            if (n == 0) {
+                return null;
+            }
+            int i = (start + n - 1) % capacity;
+            long t = time[i];
+            double o = open[i];
+            double h = high[i];
+            double l = low[i];
+            double c = close[i];
+            long v = volume[i];
+
+            VarHandle.loadLoadFence();
+            if ((long) SEQ.getOpaque(this) == s1) {
+                return new CandleStick(t, o, h, l, c, v);
+            }
+        }
+    }
+
+    /**
+     * Time of the oldest bar, or {@link Long#MIN_VALUE} if the series is empty.
+     */
+    public long firstTime() {
+        while (true) {
+            long s1 = (long) SEQ.getAcquire(this);
+            int n = count;
+            int st = start;
+            long t = n > 0 && st >= 0 && st < capacity ? time[st] : Long.MIN_VALUE;
+            VarHandle.loadLoadFence();
+            if ((s1 & 1) == 0 && (long) SEQ.getOpaque(this) == s1) {
+                return t;
+            }
+            Thread.onSpinWait();
+        }
+    }
+
+    public int size() {
+        while (true) {
+            long s1 = (long) SEQ.getAcquire(this);
+            int n = count;
+            VarHandle.loadLoadFence();
+            if ((s1 & 1) == 0 && (long) SEQ.getOpaque(this) == s1) {
+                return n;
+            }
+            Thread.onSpinWait();
+        }
+    }
+
+    private void copy(int from, int to, int len,
+                      long[] t, double[] o, double[] h, double[] l, double[] c, long[] v) {
+        if (len <= 0) return;
+        System.arraycopy(time, from, t, to, len);
+        System.arraycopy(open, from, o, to, len);
+        System.arraycopy(high, from, h, to, len);
+        System.arraycopy(low, from, l, to, len);
+        System.arraycopy(close, from, c, to, len);
+        System.arraycopy(volume, from, v, to, len);
+    }
+
+    private void write(int slot, long t, double o, double h, double l, double c, long v) {
+        time[slot] = t;
+        open[slot] = o;
+        high[slot] = h;
+        low[slot] = l;
+        close[slot] = c;
+        volume[slot] = v;
+    }
+
+    private int slot(int index) {
+        return (start + index) % capacity;
+    }
+
+    private void beginWrite() {
+        long s = (long) SEQ.getOpaque(this);
+        SEQ.setOpaque(this, s + 1);
+        VarHandle.storeStoreFence();
+    }
+
+    private void endWrite() {
+        long s = (long) SEQ.getOpaque(this);
+        SEQ.setRelease(this, s + 1);
+    }
+}
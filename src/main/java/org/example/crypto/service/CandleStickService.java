@@ -2,130 +2,383 @@ package org.example.crypto.service;
 
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.example.crypto.dto.CandleColumns;
 import org.example.crypto.dto.CandleStick;
+import org.example.crypto.dto.SeriesDelta;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
 import org.springframework.web.client.RestTemplate;
 
+import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 
 @Service
 public class CandleStickService {
 
     private static final Logger log = LoggerFactory.getLogger(CandleStickService.class);
+    public static final int MAX_CANDLES = 2000;
     private static final String CANDLE_API_URL =
-        "https://api.gateio.ws/api/v4/futures/usdt/candlesticks?contract=%s&interval=%s&limit=2000";
+        "https://api.gateio.ws/api/v4/futures/usdt/candlesticks?contract=%s&interval=%s&limit=" + MAX_CANDLES;
+    // Gate.io rejects limit together with from/to and returns at most 2000 points per request
+    private static final String CANDLE_RANGE_API_URL =
+        "https://api.gateio.ws/api/v4/futures/usdt/candlesticks?contract=%s&interval=%s&from=%d&to=%d";
+    // gaps longer than this many requests are not backfilled; the latest bars are fetched instead
+    private static final int MAX_GAP_PAGES = 10;
+    // candlestick intervals Gate.io futures serve; 1w is left out, it is a calendar week
+    private static final Set<String> EXCHANGE_INTERVALS = Set.of(
+        "10s", "30s", "1m", "5m", "15m", "30m", "1h", "2h", "4h", "6h", "8h", "12h", "1d", "7d", "30d");
 
     private final ObjectMapper objectMapper = new ObjectMapper();
     private final RestTemplate restTemplate = new RestTemplate();
-    // key = "contract_interval", e.g. "XRP_USDT_1m"
-    private final Map<String, List<CandleStick>> candleSticksMap = new ConcurrentHashMap<>();
+    private final ContractRegistry contractRegistry;
+    private final CandleArchive candleArchive;
+    // REST history loads for contracts added at runtime; small to stay within Gate.io rate limits
+    private final ExecutorService loadExecutor = Executors.newFixedThreadPool(2);
+    // contract -> interval -> series, nested so that tick ingest needs no key concatenation
+    private final Map<String, Map<String, CandleSeries>> seriesMap = new ConcurrentHashMap<>();
+    // copy-on-write array so that notifying listeners on every tick does not allocate an iterator
+    private volatile CandleUpdateListener[] listeners = new CandleUpdateListener[0];
+    private final MeterRegistry meterRegistry;
+    private final Timer updateTimer;
+    private final Counter backfilledBars;
 
-    private String makeKey(String contract, String interval) {
-        return contract + "_" + interval;
+    public CandleStickService(ContractRegistry contractRegistry, CandleArchive candleArchive,
+                              MeterRegistry meterRegistry) {
+        this.contractRegistry = contractRegistry;
+        this.candleArchive = candleArchive;
+        this.meterRegistry = meterRegistry;
+        this.updateTimer = LatencyTimers.builder("crypto.candle.update",
+                "Time to apply a candle update, listeners included")
+            .register(meterRegistry);
+        this.backfilledBars = Counter.builder("crypto.candle.backfilled")
+            .description("Bars missed during a websocket outage and fetched from the REST API")
+            .register(meterRegistry);
+        addListener(candleArchive);
+        contractRegistry.addListener(new ContractRegistry.Listener() {
+            @Override
+            public void onContractsAdded(List<String> contracts) {
+                for (String contract : contracts) {
+                    loadExecutor.execute(() -> loadInitialCandles(contract, "1m"));
+                }
+            }
+
+            @Override
+            public void onContractsRemoved(List<String> contracts) {
+                contracts.forEach(CandleStickService.this::removeSeries);
+            }
+        });
     }
 
     @PostConstruct
     public void init() {
-        loadInitialCandles("XRP_USDT", "1m");
-        loadInitialCandles("BTC_USDT", "1m");
+        for (String contract : contractRegistry.contracts()) {
+            loadInitialCandles(contract, "1m");
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        loadExecutor.shutdownNow();
     }
 
     public void loadInitialCandles(String contract, String interval) {
+        if (!contractRegistry.isActive(contract)) {
+            log.warn("Skipping candle load for inactive contract {}", contract);
+            return;
+        }
         try {
-            String url = CANDLE_API_URL.formatted(contract, interval);
+            CandleColumns stored = candleArchive.tail(contract, interval, MAX_CANDLES);
+            CandleColumns fresh = stored.isEmpty()
+                ? fetchCandles(contract, interval)
+                : fetchCandlesAfter(contract, interval, stored.time()[stored.size() - 1]);
+            // stored bars before the first fetched one, then everything fetched
+            CandleColumns columns = CandleColumns.concat(
+                stored.slice(0, fresh.isEmpty() ? stored.size() : stored.indexOf(fresh.time()[0])), fresh);
+            CandleSeries series = replaceCandles(contract, interval, columns);
+            log.info("Loaded {} candles for {} (interval={}, {} from disk, {} fetched)",
+                series.size(), contract, interval, stored.size(), fresh.size());
+        } catch (Exception e) {
+            log.error("Failed to load initial candles for {} (interval={})", contract, interval, e);
+        }
+    }
+
+    /**
+     * Fetches the latest {@link #MAX_CANDLES} bars from the Gate.io REST API without storing them.
+     */
+    public CandleColumns fetchCandles(String contract, String interval) throws IOException {
+        String url = CANDLE_API_URL.formatted(contract, interval);
+        log.info("Fetching candles from: {}", url);
+        return parseCandles(restTemplate.getForObject(url, String.class));
+    }
+
+    /**
+     * Fetches the bars after {@code lastTime} up to now, paging through the REST API. Falls back
+     * to the latest {@link #MAX_CANDLES} bars when the gap is longer than {@link #MAX_GAP_PAGES} pages.
+     */
+    public CandleColumns fetchCandlesAfter(String contract, String interval, long lastTime) throws IOException {
+        long step = intervalSeconds(interval);
+        long now = System.currentTimeMillis() / 1000;
+        long from = lastTime + step;
+        if (from > now) {
+            return CandleColumns.EMPTY;
+        }
+        long pageSpan = step * (MAX_CANDLES - 1);
+        if ((now - from) / pageSpan >= MAX_GAP_PAGES) {
+            log.warn("History gap for {} (interval={}) too long, fetching latest bars only", contract, interval);
+            return fetchCandles(contract, interval);
+        }
+        return fetchCandlesBetween(contract, interval, from, now);
+    }
+
+    /**
+     * Fetches the bars with {@code from <= time <= to}, paging through the REST API.
+     */
+    public CandleColumns fetchCandlesBetween(String contract, String interval, long from, long to) throws IOException {
+        long step = intervalSeconds(interval);
+        long pageSpan = step * (MAX_CANDLES - 1);
+        CandleColumns result = CandleColumns.EMPTY;
+        for (long pageFrom = from; pageFrom <= to; pageFrom += pageSpan + step) {
+            String url = CANDLE_RANGE_API_URL.formatted(contract, interval, pageFrom, Math.min(to, pageFrom + pageSpan));
             log.info("Fetching candles from: {}", url);
-            String response = restTemplate.getForObject(url, String.class);
-            JsonNode candles = objectMapper.readTree(response);
-
-            List<CandleStick> initialCandles = new ArrayList<>();
-            for (JsonNode candle : candles) {
-                long time = candle.path("t").asLong();
-                double open = candle.path("o").asDouble();
-                double high = candle.path("h").asDouble();
-                double low = candle.path("l").asDouble();
-                double close = candle.path("c").asDouble();
-                long volume = candle.path("v").asLong();
-
-                initialCandles.add(new CandleStick(time, open, high, low, close, volume));
+            result = CandleColumns.concat(result, parseCandles(restTemplate.getForObject(url, String.class)));
+        }
+        return result;
+    }
+
+    /**
+     * Fills in, in the background, the bars a websocket outage left out between the last bar
+     * stored before it ({@code lastTime}) and the first live bar after it ({@code liveTime}).
+     * Only that range is fetched; the bar at {@code lastTime} is fetched again because its
+     * final updates were missed too. The bars are merged into the series, which listeners see
+     * as a reload. An outage longer than the series reloads it like at startup.
+     */
+    public void backfill(String contract, String interval, long lastTime, long liveTime) {
+        loadExecutor.execute(() -> {
+            try {
+                if ((liveTime - lastTime) / intervalSeconds(interval) >= MAX_CANDLES) {
+                    log.warn("Gap for {} (interval={}) longer than the series, reloading it", contract, interval);
+                    loadInitialCandles(contract, interval);
+                    return;
+                }
+                CandleColumns fetched = fetchCandlesBetween(contract, interval, lastTime,
+                    liveTime - intervalSeconds(interval));
+                fetched = fetched.slice(fetched.indexOf(lastTime), fetched.indexOf(liveTime));
+                if (fetched.isEmpty()) return;
+                CandleSeries series = series(contract, interval);
+                synchronized (series) {
+                    // live bars may have arrived meanwhile; none of them is older than liveTime
+                    CandleColumns current = series.snapshot();
+                    CandleColumns before = current.slice(0, current.indexOf(lastTime));
+                    CandleColumns after = current.slice(current.indexOf(liveTime), current.size());
+                    replaceCandles(contract, interval,
+                        CandleColumns.concat(CandleColumns.concat(before, fetched), after));
+                }
+                int missed = fetched.size() - fetched.indexOf(lastTime + 1);
+                backfilledBars.increment(missed);
+                log.info("Backfilled {} bar(s) for {} (interval={}) missed before {}", missed, contract, interval, liveTime);
+            } catch (Exception e) {
+                log.error("Failed to backfill {} (interval={}) after {}", contract, interval, lastTime, e);
             }
+        });
+    }
 
-            Collections.sort(initialCandles, (a, b) -> Long.compare(a.time(), b.time()));
+    private CandleColumns parseCandles(String response) throws IOException {
+        JsonNode candles = objectMapper.readTree(response);
 
-            String key = makeKey(contract, interval);
-            List<CandleStick> list = candleSticksMap.computeIfAbsent(key, k -> new CopyOnWriteArrayList<>());
-            list.clear();
-            list.addAll(initialCandles);
-            log.info("Loaded {} candles for {} (interval={})", list.size(), contract, interval);
-        } catch (Exception e) {
-            log.error("Failed to load initial candles for {} (interval={})", contract, interval, e);
+        List<CandleStick> initialCandles = new ArrayList<>();
+        for (JsonNode candle : candles) {
+            long time = candle.path("t").asLong();
+            double open = candle.path("o").asDouble();
+            double high = candle.path("h").asDouble();
+            double low = candle.path("l").asDouble();
+            double close = candle.path("c").asDouble();
+            long volume = candle.path("v").asLong();
+
+            initialCandles.add(new CandleStick(time, open, high, low, close, volume));
         }
+
+        Collections.sort(initialCandles, (a, b) -> Long.compare(a.time(), b.time()));
+        return CandleColumns.of(initialCandles);
+    }
+
+    /**
+     * Replaces the stored series for contract/interval and notifies listeners.
+     */
+    public CandleSeries replaceCandles(String contract, String interval, CandleColumns columns) {
+        CandleSeries series = series(contract, interval);
+        synchronized (series) {
+            series.replaceAll(columns);
+            for (CandleUpdateListener listener : listeners) {
+                listener.onCandlesReloaded(contract, interval, series, columns);
+            }
+        }
+        return series;
+    }
+
+    public CandleSeries.UpdateResult updateCandle(String contract, String interval,
+                                                  long time, double open, double high, double low,
+                                                  double close, long volume) {
+        long start = System.nanoTime();
+        CandleSeries series = series(contract, interval);
+        CandleSeries.UpdateResult result;
+        synchronized (series) {
+            result = series.update(time, open, high, low, close, volume);
+            if (result != CandleSeries.UpdateResult.IGNORED) {
+                boolean appended = result == CandleSeries.UpdateResult.APPENDED;
+                for (CandleUpdateListener listener : listeners) {
+                    listener.onCandleUpdated(contract, interval, series, appended,
+                        time, open, high, low, close, volume);
+                }
+            }
+        }
+        updateTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        return result;
+    }
+
+    public synchronized void addListener(CandleUpdateListener listener) {
+        CandleUpdateListener[] next = Arrays.copyOf(listeners, listeners.length + 1);
+        next[next.length - 1] = listener;
+        listeners = next;
     }
 
     public void updateCandle(String contract, String interval, CandleStick candle) {
-        String key = makeKey(contract, interval);
-        List<CandleStick> candleSticks = candleSticksMap.computeIfAbsent(key, k -> new CopyOnWriteArrayList<>());
+        updateCandle(contract, interval,
+            candle.time(), candle.open(), candle.high(), candle.low(), candle.close(), candle.volume());
+    }
 
-        if (candleSticks.isEmpty()) {
-            candleSticks.add(candle);
-            return;
+    public void updateCandle(String contract, CandleStick candle) {
+        updateCandle(contract, "1m", candle);
+    }
+
+    /**
+     * Returns the live series for contract/interval, creating an empty one on first use.
+     */
+    public CandleSeries series(String contract, String interval) {
+        Map<String, CandleSeries> byInterval = seriesMap.get(contract);
+        if (byInterval == null) {
+            byInterval = seriesMap.computeIfAbsent(contract, k -> new ConcurrentHashMap<>());
+        }
+        CandleSeries series = byInterval.get(interval);
+        if (series == null) {
+            series = byInterval.computeIfAbsent(interval, k -> newSeries(contract, k));
         }
+        return series;
+    }
 
-        CandleStick lastCandle = candleSticks.get(candleSticks.size() - 1);
+    private CandleSeries newSeries(String contract, String interval) {
+        CandleSeries series = new CandleSeries(MAX_CANDLES);
+        Gauge.builder("crypto.candle.series.size", series, CandleSeries::size)
+            .description("Bars held in memory for a contract/interval")
+            .tags("contract", contract, "interval", interval)
+            .register(meterRegistry);
+        return series;
+    }
 
-        if (candle.time() == lastCandle.time()) {
-            candleSticks.set(candleSticks.size() - 1, candle);
-        } else if (candle.time() > lastCandle.time()) {
-            candleSticks.add(candle);
-            while (candleSticks.size() > 2000) {
-                candleSticks.remove(0);
+    /**
+     * Drops every interval series of a contract.
+     */
+    public void removeSeries(String contract) {
+        if (seriesMap.remove(contract) != null) {
+            meterRegistry.find("crypto.candle.series.size").tag("contract", contract).meters()
+                .forEach(meterRegistry::remove);
+            for (CandleUpdateListener listener : listeners) {
+                listener.onSeriesRemoved(contract);
             }
+            log.info("Removed candle series for {}", contract);
         }
     }
 
-    public void updateCandle(String contract, CandleStick candle) {
-        updateCandle(contract, "1m", candle);
+    /**
+     * Returns the series for contract/interval, or null if nothing has been loaded for it.
+     */
+    public CandleSeries findSeries(String contract, String interval) {
+        Map<String, CandleSeries> byInterval = seriesMap.get(contract);
+        return byInterval != null ? byInterval.get(interval) : null;
+    }
+
+    public CandleColumns getColumns(String contract, String interval) {
+        CandleSeries series = findSeries(contract, interval);
+        return series != null ? series.snapshot() : CandleColumns.EMPTY;
+    }
+
+    /**
+     * Bars written after the {@code since} cursor; see {@link CandleSeries#changedSince}.
+     */
+    public SeriesDelta<CandleColumns> getColumnsChangedSince(String contract, String interval, long since) {
+        CandleSeries series = findSeries(contract, interval);
+        return series != null ? series.changedSince(since) : new SeriesDelta<>(0, true, CandleColumns.EMPTY);
     }
 
-    public void updateCandle(CandleStick candle) {
-        updateCandle("XRP_USDT", "1m", candle);
+    /**
+     * Bars with {@code from <= time <= to}, newest {@code limit} kept: closed bars from the
+     * on-disk history, followed by whatever the live series holds beyond it.
+     */
+    public CandleColumns getColumns(String contract, String interval, long from, long to, int limit) {
+        CandleColumns stored = candleArchive.range(contract, interval, from, to, limit);
+        CandleColumns live = getColumns(contract, interval);
+        long after = stored.isEmpty() ? from - 1 : stored.time()[stored.size() - 1];
+        int start = live.indexOf(after + 1);
+        int end = to == Long.MAX_VALUE ? live.size() : live.indexOf(to + 1);
+        CandleColumns merged = CandleColumns.concat(stored, live.slice(start, Math.max(start, end)));
+        return merged.slice(Math.max(0, merged.size() - limit), merged.size());
+    }
+
+    public CandleColumns getColumns(String contract) {
+        return getColumns(contract, "1m");
     }
 
     public List<CandleStick> getCandles(String contract, String interval) {
-        String key = makeKey(contract, interval);
-        List<CandleStick> list = candleSticksMap.get(key);
-        return list != null ? new ArrayList<>(list) : new ArrayList<>();
+        return getColumns(contract, interval).toCandles();
     }
 
     public List<CandleStick> getCandles(String contract) {
         return getCandles(contract, "1m");
     }
 
-    public List<CandleStick> getCandles() {
-        return getCandles("XRP_USDT", "1m");
-    }
-
     public CandleStick getLatestCandle(String contract) {
         return getLatestCandle(contract, "1m");
     }
 
     public CandleStick getLatestCandle(String contract, String interval) {
-        String key = makeKey(contract, interval);
-        List<CandleStick> list = candleSticksMap.get(key);
-        if (list == null || list.isEmpty()) {
-            return null;
-        }
-        return list.get(list.size() - 1);
+        CandleSeries series = findSeries(contract, interval);
+        return series != null ? series.latest() : null;
+    }
+
+    /**
+     * True for the intervals a series can exist for: the ones Gate.io serves and the ones rolled
+     * up from 1m.
+     */
+    public static boolean isSupportedInterval(String interval) {
+        return EXCHANGE_INTERVALS.contains(interval) || CandleAggregator.derives(interval);
     }
 
-    public CandleStick getLatestCandle() {
-        return getLatestCandle("XRP_USDT", "1m");
+    /**
+     * Length of an interval such as "10s", "1m", "4h" or "7d" in seconds.
+     */
+    static long intervalSeconds(String interval) {
+        long n = Long.parseLong(interval.substring(0, interval.length() - 1));
+        return switch (interval.charAt(interval.length() - 1)) {
+            case 's' -> n;
+            case 'm' -> n * 60;
+            case 'h' -> n * 3_600;
+            case 'd' -> n * 86_400;
+            default -> throw new IllegalArgumentException("Unknown interval: " + interval);
+        };
     }
 }
@@ -0,0 +1,29 @@
+package org.example.crypto.service;
+
+import org.example.crypto.dto.CandleColumns;
+
+/**
+ * Receives candle series changes from {@link CandleStickService}.
+ * Callbacks run on the writing thread while the series monitor is held, so they must stay O(1)
+ * and must not block; disk I/O and other slow work is handed to a thread of the listener's own,
+ * as {@link CandleArchive} does.
+ */
+public interface CandleUpdateListener {
+
+    /**
+     * The last bar was replaced ({@code appended == false}) or a new bar was appended.
+     */
+    void onCandleUpdated(String contract, String interval, CandleSeries series, boolean appended,
+                         long time, double open, double high, double low, double close, long volume);
+
+    /**
+     * The whole series was replaced, e.g. after a REST reload.
+     */
+    void onCandlesReloaded(String contract, String interval, CandleSeries series, CandleColumns candles);
+
+    /**
+     * All series of a contract were dropped because it was removed from the registry.
+     */
+    default void onSeriesRemoved(String contract) {
+    }
+}
@@ -0,0 +1,174 @@
+package org.example.crypto.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.example.crypto.dto.CandleColumns;
+import org.example.crypto.dto.ChartSnapshot;
+import org.example.crypto.dto.EMACloudResult;
+import org.example.crypto.dto.IndicatorColumns;
+import org.example.crypto.dto.MAAnglesResult;
+import org.example.crypto.dto.SMIResult;
+import org.example.crypto.service.ColumnarEncoder.Format;
+import org.springframework.stereotype.Service;
+
+import java.io.UncheckedIOException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Builds the chart snapshot (candles plus all indicators) of a contract/interval at most once
+ * per {@link CandleSeries#version()} and keeps it serialized, so any number of viewers polling
+ * the same chart share one computation.
+ *
+ * Concurrent requests for a stale snapshot wait for the single request that rebuilds it. The
+ * ETag is derived from the series version alone, so a conditional request for an unchanged
+ * chart is answered without reading candles or indicators. Each {@link ColumnarEncoder.Format}
+ * is built and cached on its own, so only the formats clients actually request are encoded.
+ */
+@Service
+public class ChartSnapshotService {
+
+    private final CandleStickService candleStickService;
+    private final IncrementalIndicatorEngine indicatorEngine;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    // contract -> interval -> cache entry
+    private final Map<String, Map<String, Entry>> entries = new ConcurrentHashMap<>();
+
+    public ChartSnapshotService(CandleStickService candleStickService,
+                                IncrementalIndicatorEngine indicatorEngine,
+                                ContractRegistry contractRegistry) {
+        this.candleStickService = candleStickService;
+        this.indicatorEngine = indicatorEngine;
+        contractRegistry.addListener(new ContractRegistry.Listener() {
+            @Override
+            public void onContractsAdded(List<String> contracts) {
+            }
+
+            @Override
+            public void onContractsRemoved(List<String> contracts) {
+                contracts.forEach(entries::remove);
+            }
+        });
+    }
+
+    /**
+     * Encoded snapshot with its strong ETag; {@code etag} is null if nothing is loaded yet.
+     */
+    public record Snapshot(long version, String etag, byte[] body) {}
+
+    /**
+     * ETag the current snapshot has (or will have once built), or null if there is no series.
+     * Cheap enough to check on every request.
+     */
+    public String currentETag(String contract, String interval, Format format) {
+        CandleSeries series = candleStickService.findSeries(contract, interval);
+        if (series == null) {
+            return null;
+        }
+        return etag(entry(contract, interval, series), series.version(), format);
+    }
+
+    public Snapshot snapshot(String contract, String interval, Format format) {
+        CandleSeries series = candleStickService.findSeries(contract, interval);
+        if (series == null) {
+            return new Snapshot(0, null, switch (format) {
+                case JSON -> serialize(new ChartSnapshot(contract, interval, 0, List.of(),
+                    indicatorEngine.smi(contract, interval),
+                    indicatorEngine.maAngles(contract, interval),
+                    indicatorEngine.emaCloud(contract, interval)));
+                case COLUMNAR -> ColumnarEncoder.columnarJson(contract, interval, 0,
+                    CandleColumns.EMPTY, IndicatorColumns.EMPTY);
+                case BINARY -> ColumnarEncoder.binary(0, CandleColumns.EMPTY, IndicatorColumns.EMPTY);
+            });
+        }
+        Entry entry = entry(contract, interval, series);
+        int slot = format.ordinal();
+        Snapshot cached = entry.snapshots.get(slot);
+        if (cached != null && cached.version() == series.version()) {
+            return cached;
+        }
+        synchronized (entry) {
+            cached = entry.snapshots.get(slot);
+            if (cached != null && cached.version() == series.version()) {
+                return cached;
+            }
+            Snapshot built = format == Format.JSON
+                ? build(contract, interval, series, entry)
+                : buildColumnar(contract, interval, series, entry, format);
+            entry.snapshots.set(slot, built);
+            return built;
+        }
+    }
+
+    private Snapshot buildColumnar(String contract, String interval, CandleSeries series, Entry entry,
+                                   Format format) {
+        long version;
+        CandleColumns candles;
+        IndicatorColumns indicators;
+        synchronized (series) {
+            version = series.version();
+            candles = series.snapshot();
+            indicators = indicatorEngine.columns(contract, interval);
+        }
+        byte[] bytes = format == Format.BINARY
+            ? ColumnarEncoder.binary(version, candles, indicators)
+            : ColumnarEncoder.columnarJson(contract, interval, version, candles, indicators);
+        return new Snapshot(version, etag(entry, version, format), bytes);
+    }
+
+    private Snapshot build(String contract, String interval, CandleSeries series, Entry entry) {
+        long version;
+        CandleColumns candles;
+        SMIResult smi;
+        MAAnglesResult maAngles;
+        EMACloudResult emaCloud;
+        // the monitor keeps candles and indicators on the same version; serialization runs outside it
+        synchronized (series) {
+            version = series.version();
+            candles = series.snapshot();
+            smi = indicatorEngine.smi(contract, interval);
+            maAngles = indicatorEngine.maAngles(contract, interval);
+            emaCloud = indicatorEngine.emaCloud(contract, interval);
+        }
+        byte[] json = serialize(new ChartSnapshot(contract, interval, version, candles.toCandles(),
+            smi, maAngles, emaCloud));
+        return new Snapshot(version, etag(entry, version, Format.JSON), json);
+    }
+
+    private byte[] serialize(ChartSnapshot snapshot) {
+        try {
+            return objectMapper.writeValueAsBytes(snapshot);
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private Entry entry(String contract, String interval, CandleSeries series) {
+        Map<String, Entry> byInterval = entries.computeIfAbsent(contract, k -> new ConcurrentHashMap<>());
+        Entry entry = byInterval.get(interval);
+        if (entry == null || entry.series != series) {
+            Entry fresh = new Entry(series);
+            entry = entry == null
+                ? byInterval.computeIfAbsent(interval, k -> fresh)
+                : byInterval.merge(interval, fresh, (old, next) -> old.series == series ? old : next);
+        }
+        return entry;
+    }
+
+    private static String etag(Entry entry, long version, Format format) {
+        // the series id keeps tags from colliding once versions restart with a new series
+        return "\"" + entry.series.id() + "-" + version + "-" + format.ordinal() + "\"";
+    }
+
+    private static final class Entry {
+        final CandleSeries series;
+        // indexed by Format ordinal
+        final AtomicReferenceArray<Snapshot> snapshots = new AtomicReferenceArray<>(Format.values().length);
+
+        Entry(CandleSeries series) {
+            this.series = series;
+        }
+    }
+}
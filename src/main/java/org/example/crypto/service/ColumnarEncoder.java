@@ -0,0 +1,210 @@
+package org.example.crypto.service;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import org.example.crypto.dto.CandleColumns;
+import org.example.crypto.dto.IndicatorColumns;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * Compact encodings of a candle series and its indicators, one array per field instead of one
+ * object per bar. Indicator columns are aligned index for index with the candles.
+ *
+ * <p>{@link Format#COLUMNAR} is JSON: {@code t0} plus {@code dt} (time deltas, first one 0)
+ * followed by one array per field, {@code null} where an indicator has no value.
+ *
+ * <p>{@link Format#BINARY} is little-endian, every column starting on an 8-byte boundary so the
+ * browser can view it with typed arrays:
+ * <pre>
+ *  0  int32   magic "CHRT"
+ *  4  int32   bar count n
+ *  8  int64   series version
+ * 16  int32   flags (bit 0: indicator columns present)
+ * 20  int32   reserved
+ * 24  float64 SMI overbought, 32 float64 SMI oversold, 40 float64 MA angle threshold
+ * 48  int64[n] time, float64[n] open, high, low, close, int64[n] volume
+ *     if indicators: float64[n] smi, signal, fastEma, slowEma, jmaSlope, int8[n] ma27Trend
+ * </pre>
+ * {@code NaN} marks a missing indicator value.
+ */
+public final class ColumnarEncoder {
+
+    public enum Format {
+        /** The original array of objects per endpoint. */
+        JSON,
+        COLUMNAR,
+        BINARY;
+
+        public static Format parse(String format) {
+            return valueOf(format.toUpperCase(Locale.ROOT));
+        }
+    }
+
+    static final int MAGIC = 0x54524843; // "CHRT" read little-endian
+    static final int HEADER_BYTES = 48;
+    static final int FLAG_INDICATORS = 1;
+
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+    private ColumnarEncoder() {
+    }
+
+    /**
+     * Columnar JSON of {@code candles}; {@code indicators} may be null for candles only.
+     */
+    public static byte[] columnarJson(String contract, String interval, long version,
+                                      CandleColumns candles, IndicatorColumns indicators) {
+        int n = candles.size();
+        ByteArrayOutputStream out = new ByteArrayOutputStream(64 + n * (indicators != null ? 160 : 80));
+        try (JsonGenerator json = JSON_FACTORY.createGenerator(out)) {
+            json.writeStartObject();
+            json.writeStringField("contract", contract);
+            json.writeStringField("interval", interval);
+            json.writeNumberField("version", version);
+            json.writeNumberField("count", n);
+
+            long[] time = candles.time();
+            json.writeNumberField("t0", n > 0 ? time[0] : 0);
+            json.writeArrayFieldStart("dt");
+            for (int i = 0; i < n; i++) {
+                json.writeNumber(i == 0 ? 0 : time[i] - time[i - 1]);
+            }
+            json.writeEndArray();
+            writeColumn(json, "open", candles.open());
+            writeColumn(json, "high", candles.high());
+            writeColumn(json, "low", candles.low());
+            writeColumn(json, "close", candles.close());
+            json.writeArrayFieldStart("volume");
+            for (long v : candles.volume()) {
+                json.writeNumber(v);
+            }
+            json.writeEndArray();
+
+            if (indicators != null) {
+                Aligned aligned = align(candles, indicators);
+                writeColumn(json, "smi", aligned.smi);
+                writeColumn(json, "signal", aligned.signal);
+                writeColumn(json, "fastEma", aligned.fastEma);
+                writeColumn(json, "slowEma", aligned.slowEma);
+                writeColumn(json, "jmaSlope", aligned.jmaSlope);
+                json.writeArrayFieldStart("ma27Trend");
+                for (byte trend : aligned.ma27Trend) {
+                    json.writeNumber(trend);
+                }
+                json.writeEndArray();
+                json.writeNumberField("overbought", SMIIndicatorService.OVERBOUGHT);
+                json.writeNumberField("oversold", SMIIndicatorService.OVERSOLD);
+                json.writeNumberField("threshold", MAAnglesIndicatorService.THRESHOLD);
+                json.writeNumberField("fastLength", EMACloudIndicatorService.FAST_LENGTH);
+                json.writeNumberField("slowLength", EMACloudIndicatorService.SLOW_LENGTH);
+            }
+            json.writeEndObject();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * Binary layout described on the class; {@code indicators} may be null for candles only.
+     */
+    public static byte[] binary(long version, CandleColumns candles, IndicatorColumns indicators) {
+        int n = candles.size();
+        int columnBytes = n * 8 * 6 + (indicators != null ? n * 8 * 5 + n : 0);
+        ByteBuffer buf = ByteBuffer.allocate(HEADER_BYTES + columnBytes).order(ByteOrder.LITTLE_ENDIAN);
+        buf.putInt(MAGIC);
+        buf.putInt(n);
+        buf.putLong(version);
+        buf.putInt(indicators != null ? FLAG_INDICATORS : 0);
+        buf.putInt(0);
+        buf.putDouble(SMIIndicatorService.OVERBOUGHT);
+        buf.putDouble(SMIIndicatorService.OVERSOLD);
+        buf.putDouble(MAAnglesIndicatorService.THRESHOLD);
+
+        buf.asLongBuffer().put(candles.time());
+        buf.position(buf.position() + n * 8);
+        putColumn(buf, candles.open());
+        putColumn(buf, candles.high());
+        putColumn(buf, candles.low());
+        putColumn(buf, candles.close());
+        buf.asLongBuffer().put(candles.volume());
+        buf.position(buf.position() + n * 8);
+
+        if (indicators != null) {
+            Aligned aligned = align(candles, indicators);
+            putColumn(buf, aligned.smi);
+            putColumn(buf, aligned.signal);
+            putColumn(buf, aligned.fastEma);
+            putColumn(buf, aligned.slowEma);
+            putColumn(buf, aligned.jmaSlope);
+            buf.put(aligned.ma27Trend);
+        }
+        return buf.array();
+    }
+
+    private static void writeColumn(JsonGenerator json, String name, double[] values) throws IOException {
+        json.writeArrayFieldStart(name);
+        for (double v : values) {
+            if (Double.isNaN(v)) {
+                json.writeNull();
+            } else {
+                json.writeNumber(v);
+            }
+        }
+        json.writeEndArray();
+    }
+
+    private static void putColumn(ByteBuffer buf, double[] values) {
+        buf.asDoubleBuffer().put(values);
+        buf.position(buf.position() + values.length * 8);
+    }
+
+    private record Aligned(double[] smi, double[] signal, double[] fastEma, double[] slowEma,
+                           double[] jmaSlope, byte[] ma27Trend) {}
+
+    // indicator values at the candle times; both sides are ascending, NaN/0 where one is missing
+    private static Aligned align(CandleColumns candles, IndicatorColumns indicators) {
+        int n = candles.size();
+        if (indicators.size() == n && (n == 0 || indicators.time()[0] == candles.time()[0]
+                && indicators.time()[n - 1] == candles.time()[n - 1])) {
+            return new Aligned(indicators.smi(), indicators.signal(), indicators.fastEma(),
+                indicators.slowEma(), indicators.jmaSlope(), indicators.ma27Trend());
+        }
+        double[] smi = nanArray(n);
+        double[] signal = nanArray(n);
+        double[] fastEma = nanArray(n);
+        double[] slowEma = nanArray(n);
+        double[] jmaSlope = nanArray(n);
+        byte[] ma27Trend = new byte[n];
+        long[] t = indicators.time();
+        int j = 0;
+        for (int i = 0; i < n; i++) {
+            long time = candles.time()[i];
+            while (j < t.length && t[j] < time) {
+                j++;
+            }
+            if (j < t.length && t[j] == time) {
+                smi[i] = indicators.smi()[j];
+                signal[i] = indicators.signal()[j];
+                fastEma[i] = indicators.fastEma()[j];
+                slowEma[i] = indicators.slowEma()[j];
+                jmaSlope[i] = indicators.jmaSlope()[j];
+                ma27Trend[i] = indicators.ma27Trend()[j];
+            }
+        }
+        return new Aligned(smi, signal, fastEma, slowEma, jmaSlope, ma27Trend);
+    }
+
+    private static double[] nanArray(int n) {
+        double[] a = new double[n];
+        Arrays.fill(a, Double.NaN);
+        return a;
+    }
+}
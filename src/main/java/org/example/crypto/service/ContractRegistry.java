@@ -0,0 +1,180 @@
+package org.example.crypto.service;
+
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.regex.Pattern;
+
+/**
+ * The set of futures contracts the application tracks. Contracts can be added and removed
+ * at runtime; each name is interned to a stable int id (ids are never reused), which the
+ * websocket parser and per-contract tables index by.
+ */
+@Service
+public class ContractRegistry {
+
+    public interface Listener {
+
+        void onContractsAdded(List<String> contracts);
+
+        void onContractsRemoved(List<String> contracts);
+    }
+
+    private static final Logger log = LoggerFactory.getLogger(ContractRegistry.class);
+    // BASE_QUOTE as Gate.io names futures; names end up in subscriptions, REST calls and file paths
+    private static final Pattern CONTRACT = Pattern.compile("[A-Z0-9]+_[A-Z0-9]+");
+
+    @Value("${crypto.contracts:}")
+    private String[] initialContracts = {};
+
+    private final SymbolTable symbols = new SymbolTable();
+    // indexed by contract id
+    private volatile boolean[] active = new boolean[0];
+    private final List<Listener> listeners = new CopyOnWriteArrayList<>();
+
+    @PostConstruct
+    public void init() {
+        if (add(Arrays.asList(initialContracts)).isEmpty()) {
+            log.warn("No contracts configured (crypto.contracts); add them through the API");
+        }
+    }
+
+    public void addListener(Listener listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * Registers contracts and notifies listeners. Returns the contracts that were not active before;
+     * throws {@link IllegalArgumentException}, registering none, if any name is malformed.
+     */
+    public synchronized List<String> add(Collection<String> contracts) {
+        List<String> added = new ArrayList<>();
+        boolean[] next = active;
+        for (String contract : normalizeAll(contracts)) {
+            int id = symbols.intern(contract);
+            if (id >= next.length) {
+                next = Arrays.copyOf(next, Math.max(id + 1, next.length * 2));
+            } else if (next == active) {
+                next = next.clone();
+            }
+            if (!next[id]) {
+                next[id] = true;
+                added.add(contract);
+            }
+        }
+        active = next;
+        if (!added.isEmpty()) {
+            log.info("Contracts added: {}", added);
+            for (Listener listener : listeners) {
+                listener.onContractsAdded(added);
+            }
+        }
+        return added;
+    }
+
+    /**
+     * Deactivates contracts and notifies listeners. Returns the contracts that were active before;
+     * throws {@link IllegalArgumentException}, removing none, if any name is malformed.
+     */
+    public synchronized List<String> remove(Collection<String> contracts) {
+        List<String> removed = new ArrayList<>();
+        boolean[] next = active.clone();
+        for (String contract : normalizeAll(contracts)) {
+            int id = symbols.lookup(contract);
+            if (id >= 0 && next[id]) {
+                next[id] = false;
+                removed.add(contract);
+            }
+        }
+        active = next;
+        if (!removed.isEmpty()) {
+            log.info("Contracts removed: {}", removed);
+            for (Listener listener : listeners) {
+                listener.onContractsRemoved(removed);
+            }
+        }
+        return removed;
+    }
+
+    public boolean isActive(int id) {
+        boolean[] a = active;
+        return id >= 0 && id < a.length && a[id];
+    }
+
+    public boolean isActive(String contract) {
+        return isActive(symbols.lookup(contract));
+    }
+
+    /**
+     * Resolves a path value such as "xrp" or "XRP_USDT" to an active contract name, or null.
+     */
+    public String resolve(String value) {
+        if (value == null || value.isBlank()) {
+            return null;
+        }
+        // malformed names are never registered and resolve to null
+        String contract = canonical(value);
+        return isActive(contract) ? contract : null;
+    }
+
+    /**
+     * Active contracts in registration order.
+     */
+    public List<String> contracts() {
+        boolean[] a = active;
+        List<String> list = new ArrayList<>();
+        for (int id = 0; id < a.length; id++) {
+            if (a[id]) {
+                list.add(symbols.name(id));
+            }
+        }
+        return list;
+    }
+
+    public SymbolTable symbols() {
+        return symbols;
+    }
+
+    /**
+     * "xrp" -> "XRP_USDT", "btc_usdt" -> "BTC_USDT"; throws {@link IllegalArgumentException} for
+     * anything that is not letters and digits around one underscore.
+     */
+    public static String normalize(String value) {
+        String contract = canonical(value);
+        if (!isValid(contract)) {
+            throw new IllegalArgumentException("Malformed contract: " + value);
+        }
+        return contract;
+    }
+
+    /**
+     * True for a well-formed contract name such as "XRP_USDT".
+     */
+    public static boolean isValid(String contract) {
+        return contract != null && CONTRACT.matcher(contract).matches();
+    }
+
+    private static String canonical(String value) {
+        String upper = value.trim().toUpperCase(Locale.ROOT);
+        return upper.indexOf('_') >= 0 ? upper : upper + "_USDT";
+    }
+
+    // validates every name before any is registered or removed
+    private static List<String> normalizeAll(Collection<String> contracts) {
+        List<String> names = new ArrayList<>(contracts.size());
+        for (String raw : contracts) {
+            if (raw == null || raw.isBlank()) continue;
+            names.add(normalize(raw));
+        }
+        return names;
+    }
+}
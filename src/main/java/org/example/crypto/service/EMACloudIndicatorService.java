@@ -1,5 +1,8 @@
 package org.example.crypto.service;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.example.crypto.dto.CandleColumns;
 import org.example.crypto.dto.CandleStick;
 import org.example.crypto.dto.EMACloudResult;
 import org.example.crypto.dto.EMACloudResult.EMACloudPoint;
@@ -7,6 +10,8 @@ import org.springframework.stereotype.Service;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
 
 /**
  * EMAx2 Trend Cloud Fill Indicator Service
@@ -17,36 +22,43 @@ import java.util.List;
 @Service
 public class EMACloudIndicatorService {
 
-    private static final int FAST_LENGTH = 50;
-    private static final int SLOW_LENGTH = 200;
+    static final int FAST_LENGTH = 50;
+    static final int SLOW_LENGTH = 200;
 
-    private final CandleStickService candleStickService;
+    private final Timer calculateTimer;
 
-    public EMACloudIndicatorService(CandleStickService candleStickService) {
-        this.candleStickService = candleStickService;
+    public EMACloudIndicatorService(MeterRegistry meterRegistry) {
+        this.calculateTimer = LatencyTimers.builder("crypto.indicator.calculate",
+                "Time to calculate an indicator over a whole series")
+            .tag("indicator", "ema_cloud")
+            .register(meterRegistry);
     }
 
-    public EMACloudResult calculate() {
-        List<CandleStick> candles = candleStickService.getCandles();
-        return calculate(candles);
+    public EMACloudResult calculate(List<CandleStick> candles) {
+        return calculate(CandleColumns.of(candles));
     }
 
-    public EMACloudResult calculate(List<CandleStick> candles) {
+    public EMACloudResult calculate(CandleColumns candles) {
+        long start = System.nanoTime();
+        EMACloudResult result = compute(candles);
+        calculateTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        return result;
+    }
+
+    private EMACloudResult compute(CandleColumns candles) {
         if (candles == null || candles.size() < SLOW_LENGTH) {
             return new EMACloudResult(List.of(), FAST_LENGTH, SLOW_LENGTH);
         }
 
         int size = candles.size();
-
-        // Get close prices
-        double[] close = new double[size];
-        for (int i = 0; i < size; i++) {
-            close[i] = candles.get(i).close();
-        }
+        long[] time = candles.time();
 
         // Calculate EMAs
-        double[] fastEMA = calculateEMA(close, FAST_LENGTH);
-        double[] slowEMA = calculateEMA(close, SLOW_LENGTH);
+        IndicatorNode fast = IndicatorNodes.ema(IndicatorNodes.Price.CLOSE, FAST_LENGTH);
+        IndicatorNode slow = IndicatorNodes.ema(IndicatorNodes.Price.CLOSE, SLOW_LENGTH);
+        Map<IndicatorNode, double[]> series = IndicatorGraph.evaluate(candles, List.of(fast, slow));
+        double[] fastEMA = series.get(fast);
+        double[] slowEMA = series.get(slow);
 
         // Build result
         List<EMACloudPoint> points = new ArrayList<>();
@@ -55,7 +67,7 @@ public class EMACloudIndicatorService {
             boolean downTrend = fastEMA[i] < slowEMA[i];
 
             points.add(new EMACloudPoint(
-                candles.get(i).time(),
+                time[i],
                 fastEMA[i],
                 slowEMA[i],
                 upTrend,
@@ -65,20 +77,4 @@ public class EMACloudIndicatorService {
 
         return new EMACloudResult(points, FAST_LENGTH, SLOW_LENGTH);
     }
-
-    /**
-     * Calculate EMA (Exponential Moving Average)
-     */
-    private double[] calculateEMA(double[] data, int period) {
-        int size = data.length;
-        double[] ema = new double[size];
-        double multiplier = 2.0 / (period + 1);
-
-        ema[0] = data[0];
-        for (int i = 1; i < size; i++) {
-            ema[i] = (data[i] - ema[i - 1]) * multiplier + ema[i - 1];
-        }
-
-        return ema;
-    }
 }
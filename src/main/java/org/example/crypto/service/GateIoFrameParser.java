@@ -0,0 +1,515 @@
+package org.example.crypto.service;
+
+/**
+ * Streaming parser for Gate.io futures websocket frames.
+ *
+ * Scans the frame text once, dispatching ticker and candlestick updates straight to a
+ * {@link Handler} as primitives. Contract and interval names are resolved through
+ * {@link SymbolTable}s on the character range of the field, and decimal strings such as
+ * {@code "0.6123"} are decoded without substring or boxing, so a ticker update produces
+ * no garbage. Only a string with escapes is copied out, unescaped. Frames for other channels
+ * or events are skipped.
+ *
+ * Gate.io sends {@code channel} and {@code event} before {@code result}; a frame that
+ * puts {@code result} first is skipped. Instances hold scan state and are not thread-safe.
+ */
+public class GateIoFrameParser {
+
+    public interface Handler {
+
+        void onTicker(int contractId, double last, double changePercentage);
+
+        void onCandle(int contractId, int intervalId, long time,
+                      double open, double high, double low, double close, long volume);
+    }
+
+    static final int CHANNEL_OTHER = 0;
+    static final int CHANNEL_TICKERS = 1;
+    static final int CHANNEL_CANDLESTICKS = 2;
+    // metric tag of each channel constant
+    static final String[] CHANNEL_NAMES = {"other", "tickers", "candlesticks"};
+
+    // 10^0 .. 10^22 are exact doubles, which keeps the fast decimal path correctly rounded
+    private static final double[] POW10 = new double[23];
+    private static final int MAX_FAST_DIGITS = 15;
+
+    static {
+        double p = 1;
+        for (int i = 0; i < POW10.length; i++) {
+            POW10[i] = p;
+            p *= 10;
+        }
+    }
+
+    private final SymbolTable contracts;
+    private final SymbolTable intervals;
+    private final Handler handler;
+
+    private String src;
+    private int pos;
+    private int end;
+
+    // the last string token, quotes excluded: a range of src, or of its unescaped copy
+    private String str;
+    private int strStart;
+    private int strEnd;
+
+    private long frameTimeMs;
+    private int frameChannel;
+
+    public GateIoFrameParser(SymbolTable contracts, SymbolTable intervals, Handler handler) {
+        this.contracts = contracts;
+        this.intervals = intervals;
+        this.handler = handler;
+    }
+
+    /**
+     * Parses one frame. Returns true if it was a ticker or candlestick update.
+     *
+     * @throws IllegalArgumentException if the frame is not well-formed JSON
+     */
+    public boolean parse(String frame) {
+        src = frame;
+        pos = 0;
+        end = frame.length();
+        frameTimeMs = 0;
+        frameChannel = CHANNEL_OTHER;
+        try {
+            return parseFrame();
+        } finally {
+            src = null;
+            str = null;
+        }
+    }
+
+    /**
+     * Exchange timestamp ({@code time_ms}) of the last parsed frame, or 0 if absent.
+     */
+    public long frameTimeMs() {
+        return frameTimeMs;
+    }
+
+    /**
+     * Channel of the last parsed frame: {@link #CHANNEL_TICKERS}, {@link #CHANNEL_CANDLESTICKS}
+     * or {@link #CHANNEL_OTHER}, also when the frame failed to parse after its channel.
+     */
+    int channel() {
+        return frameChannel;
+    }
+
+    private boolean parseFrame() {
+        int channel = CHANNEL_OTHER;
+        boolean update = false;
+        boolean dispatched = false;
+
+        expect('{');
+        if (peek() == '}') {
+            return false;
+        }
+        while (true) {
+            readString();
+            String key = str;
+            int keyStart = strStart;
+            int keyEnd = strEnd;
+            expect(':');
+
+            if (rangeEquals(key, keyStart, keyEnd, "channel") && peek() == '"') {
+                readString();
+                if (rangeEquals(str, strStart, strEnd, "futures.tickers")) {
+                    channel = CHANNEL_TICKERS;
+                } else if (rangeEquals(str, strStart, strEnd, "futures.candlesticks")) {
+                    channel = CHANNEL_CANDLESTICKS;
+                }
+                frameChannel = channel;
+            } else if (rangeEquals(key, keyStart, keyEnd, "event") && peek() == '"') {
+                readString();
+                update = rangeEquals(str, strStart, strEnd, "update");
+            } else if (rangeEquals(key, keyStart, keyEnd, "time_ms")) {
+                frameTimeMs = readLong();
+            } else if (rangeEquals(key, keyStart, keyEnd, "result") && update
+                    && channel != CHANNEL_OTHER && peek() == '[') {
+                parseResults(channel);
+                dispatched = true;
+            } else {
+                skipValue();
+            }
+
+            char c = peek();
+            pos++;
+            if (c == '}') {
+                return dispatched;
+            }
+            if (c != ',') {
+                throw error("Expected ',' or '}'");
+            }
+        }
+    }
+
+    private void parseResults(int channel) {
+        expect('[');
+        if (peek() == ']') {
+            pos++;
+            return;
+        }
+        while (true) {
+            if (peek() == '{') {
+                if (channel == CHANNEL_TICKERS) {
+                    parseTicker();
+                } else {
+                    parseCandle();
+                }
+            } else {
+                skipValue();
+            }
+            char c = peek();
+            pos++;
+            if (c == ']') {
+                return;
+            }
+            if (c != ',') {
+                throw error("Expected ',' or ']'");
+            }
+        }
+    }
+
+    private void parseTicker() {
+        int contractId = -1;
+        double last = Double.NaN;
+        double changePercentage = 0;
+
+        expect('{');
+        if (peek() != '}') {
+            while (true) {
+                readString();
+                String key = str;
+                int keyStart = strStart;
+                int keyEnd = strEnd;
+                expect(':');
+
+                if (rangeEquals(key, keyStart, keyEnd, "contract") && peek() == '"') {
+                    readString();
+                    contractId = contracts.lookup(str, strStart, strEnd);
+                } else if (rangeEquals(key, keyStart, keyEnd, "last")) {
+                    last = readDouble();
+                } else if (rangeEquals(key, keyStart, keyEnd, "change_percentage")) {
+                    changePercentage = readDouble();
+                } else {
+                    skipValue();
+                }
+                if (!nextMember()) break;
+            }
+        } else {
+            pos++;
+        }
+
+        if (contractId >= 0 && !Double.isNaN(last)) {
+            handler.onTicker(contractId, last, changePercentage);
+        }
+    }
+
+    private void parseCandle() {
+        int contractId = -1;
+        int intervalId = -1;
+        long time = 0;
+        long volume = 0;
+        double open = 0;
+        double high = 0;
+        double low = 0;
+        double close = 0;
+
+        expect('{');
+        if (peek() != '}') {
+            while (true) {
+                readString();
+                String key = str;
+                int keyStart = strStart;
+                int keyEnd = strEnd;
+                expect(':');
+
+                if (keyEnd - keyStart == 1) {
+                    switch (key.charAt(keyStart)) {
+                        case 't' -> time = readLong();
+                        case 'v' -> volume = readLong();
+                        case 'o' -> open = readDouble();
+                        case 'h' -> high = readDouble();
+                        case 'l' -> low = readDouble();
+                        case 'c' -> close = readDouble();
+                        case 'n' -> {
+                            // "1m_XRP_USDT" -> interval "1m", contract "XRP_USDT"
+                            if (peek() == '"') {
+                                readString();
+                                int sep = indexOf(str, '_', strStart, strEnd);
+                                if (sep > strStart) {
+                                    intervalId = intervals.lookup(str, strStart, sep);
+                                    contractId = contracts.lookup(str, sep + 1, strEnd);
+                                }
+                            } else {
+                                skipValue();
+                            }
+                        }
+                        default -> skipValue();
+                    }
+                } else {
+                    skipValue();
+                }
+                if (!nextMember()) break;
+            }
+        } else {
+            pos++;
+        }
+
+        if (contractId >= 0 && intervalId >= 0) {
+            handler.onCandle(contractId, intervalId, time, open, high, low, close, volume);
+        }
+    }
+
+    // consumes ',' (more members follow) or '}' (object done)
+    private boolean nextMember() {
+        char c = peek();
+        pos++;
+        if (c == ',') {
+            return true;
+        }
+        if (c == '}') {
+            return false;
+        }
+        throw error("Expected ',' or '}'");
+    }
+
+    // --- tokens ---
+
+    private void readString() {
+        expect('"');
+        int start = pos;
+        boolean escaped = false;
+        while (true) {
+            if (pos >= end) {
+                throw error("Unterminated string");
+            }
+            char c = src.charAt(pos);
+            if (c == '\\') {
+                escaped = true;
+                pos += 2;
+            } else if (c == '"') {
+                break;
+            } else {
+                pos++;
+            }
+        }
+        if (escaped) {
+            str = unescape(start, pos);
+            strStart = 0;
+            strEnd = str.length();
+        } else {
+            str = src;
+            strStart = start;
+            strEnd = pos;
+        }
+        pos++;
+    }
+
+    private String unescape(int start, int stop) {
+        StringBuilder out = new StringBuilder(stop - start);
+        for (int i = start; i < stop; i++) {
+            char c = src.charAt(i);
+            if (c != '\\') {
+                out.append(c);
+                continue;
+            }
+            char e = src.charAt(++i);
+            switch (e) {
+                case '"', '\\', '/' -> out.append(e);
+                case 'b' -> out.append('\b');
+                case 'f' -> out.append('\f');
+                case 'n' -> out.append('\n');
+                case 'r' -> out.append('\r');
+                case 't' -> out.append('\t');
+                case 'u' -> {
+                    if (i + 4 >= stop) {
+                        throw error("Bad unicode escape");
+                    }
+                    try {
+                        out.append((char) Integer.parseInt(src, i + 1, i + 5, 16));
+                    } catch (NumberFormatException ex) {
+                        throw error("Bad unicode escape");
+                    }
+                    i += 4;
+                }
+                default -> throw error("Bad escape '\\" + e + "'");
+            }
+        }
+        return out.toString();
+    }
+
+    /**
+     * Reads a number given either as a JSON number or as a decimal string. Empty strings
+     * and null read as 0, like Jackson's {@code asDouble()}.
+     */
+    private double readDouble() {
+        char c = peek();
+        if (c == '"') {
+            readString();
+            return parseDouble(str, strStart, strEnd);
+        }
+        int start = pos;
+        skipLiteral();
+        if (rangeEquals(src, start, pos, "null")) {
+            return 0;
+        }
+        return parseDouble(src, start, pos);
+    }
+
+    private long readLong() {
+        char c = peek();
+        String s;
+        int start;
+        int stop;
+        if (c == '"') {
+            readString();
+            s = str;
+            start = strStart;
+            stop = strEnd;
+        } else {
+            s = src;
+            start = pos;
+            skipLiteral();
+            stop = pos;
+            if (rangeEquals(s, start, stop, "null")) {
+                return 0;
+            }
+        }
+
+        int i = start;
+        boolean negative = i < stop && s.charAt(i) == '-';
+        if (negative) i++;
+        if (i == stop || stop - i > 18) {
+            return (long) parseDouble(s, start, stop);
+        }
+        long value = 0;
+        for (; i < stop; i++) {
+            char d = s.charAt(i);
+            if (d < '0' || d > '9') {
+                return (long) parseDouble(s, start, stop);
+            }
+            value = value * 10 + (d - '0');
+        }
+        return negative ? -value : value;
+    }
+
+    private double parseDouble(String s, int start, int stop) {
+        if (start == stop) {
+            return 0;
+        }
+        int i = start;
+        boolean negative = false;
+        char first = s.charAt(i);
+        if (first == '-' || first == '+') {
+            negative = first == '-';
+            i++;
+        }
+
+        long mantissa = 0;
+        int digits = 0;
+        int scale = 0;
+        boolean fraction = false;
+        for (; i < stop; i++) {
+            char c = s.charAt(i);
+            if (c >= '0' && c <= '9') {
+                if (mantissa != 0 || c != '0') {
+                    if (++digits > MAX_FAST_DIGITS) {
+                        return slowParse(s, start, stop);
+                    }
+                }
+                mantissa = mantissa * 10 + (c - '0');
+                if (fraction) scale++;
+            } else if (c == '.' && !fraction) {
+                fraction = true;
+            } else {
+                // exponent or anything unusual
+                return slowParse(s, start, stop);
+            }
+        }
+        if (scale >= POW10.length) {
+            return slowParse(s, start, stop);
+        }
+        double value = scale == 0 ? mantissa : mantissa / POW10[scale];
+        return negative ? -value : value;
+    }
+
+    private double slowParse(String s, int start, int stop) {
+        return Double.parseDouble(s.substring(start, stop));
+    }
+
+    private void skipValue() {
+        char c = peek();
+        if (c == '"') {
+            readString();
+        } else if (c == '{' || c == '[') {
+            int depth = 0;
+            do {
+                if (pos >= end) {
+                    throw error("Unterminated value");
+                }
+                char ch = src.charAt(pos);
+                if (ch == '"') {
+                    readString();
+                    continue;
+                }
+                if (ch == '{' || ch == '[') {
+                    depth++;
+                } else if (ch == '}' || ch == ']') {
+                    depth--;
+                }
+                pos++;
+            } while (depth > 0);
+        } else {
+            skipLiteral();
+        }
+    }
+
+    private void skipLiteral() {
+        while (pos < end) {
+            char c = src.charAt(pos);
+            if (c == ',' || c == '}' || c == ']' || c == ' ' || c == '\t' || c == '\n' || c == '\r') {
+                break;
+            }
+            pos++;
+        }
+    }
+
+    private void expect(char expected) {
+        if (peek() != expected) {
+            throw error("Expected '" + expected + "'");
+        }
+        pos++;
+    }
+
+    // skips whitespace and returns the next character without consuming it
+    private char peek() {
+        while (pos < end) {
+            char c = src.charAt(pos);
+            if (c != ' ' && c != '\t' && c != '\n' && c != '\r') {
+                return c;
+            }
+            pos++;
+        }
+        throw error("Unexpected end of frame");
+    }
+
+    private static int indexOf(String s, char c, int from, int to) {
+        for (int i = from; i < to; i++) {
+            if (s.charAt(i) == c) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static boolean rangeEquals(String s, int from, int to, String literal) {
+        return to - from == literal.length() && s.regionMatches(from, literal, 0, literal.length());
+    }
+
+    private IllegalArgumentException error(String message) {
+        return new IllegalArgumentException(message + " at offset " + pos);
+    }
+}
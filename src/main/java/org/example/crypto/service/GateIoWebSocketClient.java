@@ -1,284 +1,880 @@
 package org.example.crypto.service;
 
-import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import jakarta.annotation.PostConstruct;
 import jakarta.annotation.PreDestroy;
+import org.example.crypto.dto.CandleStick;
+import org.example.crypto.dto.WebSocketConnectionStats;
 import org.java_websocket.client.WebSocketClient;
 import org.java_websocket.handshake.ServerHandshake;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import java.math.BigDecimal;
 import java.net.URI;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadLocalRandom;
 import java.util.concurrent.TimeUnit;
-
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+
+/**
+ * Gate.io futures tickers and candlesticks, spread over a pool of websocket connections.
+ *
+ * Every contract is subscribed on exactly one connection, and each connection has its own
+ * reader thread and frame parser, so a slow handler only holds back the contracts that share
+ * its connection. The pool opens one connection per {@code contracts-per-connection} active
+ * contracts, up to {@code max-connections} (one per CPU by default), and grows as contracts
+ * are added. New contracts go to the connection with the fewest. Every
+ * {@code rebalance-seconds} the contracts are moved from the busiest connection to the
+ * quietest, by the frames each received in the last round, until the loads are within
+ * {@link #REBALANCE_TOLERANCE}; a contract being moved is subscribed on its new connection
+ * before it is dropped from the old one.
+ *
+ * Each connection pings on its own schedule and is closed, and so reconnected, when nothing
+ * has arrived on it for {@link #STALE_AFTER_MS}. Reconnects are scheduled off the reader
+ * thread with jittered exponential backoff; after one, the first live bar of each series is
+ * checked for a gap, which is backfilled. Contracts of a connection down for longer than
+ * {@link #UNHEALTHY_AFTER_MS} are moved to healthy ones at the next rebalance.
+ */
 @Service
 public class GateIoWebSocketClient {
 
     private static final Logger log = LoggerFactory.getLogger(GateIoWebSocketClient.class);
     private static final String GATE_IO_WS_URL = "wss://fx-ws.gateio.ws/v4/ws/usdt";
-    private static final String XRP_CONTRACT = "XRP_USDT";
-    private static final String BTC_CONTRACT = "BTC_USDT";
+    // Gate.io accepts several contracts in one futures.tickers payload
+    private static final int SUBSCRIBE_BATCH_SIZE = 50;
+    // reconnect delays: the first retry comes quickly, later ones back off with jitter
+    static final long FIRST_RETRY_MS = 250;
+    static final long BASE_BACKOFF_MS = 1_000;
+    static final long MAX_BACKOFF_MS = 60_000;
+    static final long PING_INTERVAL_MS = 20_000;
+    static final long STALE_AFTER_MS = 3 * PING_INTERVAL_MS;
+    static final long UNHEALTHY_AFTER_MS = 30_000;
+    // rebalancing stops once the busiest connection is within this fraction of the quietest
+    static final double REBALANCE_TOLERANCE = 0.25;
+    private static final int MAX_MOVES_PER_ROUND = 8;
 
-    private final ObjectMapper objectMapper = new ObjectMapper();
     private final CandleStickService candleStickService;
-    private WebSocketClient webSocketClient;
-    private ScheduledExecutorService pingScheduler;
-
-    private final Map<String, String> currentPrices = new ConcurrentHashMap<>();
-    private final Map<String, String> lastUpdateTimes = new ConcurrentHashMap<>();
-    private final Map<String, String> changePercentages = new ConcurrentHashMap<>();
-    // contract -> current interval (e.g. "1m", "5m", "1h")
-    private final Map<String, String> currentIntervals = new ConcurrentHashMap<>();
+    private final ContractRegistry contractRegistry;
+
+    @Value("${crypto.websocket.max-connections:0}")
+    private int maxConnections = 0;
+
+    @Value("${crypto.websocket.contracts-per-connection:50}")
+    private int contractsPerConnection = 50;
+
+    @Value("${crypto.websocket.rebalance-seconds:60}")
+    private long rebalanceSeconds = 60;
+
+    // connects, reconnects, pings, health checks and rebalancing; never a reader thread
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "gateio-websocket");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private volatile boolean started;
+    private volatile boolean closing;
+    // grown by ensureConnections(), never shrunk
+    private volatile Connection[] connections;
+    // contract -> the connection it is subscribed on; changed under the pool's monitor
+    private final Map<String, Connection> assignment = new ConcurrentHashMap<>();
+    // frames per contract id at the previous rebalance
+    private long[] framesAtLastRound = new long[0];
+    private long lastRoundNanos = System.nanoTime();
+    // series whose first live bar after a reconnect has not arrived yet; see resync()
+    private final Set<CandleSeries> resyncing = ConcurrentHashMap.newKeySet();
+    private volatile boolean resyncPending;
+
+    private final SymbolTable contracts;
+    private final SymbolTable intervals =
+        new SymbolTable("10s", "1m", "5m", "15m", "30m", "1h", "4h", "8h", "1d", "7d", "30d");
+    // indexed by contract id, grown when contracts are registered
+    private volatile Ticker[] tickers = new Ticker[0];
+    // contract -> intervals subscribed on demand on top of 1m (those CandleAggregator cannot derive)
+    private final Map<String, Set<String>> extraIntervals = new ConcurrentHashMap<>();
+    private volatile TickerListener[] tickerListeners = new TickerListener[0];
+
+    private final MeterRegistry meterRegistry;
+    // indexed by GateIoFrameParser channel
+    private final Timer[] parseTimers = new Timer[GateIoFrameParser.CHANNEL_NAMES.length];
+    private final Timer[] lagTimers = new Timer[GateIoFrameParser.CHANNEL_NAMES.length];
+    private final Counter parseFailures;
+    private final Timer downtimeTimer;
+    private final Counter reconnectCounter;
+    private final Counter movedContracts;
+
+    /**
+     * A pool sized as {@code crypto.websocket.max-connections} and
+     * {@code crypto.websocket.contracts-per-connection} would size it.
+     */
+    GateIoWebSocketClient(CandleStickService candleStickService, ContractRegistry contractRegistry,
+                          MeterRegistry meterRegistry, int maxConnections, int contractsPerConnection) {
+        this(candleStickService, contractRegistry, meterRegistry);
+        this.maxConnections = maxConnections;
+        this.contractsPerConnection = contractsPerConnection;
+    }
 
-    public GateIoWebSocketClient(CandleStickService candleStickService) {
+    public GateIoWebSocketClient(CandleStickService candleStickService, ContractRegistry contractRegistry,
+                                 MeterRegistry meterRegistry) {
         this.candleStickService = candleStickService;
-        currentPrices.put(XRP_CONTRACT, "0");
-        currentPrices.put(BTC_CONTRACT, "0");
-        lastUpdateTimes.put(XRP_CONTRACT, "");
-        lastUpdateTimes.put(BTC_CONTRACT, "");
-        changePercentages.put(XRP_CONTRACT, "0");
-        changePercentages.put(BTC_CONTRACT, "0");
-        currentIntervals.put(XRP_CONTRACT, "1m");
-        currentIntervals.put(BTC_CONTRACT, "1m");
+        this.contractRegistry = contractRegistry;
+        this.contracts = contractRegistry.symbols();
+        this.meterRegistry = meterRegistry;
+        for (int channel = 0; channel < parseTimers.length; channel++) {
+            String name = GateIoFrameParser.CHANNEL_NAMES[channel];
+            parseTimers[channel] = LatencyTimers.builder("crypto.ws.frame.parse",
+                    "Time to parse a websocket frame, excluding the candle and ticker handlers it calls")
+                .tag("channel", name)
+                .register(meterRegistry);
+            lagTimers[channel] = LatencyTimers.builder("crypto.ws.frame.lag",
+                    "Exchange timestamp (time_ms) of a websocket frame to its receipt")
+                .tag("channel", name)
+                .register(meterRegistry);
+        }
+        this.parseFailures = Counter.builder("crypto.ws.frame.failures")
+            .description("Websocket frames that could not be parsed")
+            .register(meterRegistry);
+        this.downtimeTimer = LatencyTimers.builder("crypto.ws.downtime",
+                "Time from losing a websocket connection to being connected again")
+            .maximumExpectedValue(Duration.ofHours(1))
+            .register(meterRegistry);
+        this.reconnectCounter = Counter.builder("crypto.ws.reconnect.attempts")
+            .description("Websocket reconnect attempts")
+            .register(meterRegistry);
+        this.movedContracts = Counter.builder("crypto.ws.rebalance.moves")
+            .description("Contracts moved to another websocket connection")
+            .register(meterRegistry);
+        this.connections = new Connection[] {new Connection(0)};
+        Gauge.builder("crypto.ws.connections.open", this,
+                client -> Arrays.stream(client.connections).filter(c -> c.open).count())
+            .description("Open websocket connections in the pool")
+            .register(meterRegistry);
+        ensureTickers();
+        contractRegistry.addListener(new ContractRegistry.Listener() {
+            @Override
+            public void onContractsAdded(List<String> added) {
+                ensureTickers();
+                ensureConnections();
+                subscribe(added);
+            }
+
+            @Override
+            public void onContractsRemoved(List<String> removed) {
+                unsubscribe(removed);
+                for (String contract : removed) {
+                    extraIntervals.remove(contract);
+                }
+            }
+        });
+    }
+
+    private synchronized void ensureTickers() {
+        Ticker[] current = tickers;
+        int size = contracts.size();
+        if (current.length >= size) return;
+        Ticker[] next = Arrays.copyOf(current, size);
+        for (int i = current.length; i < size; i++) {
+            next[i] = new Ticker();
+        }
+        tickers = next;
     }
 
     @PostConstruct
     public void init() {
         connect();
+        scheduler.scheduleWithFixedDelay(this::checkHealth, PING_INTERVAL_MS, PING_INTERVAL_MS, TimeUnit.MILLISECONDS);
+        scheduler.scheduleWithFixedDelay(this::rebalance, rebalanceSeconds, rebalanceSeconds, TimeUnit.SECONDS);
+    }
+
+    public synchronized void addTickerListener(TickerListener listener) {
+        TickerListener[] next = Arrays.copyOf(tickerListeners, tickerListeners.length + 1);
+        next[next.length - 1] = listener;
+        tickerListeners = next;
     }
 
+    /**
+     * Opens the pool: as many connections as the active contracts call for, with the
+     * contracts spread over them. Each subscribes its contracts once it is open.
+     */
     public void connect() {
-        try {
-            webSocketClient = new WebSocketClient(new URI(GATE_IO_WS_URL)) {
-                @Override
-                public void onOpen(ServerHandshake handshakedata) {
-                    log.info("Gate.io WebSocket connected");
-                    subscribeToTicker();
-                    startPingScheduler();
-                }
+        ensureConnections();
+        subscribe(contractRegistry.contracts());
+        // connections added from here on are connected by ensureConnections() itself
+        synchronized (this) {
+            started = true;
+            for (Connection connection : connections) {
+                connection.connect();
+            }
+        }
+    }
 
-                @Override
-                public void onMessage(String message) {
-                    handleMessage(message);
-                }
+    // grows the pool to one connection per contractsPerConnection active contracts
+    private synchronized void ensureConnections() {
+        int limit = maxConnections > 0 ? maxConnections : Runtime.getRuntime().availableProcessors();
+        int perConnection = Math.max(1, contractsPerConnection);
+        int active = contractRegistry.contracts().size();
+        int target = Math.max(1, Math.min(limit, (active + perConnection - 1) / perConnection));
+        Connection[] current = connections;
+        if (current.length >= target) return;
+        Connection[] next = Arrays.copyOf(current, target);
+        for (int i = current.length; i < target; i++) {
+            next[i] = new Connection(i);
+        }
+        connections = next;
+        log.info("Gate.io websocket pool grown to {} connection(s) for {} contracts", target, active);
+        if (started) {
+            for (int i = current.length; i < target; i++) {
+                next[i].connect();
+            }
+        }
+    }
 
-                @Override
-                public void onClose(int code, String reason, boolean remote) {
-                    log.warn("WebSocket closed: {} - {}", code, reason);
-                    stopPingScheduler();
-                    reconnect();
+    private void subscribe(List<String> contractList) {
+        Map<Connection, List<String>> byConnection = new HashMap<>();
+        synchronized (this) {
+            for (String contract : contractList) {
+                Connection connection = assignment.get(contract);
+                if (connection == null) {
+                    connection = quietest();
+                    assignment.put(contract, connection);
+                    connection.contracts.add(contract);
                 }
+                byConnection.computeIfAbsent(connection, c -> new ArrayList<>()).add(contract);
+            }
+        }
+        byConnection.forEach(Connection::subscribe);
+    }
 
-                @Override
-                public void onError(Exception ex) {
-                    log.error("WebSocket error", ex);
+    private void unsubscribe(List<String> contractList) {
+        Map<Connection, List<String>> byConnection = new HashMap<>();
+        synchronized (this) {
+            for (String contract : contractList) {
+                Connection connection = assignment.remove(contract);
+                if (connection != null) {
+                    connection.contracts.remove(contract);
+                    byConnection.computeIfAbsent(connection, c -> new ArrayList<>()).add(contract);
                 }
-            };
+            }
+        }
+        byConnection.forEach(Connection::unsubscribe);
+    }
 
-            webSocketClient.connect();
-        } catch (Exception e) {
-            log.error("Failed to create WebSocket client", e);
+    // the healthy connection with the fewest contracts, for a contract that has none yet
+    private Connection quietest() {
+        Connection best = null;
+        for (Connection connection : connections) {
+            if (best == null || healthier(connection, best)
+                    || connection.healthy() == best.healthy() && connection.contracts.size() < best.contracts.size()) {
+                best = connection;
+            }
         }
+        return best;
     }
 
-    private void subscribeToTicker() {
-        for (String contract : new String[]{XRP_CONTRACT, BTC_CONTRACT}) {
-            String tickerMessage = """
-                {
-                    "time": %d,
-                    "channel": "futures.tickers",
-                    "event": "subscribe",
-                    "payload": ["%s"]
-                }
-                """.formatted(System.currentTimeMillis() / 1000, contract);
-            webSocketClient.send(tickerMessage);
-            log.info("Subscribed to futures ticker {}", contract);
+    private static boolean healthier(Connection a, Connection b) {
+        return a.healthy() && !b.healthy();
+    }
 
-            String interval = currentIntervals.getOrDefault(contract, "1m");
-            subscribeCandlestick(contract, interval);
+    /**
+     * Delay before reconnect attempt {@code attempt} (0 for the first): {@link #FIRST_RETRY_MS},
+     * then {@link #BASE_BACKOFF_MS} doubling up to {@link #MAX_BACKOFF_MS}, each drawn from
+     * the upper half of its range so that clients dropped together do not retry in step.
+     */
+    static long reconnectDelayMillis(int attempt) {
+        if (attempt == 0) {
+            return FIRST_RETRY_MS;
         }
+        long backoff = Math.min(MAX_BACKOFF_MS, BASE_BACKOFF_MS << Math.min(attempt - 1, 16));
+        return backoff / 2 + ThreadLocalRandom.current().nextLong(backoff / 2 + 1);
     }
 
-    private void subscribeCandlestick(String contract, String interval) {
-        if (webSocketClient == null || !webSocketClient.isOpen()) return;
-        String candleMessage = """
-            {
-                "time": %d,
-                "channel": "futures.candlesticks",
-                "event": "subscribe",
-                "payload": ["%s", "%s"]
+    // closes connections nothing has arrived on for a while; onClose reconnects them
+    private void checkHealth() {
+        long now = System.nanoTime();
+        for (Connection connection : connections) {
+            if (connection.open && now - connection.frameReceivedNanos > TimeUnit.MILLISECONDS.toNanos(STALE_AFTER_MS)) {
+                log.warn("Gate.io websocket connection {} silent for {} ms, reconnecting",
+                    connection.index, (now - connection.frameReceivedNanos) / 1_000_000);
+                connection.close();
             }
-            """.formatted(System.currentTimeMillis() / 1000, interval, contract);
-        webSocketClient.send(candleMessage);
-        log.info("Subscribed to futures candlesticks {} (interval={})", contract, interval);
-    }
-
-    private void unsubscribeCandlestick(String contract, String interval) {
-        if (webSocketClient == null || !webSocketClient.isOpen()) return;
-        String candleMessage = """
-            {
-                "time": %d,
-                "channel": "futures.candlesticks",
-                "event": "unsubscribe",
-                "payload": ["%s", "%s"]
+        }
+    }
+
+    /**
+     * One rebalancing round: contracts leave connections that have been down for
+     * {@link #UNHEALTHY_AFTER_MS}, then move from the busiest healthy connection to the
+     * quietest, by frames received since the previous round, while that narrows the gap.
+     */
+    synchronized void rebalance() {
+        try {
+            Connection[] current = connections;
+            Ticker[] ticks = tickers;
+            long now = System.nanoTime();
+            double seconds = Math.max(1e-9, (now - lastRoundNanos) / 1e9);
+            lastRoundNanos = now;
+            if (framesAtLastRound.length < ticks.length) {
+                framesAtLastRound = Arrays.copyOf(framesAtLastRound, ticks.length);
             }
-            """.formatted(System.currentTimeMillis() / 1000, interval, contract);
-        webSocketClient.send(candleMessage);
-        log.info("Unsubscribed from futures candlesticks {} (interval={})", contract, interval);
+            Map<String, Long> rates = new HashMap<>();
+            long[] load = new long[current.length];
+            for (Map.Entry<String, Connection> entry : assignment.entrySet()) {
+                int id = contracts.lookup(entry.getKey());
+                if (id < 0 || id >= ticks.length) continue;
+                long frames = ticks[id].frames;
+                long rate = frames - framesAtLastRound[id];
+                framesAtLastRound[id] = frames;
+                rates.put(entry.getKey(), rate);
+                load[entry.getValue().index] += rate;
+            }
+            for (Connection connection : current) {
+                long frames = connection.frames;
+                connection.framesPerSecond = (frames - connection.framesAtLastRound) / seconds;
+                connection.framesAtLastRound = frames;
+            }
+
+            for (Connection from : current) {
+                if (from.healthy() || from.contracts.isEmpty()) continue;
+                for (String contract : List.copyOf(from.contracts)) {
+                    Connection to = quietest();
+                    if (!to.healthy()) return;
+                    long rate = rates.getOrDefault(contract, 0L);
+                    move(contract, from, to);
+                    load[from.index] -= rate;
+                    load[to.index] += rate;
+                }
+            }
+
+            // connections whose contracts are each too busy to move, e.g. one hot contract alone
+            boolean[] settled = new boolean[current.length];
+            for (int moves = 0; moves < MAX_MOVES_PER_ROUND; ) {
+                Connection busiest = null;
+                Connection quietest = null;
+                for (Connection connection : current) {
+                    if (!connection.healthy()) continue;
+                    if (!settled[connection.index] && (busiest == null || load[connection.index] > load[busiest.index])) {
+                        busiest = connection;
+                    }
+                    if (quietest == null || load[connection.index] < load[quietest.index]) quietest = connection;
+                }
+                if (busiest == null || busiest == quietest) return;
+                long gap = load[busiest.index] - load[quietest.index];
+                if (gap <= REBALANCE_TOLERANCE * load[quietest.index] || gap < 2) return;
+                // the contract whose move leaves the two loads closest
+                String best = null;
+                long bestRate = 0;
+                for (String contract : busiest.contracts) {
+                    long rate = rates.getOrDefault(contract, 0L);
+                    if (rate > 0 && rate < gap && (best == null || Math.abs(gap - 2 * rate) < Math.abs(gap - 2 * bestRate))) {
+                        best = contract;
+                        bestRate = rate;
+                    }
+                }
+                if (best == null) {
+                    settled[busiest.index] = true;
+                    continue;
+                }
+                move(best, busiest, quietest);
+                load[busiest.index] -= bestRate;
+                load[quietest.index] += bestRate;
+                moves++;
+            }
+        } catch (Exception e) {
+            // keep the rebalancer scheduled
+            log.error("Websocket rebalancing failed", e);
+        }
     }
 
-    public void changeInterval(String contract, String newInterval) {
-        String oldInterval = currentIntervals.getOrDefault(contract, "1m");
-        if (oldInterval.equals(newInterval)) {
-            // Same interval, just reload candles
-            candleStickService.loadInitialCandles(contract, newInterval);
-            return;
+    // caller holds the pool's monitor
+    private void move(String contract, Connection from, Connection to) {
+        if (assignment.get(contract) != from) return;
+        if (!from.open) {
+            // bars were missed while from was down, and its own resync no longer covers the contract
+            addResyncs(contract);
+            resyncPending = !resyncing.isEmpty();
         }
+        assignment.put(contract, to);
+        to.contracts.add(contract);
+        from.contracts.remove(contract);
+        // subscribe first, so the contract is never without a connection
+        to.subscribe(List.of(contract));
+        from.unsubscribe(List.of(contract));
+        movedContracts.increment();
+        log.info("Moved {} from websocket connection {} to {}", contract, from.index, to.index);
+    }
 
-        // Unsubscribe old interval
-        unsubscribeCandlestick(contract, oldInterval);
+    public List<WebSocketConnectionStats> stats() {
+        long now = System.nanoTime();
+        List<WebSocketConnectionStats> stats = new ArrayList<>();
+        for (Connection connection : connections) {
+            long lostAt = connection.disconnectedAtNanos;
+            stats.add(new WebSocketConnectionStats(
+                connection.index,
+                connection.open,
+                connection.contracts.size(),
+                connection.frames,
+                connection.framesPerSecond,
+                connection.reconnects.sum(),
+                connection.open ? (now - connection.frameReceivedNanos) / 1_000_000 : -1,
+                lostAt != 0 ? (now - lostAt) / 1_000_000 : 0
+            ));
+        }
+        return stats;
+    }
 
-        // Update current interval
-        currentIntervals.put(contract, newInterval);
+    // the next live bar of every series on the connection is checked for a gap behind it
+    private void startResync(Connection connection) {
+        for (String contract : connection.contracts) {
+            addResyncs(contract);
+        }
+        resyncPending = !resyncing.isEmpty();
+    }
 
-        // Load initial candles for new interval
-        candleStickService.loadInitialCandles(contract, newInterval);
+    private void addResyncs(String contract) {
+        addResync(contract, CandleAggregator.BASE_INTERVAL);
+        for (String interval : extraIntervals.getOrDefault(contract, Set.of())) {
+            addResync(contract, interval);
+        }
+    }
 
-        // Subscribe new interval
-        subscribeCandlestick(contract, newInterval);
+    private void addResync(String contract, String interval) {
+        CandleSeries series = candleStickService.findSeries(contract, interval);
+        if (series != null) {
+            resyncing.add(series);
+        }
+    }
 
-        log.info("Changed interval for {} from {} to {}", contract, oldInterval, newInterval);
+    // first live bar of a series since the reconnect: backfill the bars missed before it
+    private void resync(String contract, String interval, long time) {
+        CandleSeries series = candleStickService.findSeries(contract, interval);
+        if (series == null || !resyncing.remove(series)) return;
+        if (resyncing.isEmpty()) {
+            resyncPending = false;
+        }
+        CandleStick last = series.latest();
+        if (last != null && time > last.time()) {
+            candleStickService.backfill(contract, interval, last.time(), time);
+        }
     }
 
-    public String getCurrentInterval(String contract) {
-        return currentIntervals.getOrDefault(contract, "1m");
+    /**
+     * Makes {@code interval} available for the contract. 1m and the intervals rolled up from it
+     * are always live, so this only subscribes intervals that cannot be derived (e.g. 7d),
+     * loading their history once; they then stay subscribed alongside 1m. Throws
+     * {@link IllegalArgumentException} for an interval Gate.io does not serve, before anything
+     * is subscribed or loaded.
+     */
+    public void changeInterval(String contract, String interval) {
+        if (!CandleStickService.isSupportedInterval(interval)) {
+            throw new IllegalArgumentException("Unknown interval: " + interval);
+        }
+        if (CandleAggregator.BASE_INTERVAL.equals(interval) || CandleAggregator.derives(interval)) {
+            return;
+        }
+        Set<String> extras = extraIntervals.computeIfAbsent(contract, k -> ConcurrentHashMap.newKeySet());
+        if (!extras.add(interval)) {
+            return;
+        }
+        intervals.intern(interval);
+        candleStickService.loadInitialCandles(contract, interval);
+        Connection connection = assignment.get(contract);
+        if (connection != null) {
+            connection.subscribeCandlestick(contract, interval);
+        }
+        log.info("Added on-demand interval {} for {}", interval, contract);
     }
 
-    private void handleMessage(String message) {
+    // frames on a pool without connections, as benchmarks feed them, go through the first connection
+    void handleMessage(String message) {
+        handleMessage(connections[0], message);
+    }
+
+    // marks a connection lost at atNanos as its onClose would, without scheduling a reconnect
+    void connectionLost(int connection, long atNanos) {
+        Connection lost = connections[connection];
+        lost.open = false;
+        lost.disconnectedAtNanos = atNanos;
+    }
+
+    private void handleMessage(Connection connection, String message) {
+        long received = System.nanoTime();
+        long receivedMillis = System.currentTimeMillis();
+        connection.frameReceivedNanos = received;
+        connection.frames++;
+        connection.dispatchNanos = 0;
+        GateIoFrameParser parser = connection.parser;
         try {
-            JsonNode root = objectMapper.readTree(message);
-            String channel = root.path("channel").asText();
-            String event = root.path("event").asText();
-
-            if ("futures.tickers".equals(channel) && "update".equals(event)) {
-                JsonNode results = root.path("result");
-                for (JsonNode result : results) {
-                    String contract = result.path("contract").asText();
-                    String last = result.path("last").asText();
-                    String changePercentage = result.path("change_percentage").asText();
-
-                    if (currentPrices.containsKey(contract)) {
-                        currentPrices.put(contract, last);
-                        lastUpdateTimes.put(contract, java.time.LocalDateTime.now().toString());
-                        changePercentages.put(contract, changePercentage);
-                        //log.info("{} Futures Price: {} USDT ({}%)", contract, last, changePercentage);
-                    }
+            parser.parse(message);
+        } catch (Exception e) {
+            parseFailures.increment();
+            log.debug("Failed to parse message: {}", message);
+        }
+        int channel = parser.channel();
+        parseTimers[channel].record(System.nanoTime() - received - connection.dispatchNanos, TimeUnit.NANOSECONDS);
+        long sentMillis = parser.frameTimeMs();
+        // clocks out of step can put the exchange timestamp after the receipt
+        if (sentMillis > 0 && receivedMillis >= sentMillis) {
+            lagTimers[channel].record(receivedMillis - sentMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private final class FrameHandler implements GateIoFrameParser.Handler {
+
+        private final Connection connection;
+
+        FrameHandler(Connection connection) {
+            this.connection = connection;
+        }
+
+        @Override
+        public void onTicker(int contractId, double last, double changePercentage) {
+            Ticker[] current = tickers;
+            if (contractId >= current.length || !contractRegistry.isActive(contractId)) return;
+            Ticker ticker = current[contractId];
+            long now = System.currentTimeMillis();
+            ticker.last = last;
+            ticker.changePercentage = changePercentage;
+            ticker.updatedAtMillis = now;
+            ticker.frames++;
+            //log.info("{} Futures Price: {} USDT ({}%)", contract, last, changePercentage);
+            TickerListener[] listeners = tickerListeners;
+            if (listeners.length > 0) {
+                long start = System.nanoTime();
+                String contract = contracts.name(contractId);
+                for (TickerListener listener : listeners) {
+                    listener.onTicker(contract, last, changePercentage, now);
+                }
+                connection.dispatchNanos += System.nanoTime() - start;
+            }
+        }
+
+        @Override
+        public void onCandle(int contractId, int intervalId, long time,
+                             double open, double high, double low, double close, long volume) {
+            if (!contractRegistry.isActive(contractId)) return;
+            Ticker[] current = tickers;
+            if (contractId < current.length) {
+                current[contractId].frames++;
+            }
+            String contract = contracts.name(contractId);
+            String interval = intervals.name(intervalId);
+
+            // derived intervals come from CandleAggregator, not from the exchange
+            if (CandleAggregator.BASE_INTERVAL.equals(interval)
+                    || extraIntervals.getOrDefault(contract, Set.of()).contains(interval)) {
+                long start = System.nanoTime();
+                if (resyncPending) {
+                    resync(contract, interval, time);
                 }
-            } else if ("futures.candlesticks".equals(channel) && "update".equals(event)) {
-                JsonNode results = root.path("result");
-                for (JsonNode result : results) {
-                    String n = result.path("n").asText(); // format: "1m_XRP_USDT"
-                    long time = result.path("t").asLong();
-                    long volume = result.path("v").asLong();
-                    double close = result.path("c").asDouble();
-                    double high = result.path("h").asDouble();
-                    double low = result.path("l").asDouble();
-                    double open = result.path("o").asDouble();
-
-                    // Parse interval and contract from "n" field (format: "interval_CONTRACT")
-                    String contract = null;
-                    String interval = null;
-                    if (n.contains(XRP_CONTRACT)) {
-                        contract = XRP_CONTRACT;
-                        interval = n.replace("_" + XRP_CONTRACT, "");
-                    } else if (n.contains(BTC_CONTRACT)) {
-                        contract = BTC_CONTRACT;
-                        interval = n.replace("_" + BTC_CONTRACT, "");
+                candleStickService.updateCandle(contract, interval, time, open, high, low, close, volume);
+                connection.dispatchNanos += System.nanoTime() - start;
+                if (log.isDebugEnabled()) {
+                    log.debug("{} Candle updated (interval={}): {} O:{} H:{} L:{} C:{}", contract, interval, time, open, high, low, close);
+                }
+            }
+        }
+    }
+
+    // latest ticker values, written by the reader thread of the contract's connection
+    private static final class Ticker {
+        volatile double last;
+        volatile double changePercentage;
+        volatile long updatedAtMillis;   // 0 until the first update
+        // ticker and candle updates received, for rebalancing; read racily
+        long frames;
+    }
+
+    /**
+     * One websocket of the pool with its own reader thread, parser, ping schedule and
+     * reconnect backoff. Subscriptions are (re)sent whenever it opens.
+     */
+    private final class Connection {
+        final int index;
+        final GateIoFrameParser parser;
+        // contracts subscribed on this connection; changed under the pool's monitor
+        final Set<String> contracts = ConcurrentHashMap.newKeySet();
+        final AtomicBoolean reconnectPending = new AtomicBoolean();
+        // failed attempts since the last successful connect
+        final AtomicInteger reconnectAttempts = new AtomicInteger();
+        final LongAdder reconnects = new LongAdder();
+        volatile WebSocketClient socket;
+        volatile boolean open;
+        // the current socket's reader thread, which runs the listeners
+        volatile Thread reader;
+        // System.nanoTime() when the connection was lost, 0 while connected or before the first connect
+        volatile long disconnectedAtNanos;
+        // System.nanoTime() when the frame being dispatched arrived, or when the socket opened
+        volatile long frameReceivedNanos;
+        ScheduledFuture<?> ping;
+        // reader thread only, read racily for stats and rebalancing
+        long frames;
+        long dispatchNanos;
+        // scheduler thread only
+        long framesAtLastRound;
+        volatile double framesPerSecond;
+
+        Connection(int index) {
+            this.index = index;
+            this.parser = new GateIoFrameParser(GateIoWebSocketClient.this.contracts, intervals, new FrameHandler(this));
+            Gauge.builder("crypto.ws.connection.contracts", contracts, Set::size)
+                .description("Contracts subscribed on a websocket connection")
+                .tag("connection", Integer.toString(index))
+                .register(meterRegistry);
+        }
+
+        // up, or down for less than UNHEALTHY_AFTER_MS
+        boolean healthy() {
+            long lostAt = disconnectedAtNanos;
+            return open || lostAt == 0
+                || System.nanoTime() - lostAt < TimeUnit.MILLISECONDS.toNanos(UNHEALTHY_AFTER_MS);
+        }
+
+        void connect() {
+            try {
+                socket = new WebSocketClient(new URI(GATE_IO_WS_URL)) {
+                    @Override
+                    public void onOpen(ServerHandshake handshakedata) {
+                        log.info("Gate.io WebSocket connection {} connected", index);
+                        reader = Thread.currentThread();
+                        frameReceivedNanos = System.nanoTime();
+                        open = true;
+                        reconnectAttempts.set(0);
+                        long lostAt = disconnectedAtNanos;
+                        if (lostAt != 0) {
+                            disconnectedAtNanos = 0;
+                            downtimeTimer.record(System.nanoTime() - lostAt, TimeUnit.NANOSECONDS);
+                            startResync(Connection.this);
+                        }
+                        subscribe(List.copyOf(contracts));
+                        startPing();
                     }
 
-                    if (contract != null && interval != null) {
-                        // Only update if this matches the current active interval for the contract
-                        String activeInterval = currentIntervals.getOrDefault(contract, "1m");
-                        if (interval.equals(activeInterval)) {
-                            var candle = new org.example.crypto.dto.CandleStick(time, open, high, low, close, volume);
-                            candleStickService.updateCandle(contract, interval, candle);
-                            log.debug("{} Candle updated (interval={}): {} O:{} H:{} L:{} C:{}", contract, interval, time, open, high, low, close);
+                    @Override
+                    public void onMessage(String message) {
+                        handleMessage(Connection.this, message);
+                    }
+
+                    @Override
+                    public void onClose(int code, String reason, boolean remote) {
+                        log.warn("WebSocket connection {} closed: {} - {}", index, code, reason);
+                        open = false;
+                        stopPing();
+                        if (disconnectedAtNanos == 0) {
+                            disconnectedAtNanos = System.nanoTime();
                         }
+                        scheduleReconnect();
                     }
-                }
+
+                    @Override
+                    public void onError(Exception ex) {
+                        log.error("WebSocket connection {} error", index, ex);
+                    }
+                };
+
+                socket.connect();
+            } catch (Exception e) {
+                log.error("Failed to create WebSocket client", e);
+                scheduleReconnect();
+            }
+        }
+
+        private void scheduleReconnect() {
+            if (closing || !reconnectPending.compareAndSet(false, true)) return;
+            int attempt = reconnectAttempts.getAndIncrement();
+            long delay = reconnectDelayMillis(attempt);
+            log.info("Reconnecting websocket connection {} in {} ms (attempt {})", index, delay, attempt + 1);
+            try {
+                scheduler.schedule(() -> {
+                    reconnectPending.set(false);
+                    if (closing) return;
+                    reconnectCounter.increment();
+                    reconnects.increment();
+                    connect();
+                }, delay, TimeUnit.MILLISECONDS);
+            } catch (RejectedExecutionException e) {
+                // shutting down
+                reconnectPending.set(false);
             }
-        } catch (Exception e) {
-            log.debug("Failed to parse message: {}", message);
         }
-    }
 
-    private void startPingScheduler() {
-        pingScheduler = Executors.newSingleThreadScheduledExecutor();
-        pingScheduler.scheduleAtFixedRate(() -> {
-            if (webSocketClient != null && webSocketClient.isOpen()) {
-                String pingMessage = """
+        private synchronized void startPing() {
+            stopPing();
+            try {
+                ping = scheduler.scheduleAtFixedRate(() -> send("""
                     {
                         "time": %d,
                         "channel": "futures.ping"
                     }
-                    """.formatted(System.currentTimeMillis() / 1000);
-                webSocketClient.send(pingMessage);
+                    """.formatted(System.currentTimeMillis() / 1000)),
+                    PING_INTERVAL_MS, PING_INTERVAL_MS, TimeUnit.MILLISECONDS);
+            } catch (RejectedExecutionException e) {
+                // shutting down
             }
-        }, 20, 20, TimeUnit.SECONDS);
-    }
+        }
 
-    private void stopPingScheduler() {
-        if (pingScheduler != null && !pingScheduler.isShutdown()) {
-            pingScheduler.shutdown();
+        private synchronized void stopPing() {
+            if (ping != null) {
+                ping.cancel(false);
+                ping = null;
+            }
         }
-    }
 
-    private void reconnect() {
-        try {
-            Thread.sleep(5000);
-            log.info("Attempting to reconnect...");
-            connect();
-        } catch (InterruptedException e) {
-            Thread.currentThread().interrupt();
+        // false if the socket is not open; the subscriptions are sent again when it opens
+        private boolean send(String message) {
+            WebSocketClient current = socket;
+            if (current == null || !current.isOpen()) return false;
+            current.send(message);
+            return true;
+        }
+
+        void subscribe(List<String> contractList) {
+            if (contractList.isEmpty() || !sendTickerEvent(contractList, "subscribe")) return;
+            for (String contract : contractList) {
+                subscribeCandlestick(contract, CandleAggregator.BASE_INTERVAL);
+                for (String interval : extraIntervals.getOrDefault(contract, Set.of())) {
+                    subscribeCandlestick(contract, interval);
+                }
+            }
+        }
+
+        void unsubscribe(List<String> contractList) {
+            if (contractList.isEmpty() || !sendTickerEvent(contractList, "unsubscribe")) return;
+            for (String contract : contractList) {
+                unsubscribeCandlestick(contract, CandleAggregator.BASE_INTERVAL);
+                for (String interval : extraIntervals.getOrDefault(contract, Set.of())) {
+                    unsubscribeCandlestick(contract, interval);
+                }
+            }
+        }
+
+        private boolean sendTickerEvent(List<String> contractList, String event) {
+            for (int from = 0; from < contractList.size(); from += SUBSCRIBE_BATCH_SIZE) {
+                List<String> batch = contractList.subList(from, Math.min(contractList.size(), from + SUBSCRIBE_BATCH_SIZE));
+                String payload = batch.stream().map(c -> "\"" + c + "\"").collect(Collectors.joining(", "));
+                String tickerMessage = """
+                    {
+                        "time": %d,
+                        "channel": "futures.tickers",
+                        "event": "%s",
+                        "payload": [%s]
+                    }
+                    """.formatted(System.currentTimeMillis() / 1000, event, payload);
+                if (!send(tickerMessage)) return false;
+                log.info("Futures ticker {} on connection {} for {} contracts: {}", event, index, batch.size(), batch);
+            }
+            return true;
+        }
+
+        void subscribeCandlestick(String contract, String interval) {
+            String candleMessage = """
+                {
+                    "time": %d,
+                    "channel": "futures.candlesticks",
+                    "event": "subscribe",
+                    "payload": ["%s", "%s"]
+                }
+                """.formatted(System.currentTimeMillis() / 1000, interval, contract);
+            if (send(candleMessage)) {
+                log.info("Subscribed to futures candlesticks {} (interval={}) on connection {}", contract, interval, index);
+            }
+        }
+
+        private void unsubscribeCandlestick(String contract, String interval) {
+            String candleMessage = """
+                {
+                    "time": %d,
+                    "channel": "futures.candlesticks",
+                    "event": "unsubscribe",
+                    "payload": ["%s", "%s"]
+                }
+                """.formatted(System.currentTimeMillis() / 1000, interval, contract);
+            if (send(candleMessage)) {
+                log.info("Unsubscribed from futures candlesticks {} (interval={}) on connection {}", contract, interval, index);
+            }
+        }
+
+        void close() {
+            WebSocketClient current = socket;
+            if (current != null) {
+                current.close();
+            }
         }
     }
 
     @PreDestroy
     public void shutdown() {
-        stopPingScheduler();
-        if (webSocketClient != null) {
-            webSocketClient.close();
+        closing = true;
+        scheduler.shutdownNow();
+        for (Connection connection : connections) {
+            connection.close();
         }
     }
 
-    public String getCurrentPrice() {
-        return getCurrentPrice(XRP_CONTRACT);
+    /**
+     * Arrival time ({@link System#nanoTime()}) of the websocket frame currently or last
+     * dispatched on the calling reader thread, or 0 when called from any other thread.
+     */
+    public long frameReceivedNanos() {
+        Thread thread = Thread.currentThread();
+        for (Connection connection : connections) {
+            if (connection.reader == thread) {
+                return connection.frameReceivedNanos;
+            }
+        }
+        return 0;
     }
 
     public String getCurrentPrice(String contract) {
-        return currentPrices.getOrDefault(contract, "0");
-    }
-
-    public String getLastUpdateTime() {
-        return getLastUpdateTime(XRP_CONTRACT);
+        Ticker ticker = ticker(contract);
+        return ticker != null ? formatDecimal(ticker.last) : "0";
     }
 
     public String getLastUpdateTime(String contract) {
-        return lastUpdateTimes.getOrDefault(contract, "");
+        Ticker ticker = ticker(contract);
+        return ticker != null
+            ? LocalDateTime.ofInstant(Instant.ofEpochMilli(ticker.updatedAtMillis), ZoneId.systemDefault()).toString()
+            : "";
     }
 
     public String getChangePercentage(String contract) {
-        return changePercentages.getOrDefault(contract, "0");
+        Ticker ticker = ticker(contract);
+        return ticker != null ? formatDecimal(ticker.changePercentage) : "0";
+    }
+
+    // returns null until the contract has received its first ticker update
+    private Ticker ticker(String contract) {
+        int id = contracts.lookup(contract);
+        Ticker[] current = tickers;
+        if (id < 0 || id >= current.length) {
+            return null;
+        }
+        Ticker ticker = current[id];
+        return ticker.updatedAtMillis != 0 ? ticker : null;
     }
 
-    public String getContract() {
-        return XRP_CONTRACT;
+    private static String formatDecimal(double value) {
+        return BigDecimal.valueOf(value).stripTrailingZeros().toPlainString();
     }
 
     public String getContract(String contract) {
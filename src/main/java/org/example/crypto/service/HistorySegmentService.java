@@ -0,0 +1,255 @@
+package org.example.crypto.service;
+
+import org.example.crypto.dto.CandleColumns;
+import org.example.crypto.dto.CandleStick;
+import org.example.crypto.dto.HistoryManifest;
+import org.example.crypto.dto.IndicatorColumns;
+import org.example.crypto.service.ColumnarEncoder.Format;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Serves the closed part of a chart as immutable segments of {@link #SEGMENT_BARS} bars, plus
+ * a live tail that is the only part computed per request.
+ *
+ * Segment {@code k} covers {@code [k, k + 1) * SEGMENT_BARS} intervals since the Unix epoch, so
+ * ids stay put as bars arrive. A segment is sealed once the live bar lies past its end: from
+ * then on neither its candles nor its indicator values change until the series is reloaded.
+ * Every segment is addressed together with the series epoch (series id plus reload version),
+ * which changes on such a reload, so a segment URL always names the same bytes and can be cached
+ * for good. Segments are only offered once the series holds enough bars for every indicator,
+ * and only while the series still holds them completely; older bars are not served.
+ *
+ * A sealed segment is encoded and gzipped on its first request and kept in an LRU cache bounded
+ * by {@code crypto.history.segment-cache-bytes}.
+ */
+@Service
+public class HistorySegmentService {
+
+    public static final int SEGMENT_BARS = 500;
+
+    @Value("${crypto.history.segment-cache-bytes:67108864}")
+    private long cacheCapacityBytes = 64L << 20;
+
+    private final CandleStickService candleStickService;
+    private final IncrementalIndicatorEngine indicatorEngine;
+    // key -> gzipped segment, access ordered; guarded by itself
+    private final LinkedHashMap<String, Segment> cache = new LinkedHashMap<>(64, 0.75f, true);
+    private long cachedBytes;
+    // one encoding per segment even when many viewers ask at once
+    private final Map<String, CompletableFuture<Segment>> building = new ConcurrentHashMap<>();
+
+    public HistorySegmentService(CandleStickService candleStickService,
+                                 IncrementalIndicatorEngine indicatorEngine,
+                                 ContractRegistry contractRegistry) {
+        this.candleStickService = candleStickService;
+        this.indicatorEngine = indicatorEngine;
+        contractRegistry.addListener(new ContractRegistry.Listener() {
+            @Override
+            public void onContractsAdded(List<String> contracts) {
+            }
+
+            @Override
+            public void onContractsRemoved(List<String> contracts) {
+                contracts.forEach(HistorySegmentService.this::evict);
+            }
+        });
+    }
+
+    /**
+     * A gzipped, encoded segment and its strong ETag.
+     */
+    public record Segment(String etag, byte[] gzip) {
+
+        public byte[] uncompressed() {
+            try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(gzip))) {
+                return in.readAllBytes();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    /**
+     * The live tail: every bar from {@link HistoryManifest#tailFrom()} on, encoded per request.
+     */
+    public record Tail(String epoch, long version, byte[] body) {}
+
+    public HistoryManifest manifest(String contract, String interval) {
+        CandleSeries series = candleStickService.findSeries(contract, interval);
+        if (series == null) {
+            return new HistoryManifest(contract, interval, "", SEGMENT_BARS, List.of(), Long.MIN_VALUE);
+        }
+        long span = span(interval);
+        long tailFrom = tailFrom(series, span);
+        List<Long> segments = new ArrayList<>();
+        if (tailFrom != Long.MIN_VALUE) {
+            for (long k = Math.ceilDiv(series.firstTime(), span); k * span < tailFrom; k++) {
+                segments.add(k);
+            }
+        }
+        return new HistoryManifest(contract, interval, epoch(series), SEGMENT_BARS, segments, tailFrom);
+    }
+
+    /**
+     * Sealed segment {@code k} of the given epoch, or null if the epoch is stale or the segment
+     * is not (or no longer) complete.
+     */
+    public Segment segment(String contract, String interval, String epoch, long k, Format format) {
+        CandleSeries series = candleStickService.findSeries(contract, interval);
+        if (series == null || !epoch.equals(epoch(series)) || !isServable(series, interval, k)) {
+            return null;
+        }
+        String key = contract + '/' + interval + '/' + epoch + '/' + k + '/' + format;
+        Segment cached = cached(key);
+        if (cached != null) {
+            return cached;
+        }
+        CompletableFuture<Segment> future = new CompletableFuture<>();
+        CompletableFuture<Segment> running = building.putIfAbsent(key, future);
+        if (running != null) {
+            return running.join();
+        }
+        try {
+            Segment segment = build(contract, interval, series, epoch, k, format);
+            if (segment != null) {
+                store(key, segment);
+            }
+            future.complete(segment);
+            return segment;
+        } catch (RuntimeException e) {
+            future.completeExceptionally(e);
+            throw e;
+        } finally {
+            building.remove(key);
+        }
+    }
+
+    public Tail tail(String contract, String interval, Format format) {
+        CandleSeries series = candleStickService.findSeries(contract, interval);
+        if (series == null) {
+            return new Tail("", 0, encode(contract, interval, 0, CandleColumns.EMPTY, IndicatorColumns.EMPTY, format));
+        }
+        long span = span(interval);
+        String epoch;
+        long version;
+        CandleColumns candles;
+        IndicatorColumns indicators;
+        synchronized (series) {
+            long from = tailFrom(series, span);
+            epoch = epoch(series);
+            version = series.version();
+            candles = series.snapshotFrom(from);
+            indicators = indicatorEngine.columns(contract, interval, from);
+        }
+        return new Tail(epoch, version, encode(contract, interval, version, candles, indicators, format));
+    }
+
+    private Segment build(String contract, String interval, CandleSeries series, String epoch, long k,
+                          Format format) {
+        long span = span(interval);
+        long from = k * span;
+        CandleColumns candles;
+        IndicatorColumns indicators;
+        synchronized (series) {
+            // a reload may have slipped in since the epoch check
+            if (!epoch.equals(epoch(series)) || !isServable(series, interval, k)) {
+                return null;
+            }
+            candles = series.snapshotFrom(from);
+            indicators = indicatorEngine.columns(contract, interval, from);
+        }
+        candles = candles.slice(0, candles.indexOf(from + span));
+        byte[] body = encode(contract, interval, 0, candles, indicators, format);
+        return new Segment("\"" + epoch + "-" + k + "-" + format.ordinal() + "\"", gzip(body));
+    }
+
+    private boolean isServable(CandleSeries series, String interval, long k) {
+        long span = span(interval);
+        long tailFrom = tailFrom(series, span);
+        return tailFrom != Long.MIN_VALUE && k * span >= series.firstTime() && (k + 1) * span <= tailFrom;
+    }
+
+    // start of the first unsealed segment, or MIN_VALUE while no segment can be served
+    private static long tailFrom(CandleSeries series, long span) {
+        CandleStick latest = series.latest();
+        if (latest == null || series.size() < IndicatorState.FULL_HISTORY) {
+            return Long.MIN_VALUE;
+        }
+        long firstComplete = Math.ceilDiv(series.firstTime(), span);
+        long live = Math.floorDiv(latest.time(), span);
+        return firstComplete < live ? live * span : Long.MIN_VALUE;
+    }
+
+    private static String epoch(CandleSeries series) {
+        return series.id() + "." + series.resetVersion();
+    }
+
+    private static long span(String interval) {
+        return SEGMENT_BARS * CandleStickService.intervalSeconds(interval);
+    }
+
+    private static byte[] encode(String contract, String interval, long version,
+                                 CandleColumns candles, IndicatorColumns indicators, Format format) {
+        return switch (format) {
+            case BINARY -> ColumnarEncoder.binary(version, candles, indicators);
+            case COLUMNAR -> ColumnarEncoder.columnarJson(contract, interval, version, candles, indicators);
+            case JSON -> throw new IllegalArgumentException("History is served as columnar or binary only");
+        };
+    }
+
+    private static byte[] gzip(byte[] body) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(body.length / 3 + 64);
+        try (GZIPOutputStream gz = new GZIPOutputStream(out)) {
+            gz.write(body);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toByteArray();
+    }
+
+    private Segment cached(String key) {
+        synchronized (cache) {
+            return cache.get(key);
+        }
+    }
+
+    private void store(String key, Segment segment) {
+        synchronized (cache) {
+            Segment previous = cache.put(key, segment);
+            cachedBytes += segment.gzip().length - (previous != null ? previous.gzip().length : 0);
+            Iterator<Segment> eldest = cache.values().iterator();
+            while (cachedBytes > cacheCapacityBytes && eldest.hasNext()) {
+                cachedBytes -= eldest.next().gzip().length;
+                eldest.remove();
+            }
+        }
+    }
+
+    private void evict(String contract) {
+        synchronized (cache) {
+            Iterator<Map.Entry<String, Segment>> it = cache.entrySet().iterator();
+            while (it.hasNext()) {
+                Map.Entry<String, Segment> entry = it.next();
+                if (entry.getKey().startsWith(contract + '/')) {
+                    cachedBytes -= entry.getValue().gzip().length;
+                    it.remove();
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,169 @@
+package org.example.crypto.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.example.crypto.dto.CandleColumns;
+import org.example.crypto.dto.EMACloudResult;
+import org.example.crypto.dto.IndicatorColumns;
+import org.example.crypto.dto.MAAnglesResult;
+import org.example.crypto.dto.SMIResult;
+import org.example.crypto.dto.SeriesDelta;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keeps SMI, EMA Cloud and MA Angles up to date per contract/interval as candles arrive,
+ * in O(1) per update instead of recomputing the whole history on every request.
+ *
+ * The batch {@code calculate} methods of the indicator services remain the reference
+ * implementation: the output equals theirs over every bar received since the series was last
+ * loaded, which past the series capacity is more history than the series still holds; see
+ * {@link IndicatorState}. An update advances
+ * all three indicators together, too little work per indicator to time separately, so the
+ * live path is timed as a whole.
+ */
+@Service
+public class IncrementalIndicatorEngine implements CandleUpdateListener {
+
+    private final CandleStickService candleStickService;
+    // contract -> interval -> state
+    private final Map<String, Map<String, IndicatorState>> states = new ConcurrentHashMap<>();
+    private final Timer updateTimer;
+    private final Timer reloadTimer;
+
+    public IncrementalIndicatorEngine(CandleStickService candleStickService, MeterRegistry meterRegistry) {
+        this.candleStickService = candleStickService;
+        this.updateTimer = LatencyTimers.builder("crypto.indicator.update",
+                "Time to advance the live indicators by one candle update")
+            .register(meterRegistry);
+        this.reloadTimer = LatencyTimers.builder("crypto.indicator.reload",
+                "Time to recompute the live indicators over a reloaded series")
+            .register(meterRegistry);
+        candleStickService.addListener(this);
+    }
+
+    @Override
+    public void onCandleUpdated(String contract, String interval, CandleSeries series, boolean appended,
+                                long time, double open, double high, double low, double close, long volume) {
+        long start = System.nanoTime();
+        IndicatorState state = find(contract, interval);
+        if (state == null) {
+            // first event for this series: seed from the series, which already contains this bar
+            seed(contract, interval, series);
+            reloadTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            return;
+        }
+        state.update(series.version(), appended, time, high, low, close);
+        updateTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public void onCandlesReloaded(String contract, String interval, CandleSeries series, CandleColumns candles) {
+        long start = System.nanoTime();
+        IndicatorState state = find(contract, interval);
+        if (state == null) {
+            seed(contract, interval, series);
+        } else {
+            state.reload(series.version(), candles);
+        }
+        reloadTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public void onSeriesRemoved(String contract) {
+        states.remove(contract);
+    }
+
+    public SMIResult smi(String contract, String interval) {
+        IndicatorState state = stateFor(contract, interval);
+        return state != null
+            ? state.smiResult()
+            : new SMIResult(List.of(), SMIIndicatorService.OVERBOUGHT, SMIIndicatorService.OVERSOLD);
+    }
+
+    public EMACloudResult emaCloud(String contract, String interval) {
+        IndicatorState state = stateFor(contract, interval);
+        return state != null
+            ? state.emaCloudResult()
+            : new EMACloudResult(List.of(), EMACloudIndicatorService.FAST_LENGTH, EMACloudIndicatorService.SLOW_LENGTH);
+    }
+
+    public MAAnglesResult maAngles(String contract, String interval) {
+        IndicatorState state = stateFor(contract, interval);
+        return state != null
+            ? state.maAnglesResult()
+            : new MAAnglesResult(List.of(), MAAnglesIndicatorService.THRESHOLD);
+    }
+
+    /**
+     * SMI points written after the {@code since} cursor (a {@link CandleSeries#version()}).
+     */
+    public SeriesDelta<SMIResult> smiChangedSince(String contract, String interval, long since) {
+        IndicatorState state = stateFor(contract, interval);
+        return state != null
+            ? state.smiChangedSince(since)
+            : new SeriesDelta<>(0, true, smi(contract, interval));
+    }
+
+    public SeriesDelta<EMACloudResult> emaCloudChangedSince(String contract, String interval, long since) {
+        IndicatorState state = stateFor(contract, interval);
+        return state != null
+            ? state.emaCloudChangedSince(since)
+            : new SeriesDelta<>(0, true, emaCloud(contract, interval));
+    }
+
+    public SeriesDelta<MAAnglesResult> maAnglesChangedSince(String contract, String interval, long since) {
+        IndicatorState state = stateFor(contract, interval);
+        return state != null
+            ? state.maAnglesChangedSince(since)
+            : new SeriesDelta<>(0, true, maAngles(contract, interval));
+    }
+
+    /**
+     * All indicator outputs for contract/interval as arrays aligned with the candle series.
+     */
+    public IndicatorColumns columns(String contract, String interval) {
+        IndicatorState state = stateFor(contract, interval);
+        return state != null ? state.columns() : IndicatorColumns.EMPTY;
+    }
+
+    /**
+     * Like {@link #columns(String, String)}, limited to the bars with {@code time >= fromTime}.
+     */
+    public IndicatorColumns columns(String contract, String interval, long fromTime) {
+        IndicatorState state = stateFor(contract, interval);
+        return state != null ? state.columns(fromTime) : IndicatorColumns.EMPTY;
+    }
+
+    private IndicatorState find(String contract, String interval) {
+        Map<String, IndicatorState> byInterval = states.get(contract);
+        return byInterval != null ? byInterval.get(interval) : null;
+    }
+
+    private IndicatorState stateFor(String contract, String interval) {
+        IndicatorState state = find(contract, interval);
+        if (state != null) {
+            return state;
+        }
+        CandleSeries series = candleStickService.findSeries(contract, interval);
+        if (series == null) {
+            return null;
+        }
+        synchronized (series) {
+            state = find(contract, interval);
+            return state != null ? state : seed(contract, interval, series);
+        }
+    }
+
+    // caller holds the series monitor
+    private IndicatorState seed(String contract, String interval, CandleSeries series) {
+        IndicatorState state = new IndicatorState(series.capacity());
+        state.reload(series.version(), series.snapshot());
+        states.computeIfAbsent(contract, k -> new ConcurrentHashMap<>()).put(interval, state);
+        return state;
+    }
+}
@@ -0,0 +1,101 @@
+package org.example.crypto.service;
+
+import org.example.crypto.dto.CandleColumns;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * Evaluates {@link IndicatorNode}s over one candle history.
+ *
+ * The requested nodes and everything they read are collected once each (equal nodes are one
+ * node, so EMA(close, 50) is computed once whether the EMA cloud, a sweep combination or both
+ * ask for it), grouped by depth and computed level by level, each node after its inputs. Nodes
+ * of one level do not depend on each other: inside a fork-join pool they run as parallel tasks,
+ * elsewhere one after the other. An intermediate series is dropped once its last reader has run.
+ */
+final class IndicatorGraph {
+
+    private IndicatorGraph() {
+    }
+
+    static double[] evaluate(CandleColumns candles, IndicatorNode output) {
+        return evaluate(candles, List.of(output)).get(output);
+    }
+
+    /**
+     * The series of every node in {@code outputs}. A {@link IndicatorNodes.Price} output is the
+     * candle column itself; no output may be modified while another caller could share it.
+     */
+    static Map<IndicatorNode, double[]> evaluate(CandleColumns candles, Collection<? extends IndicatorNode> outputs) {
+        Map<IndicatorNode, Integer> depths = new HashMap<>();
+        for (IndicatorNode node : outputs) {
+            depth(node, depths);
+        }
+        List<List<IndicatorNode>> levels = new ArrayList<>();
+        Map<IndicatorNode, Integer> lastRead = new HashMap<>();
+        for (Map.Entry<IndicatorNode, Integer> entry : depths.entrySet()) {
+            int depth = entry.getValue();
+            while (levels.size() <= depth) {
+                levels.add(new ArrayList<>());
+            }
+            levels.get(depth).add(entry.getKey());
+            for (IndicatorNode input : entry.getKey().inputs()) {
+                lastRead.merge(input, depth, Math::max);
+            }
+        }
+
+        Set<IndicatorNode> requested = new HashSet<>(outputs);
+        Map<IndicatorNode, double[]> series = new HashMap<>();
+        for (int depth = 0; depth < levels.size(); depth++) {
+            List<IndicatorNode> level = levels.get(depth);
+            if (level.size() > 1 && ForkJoinTask.inForkJoinPool()) {
+                List<ForkJoinTask<double[]>> tasks = new ArrayList<>(level.size());
+                for (IndicatorNode node : level) {
+                    tasks.add(ForkJoinTask.adapt(() -> compute(node, candles, series)));
+                }
+                ForkJoinTask.invokeAll(tasks);
+                for (int i = 0; i < level.size(); i++) {
+                    series.put(level.get(i), tasks.get(i).join());
+                }
+            } else {
+                for (IndicatorNode node : level) {
+                    series.put(node, compute(node, candles, series));
+                }
+            }
+            int finished = depth;
+            series.keySet().removeIf(node -> !requested.contains(node) && lastRead.getOrDefault(node, -1) <= finished);
+        }
+        return series;
+    }
+
+    // 0 for nodes without inputs, else one more than the deepest input
+    private static int depth(IndicatorNode node, Map<IndicatorNode, Integer> depths) {
+        Integer known = depths.get(node);
+        if (known != null) {
+            return known;
+        }
+        int depth = 0;
+        for (IndicatorNode input : node.inputs()) {
+            depth = Math.max(depth, depth(input, depths) + 1);
+        }
+        depths.put(node, depth);
+        return depth;
+    }
+
+    // reads the map while no task writes it; writes happen between levels
+    private static double[] compute(IndicatorNode node, CandleColumns candles, Map<IndicatorNode, double[]> series) {
+        List<IndicatorNode> inputs = node.inputs();
+        double[][] in = new double[inputs.size()][];
+        for (int i = 0; i < in.length; i++) {
+            in[i] = series.get(inputs.get(i));
+        }
+        return node.compute(candles, in);
+    }
+}
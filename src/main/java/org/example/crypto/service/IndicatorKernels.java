@@ -0,0 +1,160 @@
+package org.example.crypto.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Primitive array kernels behind the batch indicator calculations.
+ *
+ * The element-wise and windowed stages are abstract so they can run on SIMD lanes
+ * ({@link VectorIndicatorKernels}, JDK Vector API); {@link #INSTANCE} uses that when the
+ * {@code jdk.incubator.vector} module is present and {@code -Dcrypto.indicators.simd=false} is
+ * not set, and the scalar loops otherwise. Both produce the same floating-point results per
+ * element, so their outputs are bit-identical; {@link #angles} takes its arctangent from
+ * {@link Math#atan} on both, as the vector one may differ in the last bit. The scalar
+ * rolling range is a monotonic deque (O(n) for any {@code k}); the vector one rescans {@code k}
+ * bars per lane, which is faster for the short %K windows in use.
+ *
+ * The recursive stages (EMA, RMA) and the SMA, a running sum, have no lane parallelism and are
+ * static loops over the {@link Rolling} accumulators that {@link IndicatorState} also uses.
+ */
+abstract class IndicatorKernels {
+
+    private static final Logger log = LoggerFactory.getLogger(IndicatorKernels.class);
+
+    static final IndicatorKernels SCALAR = new Scalar();
+    static final IndicatorKernels INSTANCE = load();
+
+    /**
+     * Rolling highest high and lowest low over {@code k} bars, reduced to
+     * {@code diff = hh - ll} and {@code rdiff = close - (hh + ll) / 2}. Output index {@code r}
+     * is bar {@code r + k - 1}; both outputs hold {@code n - k + 1} values.
+     */
+    abstract void stochasticRange(double[] high, double[] low, double[] close, int k, double[] rdiff, double[] diff);
+
+    /**
+     * {@code avgRel / (avgDiff / 2) * 100}, or 0 where {@code avgDiff} is 0.
+     */
+    abstract void smiRaw(double[] avgRel, double[] avgDiff, double[] out);
+
+    /**
+     * True range; the first bar has no previous close and uses {@code high - low}.
+     */
+    abstract void trueRange(double[] high, double[] low, double[] close, double[] out);
+
+    /**
+     * Slope of {@code line} in degrees, normalised by {@code atr}: {@code atan(Δline / atr)},
+     * 0 where {@code atr} is not positive and at index 0.
+     */
+    abstract void angles(double[] line, double[] atr, double[] out);
+
+    /**
+     * Exponential moving average seeded with the first defined value; leading NaNs pass through.
+     */
+    static void ema(double[] src, int period, double[] out) {
+        Rolling.Ema ema = new Rolling.Ema(period);
+        for (int i = 0; i < src.length; i++) {
+            out[i] = ema.add(src[i]);
+        }
+    }
+
+    /**
+     * Wilder's moving average (Pine Script {@code rma}) seeded with the first defined value;
+     * leading NaNs pass through.
+     */
+    static void rma(double[] src, int period, double[] out) {
+        Rolling.Rma rma = new Rolling.Rma(period);
+        for (int i = 0; i < src.length; i++) {
+            out[i] = rma.add(src[i]);
+        }
+    }
+
+    /**
+     * Simple moving average over {@code period} values as a compensated running sum; leading
+     * NaNs pass through and the first {@code period - 1} defined values are copied. Each output
+     * is the sum of the previous {@code period - 1} values plus the current one, the same split
+     * {@link IndicatorState} uses between closed bars and the live bar.
+     */
+    static void sma(double[] src, int period, double[] out) {
+        int from = 0;
+        while (from < src.length && Double.isNaN(src[from])) {
+            out[from++] = Double.NaN;
+        }
+        Rolling.Sum previous = new Rolling.Sum(period - 1);
+        for (int i = from; i < src.length; i++) {
+            out[i] = i - from < period - 1 ? src[i] : previous.sumWith(src[i]) / period;
+            previous.add(src[i]);
+        }
+    }
+
+    private static IndicatorKernels load() {
+        if (!Boolean.parseBoolean(System.getProperty("crypto.indicators.simd", "true"))
+                || ModuleLayer.boot().findModule("jdk.incubator.vector").isEmpty()) {
+            log.info("Indicator kernels: scalar");
+            return SCALAR;
+        }
+        try {
+            IndicatorKernels kernels = (IndicatorKernels) Class
+                .forName(IndicatorKernels.class.getPackageName() + ".VectorIndicatorKernels")
+                .getDeclaredConstructor()
+                .newInstance();
+            log.info("Indicator kernels: SIMD ({})", kernels);
+            return kernels;
+        } catch (ReflectiveOperationException | LinkageError e) {
+            log.warn("Vector API unavailable, using scalar indicator kernels", e);
+            return SCALAR;
+        }
+    }
+
+    static final class Scalar extends IndicatorKernels {
+
+        @Override
+        void stochasticRange(double[] high, double[] low, double[] close, int k, double[] rdiff, double[] diff) {
+            Rolling.Extreme highs = Rolling.max(k - 1);
+            Rolling.Extreme lows = Rolling.min(k - 1);
+            for (int i = 0; i < close.length; i++) {
+                if (i >= k - 1) {
+                    double hh = highs.valueWith(high[i]);
+                    double ll = lows.valueWith(low[i]);
+                    diff[i - k + 1] = hh - ll;
+                    rdiff[i - k + 1] = close[i] - (hh + ll) / 2;
+                }
+                highs.add(high[i]);
+                lows.add(low[i]);
+            }
+        }
+
+        @Override
+        void smiRaw(double[] avgRel, double[] avgDiff, double[] out) {
+            for (int i = 0; i < out.length; i++) {
+                out[i] = avgDiff[i] != 0 ? (avgRel[i] / (avgDiff[i] / 2) * 100) : 0;
+            }
+        }
+
+        @Override
+        void trueRange(double[] high, double[] low, double[] close, double[] out) {
+            if (out.length == 0) return;
+            out[0] = high[0] - low[0];
+            for (int i = 1; i < out.length; i++) {
+                double hl = high[i] - low[i];
+                double hc = Math.abs(high[i] - close[i - 1]);
+                double lc = Math.abs(low[i] - close[i - 1]);
+                out[i] = Math.max(hl, Math.max(hc, lc));
+            }
+        }
+
+        @Override
+        void angles(double[] line, double[] atr, double[] out) {
+            if (out.length == 0) return;
+            out[0] = 0;
+            for (int i = 1; i < out.length; i++) {
+                out[i] = atr[i] > 0 ? MAAnglesIndicatorService.RAD2DEGREE * Math.atan((line[i] - line[i - 1]) / atr[i]) : 0;
+            }
+        }
+
+        @Override
+        public String toString() {
+            return "scalar";
+        }
+    }
+}
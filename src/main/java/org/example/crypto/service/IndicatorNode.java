@@ -0,0 +1,29 @@
+package org.example.crypto.service;
+
+import org.example.crypto.dto.CandleColumns;
+
+import java.util.List;
+
+/**
+ * One series in an {@link IndicatorGraph}: a function of the candles and of other nodes'
+ * series, one value per bar, NaN where it is not defined yet.
+ *
+ * Implementations are value objects, normally records whose components are the parameters and
+ * input nodes: equal nodes (same function, parameters and inputs) are evaluated once per graph
+ * however many indicators declare them. {@link IndicatorNodes} has the built-in ones.
+ */
+interface IndicatorNode {
+
+    /**
+     * The nodes this one reads, handed to {@link #compute} in this order.
+     */
+    default List<IndicatorNode> inputs() {
+        return List.of();
+    }
+
+    /**
+     * Computes the series. Neither the candles' columns nor the input series may be modified,
+     * they are shared with other nodes.
+     */
+    double[] compute(CandleColumns candles, double[][] inputs);
+}
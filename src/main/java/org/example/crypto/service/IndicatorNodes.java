@@ -0,0 +1,251 @@
+package org.example.crypto.service;
+
+import org.example.crypto.dto.CandleColumns;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * The built-in {@link IndicatorNode}s and the indicators composed from them. Series start
+ * with NaN until they are defined; the moving averages seed at their source's first defined
+ * value, so a chain of them gives the same numbers as the same kernels run on the defined part
+ * alone.
+ */
+final class IndicatorNodes {
+
+    private IndicatorNodes() {
+    }
+
+    /**
+     * A candle column, shared as is.
+     */
+    enum Price implements IndicatorNode {
+        OPEN, HIGH, LOW, CLOSE;
+
+        @Override
+        public double[] compute(CandleColumns candles, double[][] inputs) {
+            return switch (this) {
+                case OPEN -> candles.open();
+                case HIGH -> candles.high();
+                case LOW -> candles.low();
+                case CLOSE -> candles.close();
+            };
+        }
+    }
+
+    record Ema(IndicatorNode source, int period) implements IndicatorNode {
+
+        Ema {
+            requirePositive(period);
+        }
+
+        @Override
+        public List<IndicatorNode> inputs() {
+            return List.of(source);
+        }
+
+        @Override
+        public double[] compute(CandleColumns candles, double[][] inputs) {
+            double[] out = new double[inputs[0].length];
+            IndicatorKernels.ema(inputs[0], period, out);
+            return out;
+        }
+    }
+
+    record Rma(IndicatorNode source, int period) implements IndicatorNode {
+
+        Rma {
+            requirePositive(period);
+        }
+
+        @Override
+        public List<IndicatorNode> inputs() {
+            return List.of(source);
+        }
+
+        @Override
+        public double[] compute(CandleColumns candles, double[][] inputs) {
+            double[] out = new double[inputs[0].length];
+            IndicatorKernels.rma(inputs[0], period, out);
+            return out;
+        }
+    }
+
+    record Sma(IndicatorNode source, int period) implements IndicatorNode {
+
+        Sma {
+            requirePositive(period);
+        }
+
+        @Override
+        public List<IndicatorNode> inputs() {
+            return List.of(source);
+        }
+
+        @Override
+        public double[] compute(CandleColumns candles, double[][] inputs) {
+            double[] out = new double[inputs[0].length];
+            IndicatorKernels.sma(inputs[0], period, out);
+            return out;
+        }
+    }
+
+    /**
+     * True range; the first bar uses {@code high - low}.
+     */
+    record TrueRange() implements IndicatorNode {
+
+        @Override
+        public List<IndicatorNode> inputs() {
+            return List.of(Price.HIGH, Price.LOW, Price.CLOSE);
+        }
+
+        @Override
+        public double[] compute(CandleColumns candles, double[][] inputs) {
+            double[] out = new double[inputs[0].length];
+            IndicatorKernels.INSTANCE.trueRange(inputs[0], inputs[1], inputs[2], out);
+            return out;
+        }
+    }
+
+    /**
+     * Jurik moving average, see {@link MAAnglesIndicatorService}.
+     */
+    record Jma(IndicatorNode source, int length, int phase) implements IndicatorNode {
+
+        Jma {
+            requirePositive(length);
+        }
+
+        @Override
+        public List<IndicatorNode> inputs() {
+            return List.of(source);
+        }
+
+        @Override
+        public double[] compute(CandleColumns candles, double[][] inputs) {
+            return MAAnglesIndicatorService.calculateJMA(inputs[0], length, phase, MAAnglesIndicatorService.JMA_POWER);
+        }
+    }
+
+    /**
+     * Slope of {@code line} in degrees, normalised by {@code range}; 0 at the first bar.
+     */
+    record Angle(IndicatorNode line, IndicatorNode range) implements IndicatorNode {
+
+        @Override
+        public List<IndicatorNode> inputs() {
+            return List.of(line, range);
+        }
+
+        @Override
+        public double[] compute(CandleColumns candles, double[][] inputs) {
+            double[] out = new double[inputs[0].length];
+            IndicatorKernels.INSTANCE.angles(inputs[0], inputs[1], out);
+            return out;
+        }
+    }
+
+    /**
+     * Unsmoothed SMI: the close's distance from the middle of the {@code percentKLength}-bar
+     * range, relative to half the range, both EMA-smoothed over
+     * {@link SMIIndicatorService#PERCENT_D_LENGTH} bars. Defined from bar
+     * {@code percentKLength - 1} on.
+     */
+    record SmiRaw(int percentKLength) implements IndicatorNode {
+
+        SmiRaw {
+            requirePositive(percentKLength);
+        }
+
+        @Override
+        public List<IndicatorNode> inputs() {
+            return List.of(Price.HIGH, Price.LOW, Price.CLOSE);
+        }
+
+        @Override
+        public double[] compute(CandleColumns candles, double[][] inputs) {
+            int n = inputs[2].length;
+            int k = percentKLength;
+            double[] out = new double[n];
+            Arrays.fill(out, 0, Math.min(n, k - 1), Double.NaN);
+            if (n < k) {
+                return out;
+            }
+            int m = n - k + 1;
+            IndicatorKernels kernels = IndicatorKernels.INSTANCE;
+
+            // Step 1: rdiff and diff over the rolling %K range
+            double[] rdiff = new double[m];
+            double[] diff = new double[m];
+            kernels.stochasticRange(inputs[0], inputs[1], inputs[2], k, rdiff, diff);
+
+            // Step 2: EMA of rdiff and diff (period = b)
+            double[] avgRel = new double[m];
+            double[] avgDiff = new double[m];
+            IndicatorKernels.ema(rdiff, SMIIndicatorService.PERCENT_D_LENGTH, avgRel);
+            IndicatorKernels.ema(diff, SMIIndicatorService.PERCENT_D_LENGTH, avgDiff);
+
+            // Step 3: raw SMI
+            kernels.smiRaw(avgRel, avgDiff, rdiff);
+            System.arraycopy(rdiff, 0, out, k - 1, m);
+            return out;
+        }
+    }
+
+    /**
+     * {@code source} with the first {@code bars} values replaced by NaN.
+     */
+    record Warmup(IndicatorNode source, int bars) implements IndicatorNode {
+
+        @Override
+        public List<IndicatorNode> inputs() {
+            return List.of(source);
+        }
+
+        @Override
+        public double[] compute(CandleColumns candles, double[][] inputs) {
+            double[] out = inputs[0].clone();
+            Arrays.fill(out, 0, Math.min(out.length, Math.max(0, bars)), Double.NaN);
+            return out;
+        }
+    }
+
+    static IndicatorNode ema(IndicatorNode source, int period) {
+        return new Ema(source, period);
+    }
+
+    /**
+     * ATR as in Pine Script {@code atr()}: the true range smoothed by RMA.
+     */
+    static IndicatorNode atr(int length) {
+        return new Rma(new TrueRange(), length);
+    }
+
+    /**
+     * SMI: the raw SMI smoothed by an SMA over {@code smoothPeriod} bars (step 4).
+     */
+    static IndicatorNode smi(int percentKLength, int smoothPeriod) {
+        return new Sma(new SmiRaw(percentKLength), smoothPeriod);
+    }
+
+    /**
+     * SMI signal line: EMA of the SMI over {@link SMIIndicatorService#EMA_SIGNAL_LENGTH} bars (step 5).
+     */
+    static IndicatorNode smiSignal(int percentKLength, int smoothPeriod) {
+        return new Ema(smi(percentKLength, smoothPeriod), SMIIndicatorService.EMA_SIGNAL_LENGTH);
+    }
+
+    /**
+     * JMA(close) slope in degrees, normalised by ATR({@link MAAnglesIndicatorService#ATR_LENGTH}).
+     */
+    static IndicatorNode jmaSlope(int jmaLength, int jmaPhase) {
+        return new Angle(new Jma(Price.CLOSE, jmaLength, jmaPhase), atr(MAAnglesIndicatorService.ATR_LENGTH));
+    }
+
+    private static void requirePositive(int length) {
+        if (length < 1) {
+            throw new IllegalArgumentException("Indicator lengths must be positive: " + length);
+        }
+    }
+}
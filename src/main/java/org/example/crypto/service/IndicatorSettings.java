@@ -0,0 +1,49 @@
+package org.example.crypto.service;
+
+/**
+ * The tunable lengths of the streaming indicators. {@link #DEFAULT} is what the live series,
+ * charts and signal detection use; other values are only built by replays.
+ */
+record IndicatorSettings(
+    int percentKLength,
+    int smoothPeriod,
+    int fastLength,
+    int slowLength,
+    int jmaLength,
+    int jmaPhase
+) {
+
+    static final IndicatorSettings DEFAULT = new IndicatorSettings(
+        SMIIndicatorService.PERCENT_K_LENGTH,
+        SMIIndicatorService.SMOOTH_PERIOD,
+        EMACloudIndicatorService.FAST_LENGTH,
+        EMACloudIndicatorService.SLOW_LENGTH,
+        MAAnglesIndicatorService.JMA_LENGTH,
+        MAAnglesIndicatorService.JMA_PHASE
+    );
+
+    IndicatorSettings {
+        if (percentKLength < 1 || smoothPeriod < 1 || fastLength < 1 || slowLength < 1 || jmaLength < 1) {
+            throw new IllegalArgumentException("Indicator lengths must be positive");
+        }
+    }
+
+    /**
+     * Bars needed before every output is published.
+     */
+    int fullHistory() {
+        return Math.max(percentKLength, Math.max(slowLength, MAAnglesIndicatorService.MIN_CANDLES));
+    }
+
+    IndicatorSettings withSmi(int percentKLength, int smoothPeriod) {
+        return new IndicatorSettings(percentKLength, smoothPeriod, fastLength, slowLength, jmaLength, jmaPhase);
+    }
+
+    IndicatorSettings withEmaCloud(int fastLength, int slowLength) {
+        return new IndicatorSettings(percentKLength, smoothPeriod, fastLength, slowLength, jmaLength, jmaPhase);
+    }
+
+    IndicatorSettings withJma(int jmaLength, int jmaPhase) {
+        return new IndicatorSettings(percentKLength, smoothPeriod, fastLength, slowLength, jmaLength, jmaPhase);
+    }
+}
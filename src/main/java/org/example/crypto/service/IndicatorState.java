@@ -0,0 +1,415 @@
+package org.example.crypto.service;
+
+import org.example.crypto.dto.CandleColumns;
+import org.example.crypto.dto.EMACloudResult;
+import org.example.crypto.dto.EMACloudResult.EMACloudPoint;
+import org.example.crypto.dto.IndicatorColumns;
+import org.example.crypto.dto.MAAnglesResult;
+import org.example.crypto.dto.MAAnglesResult.MAAnglesPoint;
+import org.example.crypto.dto.SMIResult;
+import org.example.crypto.dto.SMIResult.SMIPoint;
+import org.example.crypto.dto.SeriesDelta;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Streaming SMI, EMA Cloud and MA Angles state for one candle series.
+ *
+ * Recursive values are kept twice: "committed" as of the last closed bar and "live" for the
+ * bar still forming. Replacing the live bar recomputes live from committed, appending a bar
+ * first promotes live to committed, so repeated ticks never drift. Every formula mirrors the
+ * batch implementation in the indicator services operation for operation, so the output is
+ * bit-identical to {@code calculate} over every bar fed since the last {@link #reload}. Until
+ * the ring is full those are the bars it holds; once it evicts, the recursions carry on from
+ * the evicted bars, and the output is that of {@code calculate} over the whole history limited
+ * to the bars still held, not {@code calculate} over the held bars alone, which would reseed
+ * at the oldest one. That holds for {@link IndicatorSettings#DEFAULT}; other settings exist
+ * for replays only.
+ *
+ * Outputs are stored in a ring aligned with the candle ring, each slot stamped with the
+ * {@link CandleSeries#version()} that last wrote it, so results can be limited to the points
+ * changed after a client's cursor. Not thread-safe on its own:
+ * writes happen under the series monitor and all access is synchronized on this instance.
+ */
+final class IndicatorState {
+
+    private static final double D_MULT = 2.0 / (SMIIndicatorService.PERCENT_D_LENGTH + 1);
+    private static final double SIGNAL_MULT = 2.0 / (SMIIndicatorService.EMA_SIGNAL_LENGTH + 1);
+    private static final int ATR_LENGTH = MAAnglesIndicatorService.ATR_LENGTH;
+    private static final double MA27_MULT = 2.0 / (MAAnglesIndicatorService.MA27_LENGTH + 1);
+
+    // bars needed before every output is published; older points appear all at once then
+    static final int FULL_HISTORY = IndicatorSettings.DEFAULT.fullHistory();
+
+    // derived from the settings
+    private final IndicatorSettings settings;
+    private final int k;
+    private final int smooth;
+    private final double fastMult;
+    private final double slowMult;
+    private final double jmaPhaseRatio;
+    private final double jmaBeta;
+    private final double jmaAlpha;
+    private final double jmaOneMinusAlphaSq;
+    private final double jmaAlphaSq;
+    private final int fullHistory;
+
+    // output ring, aligned with the candle ring
+    private final int capacity;
+    private final long[] time;
+    private final double[] smi;
+    private final double[] signal;
+    private final double[] fastEma;
+    private final double[] slowEma;
+    private final double[] jmaSlope;
+    private final boolean[] ma27Rising;
+    private final boolean[] ma27Falling;
+    private final long[] modified;
+    private int start;
+    private int count;
+    private long version;
+    // cursors older than this get the full output (reload, or a history gate just opened)
+    private long resetVersion;
+
+    // number of bars seen since the last reset, including the live one
+    private long bars;
+
+    // windows over the closed bars; the live bar's value is combined in without being added
+    private final Rolling.Extreme closedHighs;
+    private final Rolling.Extreme closedLows;
+    private final Rolling.Sum closedSmiRaw;
+    private double lHigh, lLow, lSmiRaw;
+    private boolean lSmiRawSet;
+
+    // committed recursive state (after the last closed bar)
+    private double cAvgRel, cAvgDiff, cSignal;
+    private double cFast, cSlow;
+    private double cE0, cE1, cE2, cJma, cRma, cEma27, cClose;
+
+    // live recursive state (after the bar still forming)
+    private double lAvgRel, lAvgDiff, lSignal;
+    private double lFast, lSlow;
+    private double lE0, lE1, lE2, lJma, lRma, lEma27, lClose;
+
+    IndicatorState(int capacity) {
+        this(capacity, IndicatorSettings.DEFAULT);
+    }
+
+    IndicatorState(int capacity, IndicatorSettings settings) {
+        this.settings = settings;
+        this.k = settings.percentKLength();
+        this.smooth = settings.smoothPeriod();
+        this.fastMult = 2.0 / (settings.fastLength() + 1);
+        this.slowMult = 2.0 / (settings.slowLength() + 1);
+        int length = settings.jmaLength();
+        int phase = settings.jmaPhase();
+        this.jmaPhaseRatio = phase < -100 ? 0.5 : phase > 100 ? 2.5 : phase / 100.0 + 1.5;
+        this.jmaBeta = 0.45 * (length - 1) / (0.45 * (length - 1) + 2);
+        this.jmaAlpha = Math.pow(jmaBeta, MAAnglesIndicatorService.JMA_POWER);
+        this.jmaOneMinusAlphaSq = Math.pow(1 - jmaAlpha, 2);
+        this.jmaAlphaSq = Math.pow(jmaAlpha, 2);
+        this.fullHistory = settings.fullHistory();
+        this.closedHighs = Rolling.max(k - 1);
+        this.closedLows = Rolling.min(k - 1);
+        this.closedSmiRaw = new Rolling.Sum(smooth - 1);
+        this.capacity = capacity;
+        this.time = new long[capacity];
+        this.smi = new double[capacity];
+        this.signal = new double[capacity];
+        this.fastEma = new double[capacity];
+        this.slowEma = new double[capacity];
+        this.jmaSlope = new double[capacity];
+        this.ma27Rising = new boolean[capacity];
+        this.ma27Falling = new boolean[capacity];
+        this.modified = new long[capacity];
+    }
+
+    synchronized void reload(long seriesVersion, CandleColumns candles) {
+        version = seriesVersion;
+        resetVersion = seriesVersion;
+        start = 0;
+        count = 0;
+        bars = 0;
+        cAvgRel = cAvgDiff = cSignal = 0;
+        cFast = cSlow = 0;
+        cE0 = cE1 = cE2 = cJma = cRma = cEma27 = cClose = 0;
+        closedHighs.clear();
+        closedLows.clear();
+        closedSmiRaw.clear();
+        lSmiRawSet = false;
+        for (int i = 0; i < candles.size(); i++) {
+            update(seriesVersion, true, candles.time()[i], candles.high()[i], candles.low()[i], candles.close()[i]);
+        }
+    }
+
+    synchronized void update(long seriesVersion, boolean append, long t, double high, double low, double close) {
+        version = seriesVersion;
+        if (append) {
+            if (bars > 0) {
+                commit();
+            }
+            bars++;
+            if (count == capacity) {
+                start = (start + 1) % capacity;
+            } else if (++count == fullHistory) {
+                resetVersion = seriesVersion;
+            }
+        } else if (bars == 0) {
+            return;
+        }
+
+        long i = bars - 1;
+        int slot = (start + count - 1) % capacity;
+        time[slot] = t;
+        modified[slot] = seriesVersion;
+        updateSmi(i, slot, high, low, close);
+        updateEmaCloud(i, slot, close);
+        updateMaAngles(i, slot, high, low, close);
+    }
+
+    /**
+     * Copies the newest bar's outputs into {@code out} as smi, signal, fastEma, slowEma,
+     * jmaSlope, without the history gates (NaN during each indicator's own warmup). Lets a
+     * replay run on a one-slot ring.
+     */
+    synchronized void latest(double[] out) {
+        int slot = (start + count - 1) % capacity;
+        out[0] = smi[slot];
+        out[1] = signal[slot];
+        out[2] = fastEma[slot];
+        out[3] = slowEma[slot];
+        out[4] = jmaSlope[slot];
+    }
+
+    private void commit() {
+        cAvgRel = lAvgRel;
+        cAvgDiff = lAvgDiff;
+        cSignal = lSignal;
+        cFast = lFast;
+        cSlow = lSlow;
+        cE0 = lE0;
+        cE1 = lE1;
+        cE2 = lE2;
+        cJma = lJma;
+        cRma = lRma;
+        cEma27 = lEma27;
+        cClose = lClose;
+        closedHighs.add(lHigh);
+        closedLows.add(lLow);
+        if (lSmiRawSet) {
+            closedSmiRaw.add(lSmiRaw);
+        }
+    }
+
+    private void updateSmi(long i, int slot, double high, double low, double close) {
+        lHigh = high;
+        lLow = low;
+        if (i < k - 1) {
+            smi[slot] = Double.NaN;
+            signal[slot] = Double.NaN;
+            return;
+        }
+
+        double hh = closedHighs.valueWith(high);
+        double ll = closedLows.valueWith(low);
+        double diff = hh - ll;
+        double rdiff = close - (hh + ll) / 2;
+
+        long s = i - (k - 1);
+        if (s == 0) {
+            lAvgRel = rdiff;
+            lAvgDiff = diff;
+        } else {
+            lAvgRel = (rdiff - cAvgRel) * D_MULT + cAvgRel;
+            lAvgDiff = (diff - cAvgDiff) * D_MULT + cAvgDiff;
+        }
+
+        double raw = lAvgDiff != 0 ? (lAvgRel / (lAvgDiff / 2) * 100) : 0;
+        lSmiRaw = raw;
+        lSmiRawSet = true;
+
+        double smoothed = s < smooth - 1 ? raw : closedSmiRaw.sumWith(raw) / smooth;
+
+        lSignal = s == 0 ? smoothed : (smoothed - cSignal) * SIGNAL_MULT + cSignal;
+
+        smi[slot] = smoothed;
+        signal[slot] = lSignal;
+    }
+
+    private void updateEmaCloud(long i, int slot, double close) {
+        if (i == 0) {
+            lFast = close;
+            lSlow = close;
+        } else {
+            lFast = (close - cFast) * fastMult + cFast;
+            lSlow = (close - cSlow) * slowMult + cSlow;
+        }
+        boolean ready = i >= settings.slowLength() - 1;
+        fastEma[slot] = ready ? lFast : Double.NaN;
+        slowEma[slot] = ready ? lSlow : Double.NaN;
+    }
+
+    private void updateMaAngles(long i, int slot, double high, double low, double close) {
+        // JMA (state starts at 0 like Pine Script nz())
+        lE0 = (1 - jmaAlpha) * close + jmaAlpha * cE0;
+        lE1 = (close - lE0) * (1 - jmaBeta) + jmaBeta * cE1;
+        lE2 = (lE0 + jmaPhaseRatio * lE1 - cJma) * jmaOneMinusAlphaSq + jmaAlphaSq * cE2;
+        lJma = lE2 + cJma;
+
+        // ATR with RMA smoothing
+        double tr;
+        if (i == 0) {
+            tr = high - low;
+        } else {
+            double hl = high - low;
+            double hc = Math.abs(high - cClose);
+            double lc = Math.abs(low - cClose);
+            tr = Math.max(hl, Math.max(hc, lc));
+        }
+        lRma = i == 0 ? tr : (cRma * (ATR_LENGTH - 1) + tr) / ATR_LENGTH;
+        lClose = close;
+
+        lEma27 = i == 0 ? close : (close - cEma27) * MA27_MULT + cEma27;
+
+        if (i < MAAnglesIndicatorService.WARMUP) {
+            jmaSlope[slot] = Double.NaN;
+            ma27Rising[slot] = false;
+            ma27Falling[slot] = false;
+            return;
+        }
+        double slope = 0;
+        if (lRma > 0) {
+            double diff = lJma - cJma;
+            slope = MAAnglesIndicatorService.RAD2DEGREE * Math.atan(diff / lRma);
+        }
+        jmaSlope[slot] = slope;
+        ma27Rising[slot] = lEma27 > cEma27;
+        ma27Falling[slot] = lEma27 < cEma27;
+    }
+
+    /**
+     * Copies all outputs into index-aligned arrays, applying the same history gates as the
+     * result methods (a gated column is all NaN).
+     */
+    synchronized IndicatorColumns columns() {
+        return copyColumns(0);
+    }
+
+    /**
+     * Like {@link #columns()}, limited to the bars with {@code time >= fromTime}.
+     */
+    synchronized IndicatorColumns columns(long fromTime) {
+        int from = count;
+        while (from > 0 && time[(start + from - 1) % capacity] >= fromTime) {
+            from--;
+        }
+        return copyColumns(from);
+    }
+
+    private IndicatorColumns copyColumns(int from) {
+        int len = count - from;
+        long[] t = new long[len];
+        double[] smiOut = new double[len];
+        double[] signalOut = new double[len];
+        double[] fastOut = new double[len];
+        double[] slowOut = new double[len];
+        double[] slopeOut = new double[len];
+        byte[] trendOut = new byte[len];
+        boolean smiReady = count >= k;
+        boolean emaReady = count >= settings.slowLength();
+        boolean maReady = count >= MAAnglesIndicatorService.MIN_CANDLES;
+        for (int n = 0; n < len; n++) {
+            int slot = (start + from + n) % capacity;
+            t[n] = time[slot];
+            smiOut[n] = smiReady ? smi[slot] : Double.NaN;
+            signalOut[n] = smiReady ? signal[slot] : Double.NaN;
+            fastOut[n] = emaReady ? fastEma[slot] : Double.NaN;
+            slowOut[n] = emaReady ? slowEma[slot] : Double.NaN;
+            slopeOut[n] = maReady ? jmaSlope[slot] : Double.NaN;
+            trendOut[n] = !maReady ? 0 : ma27Rising[slot] ? (byte) 1 : ma27Falling[slot] ? (byte) -1 : 0;
+        }
+        return new IndicatorColumns(t, smiOut, signalOut, fastOut, slowOut, slopeOut, trendOut);
+    }
+
+    synchronized SMIResult smiResult() {
+        return smiResult(0);
+    }
+
+    synchronized SeriesDelta<SMIResult> smiChangedSince(long since) {
+        int from = changedFrom(since);
+        return new SeriesDelta<>(version, from < 0, smiResult(Math.max(0, from)));
+    }
+
+    private SMIResult smiResult(int from) {
+        List<SMIPoint> points = new ArrayList<>();
+        if (count >= k) {
+            for (int n = from; n < count; n++) {
+                int slot = (start + n) % capacity;
+                if (!Double.isNaN(smi[slot])) {
+                    points.add(new SMIPoint(time[slot], smi[slot], signal[slot]));
+                }
+            }
+        }
+        return new SMIResult(points, SMIIndicatorService.OVERBOUGHT, SMIIndicatorService.OVERSOLD);
+    }
+
+    synchronized EMACloudResult emaCloudResult() {
+        return emaCloudResult(0);
+    }
+
+    synchronized SeriesDelta<EMACloudResult> emaCloudChangedSince(long since) {
+        int from = changedFrom(since);
+        return new SeriesDelta<>(version, from < 0, emaCloudResult(Math.max(0, from)));
+    }
+
+    private EMACloudResult emaCloudResult(int from) {
+        List<EMACloudPoint> points = new ArrayList<>();
+        if (count >= settings.slowLength()) {
+            for (int n = from; n < count; n++) {
+                int slot = (start + n) % capacity;
+                if (!Double.isNaN(fastEma[slot])) {
+                    double fast = fastEma[slot];
+                    double slow = slowEma[slot];
+                    points.add(new EMACloudPoint(time[slot], fast, slow, fast > slow, fast < slow));
+                }
+            }
+        }
+        return new EMACloudResult(points, settings.fastLength(), settings.slowLength());
+    }
+
+    synchronized MAAnglesResult maAnglesResult() {
+        return maAnglesResult(0);
+    }
+
+    synchronized SeriesDelta<MAAnglesResult> maAnglesChangedSince(long since) {
+        int from = changedFrom(since);
+        return new SeriesDelta<>(version, from < 0, maAnglesResult(Math.max(0, from)));
+    }
+
+    private MAAnglesResult maAnglesResult(int from) {
+        List<MAAnglesPoint> points = new ArrayList<>();
+        if (count >= MAAnglesIndicatorService.MIN_CANDLES) {
+            for (int n = from; n < count; n++) {
+                int slot = (start + n) % capacity;
+                if (!Double.isNaN(jmaSlope[slot])) {
+                    points.add(new MAAnglesPoint(time[slot], jmaSlope[slot], 0, 0, 0, 0,
+                        ma27Rising[slot], ma27Falling[slot]));
+                }
+            }
+        }
+        return new MAAnglesResult(points, MAAnglesIndicatorService.THRESHOLD);
+    }
+
+    // index of the first point written after since, or -1 if the cursor needs a full reset
+    private int changedFrom(long since) {
+        if (since < resetVersion || since > version) {
+            return -1;
+        }
+        int from = count;
+        while (from > 0 && modified[(start + from - 1) % capacity] > since) {
+            from--;
+        }
+        return from;
+    }
+}
@@ -0,0 +1,32 @@
+package org.example.crypto.service;
+
+import io.micrometer.core.instrument.Timer;
+
+import java.time.Duration;
+
+/**
+ * Timers for the hot paths, all with the same histogram layout.
+ *
+ * They publish a percentile histogram: fixed, pre-allocated buckets laid out exponentially
+ * between {@link #MIN} and {@link #MAX} like an HDR histogram, so recording is a bucket
+ * search and an atomic increment without allocating, and Prometheus can aggregate the
+ * quantiles across instances. Callers look their timers up once and record with
+ * {@link Timer#record(long, java.util.concurrent.TimeUnit)}; {@code Timer.Sample} and the
+ * lambda-taking variants allocate per call.
+ */
+final class LatencyTimers {
+
+    static final Duration MIN = Duration.ofNanos(500);
+    static final Duration MAX = Duration.ofSeconds(30);
+
+    private LatencyTimers() {
+    }
+
+    static Timer.Builder builder(String name, String description) {
+        return Timer.builder(name)
+            .description(description)
+            .publishPercentileHistogram()
+            .minimumExpectedValue(MIN)
+            .maximumExpectedValue(MAX);
+    }
+}
@@ -1,5 +1,8 @@
 package org.example.crypto.service;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.example.crypto.dto.CandleColumns;
 import org.example.crypto.dto.CandleStick;
 import org.example.crypto.dto.MAAnglesResult;
 import org.example.crypto.dto.MAAnglesResult.MAAnglesPoint;
@@ -7,6 +10,8 @@ import org.springframework.stereotype.Service;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
 
 /**
  * MA Angles Indicator Service
@@ -16,69 +21,63 @@ import java.util.List;
 @Service
 public class MAAnglesIndicatorService {
 
-    private static final double THRESHOLD = 2.0;
-    private static final double RAD2DEGREE = 180.0 / Math.PI;
-
-    private final CandleStickService candleStickService;
+    static final double THRESHOLD = 2.0;
+    static final double RAD2DEGREE = 180.0 / Math.PI;
+    static final int MIN_CANDLES = 280;
+    static final int WARMUP = 50;          // JMA warmup 후부터 출력
+    static final int ATR_LENGTH = 14;
+    static final int JMA_LENGTH = 10;
+    static final int JMA_PHASE = 50;
+    static final int JMA_POWER = 2;
+    static final int MA27_LENGTH = 27;
+
+    private final Timer calculateTimer;
+
+    public MAAnglesIndicatorService(MeterRegistry meterRegistry) {
+        this.calculateTimer = LatencyTimers.builder("crypto.indicator.calculate",
+                "Time to calculate an indicator over a whole series")
+            .tag("indicator", "ma_angles")
+            .register(meterRegistry);
+    }
 
-    public MAAnglesIndicatorService(CandleStickService candleStickService) {
-        this.candleStickService = candleStickService;
+    public MAAnglesResult calculate(List<CandleStick> candles) {
+        return calculate(CandleColumns.of(candles));
     }
 
-    public MAAnglesResult calculate() {
-        List<CandleStick> candles = candleStickService.getCandles();
-        return calculate(candles);
+    public MAAnglesResult calculate(CandleColumns candles) {
+        long start = System.nanoTime();
+        MAAnglesResult result = compute(candles);
+        calculateTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        return result;
     }
 
-    public MAAnglesResult calculate(List<CandleStick> candles) {
-        if (candles == null || candles.size() < 280) {
+    private MAAnglesResult compute(CandleColumns candles) {
+        if (candles == null || candles.size() < MIN_CANDLES) {
             return new MAAnglesResult(List.of(), THRESHOLD);
         }
 
         int size = candles.size();
+        long[] time = candles.time();
 
         // 종가를 소스로 사용
-        double[] src = new double[size];
-        double[] high = new double[size];
-        double[] low = new double[size];
-        double[] close = new double[size];
-
-        for (int i = 0; i < size; i++) {
-            CandleStick c = candles.get(i);
-            src[i] = c.close();  // 종가 기준
-            high[i] = c.high();
-            low[i] = c.low();
-            close[i] = c.close();
-        }
-
-        // ATR(14) 계산
-        double[] atr = calculateATR(high, low, close, 14);
-
-        // JMA(close, 10) 스무딩 - 원본 Pine Script "ma angles - JD"와 동일
-        double[] jmaLine = calculateJMA(close, 10, 50, 2);
-
         // slope = angle(jmaLine)
-        double[] jmaSlope = new double[size];
-        for (int i = 1; i < size; i++) {
-            if (atr[i] > 0) {
-                double diff = jmaLine[i] - jmaLine[i - 1];
-                jmaSlope[i] = RAD2DEGREE * Math.atan(diff / atr[i]);
-            }
-        }
-
+        IndicatorNode slope = IndicatorNodes.jmaSlope(JMA_LENGTH, JMA_PHASE);
         // EMA 계산
-        double[] ma27 = calculateEMA(src, 27);
+        IndicatorNode ema27 = IndicatorNodes.ema(IndicatorNodes.Price.CLOSE, MA27_LENGTH);
+        Map<IndicatorNode, double[]> series = IndicatorGraph.evaluate(candles, List.of(slope, ema27));
+        double[] jmaSlope = series.get(slope);
+        double[] ma27 = series.get(ema27);
 
         // 결과 생성
         List<MAAnglesPoint> points = new ArrayList<>();
-        int startIdx = 50;  // JMA warmup 후부터
+        int startIdx = WARMUP;  // JMA warmup 후부터
 
         for (int i = startIdx; i < size; i++) {
             boolean ma27Rising = ma27[i] > ma27[i - 1];
             boolean ma27Falling = ma27[i] < ma27[i - 1];
 
             points.add(new MAAnglesPoint(
-                candles.get(i).time(),
+                time[i],
                 jmaSlope[i],
                 0,
                 0,
@@ -96,7 +95,7 @@ public class MAAnglesIndicatorService {
      * Jurik Moving Average (JMA)
      * Pine Script 원본과 동일하게 구현
      */
-    private double[] calculateJMA(double[] src, int length, int phase, int power) {
+    static double[] calculateJMA(double[] src, int length, int phase, int power) {
         int size = src.length;
         double[] jma = new double[size];
 
@@ -130,54 +129,4 @@ public class MAAnglesIndicatorService {
 
         return jma;
     }
-
-    /**
-     * ATR (Average True Range) with RMA smoothing
-     */
-    private double[] calculateATR(double[] high, double[] low, double[] close, int period) {
-        int size = high.length;
-        double[] tr = new double[size];
-        double[] atr = new double[size];
-
-        // True Range
-        for (int i = 0; i < size; i++) {
-            if (i == 0) {
-                tr[i] = high[i] - low[i];
-            } else {
-                double hl = high[i] - low[i];
-                double hc = Math.abs(high[i] - close[i - 1]);
-                double lc = Math.abs(low[i] - close[i - 1]);
-                tr[i] = Math.max(hl, Math.max(hc, lc));
-            }
-        }
-
-        // RMA (Wilder's smoothing) - Pine Script atr() 함수와 동일
-        double rma = 0;
-        for (int i = 0; i < size; i++) {
-            if (i == 0) {
-                rma = tr[i];
-            } else {
-                rma = (rma * (period - 1) + tr[i]) / period;
-            }
-            atr[i] = rma;
-        }
-
-        return atr;
-    }
-
-    /**
-     * EMA (Exponential Moving Average)
-     */
-    private double[] calculateEMA(double[] data, int period) {
-        int size = data.length;
-        double[] ema = new double[size];
-        double multiplier = 2.0 / (period + 1);
-
-        ema[0] = data[0];
-        for (int i = 1; i < size; i++) {
-            ema[i] = (data[i] - ema[i - 1]) * multiplier + ema[i - 1];
-        }
-
-        return ema;
-    }
 }
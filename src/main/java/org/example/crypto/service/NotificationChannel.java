@@ -0,0 +1,30 @@
+package org.example.crypto.service;
+
+/**
+ * A destination for signal notifications, driven by {@link NotificationDispatcher}.
+ */
+public interface NotificationChannel {
+
+    String name();
+
+    boolean isEnabled();
+
+    /**
+     * Longest text accepted in one message; coalesced batches are split to fit.
+     */
+    int maxMessageLength();
+
+    /**
+     * Minimum gap between two deliveries, for rate limits such as Telegram's per-chat limit.
+     */
+    default long minIntervalMillis() {
+        return 0;
+    }
+
+    /**
+     * Sends one message, blocking until the remote side accepted it.
+     *
+     * @throws NotificationDeliveryException if the message was not accepted
+     */
+    void deliver(String message);
+}
@@ -0,0 +1,41 @@
+package org.example.crypto.service;
+
+import org.springframework.web.client.RestClientException;
+import org.springframework.web.client.RestClientResponseException;
+
+/**
+ * A failed delivery. {@link #isRetryable()} is false for requests the remote side will keep
+ * rejecting (bad token, bad payload); {@link #retryAfterMillis()} carries the wait the remote
+ * side asked for, or -1.
+ */
+public class NotificationDeliveryException extends RuntimeException {
+
+    private final boolean retryable;
+    private final long retryAfterMillis;
+
+    public NotificationDeliveryException(String message, Throwable cause, boolean retryable, long retryAfterMillis) {
+        super(message, cause);
+        this.retryable = retryable;
+        this.retryAfterMillis = retryAfterMillis;
+    }
+
+    /**
+     * Classifies a RestTemplate failure: 429 and 5xx responses and I/O errors are retryable.
+     */
+    public static NotificationDeliveryException of(String channel, RestClientException e, long retryAfterMillis) {
+        if (e instanceof RestClientResponseException response) {
+            int status = response.getStatusCode().value();
+            boolean retryable = status == 429 || status >= 500;
+            return new NotificationDeliveryException(channel + " responded " + status, e, retryable, retryAfterMillis);
+        }
+        return new NotificationDeliveryException(channel + " request failed", e, true, retryAfterMillis);
+    }
+
+    public boolean isRetryable() {
+        return retryable;
+    }
+
+    public long retryAfterMillis() {
+        return retryAfterMillis;
+    }
+}
@@ -0,0 +1,246 @@
+package org.example.crypto.service;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.example.crypto.dto.NotificationStats;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Delivers notifications off the caller's thread, with one bounded queue and one worker
+ * (a virtual thread) per {@link NotificationChannel}, so a slow webhook delays only its own
+ * channel and never signal detection.
+ *
+ * A worker waits {@link #COALESCE_WINDOW_MS} after the first queued message and sends
+ * everything that arrived in that window as one message (split at the channel's length
+ * limit). Failed deliveries are retried with exponential backoff, or after the wait the
+ * remote side asked for on 429. A full queue drops its oldest message.
+ */
+@Service
+public class NotificationDispatcher {
+
+    private static final Logger log = LoggerFactory.getLogger(NotificationDispatcher.class);
+    static final int QUEUE_CAPACITY = 1_000;
+    static final long COALESCE_WINDOW_MS = 500;
+    static final int MAX_ATTEMPTS = 5;
+    static final long BASE_BACKOFF_MS = 500;
+    static final long MAX_BACKOFF_MS = 30_000;
+    private static final String SEPARATOR = "\n\n";
+
+    private final List<Worker> workers = new ArrayList<>();
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+    public NotificationDispatcher(List<NotificationChannel> channels, MeterRegistry meterRegistry) {
+        for (NotificationChannel channel : channels) {
+            workers.add(new Worker(channel, meterRegistry));
+        }
+    }
+
+    @PostConstruct
+    public void init() {
+        for (Worker worker : workers) {
+            executor.execute(worker);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+        for (Worker worker : workers) {
+            if (!worker.queue.isEmpty()) {
+                log.warn("{} notifications to {} discarded on shutdown", worker.queue.size(), worker.channel.name());
+            }
+        }
+    }
+
+    /**
+     * Queues a message for every channel. Never blocks.
+     */
+    public void publish(String message) {
+        long now = System.nanoTime();
+        for (Worker worker : workers) {
+            worker.offer(message, now);
+        }
+    }
+
+    public List<NotificationStats> stats() {
+        List<NotificationStats> stats = new ArrayList<>(workers.size());
+        for (Worker worker : workers) {
+            long delivered = worker.delivered.sum();
+            stats.add(new NotificationStats(
+                worker.channel.name(),
+                worker.channel.isEnabled(),
+                worker.queue.size(),
+                delivered,
+                worker.failed.sum(),
+                worker.dropped.sum(),
+                worker.retries.sum(),
+                delivered > 0 ? worker.latencyNanos.sum() / 1e6 / delivered : 0,
+                worker.maxLatencyNanos.get() / 1e6
+            ));
+        }
+        return stats;
+    }
+
+    private record Pending(String message, long enqueuedNanos) {}
+
+    private static final class Worker implements Runnable {
+        final NotificationChannel channel;
+        final BlockingQueue<Pending> queue = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+        final LongAdder delivered = new LongAdder();
+        final LongAdder failed = new LongAdder();
+        final LongAdder dropped = new LongAdder();
+        final LongAdder retries = new LongAdder();
+        final LongAdder latencyNanos = new LongAdder();
+        final AtomicLong maxLatencyNanos = new AtomicLong();
+        final Timer sendTimer;
+        final Timer latencyTimer;
+        // worker thread only
+        long lastAttemptNanos;
+
+        Worker(NotificationChannel channel, MeterRegistry meterRegistry) {
+            this.channel = channel;
+            String name = channel.name();
+            this.sendTimer = LatencyTimers.builder("crypto.notification.send",
+                    "Duration of one delivery attempt, failed ones included")
+                .tag("channel", name)
+                .register(meterRegistry);
+            this.latencyTimer = LatencyTimers.builder("crypto.notification.latency",
+                    "Time from publishing a notification to its delivery")
+                .tag("channel", name)
+                .register(meterRegistry);
+            FunctionCounter.builder("crypto.notification.failures", failed, LongAdder::sum)
+                .description("Notifications given up on after their last attempt")
+                .tag("channel", name)
+                .register(meterRegistry);
+            FunctionCounter.builder("crypto.notification.dropped", dropped, LongAdder::sum)
+                .description("Notifications dropped from a full queue")
+                .tag("channel", name)
+                .register(meterRegistry);
+            FunctionCounter.builder("crypto.notification.retries", retries, LongAdder::sum)
+                .description("Delivery attempts repeated after a retryable failure")
+                .tag("channel", name)
+                .register(meterRegistry);
+        }
+
+        void offer(String message, long now) {
+            if (!channel.isEnabled()) {
+                log.warn("{} not configured. Message: {}", channel.name(), message);
+                return;
+            }
+            Pending pending = new Pending(message, now);
+            while (!queue.offer(pending)) {
+                if (queue.poll() != null) {
+                    dropped.increment();
+                }
+            }
+        }
+
+        @Override
+        public void run() {
+            List<Pending> window = new ArrayList<>();
+            try {
+                while (!Thread.currentThread().isInterrupted()) {
+                    window.add(queue.take());
+                    long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(COALESCE_WINDOW_MS);
+                    long left;
+                    while ((left = deadline - System.nanoTime()) > 0) {
+                        Pending next = queue.poll(left, TimeUnit.NANOSECONDS);
+                        if (next == null) break;
+                        window.add(next);
+                    }
+                    send(window);
+                    window.clear();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        // joins the window into as few messages as the channel's length limit allows
+        private void send(List<Pending> window) throws InterruptedException {
+            int limit = channel.maxMessageLength();
+            StringBuilder text = new StringBuilder();
+            int from = 0;
+            for (int i = 0; i < window.size(); i++) {
+                String message = window.get(i).message();
+                if (message.length() > limit) {
+                    message = message.substring(0, limit);
+                }
+                if (!text.isEmpty() && text.length() + SEPARATOR.length() + message.length() > limit) {
+                    deliver(text.toString(), window.subList(from, i));
+                    text.setLength(0);
+                    from = i;
+                }
+                if (!text.isEmpty()) {
+                    text.append(SEPARATOR);
+                }
+                text.append(message);
+            }
+            deliver(text.toString(), window.subList(from, window.size()));
+        }
+
+        private void deliver(String text, List<Pending> batch) throws InterruptedException {
+            for (int attempt = 1; ; attempt++) {
+                pace();
+                long start = System.nanoTime();
+                try {
+                    channel.deliver(text);
+                    long now = System.nanoTime();
+                    sendTimer.record(now - start, TimeUnit.NANOSECONDS);
+                    for (Pending pending : batch) {
+                        long latency = now - pending.enqueuedNanos();
+                        latencyNanos.add(latency);
+                        maxLatencyNanos.accumulateAndGet(latency, Math::max);
+                        latencyTimer.record(latency, TimeUnit.NANOSECONDS);
+                    }
+                    delivered.add(batch.size());
+                    log.info("{} notification sent ({} message(s))", channel.name(), batch.size());
+                    return;
+                } catch (NotificationDeliveryException e) {
+                    sendTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                    if (!e.isRetryable() || attempt >= MAX_ATTEMPTS) {
+                        failed.add(batch.size());
+                        log.error("Failed to send {} notification after {} attempt(s)", channel.name(), attempt, e);
+                        return;
+                    }
+                    long backoff = e.retryAfterMillis() >= 0
+                        ? e.retryAfterMillis()
+                        : Math.min(MAX_BACKOFF_MS, BASE_BACKOFF_MS << (attempt - 1));
+                    retries.increment();
+                    log.warn("{} delivery failed ({}), retrying in {} ms", channel.name(), e.getMessage(), backoff);
+                    Thread.sleep(backoff);
+                } catch (RuntimeException e) {
+                    sendTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                    failed.add(batch.size());
+                    log.error("Failed to send {} notification", channel.name(), e);
+                    return;
+                }
+            }
+        }
+
+        // keeps at least minIntervalMillis between two attempts
+        private void pace() throws InterruptedException {
+            long gap = TimeUnit.MILLISECONDS.toNanos(channel.minIntervalMillis());
+            long wait = lastAttemptNanos + gap - System.nanoTime();
+            if (gap > 0 && lastAttemptNanos != 0 && wait > 0) {
+                TimeUnit.NANOSECONDS.sleep(wait);
+            }
+            lastAttemptNanos = System.nanoTime();
+        }
+    }
+}
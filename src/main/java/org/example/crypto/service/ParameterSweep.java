@@ -0,0 +1,199 @@
+package org.example.crypto.service;
+
+import org.example.crypto.dto.CandleColumns;
+import org.example.crypto.dto.SweepResult;
+import org.example.crypto.dto.SweepResult.Row;
+import org.example.crypto.service.BacktestService.Sweep;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * Grid or random search over indicator settings and strategy params on one history.
+ *
+ * Every combination's indicator columns are declared as {@link IndicatorNode}s and evaluated
+ * in one {@link IndicatorGraph}, so each distinct series is computed once for the whole sweep:
+ * SMI per K length and smoothing (the raw SMI once per K length), each EMA length once whether
+ * it is used as fast or slow, ATR once for every JMA setting; threshold and dwell changes reuse
+ * everything. Only the strategy replay ({@link Backtester#evaluate}) runs per combination. Both
+ * stages fork tasks and must therefore run inside a fork-join pool.
+ */
+final class ParameterSweep {
+
+    static final int MAX_COMBINATIONS = 100_000;
+
+    enum Objective {
+        RETURN,
+        PROFIT_FACTOR,
+        RETURN_OVER_DRAWDOWN;
+
+        static Objective parse(String objective) {
+            return valueOf(objective.toUpperCase(Locale.ROOT).replace('-', '_'));
+        }
+
+        double score(Backtester.Stats stats) {
+            return switch (this) {
+                case RETURN -> stats.totalReturn();
+                case PROFIT_FACTOR -> stats.profitFactor();
+                case RETURN_OVER_DRAWDOWN -> stats.totalReturn() / Math.max(stats.maxDrawdown(), 1e-9);
+            };
+        }
+    }
+
+    private ParameterSweep() {
+    }
+
+    /**
+     * Sweeps around {@code live}: its strategies with each combination's params, its values for
+     * the params the sweep leaves empty.
+     */
+    static SweepResult run(String contract, String interval, CandleColumns candles, Sweep sweep,
+                           Backtester.Config live) {
+        long started = System.nanoTime();
+        Objective objective = Objective.parse(sweep.rankBy());
+        List<Backtester.Config> configs = combinations(sweep, live);
+
+        long[] time = candles.time();
+        double[] close = candles.close();
+        List<Columns> columns = new ArrayList<>(configs.size());
+        Set<IndicatorNode> outputs = new HashSet<>();
+        for (Backtester.Config config : configs) {
+            Columns c = Columns.of(config.indicators());
+            columns.add(c);
+            outputs.addAll(List.of(c.smi(), c.signal(), c.fastEma(), c.slowEma(), c.jmaSlope()));
+        }
+        Map<IndicatorNode, double[]> series = IndicatorGraph.evaluate(candles, outputs);
+
+        List<ForkJoinTask<Backtester.Stats>> replays = new ArrayList<>(configs.size());
+        for (int i = 0; i < configs.size(); i++) {
+            Backtester.Config config = configs.get(i);
+            Columns c = columns.get(i);
+            double[] smi = series.get(c.smi());
+            double[] signal = series.get(c.signal());
+            double[] fast = series.get(c.fastEma());
+            double[] slow = series.get(c.slowEma());
+            double[] slope = series.get(c.jmaSlope());
+            replays.add(ForkJoinTask.adapt(() -> Backtester.evaluate(time, close, smi, signal, fast, slow, slope, config)));
+        }
+        ForkJoinTask.invokeAll(replays);
+
+        List<Row> rows = new ArrayList<>();
+        for (int i = 0; i < configs.size(); i++) {
+            Backtester.Stats stats = replays.get(i).join();
+            if (stats.trades() >= sweep.minTrades()) {
+                rows.add(row(configs.get(i), stats, objective.score(stats)));
+            }
+        }
+        rows.sort(Comparator.comparingDouble(Row::score).reversed());
+        List<Row> top = new ArrayList<>(Math.min(rows.size(), sweep.top()));
+        for (int i = 0; i < rows.size() && i < sweep.top(); i++) {
+            Row r = rows.get(i);
+            top.add(new Row(i + 1, r.percentKLength(), r.smoothPeriod(), r.fastLength(), r.slowLength(),
+                r.jmaLength(), r.jmaPhase(), r.oversold(), r.overbought(), r.minDwell(), r.trades(),
+                r.winRate(), r.totalReturn(), r.maxDrawdown(), r.profitFactor(), r.score()));
+        }
+        return new SweepResult(contract, interval, candles.size(), configs.size(),
+            objective.name().toLowerCase(Locale.ROOT), (System.nanoTime() - started) / 1e6, top);
+    }
+
+    /**
+     * Every combination of the sweep's values, or {@code samples} distinct ones drawn at random
+     * when that is fewer. Sweeping a param the live strategies do not declare is rejected.
+     */
+    static List<Backtester.Config> combinations(Sweep sweep, Backtester.Config live) {
+        Map<String, Double> declared = live.strategies().params() != null ? live.strategies().params() : Map.of();
+        requireDeclared("oversold", sweep.oversold(), declared);
+        requireDeclared("overbought", sweep.overbought(), declared);
+        requireDeclared("minDwell", sweep.minDwell(), declared);
+        List<List<? extends Number>> axes = List.of(
+            sweep.percentKLength(), sweep.smoothPeriod(), sweep.fastLength(), sweep.slowLength(),
+            sweep.jmaLength(), sweep.jmaPhase(), orLive(sweep.oversold(), live.oversold()),
+            orLive(sweep.overbought(), live.overbought()), orLive(sweep.minDwell(), live.minDwell()));
+        long total = 1;
+        for (List<? extends Number> axis : axes) {
+            if (axis.isEmpty()) {
+                throw new IllegalArgumentException("Every sweep parameter needs at least one value");
+            }
+            total = total > Long.MAX_VALUE / axis.size() ? Long.MAX_VALUE : total * axis.size();
+        }
+        boolean sampled = sweep.samples() > 0 && sweep.samples() < total;
+        long count = sampled ? sweep.samples() : total;
+        if (count > MAX_COMBINATIONS) {
+            throw new IllegalArgumentException(
+                "Sweep has " + count + " combinations, at most " + MAX_COMBINATIONS + " are allowed");
+        }
+
+        Set<Long> indices = new LinkedHashSet<>();
+        if (sampled) {
+            Random random = new Random(sweep.seed());
+            while (indices.size() < count) {
+                indices.add(Math.floorMod(random.nextLong(), total));
+            }
+        } else {
+            for (long i = 0; i < total; i++) {
+                indices.add(i);
+            }
+        }
+
+        List<Backtester.Config> configs = new ArrayList<>(indices.size());
+        Number[] values = new Number[axes.size()];
+        for (long index : indices) {
+            // mixed-radix digits, last axis fastest
+            long rest = index;
+            for (int a = axes.size() - 1; a >= 0; a--) {
+                List<? extends Number> axis = axes.get(a);
+                values[a] = axis.get((int) (rest % axis.size()));
+                rest /= axis.size();
+            }
+            IndicatorSettings settings = new IndicatorSettings(values[0].intValue(), values[1].intValue(),
+                values[2].intValue(), values[3].intValue(), values[4].intValue(), values[5].intValue());
+            configs.add(new Backtester.Config(settings, live.strategies(), values[6].doubleValue(),
+                values[7].doubleValue(), values[8].intValue(), sweep.feeRate()));
+        }
+        return configs;
+    }
+
+    private static void requireDeclared(String param, List<?> values, Map<String, Double> declared) {
+        if (!values.isEmpty() && !declared.containsKey(param)) {
+            throw new IllegalArgumentException("Unknown param: " + param + " is not declared by the strategies");
+        }
+    }
+
+    private static <T> List<T> orLive(List<T> values, T live) {
+        return values.isEmpty() ? List.of(live) : values;
+    }
+
+    /**
+     * The columns a replay reads, with the same NaN warmups as {@link IndicatorState} so a replay
+     * over them matches a streaming one.
+     */
+    private record Columns(IndicatorNode smi, IndicatorNode signal, IndicatorNode fastEma, IndicatorNode slowEma,
+                           IndicatorNode jmaSlope) {
+
+        static Columns of(IndicatorSettings s) {
+            int emaWarmup = s.slowLength() - 1;
+            return new Columns(
+                IndicatorNodes.smi(s.percentKLength(), s.smoothPeriod()),
+                IndicatorNodes.smiSignal(s.percentKLength(), s.smoothPeriod()),
+                new IndicatorNodes.Warmup(IndicatorNodes.ema(IndicatorNodes.Price.CLOSE, s.fastLength()), emaWarmup),
+                new IndicatorNodes.Warmup(IndicatorNodes.ema(IndicatorNodes.Price.CLOSE, s.slowLength()), emaWarmup),
+                new IndicatorNodes.Warmup(IndicatorNodes.jmaSlope(s.jmaLength(), s.jmaPhase()), MAAnglesIndicatorService.WARMUP));
+        }
+    }
+
+    private static Row row(Backtester.Config config, Backtester.Stats stats, double score) {
+        IndicatorSettings s = config.indicators();
+        return new Row(0, s.percentKLength(), s.smoothPeriod(), s.fastLength(), s.slowLength(),
+            s.jmaLength(), s.jmaPhase(), config.oversold(), config.overbought(), config.minDwell(),
+            stats.trades(), stats.trades() > 0 ? (double) stats.wins() / stats.trades() : 0,
+            stats.totalReturn(), stats.maxDrawdown(), stats.profitFactor(), score);
+    }
+}
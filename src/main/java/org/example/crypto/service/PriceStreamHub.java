@@ -0,0 +1,244 @@
+package org.example.crypto.service;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.example.crypto.dto.PriceStreamStats;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter.DataWithMediaType;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Fans price updates out to SSE subscribers, one channel per contract.
+ *
+ * Ticker updates only mark a channel dirty; a single flusher thread publishes dirty channels
+ * at most every {@link #FLUSH_INTERVAL_MS}, so bursts of ticks coalesce into one event.
+ * Each event is encoded once into an SSE frame and the same bytes are written to every
+ * subscriber. Writes run on virtual threads; a subscriber whose previous write is still in
+ * flight skips the event (it will get the next, newer one) and is dropped once it has been
+ * stuck for {@link #SLOW_CLIENT_TIMEOUT_MS}.
+ */
+@Service
+public class PriceStreamHub implements TickerListener {
+
+    private static final Logger log = LoggerFactory.getLogger(PriceStreamHub.class);
+    static final long FLUSH_INTERVAL_MS = 100;
+    static final long SLOW_CLIENT_TIMEOUT_MS = 5_000;
+
+    private final GateIoWebSocketClient webSocketClient;
+    private final MeterRegistry meterRegistry;
+    private final Map<String, Channel> channels = new ConcurrentHashMap<>();
+    private final ExecutorService senders = Executors.newVirtualThreadPerTaskExecutor();
+    private ScheduledExecutorService flusher;
+
+    private final LongAdder eventsPublished = new LongAdder();
+    private final LongAdder framesSent = new LongAdder();
+    private final LongAdder framesSkipped = new LongAdder();
+    private final LongAdder clientsEvicted = new LongAdder();
+    private final LongAdder sendNanos = new LongAdder();
+    private final AtomicLong maxSendNanos = new AtomicLong();
+
+    public PriceStreamHub(GateIoWebSocketClient webSocketClient, ContractRegistry contractRegistry,
+                          MeterRegistry meterRegistry) {
+        this.webSocketClient = webSocketClient;
+        this.meterRegistry = meterRegistry;
+        webSocketClient.addTickerListener(this);
+        contractRegistry.addListener(new ContractRegistry.Listener() {
+            @Override
+            public void onContractsAdded(List<String> contracts) {
+            }
+
+            @Override
+            public void onContractsRemoved(List<String> contracts) {
+                for (String contract : contracts) {
+                    Channel channel = channels.remove(contract);
+                    if (channel != null) {
+                        meterRegistry.find("crypto.sse.subscribers").tag("contract", contract).meters()
+                            .forEach(meterRegistry::remove);
+                        channel.subscribers.forEach(s -> s.emitter.complete());
+                    }
+                }
+            }
+        });
+    }
+
+    @PostConstruct
+    public void init() {
+        flusher = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "price-stream-flusher");
+            thread.setDaemon(true);
+            return thread;
+        });
+        flusher.scheduleAtFixedRate(this::flush, FLUSH_INTERVAL_MS, FLUSH_INTERVAL_MS, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (flusher != null) {
+            flusher.shutdownNow();
+        }
+        senders.shutdownNow();
+        channels.values().forEach(channel -> channel.subscribers.forEach(s -> s.emitter.complete()));
+    }
+
+    /**
+     * Opens a stream for the contract. The current price goes out with the next flush.
+     */
+    public SseEmitter subscribe(String contract) {
+        SseEmitter emitter = new SseEmitter(0L);
+        Channel channel = channels.computeIfAbsent(contract, this::newChannel);
+        Subscriber subscriber = new Subscriber(emitter);
+
+        emitter.onCompletion(() -> channel.subscribers.remove(subscriber));
+        emitter.onTimeout(() -> channel.subscribers.remove(subscriber));
+        emitter.onError(e -> channel.subscribers.remove(subscriber));
+        channel.subscribers.add(subscriber);
+        channel.dirty = true;
+        return emitter;
+    }
+
+    private Channel newChannel(String contract) {
+        Channel channel = new Channel(contract);
+        Gauge.builder("crypto.sse.subscribers", channel.subscribers, List::size)
+            .description("Open price stream subscriptions")
+            .tag("contract", contract)
+            .register(meterRegistry);
+        return channel;
+    }
+
+    @Override
+    public void onTicker(String contract, double last, double changePercentage, long updatedAtMillis) {
+        Channel channel = channels.get(contract);
+        if (channel != null) {
+            channel.dirty = true;
+        }
+    }
+
+    public PriceStreamStats stats() {
+        Map<String, Integer> byContract = new LinkedHashMap<>();
+        int total = 0;
+        for (Channel channel : channels.values()) {
+            int count = channel.subscribers.size();
+            byContract.put(channel.contract, count);
+            total += count;
+        }
+        long sent = framesSent.sum();
+        return new PriceStreamStats(
+            total,
+            byContract,
+            eventsPublished.sum(),
+            sent,
+            framesSkipped.sum(),
+            clientsEvicted.sum(),
+            sent > 0 ? sendNanos.sum() / 1_000.0 / sent : 0,
+            maxSendNanos.get() / 1_000.0
+        );
+    }
+
+    private void flush() {
+        try {
+            for (Channel channel : channels.values()) {
+                if (!channel.dirty || channel.subscribers.isEmpty()) continue;
+                channel.dirty = false;
+
+                Set<DataWithMediaType> frame = encode(channel.contract);
+                eventsPublished.increment();
+                long now = System.nanoTime();
+                for (Subscriber subscriber : channel.subscribers) {
+                    deliver(channel, subscriber, frame, now);
+                }
+            }
+        } catch (Exception e) {
+            // keep the flusher scheduled
+            log.error("Price stream flush failed", e);
+        }
+    }
+
+    private Set<DataWithMediaType> encode(String contract) {
+        String data = """
+            {"pair":"%s","price":"%s","unit":"USDT","lastUpdate":"%s","changePercent":"%s"}"""
+            .formatted(
+                contract,
+                webSocketClient.getCurrentPrice(contract),
+                webSocketClient.getLastUpdateTime(contract),
+                webSocketClient.getChangePercentage(contract)
+            );
+        // a complete SSE frame, written as-is by the byte array converter
+        byte[] bytes = ("data:" + data + "\n\n").getBytes(StandardCharsets.UTF_8);
+        return Set.of(new DataWithMediaType(bytes, MediaType.APPLICATION_OCTET_STREAM));
+    }
+
+    private void deliver(Channel channel, Subscriber subscriber, Set<DataWithMediaType> frame, long now) {
+        if (!subscriber.busy.compareAndSet(false, true)) {
+            framesSkipped.increment();
+            if (now - subscriber.busySinceNanos > TimeUnit.MILLISECONDS.toNanos(SLOW_CLIENT_TIMEOUT_MS)) {
+                evict(channel, subscriber);
+            }
+            return;
+        }
+        subscriber.busySinceNanos = now;
+        senders.execute(() -> {
+            try {
+                long start = System.nanoTime();
+                subscriber.emitter.send(frame);
+                long elapsed = System.nanoTime() - start;
+                framesSent.increment();
+                sendNanos.add(elapsed);
+                maxSendNanos.accumulateAndGet(elapsed, Math::max);
+            } catch (IOException | IllegalStateException e) {
+                // client went away or the emitter already completed
+                channel.subscribers.remove(subscriber);
+            } finally {
+                subscriber.busy.set(false);
+            }
+        });
+    }
+
+    private void evict(Channel channel, Subscriber subscriber) {
+        if (channel.subscribers.remove(subscriber)) {
+            clientsEvicted.increment();
+            log.warn("Dropping slow price stream subscriber for {}", channel.contract);
+            subscriber.emitter.complete();
+        }
+    }
+
+    private static final class Channel {
+        final String contract;
+        final List<Subscriber> subscribers = new CopyOnWriteArrayList<>();
+        volatile boolean dirty;
+
+        Channel(String contract) {
+            this.contract = contract;
+        }
+    }
+
+    private static final class Subscriber {
+        final SseEmitter emitter;
+        final AtomicBoolean busy = new AtomicBoolean();
+        volatile long busySinceNanos;
+
+        Subscriber(SseEmitter emitter) {
+            this.emitter = emitter;
+        }
+    }
+}
@@ -0,0 +1,276 @@
+package org.example.crypto.service;
+
+/**
+ * Rolling-window accumulators for indicators, on primitive ring buffers: O(1) per value
+ * (amortized for the extremes), no boxing, no allocation after construction. Windows count
+ * values, not time.
+ *
+ * Streaming indicators keep a bar that is still forming next to the closed ones, so the
+ * windowed accumulators also answer "what if one more value came" ({@code maxWith},
+ * {@code sumWith}, {@link Ema#with}) without storing it: a window of {@code n - 1} closed values
+ * plus the live one gives the {@code n}-bar result, and the live value is only added once its
+ * bar closes. Batch code feeding the same values in the same order gets bit-identical results.
+ */
+final class Rolling {
+
+    private Rolling() {
+    }
+
+    static Extreme max(int window) {
+        return new Extreme(window, true);
+    }
+
+    static Extreme min(int window) {
+        return new Extreme(window, false);
+    }
+
+    /**
+     * Highest or lowest of the last {@code window} values, as a monotonic deque: a value that
+     * can never be the extreme again (an older one beaten by a newer one) is dropped on arrival.
+     */
+    static final class Extreme {
+        private final int window;
+        private final boolean max;
+        private final double[] values;
+        private final long[] positions;
+        private int head;
+        private int size;
+        private long added;
+
+        private Extreme(int window, boolean max) {
+            this.window = window;
+            this.max = max;
+            this.values = new double[Math.max(1, window)];
+            this.positions = new long[Math.max(1, window)];
+        }
+
+        void add(double value) {
+            if (window == 0) return;
+            if (size > 0 && positions[head] <= added - window) {
+                head = (head + 1) % values.length;
+                size--;
+            }
+            while (size > 0 && beaten(values[back()], value)) {
+                size--;
+            }
+            int slot = (head + size) % values.length;
+            values[slot] = value;
+            positions[slot] = added++;
+            size++;
+        }
+
+        /**
+         * The extreme of the window, or -infinity (max) / +infinity (min) while it is empty.
+         */
+        double value() {
+            return size > 0 ? values[head] : max ? Double.NEGATIVE_INFINITY : Double.POSITIVE_INFINITY;
+        }
+
+        /**
+         * The extreme of the window plus {@code value}.
+         */
+        double valueWith(double value) {
+            return max ? Math.max(value(), value) : Math.min(value(), value);
+        }
+
+        void clear() {
+            head = 0;
+            size = 0;
+            added = 0;
+        }
+
+        private int back() {
+            return (head + size - 1) % values.length;
+        }
+
+        private boolean beaten(double older, double newer) {
+            return max ? older <= newer : older >= newer;
+        }
+    }
+
+    /**
+     * Sum and mean of the last {@code window} values with Neumaier (improved Kahan)
+     * compensation, so adding and evicting values for ever does not drift.
+     */
+    static final class Sum {
+        private final double[] ring;
+        private int start;
+        private int size;
+        private double sum;
+        private double compensation;
+
+        Sum(int window) {
+            this.ring = new double[window];
+        }
+
+        void add(double value) {
+            if (ring.length == 0) return;
+            if (size == ring.length) {
+                accumulate(-ring[start]);
+                ring[start] = value;
+                start = (start + 1) % ring.length;
+            } else {
+                ring[(start + size++) % ring.length] = value;
+            }
+            accumulate(value);
+        }
+
+        double sum() {
+            return sum + compensation;
+        }
+
+        /**
+         * The window's sum plus {@code value}.
+         */
+        double sumWith(double value) {
+            double t = sum + value;
+            double c = compensation + (Math.abs(sum) >= Math.abs(value) ? (sum - t) + value : (value - t) + sum);
+            return t + c;
+        }
+
+        double mean() {
+            return size > 0 ? sum() / size : Double.NaN;
+        }
+
+        int size() {
+            return size;
+        }
+
+        void clear() {
+            start = 0;
+            size = 0;
+            sum = 0;
+            compensation = 0;
+        }
+
+        private void accumulate(double value) {
+            double t = sum + value;
+            compensation += Math.abs(sum) >= Math.abs(value) ? (sum - t) + value : (value - t) + sum;
+            sum = t;
+        }
+    }
+
+    /**
+     * Mean and variance of the last {@code window} values (Welford's update, with the oldest
+     * value swapped out once the window is full).
+     */
+    static final class Variance {
+        private final double[] ring;
+        private int start;
+        private int size;
+        private double mean;
+        private double m2;
+
+        Variance(int window) {
+            if (window < 1) {
+                throw new IllegalArgumentException("window must be positive");
+            }
+            this.ring = new double[window];
+        }
+
+        void add(double value) {
+            if (size == ring.length) {
+                double oldest = ring[start];
+                ring[start] = value;
+                start = (start + 1) % ring.length;
+                double oldMean = mean;
+                mean += (value - oldest) / size;
+                m2 = Math.max(0, m2 + (value - oldest) * (value - mean + oldest - oldMean));
+            } else {
+                ring[(start + size++) % ring.length] = value;
+                double delta = value - mean;
+                mean += delta / size;
+                m2 += delta * (value - mean);
+            }
+        }
+
+        double mean() {
+            return size > 0 ? mean : Double.NaN;
+        }
+
+        double populationVariance() {
+            return size > 0 ? m2 / size : Double.NaN;
+        }
+
+        double sampleVariance() {
+            return size > 1 ? m2 / (size - 1) : Double.NaN;
+        }
+
+        int size() {
+            return size;
+        }
+
+        void clear() {
+            start = 0;
+            size = 0;
+            mean = 0;
+            m2 = 0;
+        }
+    }
+
+    /**
+     * Exponential moving average seeded with its first value: {@code (x - prev) * alpha + prev},
+     * alpha {@code 2 / (period + 1)}.
+     */
+    static final class Ema {
+        private final double alpha;
+        private double value = Double.NaN;
+
+        Ema(int period) {
+            this.alpha = 2.0 / (period + 1);
+        }
+
+        double add(double x) {
+            value = with(x);
+            return value;
+        }
+
+        /**
+         * The average after {@code x}, without adding it.
+         */
+        double with(double x) {
+            return Double.isNaN(value) ? x : (x - value) * alpha + value;
+        }
+
+        double value() {
+            return value;
+        }
+
+        void clear() {
+            value = Double.NaN;
+        }
+    }
+
+    /**
+     * Wilder's moving average (Pine Script {@code rma}) seeded with its first value:
+     * {@code (prev * (period - 1) + x) / period}.
+     */
+    static final class Rma {
+        private final int period;
+        private double value = Double.NaN;
+
+        Rma(int period) {
+            this.period = period;
+        }
+
+        double add(double x) {
+            value = with(x);
+            return value;
+        }
+
+        /**
+         * The average after {@code x}, without adding it.
+         */
+        double with(double x) {
+            return Double.isNaN(value) ? x : (value * (period - 1) + x) / period;
+        }
+
+        double value() {
+            return value;
+        }
+
+        void clear() {
+            value = Double.NaN;
+        }
+    }
+}
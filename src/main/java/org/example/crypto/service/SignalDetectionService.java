@@ -1,83 +1,323 @@
 package org.example.crypto.service;
 
-import org.example.crypto.dto.CandleStick;
-import org.example.crypto.dto.EMACloudResult;
-import org.example.crypto.dto.MAAnglesResult;
-import org.example.crypto.dto.SMIResult;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.example.crypto.dto.CandleColumns;
+import org.example.crypto.dto.IndicatorColumns;
+import org.example.crypto.dto.SignalDetectionStats;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
+import java.io.IOException;
+import java.nio.file.Path;
 import java.time.Instant;
 import java.time.ZoneId;
 import java.time.format.DateTimeFormatter;
-import java.util.HashMap;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Queue;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
-
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Runs the signal strategies whenever a watched contract's 1m series changes.
+ *
+ * Candle listeners run on the websocket thread, so an update only queues an evaluation;
+ * updates arriving while one is queued are folded into it. Contracts are partitioned by hash
+ * into shards, several per thread of a work-stealing pool. A shard runs its queued
+ * evaluations one after the other and owns its contracts' detection state, so that state
+ * needs no locking, while idle threads steal whole shards from busy ones. An evaluation
+ * finishing more than {@code deadline-millis} after its update counts as an overrun of its
+ * shard and is logged, instead of quietly pushing back everything queued behind it. The
+ * indicator engine is a constructor dependency and therefore registers its listener first,
+ * so an evaluation always sees indicators that include the bar that triggered it.
+ *
+ * Each contract keeps a {@link StrategyProgram.Machine} that has advanced past every closed
+ * bar, so an evaluation feeds it only the bars that closed since the previous one and
+ * evaluates the live bar on top; a reload of the series or of the strategies replays the
+ * whole history once.
+ */
 @Service
-public class SignalDetectionService {
+public class SignalDetectionService implements CandleUpdateListener {
 
     private static final Logger log = LoggerFactory.getLogger(SignalDetectionService.class);
     private static final DateTimeFormatter TIME_FMT =
             DateTimeFormatter.ofPattern("MM/dd HH:mm").withZone(ZoneId.of("Asia/Seoul"));
+    // 24h of 1m bars
+    private static final int DAY_BARS = 1440;
+    static final int SHARDS_PER_THREAD = 4;
+    // evaluations a shard runs before it yields its thread to other shards
+    private static final int SHARD_BATCH = 64;
+    private static final long OVERRUN_LOG_INTERVAL_NANOS = TimeUnit.MINUTES.toNanos(1);
+    // an evaluation still queued this long after its update means the shard has stalled
+    static final long STALL_NANOS = TimeUnit.MINUTES.toNanos(1);
 
     private final CandleStickService candleStickService;
-    private final SMIIndicatorService smiIndicatorService;
-    private final MAAnglesIndicatorService maAnglesIndicatorService;
-    private final EMACloudIndicatorService emaCloudIndicatorService;
+    private final ContractRegistry contractRegistry;
+    private final IncrementalIndicatorEngine indicatorEngine;
     private final GateIoWebSocketClient webSocketClient;
-    private final SlackNotificationService slackService;
-    private final TelegramNotificationService telegramService;
+    private final NotificationDispatcher notificationDispatcher;
+    private final StrategyService strategyService;
+
+    @Value("${crypto.signal-contracts:}")
+    private String[] signalContracts = {};
+
+    @Value("${crypto.signal-detection.parallelism:0}")
+    private int parallelism = 0;
+
+    @Value("${crypto.signal-detection.deadline-millis:1000}")
+    private long deadlineMillis = 1000;
 
-    // 이미 알림을 보낸 신호의 시간을 기록 (중복 방지)
-    private final Set<String> notifiedSignals = ConcurrentHashMap.newKeySet();
+    @Value("${crypto.signal-detection.journal:}")
+    private String journalPath = "";
 
-    // 구간 내 최초 시그널만 발생하도록 추적 (contract → 시그널 발생한 봉의 time)
-    private final Map<String, Long> oversoldSignalTime = new ConcurrentHashMap<>();
-    private final Map<String, Long> overboughtSignalTime = new ConcurrentHashMap<>();
-    // 시그널 해제 알림 중복 방지
-    private final Set<String> cancelledSignals = ConcurrentHashMap.newKeySet();
+    private final Set<String> watched = ConcurrentHashMap.newKeySet();
+    private final Map<String, Evaluation> evaluations = new ConcurrentHashMap<>();
+    private final Map<String, DayRange> dayRanges = new ConcurrentHashMap<>();
+    private volatile ForkJoinPool pool;
+    private volatile Shard[] shards = new Shard[0];
+    // signals already announced; in memory until init() opens the journal
+    private volatile SignalStore announced = newStore(null);
+
+    private final LongAdder evaluationCount = new LongAdder();
+    private final LongAdder evaluationNanos = new LongAdder();
+    private final LongAdder signalCount = new LongAdder();
+    private final LongAdder signalLatencyNanos = new LongAdder();
+    private final AtomicLong maxSignalLatencyNanos = new AtomicLong();
+    private final Timer evaluationTimer;
+    private final Timer cycleTimer;
 
     public SignalDetectionService(CandleStickService candleStickService,
-                                  SMIIndicatorService smiIndicatorService,
-                                  MAAnglesIndicatorService maAnglesIndicatorService,
-                                  EMACloudIndicatorService emaCloudIndicatorService,
+                                  ContractRegistry contractRegistry,
+                                  IncrementalIndicatorEngine indicatorEngine,
                                   GateIoWebSocketClient webSocketClient,
-                                  SlackNotificationService slackService,
-                                  TelegramNotificationService telegramService) {
+                                  NotificationDispatcher notificationDispatcher,
+                                  StrategyService strategyService,
+                                  MeterRegistry meterRegistry) {
         this.candleStickService = candleStickService;
-        this.smiIndicatorService = smiIndicatorService;
-        this.maAnglesIndicatorService = maAnglesIndicatorService;
-        this.emaCloudIndicatorService = emaCloudIndicatorService;
+        this.contractRegistry = contractRegistry;
+        this.indicatorEngine = indicatorEngine;
         this.webSocketClient = webSocketClient;
-        this.slackService = slackService;
-        this.telegramService = telegramService;
+        this.notificationDispatcher = notificationDispatcher;
+        this.strategyService = strategyService;
+        this.evaluationTimer = LatencyTimers.builder("crypto.signal.evaluation",
+                "Time to run the strategies on a contract")
+            .register(meterRegistry);
+        this.cycleTimer = LatencyTimers.builder("crypto.signal.cycle",
+                "Arrival of a 1m candle update to the end of the evaluation it triggered")
+            .register(meterRegistry);
+        FunctionCounter.builder("crypto.signal.overruns", this, SignalDetectionService::overruns)
+            .description("Evaluations that ended after the detection deadline")
+            .register(meterRegistry);
+        FunctionCounter.builder("crypto.signal.notifications", signalCount, LongAdder::sum)
+            .description("Signal and cancellation notifications published")
+            .register(meterRegistry);
+        Gauge.builder("crypto.signal.announced", this, service -> service.announced.size())
+            .description("Announced signals kept to suppress repeats")
+            .register(meterRegistry);
+        candleStickService.addListener(this);
     }
 
-    @Scheduled(fixedRate = 10000) // 10초마다 체크
-    public void checkSignals() {
-        for (String contract : new String[]{"XRP_USDT"}) {
-            try {
-                detectAndNotify(contract);
-            } catch (Exception e) {
-                log.error("Signal detection failed for {}", contract, e);
+    @PostConstruct
+    public void init() {
+        watched.addAll(List.of(signalContracts));
+        if (!journalPath.isBlank()) {
+            announced = newStore(Path.of(journalPath));
+        }
+        int threads = parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors();
+        Shard[] created = new Shard[threads * SHARDS_PER_THREAD];
+        for (int i = 0; i < created.length; i++) {
+            created[i] = new Shard(i);
+        }
+        shards = created;
+        // FIFO: a shard task is an event handler, not a fork/join subproblem
+        pool = new ForkJoinPool(threads, p -> {
+            ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(p);
+            thread.setName("signal-detection-" + thread.getPoolIndex());
+            return thread;
+        }, null, true);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (pool != null) {
+            pool.shutdownNow();
+        }
+        try {
+            announced.close();
+        } catch (IOException e) {
+            log.warn("Failed to close signal journal {}", journalPath, e);
+        }
+    }
+
+    private static SignalStore newStore(Path journal) {
+        try {
+            return new SignalStore(journal);
+        } catch (IOException e) {
+            log.error("Cannot open signal journal {}, keeping announced signals in memory only", journal, e);
+            return newStore(null);
+        }
+    }
+
+    /**
+     * Adds contracts to the ones signals are detected on, next to {@code crypto.signal-contracts}.
+     */
+    void watch(Collection<String> contracts) {
+        watched.addAll(contracts);
+    }
+
+    @Override
+    public void onCandleUpdated(String contract, String interval, CandleSeries series, boolean appended,
+                                long time, double open, double high, double low, double close, long volume) {
+        if (CandleAggregator.BASE_INTERVAL.equals(interval) && isWatched(contract)) {
+            DayRange range = dayRanges.get(contract);
+            if (range != null) {
+                range.update(appended, high, low);
             }
+            long received = webSocketClient.frameReceivedNanos();
+            schedule(contract, received != 0 ? received : System.nanoTime());
+        }
+    }
+
+    @Override
+    public void onCandlesReloaded(String contract, String interval, CandleSeries series, CandleColumns candles) {
+        if (CandleAggregator.BASE_INTERVAL.equals(interval) && isWatched(contract)) {
+            dayRanges.computeIfAbsent(contract, c -> new DayRange()).reload(candles);
+            evaluationFor(contract).reset = true;
+            schedule(contract, System.nanoTime());
         }
     }
 
+    @Override
+    public void onSeriesRemoved(String contract) {
+        evaluations.remove(contract);
+        dayRanges.remove(contract);
+        SignalStore store = announced;
+        store.reset(store.contract(contract));
+    }
+
+    public SignalDetectionStats stats() {
+        long runs = evaluationCount.sum();
+        long signals = signalCount.sum();
+        Shard[] current = shards;
+        int[] contracts = new int[current.length];
+        if (current.length > 0) {
+            for (String contract : evaluations.keySet()) {
+                contracts[shardIndex(contract, current.length)]++;
+            }
+        }
+        List<SignalDetectionStats.Shard> shardStats = new ArrayList<>(current.length);
+        for (Shard shard : current) {
+            long shardRuns = shard.evaluations.sum();
+            shardStats.add(new SignalDetectionStats.Shard(
+                shard.index,
+                contracts[shard.index],
+                shardRuns,
+                shard.overruns.sum(),
+                shardRuns > 0 ? shard.latencyNanos.sum() / 1_000.0 / shardRuns : 0,
+                shard.maxLatencyNanos.get() / 1_000.0
+            ));
+        }
+        return new SignalDetectionStats(
+            runs,
+            signals,
+            runs > 0 ? evaluationNanos.sum() / 1_000.0 / runs : 0,
+            signals > 0 ? signalLatencyNanos.sum() / 1_000.0 / signals : 0,
+            maxSignalLatencyNanos.get() / 1_000.0,
+            deadlineMillis,
+            shardStats
+        );
+    }
+
+    private double overruns() {
+        long total = 0;
+        for (Shard shard : shards) {
+            total += shard.overruns.sum();
+        }
+        return total;
+    }
+
+    // 1m update for a watched contract: queue one evaluation on its shard unless one is already pending
+    private void schedule(String contract, long eventNanos) {
+        Shard[] current = shards;
+        if (current.length == 0) return;
+        Evaluation evaluation = evaluationFor(contract);
+        if (evaluation.scheduled.compareAndSet(false, true)) {
+            evaluation.firstEventNanos = eventNanos;
+            current[shardIndex(contract, current.length)].submit(evaluation);
+        }
+    }
+
+    private static int shardIndex(String contract, int shardCount) {
+        return Math.floorMod(contract.hashCode(), shardCount);
+    }
+
+    /**
+     * Waits until everything queued on the shards so far has run.
+     */
+    void awaitIdle() {
+        Shard[] current = shards;
+        CountDownLatch done = new CountDownLatch(current.length);
+        for (Shard shard : current) {
+            shard.submit(done::countDown);
+        }
+        try {
+            done.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private Evaluation evaluationFor(String contract) {
+        Evaluation evaluation = evaluations.get(contract);
+        return evaluation != null ? evaluation : evaluations.computeIfAbsent(contract, Evaluation::new);
+    }
+
+    private boolean isWatched(String contract) {
+        return watched.contains(contract);
+    }
+
+    /**
+     * Publishes price, 24h change and range for every registered contract, and for watched ones
+     * whether detection has never run on them or their shard has stalled.
+     */
     @Scheduled(cron = "0 0/10 * * * *") // 매 시 00, 10, 20, 30, 40, 50분에 헬스체크
     public void healthCheck() {
         String timeStr = TIME_FMT.format(Instant.now());
         StringBuilder sb = new StringBuilder();
         sb.append(String.format(":white_check_mark: *헬스체크* (%s)\n", timeStr));
 
-        for (String contract : new String[]{"XRP_USDT"}) {
+        Set<String> contracts = new LinkedHashSet<>(contractRegistry.contracts());
+        contracts.addAll(watched);
+        long now = System.nanoTime();
+        for (String contract : contracts) {
             String coinName = contract.replace("_USDT", "");
-            List<CandleStick> candles = candleStickService.getCandles(contract);
+            if (isWatched(contract)) {
+                String status = detectionStatus(contract, now);
+                if (status != null) {
+                    sb.append(String.format("> *%s*: %s\n", coinName, status));
+                }
+            }
+            CandleColumns candles = candleStickService.getColumns(contract);
 
             if (candles.isEmpty()) {
                 sb.append(String.format("> *%s*: 데이터 없음\n", coinName));
@@ -85,22 +325,21 @@ public class SignalDetectionService {
             }
 
             // 최신 캔들에서 현재가
-            CandleStick latest = candles.get(candles.size() - 1);
-            double currentPrice = latest.close();
+            double currentPrice = candles.close()[candles.size() - 1];
 
             // 24시간 전 캔들 대비 등락률
-            int idx24h = Math.max(0, candles.size() - 1440);
-            double price24hAgo = candles.get(idx24h).open();
+            int idx24h = Math.max(0, candles.size() - DAY_BARS);
+            double price24hAgo = candles.open()[idx24h];
             double changePct = (currentPrice - price24hAgo) / price24hAgo * 100;
             String sign = changePct >= 0 ? "+" : "";
 
             // 24h 고가/저가
-            double maxH = Double.MIN_VALUE;
-            double minL = Double.MAX_VALUE;
-            for (int ci = idx24h; ci < candles.size(); ci++) {
-                maxH = Math.max(maxH, candles.get(ci).high());
-                minL = Math.min(minL, candles.get(ci).low());
-            }
+            // only watched contracts' ranges follow the live bars; others are computed on each check
+            DayRange range = isWatched(contract)
+                ? dayRanges.computeIfAbsent(contract, c -> new DayRange().reload(candles))
+                : new DayRange().reload(candles);
+            double maxH = range.high();
+            double minL = range.low();
 
             String fmt = "BTC".equals(coinName) ? "%.1f" : "%.4f";
             sb.append(String.format("> *%s*: " + fmt + " USDT (%s%.2f%%)\n", coinName, currentPrice, sign, changePct));
@@ -108,306 +347,289 @@ public class SignalDetectionService {
         }
 
         String msg = sb.toString();
-        telegramService.send(msg);
-        slackService.send(msg);
+        notificationDispatcher.publish(msg);
         log.info("Health check sent");
     }
 
-    private void detectAndNotify(String contract) {
-        List<CandleStick> candles = candleStickService.getCandles(contract);
-        if (candles.size() < 300) return;
-
-        SMIResult smiResult = smiIndicatorService.calculate(candles);
-        EMACloudResult emaResult = emaCloudIndicatorService.calculate(candles);
-        MAAnglesResult maResult = maAnglesIndicatorService.calculate(candles);
-
-        if (smiResult.data().isEmpty() || emaResult.data().isEmpty() || maResult.data().isEmpty()) return;
-
-        // 인디케이터를 time 기준 Map으로 변환
-        Map<Long, EMACloudResult.EMACloudPoint> emaByTime = new HashMap<>();
-        emaResult.data().forEach(d -> emaByTime.put(d.time(), d));
-
-        Map<Long, MAAnglesResult.MAAnglesPoint> maByTime = new HashMap<>();
-        maResult.data().forEach(d -> maByTime.put(d.time(), d));
+    // null while detection keeps up with the contract's updates
+    private String detectionStatus(String contract, long now) {
+        Evaluation evaluation = evaluations.get(contract);
+        if (evaluation == null || evaluation.lastRunNanos == 0) {
+            return "탐지 미시작";
+        }
+        long waiting = now - evaluation.firstEventNanos;
+        if (evaluation.scheduled.get() && waiting > STALL_NANOS) {
+            return String.format("탐지 지연 %d초", TimeUnit.NANOSECONDS.toSeconds(waiting));
+        }
+        return null;
+    }
 
-        Map<Long, SMIResult.SMIPoint> smiByTime = new HashMap<>();
-        smiResult.data().forEach(d -> smiByTime.put(d.time(), d));
+    /**
+     * Evaluates the contract on its shard now, as if a 1m update had just arrived, and waits for
+     * the shards to finish.
+     */
+    void detectAndNotify(String contract) {
+        schedule(contract, System.nanoTime());
+        awaitIdle();
+    }
 
-        // 최신 봉의 SMI로 구간 이탈 감지 → 시그널 플래그 리셋
-        CandleStick latestCandle = candles.get(candles.size() - 1);
-        var latestSmi = smiByTime.get(latestCandle.time());
-        if (latestSmi != null) {
-            if (latestSmi.smi() > -40) {
-                oversoldSignalTime.remove(contract);
-                cancelledSignals.removeIf(k -> k.startsWith(contract + "_OVERSOLD_"));
+    /**
+     * Advances the contract's machine past the bars that closed since the previous run and
+     * evaluates the live bar. Signals are announced for the last 5 bars only (older ones are
+     * shown by the frontend); a signal announced on a bar that then closes, or changes, without
+     * firing is withdrawn, one that keeps firing on its bar is announced once. What has been
+     * announced is kept in the {@link SignalStore}, so this holds across restarts: the replay
+     * after a restart rebuilds the zone state from the history and finds its recent signals
+     * already announced.
+     */
+    private void detect(Evaluation evaluation, Shard shard, long eventNanos) {
+        long started = System.nanoTime();
+        String contract = evaluation.contract;
+        StrategyProgram program = strategyService.program();
+        boolean replay = evaluation.machine == null || evaluation.machine.program() != program || evaluation.reset;
+        if (replay) {
+            evaluation.reset = false;
+            evaluation.restart(program);
+        }
+        IndicatorColumns indicators = replay
+            ? indicatorEngine.columns(contract, CandleAggregator.BASE_INTERVAL)
+            : indicatorEngine.columns(contract, CandleAggregator.BASE_INTERVAL, evaluation.committedTime + 1);
+        int size = indicators.size();
+        if (size == 0) return;
+        long[] times = indicators.time();
+        double[] smi = indicators.smi();
+        double[] jmaSlope = indicators.jmaSlope();
+        double[] bar = evaluation.bar;
+        StrategyProgram.Machine machine = evaluation.machine;
+
+        // 변경된 봉만 체크, 최대 최근 5봉 (과거 신호는 프론트에서만 표시)
+        int announceFrom = size - 5;
+        for (int i = 0; i < size; i++) {
+            bar[StrategyProgram.SMI] = smi[i];
+            bar[StrategyProgram.SIGNAL] = indicators.signal()[i];
+            bar[StrategyProgram.FAST_EMA] = indicators.fastEma()[i];
+            bar[StrategyProgram.SLOW_EMA] = indicators.slowEma()[i];
+            bar[StrategyProgram.JMA_SLOPE] = jmaSlope[i];
+            // the newest bar is still forming
+            boolean closed = i < size - 1;
+            int[] fired = closed ? machine.advance(bar) : machine.peek(bar);
+            if (closed) {
+                evaluation.committedTime = times[i];
             }
-            if (latestSmi.smi() < 40) {
-                overboughtSignalTime.remove(contract);
-                cancelledSignals.removeIf(k -> k.startsWith(contract + "_OVERBOUGHT_"));
+            if (i >= announceFrom) {
+                announce(evaluation, fired, times[i], smi[i], jmaSlope[i], eventNanos);
             }
         }
 
-        // 시그널 해제 체크: 이전에 시그널이 발생했던 봉이 더 이상 유효하지 않으면 해제 알림
-        String coinName = contract.replace("_USDT", "");
-        String price = webSocketClient.getCurrentPrice(contract);
+        long elapsed = System.nanoTime() - started;
+        evaluationCount.increment();
+        evaluationNanos.add(elapsed);
+        evaluationTimer.record(elapsed, TimeUnit.NANOSECONDS);
+    }
 
-        Long oversoldTime = oversoldSignalTime.get(contract);
-        if (oversoldTime != null) {
-            int signalIdx = -1;
-            for (int i = 0; i < candles.size(); i++) {
-                if (candles.get(i).time() == oversoldTime) { signalIdx = i; break; }
+    // notifies what fired on the bar at time, and withdraws what no longer does
+    private void announce(Evaluation evaluation, int[] fired, long time, double smi, double slope, long eventNanos) {
+        StrategyProgram program = evaluation.machine.program();
+        SignalStore store = announced;
+        String contract = evaluation.contract;
+        String coinName = contract.replace("_USDT", "");
+        int contractId = store.contract(contract);
+        for (int g = 0; g < fired.length; g++) {
+            int strategy = fired[g];
+            boolean isLong = program.side(g) > 0;
+            String side = isLong ? "LONG" : "SHORT";
+            long previous = 0;
+            for (int s = 0; s < program.strategies(g) && previous == 0; s++) {
+                long key = SignalStore.key(contractId, program.strategyId(g, s), isLong, time);
+                if (store.contains(key)) previous = key;
             }
-            if (signalIdx > 0 && !scanOversoldZone(smiByTime, candles, signalIdx)) {
-                String cancelKey = contract + "_OVERSOLD_" + oversoldTime;
-                if (cancelledSignals.add(cancelKey)) {
-                    String timeStr = TIME_FMT.format(Instant.ofEpochSecond(oversoldTime));
-                    var smiAt = smiByTime.get(oversoldTime);
-                    String msg = String.format(
-                            ":x: *[시그널 해제] [%s] 롱포지션 해제*\n" +
-                            "> 시간: %s\n" +
-                            "> 현재가: %s USDT\n" +
-                            "> SMI: %.1f (조건 미충족)",
-                            coinName, timeStr, price,
-                            smiAt != null ? smiAt.smi() : 0.0);
-                    telegramService.send(msg);
-                    slackService.send(msg);
-                    log.info("LONG signal cancelled for {} at {}", contract, timeStr);
-                }
-                oversoldSignalTime.remove(contract);
+            if (previous != 0) {
+                if (strategy != StrategyProgram.NONE) continue;
+                // 시그널 해제: 신호가 발생했던 봉이 더 이상 조건을 충족하지 않음
+                store.remove(previous);
+                String timeStr = TIME_FMT.format(Instant.ofEpochSecond(time));
+                String msg = String.format(
+                        ":x: *[시그널 해제] [%s] %s포지션 해제*\n" +
+                        "> 시간: %s\n" +
+                        "> 현재가: %s USDT\n" +
+                        "> SMI: %.1f (조건 미충족)",
+                        coinName, isLong ? "롱" : "숏", timeStr, webSocketClient.getCurrentPrice(contract),
+                        Double.isNaN(smi) ? 0.0 : smi);
+                notify(msg, eventNanos);
+                log.info("{} signal cancelled for {} at {}", side, contract, timeStr);
+                continue;
+            }
+            if (strategy == StrategyProgram.NONE) continue;
+
+            if (store.add(SignalStore.key(contractId, strategy, isLong, time))) {
+                log.info("[전략{}] {} signal detected: {} at {}, smi={}", strategy, side, contract, time, smi);
+                String msg = String.format(
+                        "%s *[전략] [%s] %s포지션 신호*\n" +
+                        "> 시간: %s\n" +
+                        "> 현재가: %s USDT\n" +
+                        "> SMI: %.1f (%s)\n" +
+                        "> MA Angles: slope %.2f",
+                        isLong ? ":chart_with_upwards_trend:" : ":chart_with_downwards_trend:",
+                        coinName, isLong ? "롱" : "숏",
+                        TIME_FMT.format(Instant.ofEpochSecond(time)), webSocketClient.getCurrentPrice(contract),
+                        smi, program.label(g), slope);
+                notify(msg, eventNanos);
             }
         }
+    }
+
+    private void notify(String msg, long eventNanos) {
+        notificationDispatcher.publish(msg);
+        long latency = System.nanoTime() - eventNanos;
+        signalCount.increment();
+        signalLatencyNanos.add(latency);
+        maxSignalLatencyNanos.accumulateAndGet(latency, Math::max);
+    }
 
-        Long overboughtTime = overboughtSignalTime.get(contract);
-        if (overboughtTime != null) {
-            int signalIdx = -1;
+    /**
+     * High and low of the last {@link #DAY_BARS} 1m bars, kept up to date from the candle
+     * listener: the closed bars in rolling windows, the live bar on its own until it closes.
+     */
+    private static final class DayRange {
+        private final Rolling.Extreme highs = Rolling.max(DAY_BARS - 1);
+        private final Rolling.Extreme lows = Rolling.min(DAY_BARS - 1);
+        private boolean live;
+        private double liveHigh;
+        private double liveLow;
+
+        synchronized DayRange reload(CandleColumns candles) {
+            highs.clear();
+            lows.clear();
+            live = false;
             for (int i = 0; i < candles.size(); i++) {
-                if (candles.get(i).time() == overboughtTime) { signalIdx = i; break; }
-            }
-            if (signalIdx > 0 && !scanOverboughtZone(smiByTime, candles, signalIdx)) {
-                String cancelKey = contract + "_OVERBOUGHT_" + overboughtTime;
-                if (cancelledSignals.add(cancelKey)) {
-                    String timeStr = TIME_FMT.format(Instant.ofEpochSecond(overboughtTime));
-                    var smiAt = smiByTime.get(overboughtTime);
-                    String msg = String.format(
-                            ":x: *[시그널 해제] [%s] 숏포지션 해제*\n" +
-                            "> 시간: %s\n" +
-                            "> 현재가: %s USDT\n" +
-                            "> SMI: %.1f (조건 미충족)",
-                            coinName, timeStr, price,
-                            smiAt != null ? smiAt.smi() : 0.0);
-                    telegramService.send(msg);
-                    slackService.send(msg);
-                    log.info("SHORT signal cancelled for {} at {}", contract, timeStr);
-                }
-                overboughtSignalTime.remove(contract);
+                update(true, candles.high()[i], candles.low()[i]);
             }
+            return this;
         }
 
-        // 최근 5봉만 체크 (과거 신호는 프론트에서만 표시)
-        int startIdx = Math.max(1, candles.size() - 5);
-        for (int i = startIdx; i < candles.size(); i++) {
-            CandleStick cur = candles.get(i);
-            CandleStick prev = candles.get(i - 1);
-
-            var ema = emaByTime.get(cur.time());
-            var ma = maByTime.get(cur.time());
-            var smiCur = smiByTime.get(cur.time());
-            var smiPrev = smiByTime.get(prev.time());
-            if (ema == null || ma == null || smiCur == null || smiPrev == null) continue;
-
-            String timeStr = TIME_FMT.format(Instant.ofEpochSecond(cur.time()));
-
-            // [전략1] 롱포지션 — 비활성화
-            /*
-            if (ema.upTrend()) {
-                boolean smiCrossUp = smiCur.smi() > smiCur.signal() && smiPrev.smi() <= smiPrev.signal();
-                boolean nearOversold = smiPrev.smi() >= -60 && smiPrev.smi() <= -25;
-                boolean maGreen = ma.jmaSlope() >= 0;
-
-                if (smiCrossUp && nearOversold && maGreen) {
-                    String key = contract + "_LONG_" + cur.time();
-                    if (notifiedSignals.add(key)) {
-                        String msg = String.format(
-                                ":chart_with_upwards_trend: *[전략1] [%s] 롱포지션 신호*\n" +
-                                "> 시간: %s\n" +
-                                "> 현재가: %s USDT\n" +
-                                "> SMI: %.1f (시그널: %.1f)\n" +
-                                "> MA Angles: slope %.2f",
-                                coinName, timeStr, price,
-                                smiCur.smi(), smiCur.signal(),
-                                ma.jmaSlope());
-                        slackService.send(msg);
-                    }
-                }
-            }
-
-            // [전략1] 숏포지션
-            if (ema.downTrend()) {
-                boolean smiCrossDown = smiCur.smi() < smiCur.signal() && smiPrev.smi() >= smiPrev.signal();
-                boolean nearOverbought = smiPrev.smi() >= 25 && smiPrev.smi() <= 60;
-                boolean maRed = ma.jmaSlope() < 0;
-
-                if (smiCrossDown && nearOverbought && maRed) {
-                    String key = contract + "_SHORT_" + cur.time();
-                    if (notifiedSignals.add(key)) {
-                        String msg = String.format(
-                                ":chart_with_downwards_trend: *[전략1] [%s] 숏포지션 신호*\n" +
-                                "> 시간: %s\n" +
-                                "> 현재가: %s USDT\n" +
-                                "> SMI: %.1f (시그널: %.1f)\n" +
-                                "> MA Angles: slope %.2f",
-                                coinName, timeStr, price,
-                                smiCur.smi(), smiCur.signal(),
-                                ma.jmaSlope());
-                        slackService.send(msg);
-                    }
-                }
-            }
-            */
-
-            // 롱 신호: 구간 내 최초 시그널만 발생, 전략2 우선
-            if (!oversoldSignalTime.containsKey(contract) && scanOversoldZone(smiByTime, candles, i)) {
-                boolean s2Long = ema.upTrend() && ma.jmaSlope() >= 0;
-                if (s2Long) {
-                    oversoldSignalTime.put(contract, cur.time());
-                    String key = contract + "_S2_LONG_" + cur.time();
-                    if (notifiedSignals.add(key)) {
-                        log.info("[전략2] LONG signal detected: key={}, smi={}", key, smiCur.smi());
-                        String msg = String.format(
-                                ":chart_with_upwards_trend: *[전략] [%s] 롱포지션 신호*\n" +
-                                "> 시간: %s\n" +
-                                "> 현재가: %s USDT\n" +
-                                "> SMI: %.1f (과매도 구간 반등)\n" +
-                                "> MA Angles: slope %.2f",
-                                coinName, timeStr, price,
-                                smiCur.smi(), ma.jmaSlope());
-                        telegramService.send(msg);
-                        slackService.send(msg);
-                    }
-                } else if (ma.jmaSlope() >= 0) {
-                    oversoldSignalTime.put(contract, cur.time());
-                    String key = contract + "_S3_LONG_" + cur.time();
-                    if (notifiedSignals.add(key)) {
-                        log.info("[전략3] LONG signal detected: key={}, smi={}", key, smiCur.smi());
-                        String msg = String.format(
-                                ":chart_with_upwards_trend: *[전략] [%s] 롱포지션 신호*\n" +
-                                "> 시간: %s\n" +
-                                "> 현재가: %s USDT\n" +
-                                "> SMI: %.1f (과매도 구간 반등)\n" +
-                                "> MA Angles: slope %.2f",
-                                coinName, timeStr, price,
-                                smiCur.smi(), ma.jmaSlope());
-                        telegramService.send(msg);
-                        slackService.send(msg);
-                    }
-                }
+        synchronized void update(boolean appended, double high, double low) {
+            if (appended && live) {
+                highs.add(liveHigh);
+                lows.add(liveLow);
             }
+            live = true;
+            liveHigh = high;
+            liveLow = low;
+        }
 
-            // 숏 신호: 구간 내 최초 시그널만 발생, 전략2 우선
-            if (!overboughtSignalTime.containsKey(contract) && scanOverboughtZone(smiByTime, candles, i)) {
-                boolean s2Short = ema.downTrend() && ma.jmaSlope() < 0;
-                if (s2Short) {
-                    overboughtSignalTime.put(contract, cur.time());
-                    String key = contract + "_S2_SHORT_" + cur.time();
-                    if (notifiedSignals.add(key)) {
-                        log.info("[전략2] SHORT signal detected: key={}, smi={}", key, smiCur.smi());
-                        String msg = String.format(
-                                ":chart_with_downwards_trend: *[전략] [%s] 숏포지션 신호*\n" +
-                                "> 시간: %s\n" +
-                                "> 현재가: %s USDT\n" +
-                                "> SMI: %.1f (과매수 구간 반전)\n" +
-                                "> MA Angles: slope %.2f",
-                                coinName, timeStr, price,
-                                smiCur.smi(), ma.jmaSlope());
-                        telegramService.send(msg);
-                        slackService.send(msg);
-                    }
-                } else if (ma.jmaSlope() < 0) {
-                    overboughtSignalTime.put(contract, cur.time());
-                    String key = contract + "_S3_SHORT_" + cur.time();
-                    if (notifiedSignals.add(key)) {
-                        log.info("[전략3] SHORT signal detected: key={}, smi={}", key, smiCur.smi());
-                        String msg = String.format(
-                                ":chart_with_downwards_trend: *[전략] [%s] 숏포지션 신호*\n" +
-                                "> 시간: %s\n" +
-                                "> 현재가: %s USDT\n" +
-                                "> SMI: %.1f (과매수 구간 반전)\n" +
-                                "> MA Angles: slope %.2f",
-                                coinName, timeStr, price,
-                                smiCur.smi(), ma.jmaSlope());
-                        telegramService.send(msg);
-                        slackService.send(msg);
-                    }
-                }
-            }
+        synchronized double high() {
+            return live ? highs.valueWith(liveHigh) : Double.NaN;
         }
 
-        // 오래된 알림 기록 정리 (1000개 초과 시)
-        if (notifiedSignals.size() > 1000) {
-            notifiedSignals.clear();
+        synchronized double low() {
+            return live ? lows.valueWith(liveLow) : Double.NaN;
         }
     }
 
     /**
-     * 현재 봉에서 과거로 역추적하여 SMI <= -40 구간을 스캔.
-     * 구간에 2봉 이상 머물렀고, 현재 SMI가 구간 내 최저점보다 높으면 true.
+     * A serial queue of evaluations on the shared pool: at most one task per shard is queued or
+     * running at a time, handed on through {@code draining}, so whatever the shard owns is only
+     * ever touched by one thread at a time.
      */
-    private boolean scanOversoldZone(Map<Long, SMIResult.SMIPoint> smiByTime,
-                                     List<CandleStick> candles, int currentIdx) {
-        var smiCur = smiByTime.get(candles.get(currentIdx).time());
-        if (smiCur == null) return false;
-
-        // 현재 봉도 -40 이하 구간 안에 있어야 함
-        if (smiCur.smi() > -40) return false;
-
-        int dwellCount = 1; // 현재 봉 포함
-        double minSmi = smiCur.smi();
-
-        // 현재 봉 바로 직전부터 역추적
-        for (int j = currentIdx - 1; j >= 0; j--) {
-            var smiPoint = smiByTime.get(candles.get(j).time());
-            if (smiPoint == null) break;
-
-            if (smiPoint.smi() <= -40) {
-                dwellCount++;
-                minSmi = Math.min(minSmi, smiPoint.smi());
-            } else {
-                break;
+    private final class Shard implements Runnable {
+        final int index;
+        final Queue<Runnable> queue = new ConcurrentLinkedQueue<>();
+        final AtomicBoolean draining = new AtomicBoolean();
+        final LongAdder evaluations = new LongAdder();
+        final LongAdder overruns = new LongAdder();
+        final LongAdder latencyNanos = new LongAdder();
+        final AtomicLong maxLatencyNanos = new AtomicLong();
+        // owned by the running task
+        long overrunsLogged;
+        long lastOverrunLogNanos = System.nanoTime() - OVERRUN_LOG_INTERVAL_NANOS;
+
+        Shard(int index) {
+            this.index = index;
+        }
+
+        void submit(Runnable task) {
+            queue.add(task);
+            dispatch();
+        }
+
+        private void dispatch() {
+            if (draining.compareAndSet(false, true)) {
+                try {
+                    pool.execute(this);
+                } catch (RejectedExecutionException e) {
+                    // shutting down
+                    draining.set(false);
+                }
             }
         }
 
-        // 4봉 이상 머물렀고, 현재 SMI가 구간 내 최저점보다 높으면 반등 시작
-        return dwellCount >= 4 && smiCur.smi() > minSmi;
-    }
+        @Override
+        public void run() {
+            Runnable task;
+            for (int n = 0; n < SHARD_BATCH && (task = queue.poll()) != null; n++) {
+                task.run();
+            }
+            draining.set(false);
+            if (!queue.isEmpty()) {
+                dispatch();
+            }
+        }
 
-    /**
-     * 현재 봉에서 과거로 역추적하여 SMI >= +40 구간을 스캔.
-     * 구간에 2봉 이상 머물렀고, 현재 SMI가 구간 내 최고점보다 낮으면 true.
-     */
-    private boolean scanOverboughtZone(Map<Long, SMIResult.SMIPoint> smiByTime,
-                                       List<CandleStick> candles, int currentIdx) {
-        var smiCur = smiByTime.get(candles.get(currentIdx).time());
-        if (smiCur == null) return false;
-
-        // 현재 봉도 +40 이상 구간 안에 있어야 함
-        if (smiCur.smi() < 40) return false;
-
-        int dwellCount = 1; // 현재 봉 포함
-        double maxSmi = smiCur.smi();
-
-        for (int j = currentIdx - 1; j >= 0; j--) {
-            var smiPoint = smiByTime.get(candles.get(j).time());
-            if (smiPoint == null) break;
-
-            if (smiPoint.smi() >= 40) {
-                dwellCount++;
-                maxSmi = Math.max(maxSmi, smiPoint.smi());
-            } else {
-                break;
+        void finished(String contract, long eventNanos) {
+            long now = System.nanoTime();
+            long latency = now - eventNanos;
+            cycleTimer.record(latency, TimeUnit.NANOSECONDS);
+            evaluations.increment();
+            latencyNanos.add(latency);
+            maxLatencyNanos.accumulateAndGet(latency, Math::max);
+            if (latency <= TimeUnit.MILLISECONDS.toNanos(deadlineMillis)) return;
+            overruns.increment();
+            if (now - lastOverrunLogNanos >= OVERRUN_LOG_INTERVAL_NANOS) {
+                long missed = overruns.sum() - overrunsLogged;
+                overrunsLogged += missed;
+                lastOverrunLogNanos = now;
+                log.warn("Signal detection shard {} missed its {} ms deadline {} time(s), latest {} after {} ms",
+                    index, deadlineMillis, missed, contract, latency / 1_000_000);
             }
         }
+    }
+
+    private final class Evaluation implements Runnable {
+        final String contract;
+        final AtomicBoolean scheduled = new AtomicBoolean();
+        // frame arrival of the oldest update folded into the pending run
+        volatile long firstEventNanos;
+        // the series was replaced; the next run replays it from the start
+        volatile boolean reset;
+        // end of the latest run, 0 before the first
+        volatile long lastRunNanos;
+        // owned by the contract's shard: the machine and the newest bar it advanced past
+        StrategyProgram.Machine machine;
+        long committedTime = Long.MIN_VALUE;
+        final double[] bar = new double[StrategyProgram.SERIES];
+
+        Evaluation(String contract) {
+            this.contract = contract;
+        }
 
-        // 4봉 이상 머물렀고, 현재 SMI가 구간 내 최고점보다 낮으면 반전 시작
-        return dwellCount >= 4 && smiCur.smi() < maxSmi;
+        void restart(StrategyProgram program) {
+            machine = program.newMachine();
+            committedTime = Long.MIN_VALUE;
+        }
+
+        @Override
+        public void run() {
+            long eventNanos = firstEventNanos;
+            scheduled.set(false);
+            Shard[] current = shards;
+            Shard shard = current[shardIndex(contract, current.length)];
+            try {
+                detect(this, shard, eventNanos);
+            } catch (Exception e) {
+                log.error("Signal detection failed for {}", contract, e);
+            }
+            shard.finished(contract, eventNanos);
+            lastRunNanos = System.nanoTime();
+        }
     }
 }
@@ -0,0 +1,386 @@
+package org.example.crypto.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * The signals already announced, so an alert is sent once per bar even across restarts.
+ *
+ * A signal is a {@code long}: contract id ({@link #CONTRACT_BITS} bits, interned through a
+ * {@link SymbolTable}), strategy id ({@link #STRATEGY_BITS} bits), a long/short bit and the bar
+ * time in epoch seconds ({@link #TIME_BITS} bits). Keys live in an open-addressing table
+ * together with the sequence number they were added at; {@link #reset} raises the contract's
+ * low-water mark instead of searching for its keys, so it is O(1) and older keys of the
+ * contract simply stop counting. Keys expire in insertion order once their bar is more than
+ * {@link #RETENTION_SECONDS} older than the newest bar recorded, so expiry follows the data
+ * rather than the wall clock.
+ *
+ * With a journal path, every change is appended to that file and flushed before the call
+ * returns, and opening the store replays it. The journal is rewritten with only the live keys
+ * when it is opened and whenever it has grown to several times that size; a record torn by a
+ * crash ends the replay. Thread-safe.
+ */
+final class SignalStore implements AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(SignalStore.class);
+
+    static final int CONTRACT_BITS = 20;
+    static final int STRATEGY_BITS = 10;
+    static final int TIME_BITS = 33;
+    static final int MAX_STRATEGY_ID = (1 << STRATEGY_BITS) - 1;
+    static final long RETENTION_SECONDS = 24 * 60 * 60;
+    private static final long TIME_MASK = (1L << TIME_BITS) - 1;
+    private static final int MIN_COMPACT_RECORDS = 4_096;
+
+    private static final int MAGIC = 0x5347_4E4C; // "SGNL"
+    private static final byte CONTRACT = 'C';
+    private static final byte ADD = 'A';
+    private static final byte REMOVE = 'D';
+    private static final byte RESET = 'R';
+
+    private final SymbolTable contracts = new SymbolTable();
+    private final Path journal;
+    private DataOutputStream out;
+    private long journalRecords;
+    // contracts already named in the current journal file
+    private boolean[] journaled = new boolean[0];
+
+    // open addressing, linear probing; 0 is the empty key
+    private long[] keys = new long[64];
+    private long[] sequences = new long[64];
+    private int size;
+    private long nextSequence = 1;
+    private long newestTime;
+    private long[] resetBelow = new long[0];
+
+    // keys in insertion order, for expiry
+    private long[] order = new long[64];
+    private int orderHead;
+    private int orderSize;
+
+    /**
+     * An in-memory store, or one journaled to {@code journal} when it is not null.
+     */
+    SignalStore(Path journal) throws IOException {
+        this.journal = journal;
+        if (journal == null) return;
+        if (Files.exists(journal)) {
+            replay(journal);
+        }
+        expire();
+        compact();
+    }
+
+    static long key(int contract, int strategy, boolean isLong, long barTime) {
+        if (strategy < 1 || strategy > MAX_STRATEGY_ID) {
+            throw new IllegalArgumentException("Strategy id out of range: " + strategy);
+        }
+        return (long) contract << (STRATEGY_BITS + 1 + TIME_BITS)
+            | (long) strategy << (1 + TIME_BITS)
+            | (isLong ? 1L : 0L) << TIME_BITS
+            | (barTime & TIME_MASK);
+    }
+
+    static int contractOf(long key) {
+        return (int) (key >>> (STRATEGY_BITS + 1 + TIME_BITS));
+    }
+
+    static long timeOf(long key) {
+        return key & TIME_MASK;
+    }
+
+    /**
+     * The id {@code name} is packed as, registering it if needed.
+     */
+    synchronized int contract(String name) {
+        int id = contracts.intern(name);
+        if (id >= 1 << CONTRACT_BITS) {
+            throw new IllegalStateException("More than " + (1 << CONTRACT_BITS) + " contracts");
+        }
+        if (id >= resetBelow.length) {
+            resetBelow = Arrays.copyOf(resetBelow, Math.max(id + 1, resetBelow.length * 2));
+        }
+        return id;
+    }
+
+    synchronized boolean contains(long key) {
+        int slot = find(key);
+        return slot >= 0 && sequences[slot] >= resetBelow[contractOf(key)];
+    }
+
+    /**
+     * Records a signal; false if it was already there.
+     */
+    synchronized boolean add(long key) {
+        int slot = find(key);
+        if (slot >= 0 && sequences[slot] >= resetBelow[contractOf(key)]) {
+            return false;
+        }
+        if (slot >= 0) {
+            sequences[slot] = nextSequence++;
+        } else {
+            insert(key, nextSequence++);
+        }
+        enqueue(key);
+        write(ADD, key);
+        expire();
+        return true;
+    }
+
+    /**
+     * Forgets a signal; false if it was not there.
+     */
+    synchronized boolean remove(long key) {
+        int slot = find(key);
+        if (slot < 0) {
+            return false;
+        }
+        boolean live = sequences[slot] >= resetBelow[contractOf(key)];
+        delete(slot);
+        write(REMOVE, key);
+        return live;
+    }
+
+    /**
+     * Forgets every signal of the contract.
+     */
+    synchronized void reset(int contract) {
+        resetBelow[contract] = nextSequence;
+        write(RESET, contract);
+    }
+
+    synchronized int size() {
+        return size;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (out != null) {
+            out.close();
+            out = null;
+        }
+    }
+
+    // --- table ---
+
+    private int find(long key) {
+        int mask = keys.length - 1;
+        for (int slot = slot(key, mask); ; slot = (slot + 1) & mask) {
+            long k = keys[slot];
+            if (k == key) return slot;
+            if (k == 0) return -1;
+        }
+    }
+
+    private void insert(long key, long sequence) {
+        if ((size + 1) * 2 > keys.length) {
+            grow();
+        }
+        int mask = keys.length - 1;
+        int slot = slot(key, mask);
+        while (keys[slot] != 0) {
+            slot = (slot + 1) & mask;
+        }
+        keys[slot] = key;
+        sequences[slot] = sequence;
+        size++;
+    }
+
+    // backward-shift deletion keeps probe chains intact without tombstones
+    private void delete(int slot) {
+        int mask = keys.length - 1;
+        int hole = slot;
+        for (int next = (hole + 1) & mask; keys[next] != 0; next = (next + 1) & mask) {
+            int home = slot(keys[next], mask);
+            // move the entry back unless its home lies cyclically in (hole, next]
+            if (((next - home) & mask) >= ((next - hole) & mask)) {
+                keys[hole] = keys[next];
+                sequences[hole] = sequences[next];
+                hole = next;
+            }
+        }
+        keys[hole] = 0;
+        sequences[hole] = 0;
+        size--;
+    }
+
+    private void grow() {
+        long[] oldKeys = keys;
+        long[] oldSequences = sequences;
+        keys = new long[oldKeys.length * 2];
+        sequences = new long[oldKeys.length * 2];
+        size = 0;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != 0) {
+                insert(oldKeys[i], oldSequences[i]);
+            }
+        }
+    }
+
+    private static int slot(long key, int mask) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32)) & mask;
+    }
+
+    // --- expiry ---
+
+    private void enqueue(long key) {
+        newestTime = Math.max(newestTime, timeOf(key));
+        if (orderSize == order.length) {
+            long[] next = new long[order.length * 2];
+            for (int i = 0; i < orderSize; i++) {
+                next[i] = order[(orderHead + i) % order.length];
+            }
+            order = next;
+            orderHead = 0;
+        }
+        order[(orderHead + orderSize) % order.length] = key;
+        orderSize++;
+    }
+
+    private void expire() {
+        long cutoff = newestTime - RETENTION_SECONDS;
+        while (orderSize > 0) {
+            long key = order[orderHead];
+            if (timeOf(key) >= cutoff) break;
+            orderHead = (orderHead + 1) % order.length;
+            orderSize--;
+            // a key removed and added again is queued twice, with the same bar time
+            int slot = find(key);
+            if (slot >= 0) {
+                delete(slot);
+            }
+        }
+    }
+
+    // --- journal ---
+
+    private void replay(Path path) throws IOException {
+        int[] ids = new int[0];
+        long records = 0;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path)))) {
+            if (in.readInt() != MAGIC) {
+                throw new IOException("Not a signal journal: " + path);
+            }
+            while (true) {
+                byte type = in.readByte();
+                switch (type) {
+                    case CONTRACT -> {
+                        int fileId = in.readInt();
+                        String name = in.readUTF();
+                        if (fileId >= ids.length) {
+                            ids = Arrays.copyOf(ids, Math.max(fileId + 1, ids.length * 2));
+                        }
+                        ids[fileId] = contract(name);
+                    }
+                    case ADD, REMOVE -> {
+                        long stored = in.readLong();
+                        long key = stored & ~(-1L << (STRATEGY_BITS + 1 + TIME_BITS))
+                            | (long) known(ids, contractOf(stored), path) << (STRATEGY_BITS + 1 + TIME_BITS);
+                        int slot = find(key);
+                        if (type == ADD) {
+                            if (slot >= 0) {
+                                sequences[slot] = nextSequence++;
+                            } else {
+                                insert(key, nextSequence++);
+                            }
+                            enqueue(key);
+                        } else if (slot >= 0) {
+                            delete(slot);
+                        }
+                    }
+                    case RESET -> resetBelow[known(ids, in.readInt(), path)] = nextSequence;
+                    default -> throw new IOException("Corrupt signal journal " + path + " after " + records + " records");
+                }
+                records++;
+            }
+        } catch (EOFException e) {
+            // end of the journal, or a record cut short by a crash
+        }
+        log.info("Replayed {} signal journal records from {}, {} signals kept", records, path, size);
+    }
+
+    // the current id of a contract the journal has named
+    private static int known(int[] ids, int fileId, Path path) throws IOException {
+        if (fileId < 0 || fileId >= ids.length) {
+            throw new IOException("Corrupt signal journal " + path + ": unknown contract " + fileId);
+        }
+        return ids[fileId];
+    }
+
+    // rewrites the journal with the live keys only
+    private void compact() throws IOException {
+        if (out != null) {
+            out.close();
+            out = null;
+        }
+        Path parent = journal.toAbsolutePath().getParent();
+        Files.createDirectories(parent);
+        Path tmp = Files.createTempFile(parent, journal.getFileName().toString(), ".tmp");
+        journaled = new boolean[contracts.size()];
+        journalRecords = 0;
+        try (DataOutputStream data = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp)))) {
+            out = data;
+            data.writeInt(MAGIC);
+            for (int i = 0; i < orderSize; i++) {
+                long key = order[(orderHead + i) % order.length];
+                int slot = find(key);
+                if (slot >= 0 && sequences[slot] >= resetBelow[contractOf(key)]) {
+                    append(ADD, key);
+                }
+            }
+        } finally {
+            out = null;
+        }
+        Files.move(tmp, journal, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        OutputStream file = Files.newOutputStream(journal, StandardOpenOption.APPEND);
+        out = new DataOutputStream(new BufferedOutputStream(file));
+    }
+
+    private void write(byte type, long value) {
+        if (out == null) return;
+        try {
+            append(type, value);
+            out.flush();
+            if (journalRecords > Math.max(MIN_COMPACT_RECORDS, 4L * size)) {
+                compact();
+            }
+        } catch (IOException e) {
+            log.error("Failed to write signal journal {}", journal, e);
+        }
+    }
+
+    private void append(byte type, long value) throws IOException {
+        int contract = type == RESET ? (int) value : contractOf(value);
+        if (contract >= journaled.length) {
+            journaled = Arrays.copyOf(journaled, Math.max(contract + 1, journaled.length * 2));
+        }
+        if (!journaled[contract]) {
+            journaled[contract] = true;
+            out.writeByte(CONTRACT);
+            out.writeInt(contract);
+            out.writeUTF(contracts.name(contract));
+            journalRecords++;
+        }
+        out.writeByte(type);
+        if (type == RESET) {
+            out.writeInt(contract);
+        } else {
+            out.writeLong(value);
+        }
+        journalRecords++;
+    }
+}
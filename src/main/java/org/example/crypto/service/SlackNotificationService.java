@@ -1,42 +1,81 @@
 package org.example.crypto.service;
 
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpEntity;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.stereotype.Service;
+import org.springframework.web.client.RestClientException;
+import org.springframework.web.client.RestClientResponseException;
 import org.springframework.web.client.RestTemplate;
 
 @Service
-public class SlackNotificationService {
+public class SlackNotificationService implements NotificationChannel {
 
-    private static final Logger log = LoggerFactory.getLogger(SlackNotificationService.class);
+    public static final String CHANNEL = "slack";
 
     @Value("${slack.webhook-url}")
     private String webhookUrl;
 
     private final RestTemplate restTemplate = new RestTemplate();
+    private final ObjectMapper objectMapper = new ObjectMapper();
 
-    public void send(String message) {
-        if (webhookUrl == null || webhookUrl.contains("YOUR/WEBHOOK/URL")) {
-            log.warn("Slack webhook URL not configured. Message: {}", message);
-            return;
-        }
+    public SlackNotificationService() {
+    }
 
-        try {
-            HttpHeaders headers = new HttpHeaders();
-            headers.setContentType(MediaType.APPLICATION_JSON);
+    public SlackNotificationService(String webhookUrl) {
+        this.webhookUrl = webhookUrl;
+    }
 
-            String payload = """
-                {"text": "%s"}""".formatted(message.replace("\"", "\\\""));
+    @Override
+    public String name() {
+        return CHANNEL;
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return webhookUrl != null && !webhookUrl.isBlank() && !webhookUrl.contains("YOUR/WEBHOOK/URL");
+    }
+
+    @Override
+    public int maxMessageLength() {
+        return 40_000;
+    }
 
-            HttpEntity<String> request = new HttpEntity<>(payload, headers);
+    @Override
+    public void deliver(String message) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_JSON);
+
+        String payload;
+        try {
+            payload = objectMapper.writeValueAsString(objectMapper.createObjectNode().put("text", message));
+        } catch (JsonProcessingException e) {
+            throw new NotificationDeliveryException(CHANNEL + " payload could not be serialized", e, false, -1);
+        }
+
+        HttpEntity<String> request = new HttpEntity<>(payload, headers);
+        try {
             restTemplate.postForEntity(webhookUrl, request, String.class);
-            log.info("Slack notification sent: {}", message);
-        } catch (Exception e) {
-            log.error("Failed to send Slack notification", e);
+        } catch (RestClientException e) {
+            throw NotificationDeliveryException.of(CHANNEL, e, retryAfterMillis(e));
+        }
+    }
+
+    // Slack rate limits answer 429 with a Retry-After header in seconds
+    private static long retryAfterMillis(RestClientException e) {
+        if (e instanceof RestClientResponseException response && response.getResponseHeaders() != null) {
+            String retryAfter = response.getResponseHeaders().getFirst(HttpHeaders.RETRY_AFTER);
+            if (retryAfter != null) {
+                try {
+                    return Long.parseLong(retryAfter.trim()) * 1000;
+                } catch (NumberFormatException ignored) {
+                    // fall back to the dispatcher's backoff
+                }
+            }
         }
+        return -1;
     }
 }
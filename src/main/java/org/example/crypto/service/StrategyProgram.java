@@ -0,0 +1,413 @@
+package org.example.crypto.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.example.crypto.dto.StrategyConfig;
+import org.example.crypto.dto.StrategyConfig.Condition;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.ToIntFunction;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * A {@link StrategyConfig} compiled for bar-by-bar evaluation, shared by live detection
+ * ({@link SignalDetectionService}) and replay ({@link Backtester}), so a backtest exercises
+ * exactly what runs in production.
+ *
+ * Compiling resolves every operand to a series column, a lag or a constant, merges equal
+ * conditions across strategies and orders each group's strategies by priority. A
+ * {@link Machine} then carries the little state the conditions need from bar to bar (the last
+ * few bars for lagged operands and crosses, run length and extreme for dwell conditions, each
+ * group's armed flag), so one bar costs O(conditions) whatever the history length.
+ * Immutable; machines are not thread-safe.
+ */
+final class StrategyProgram {
+
+    static final int NONE = 0;
+
+    // columns of the bar handed to a machine
+    static final int SMI = 0;
+    static final int SIGNAL = 1;
+    static final int FAST_EMA = 2;
+    static final int SLOW_EMA = 3;
+    static final int JMA_SLOPE = 4;
+    static final int SERIES = 5;
+    private static final List<String> SERIES_NAMES = List.of("smi", "signal", "fastEma", "slowEma", "jmaSlope");
+
+    // the most bars back an operand may look
+    static final int MAX_LAG = 16;
+
+    private static final Pattern SERIES_OPERAND = Pattern.compile("(\\w+)(?:\\[(\\d+)])?");
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+
+    private enum Op {
+        GT(">"), GE(">="), LT("<"), LE("<="), CROSSES_ABOVE("crossesAbove"), CROSSES_BELOW("crossesBelow");
+
+        final String symbol;
+
+        Op(String symbol) {
+            this.symbol = symbol;
+        }
+
+        static Op parse(String symbol) {
+            for (Op op : values()) {
+                if (op.symbol.equals(symbol)) return op;
+            }
+            throw new IllegalArgumentException("Unknown condition op: " + symbol);
+        }
+    }
+
+    // a series column some bars back, or a constant (column -1)
+    private record Operand(int column, int lag, double constant) {
+
+        Operand lagged() {
+            return column < 0 ? this : new Operand(column, lag + 1, constant);
+        }
+    }
+
+    private record Rule(Op op, Operand left, Operand right, int dwell, boolean turn) {
+
+        boolean stateful() {
+            return dwell > 1 || turn;
+        }
+    }
+
+    private record Group(String name, int side, String label, int rearm, int[] strategyIds, int[][] strategyRules) {}
+
+    private final int minBars;
+    private final int history;
+    private final Rule[] rules;
+    private final Group[] groups;
+
+    private StrategyProgram(int minBars, int history, Rule[] rules, Group[] groups) {
+        this.minBars = minBars;
+        this.history = history;
+        this.rules = rules;
+        this.groups = groups;
+    }
+
+    /**
+     * The strategies shipped on the classpath ({@code strategies.json}).
+     */
+    static StrategyConfig builtIn() {
+        return BuiltIn.CONFIG;
+    }
+
+    static StrategyConfig read(InputStream in) throws IOException {
+        return objectMapper.readValue(in, StrategyConfig.class);
+    }
+
+    /**
+     * Compiles {@code config} with {@code overrides} replacing params of the same name; throws
+     * {@link IllegalArgumentException} for anything that does not resolve, an override of a param
+     * {@code config} does not declare included.
+     */
+    static StrategyProgram compile(StrategyConfig config, Map<String, Double> overrides) {
+        Map<String, Double> params = new HashMap<>(config.params() != null ? config.params() : Map.of());
+        overrides.forEach((name, value) -> {
+            if (params.replace(name, value) == null) {
+                throw new IllegalArgumentException("Unknown param: " + name);
+            }
+        });
+        // equal conditions share one rule and its state
+        Map<Rule, Integer> ruleIndex = new HashMap<>();
+        List<Rule> compiledRules = new ArrayList<>();
+        List<Group> compiledGroups = new ArrayList<>();
+        int[] maxLag = {0};
+        // announced signals are keyed by side and strategy id, so those must not repeat
+        Set<Integer> longIds = new HashSet<>();
+        Set<Integer> shortIds = new HashSet<>();
+        ToIntFunction<Condition> intern = condition -> {
+            Rule rule = rule(condition, params);
+            maxLag[0] = Math.max(maxLag[0], Math.max(rule.left.lag, rule.right.lag)
+                + (rule.op == Op.CROSSES_ABOVE || rule.op == Op.CROSSES_BELOW ? 1 : 0));
+            return ruleIndex.computeIfAbsent(rule, r -> {
+                compiledRules.add(r);
+                return compiledRules.size() - 1;
+            });
+        };
+
+        for (StrategyConfig.Group group : config.groups() != null ? config.groups() : List.<StrategyConfig.Group>of()) {
+            int side = switch (String.valueOf(group.side()).toUpperCase(Locale.ROOT)) {
+                case "LONG" -> 1;
+                case "SHORT" -> -1;
+                default -> throw new IllegalArgumentException("Group " + group.name() + ": side must be LONG or SHORT");
+            };
+            List<StrategyConfig.Strategy> declared = group.strategies() != null ? group.strategies() : List.of();
+            List<Integer> order = new ArrayList<>();
+            for (int s = 0; s < declared.size(); s++) {
+                StrategyConfig.Strategy strategy = declared.get(s);
+                if (strategy.id() < 1 || strategy.id() > SignalStore.MAX_STRATEGY_ID) {
+                    throw new IllegalArgumentException(
+                        "Group " + group.name() + ": strategy ids must be 1 to " + SignalStore.MAX_STRATEGY_ID);
+                }
+                if (!(side > 0 ? longIds : shortIds).add(strategy.id())) {
+                    throw new IllegalArgumentException("Group " + group.name() + ": strategy id " + strategy.id()
+                        + " is already used on the " + group.side() + " side");
+                }
+                if (strategy.enabled() == null || strategy.enabled()) {
+                    order.add(s);
+                }
+            }
+            if (order.isEmpty()) continue;
+            order.sort(Comparator.comparingInt(s -> declared.get(s).priority() != null ? declared.get(s).priority() : s));
+
+            int[] ids = new int[order.size()];
+            int[][] strategyRules = new int[order.size()][];
+            for (int s = 0; s < order.size(); s++) {
+                StrategyConfig.Strategy strategy = declared.get(order.get(s));
+                List<Condition> when = strategy.when() != null ? strategy.when() : List.of();
+                ids[s] = strategy.id();
+                strategyRules[s] = when.stream().mapToInt(intern).toArray();
+            }
+            int rearm = group.rearm() != null ? intern.applyAsInt(group.rearm()) : -1;
+            compiledGroups.add(new Group(group.name(), side, group.label(), rearm, ids, strategyRules));
+        }
+        int minBars = config.minBars() != null ? config.minBars() : 0;
+        return new StrategyProgram(minBars, maxLag[0] + 1, compiledRules.toArray(Rule[]::new),
+            compiledGroups.toArray(Group[]::new));
+    }
+
+    private static Rule rule(Condition condition, Map<String, Double> params) {
+        Op op = Op.parse(condition.op());
+        Operand left = operand(condition.left(), params);
+        Operand right = operand(condition.right(), params);
+        boolean turn = condition.turn() != null && condition.turn();
+        if (turn && (op == Op.CROSSES_ABOVE || op == Op.CROSSES_BELOW)) {
+            throw new IllegalArgumentException("turn needs a comparison, not " + op.symbol);
+        }
+        if (turn && left.column < 0) {
+            throw new IllegalArgumentException("turn needs a series on the left: " + condition.left());
+        }
+        int dwell = condition.dwell() != null ? (int) constant(condition.dwell(), params) : 1;
+        if (dwell < 1) {
+            throw new IllegalArgumentException("dwell must be positive: " + condition.dwell());
+        }
+        return new Rule(op, left, right, dwell, turn);
+    }
+
+    private static Operand operand(String text, Map<String, Double> params) {
+        if (text == null || text.isBlank()) {
+            throw new IllegalArgumentException("Condition operand missing");
+        }
+        String operand = text.strip();
+        Matcher m = SERIES_OPERAND.matcher(operand);
+        if (m.matches() && SERIES_NAMES.contains(m.group(1))) {
+            int lag = m.group(2) != null ? Integer.parseInt(m.group(2)) : 0;
+            if (lag > MAX_LAG) {
+                throw new IllegalArgumentException("At most " + MAX_LAG + " bars back: " + operand);
+            }
+            return new Operand(SERIES_NAMES.indexOf(m.group(1)), lag, 0);
+        }
+        return new Operand(-1, 0, constant(operand, params));
+    }
+
+    private static double constant(String text, Map<String, Double> params) {
+        String operand = text.strip();
+        if (operand.startsWith("$")) {
+            Double value = params.get(operand.substring(1));
+            if (value == null) {
+                throw new IllegalArgumentException("Unknown param: " + operand);
+            }
+            return value;
+        }
+        try {
+            return Double.parseDouble(operand);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Not a series, number or $param: " + operand);
+        }
+    }
+
+    int groups() {
+        return groups.length;
+    }
+
+    String groupName(int group) {
+        return groups[group].name;
+    }
+
+    /**
+     * +1 for a long group, -1 for a short one.
+     */
+    int side(int group) {
+        return groups[group].side;
+    }
+
+    String label(int group) {
+        return groups[group].label;
+    }
+
+    /**
+     * Number of enabled strategies in the group.
+     */
+    int strategies(int group) {
+        return groups[group].strategyIds.length;
+    }
+
+    /**
+     * Id of the group's {@code index}-th enabled strategy, highest priority first.
+     */
+    int strategyId(int group, int index) {
+        return groups[group].strategyIds[index];
+    }
+
+    Machine newMachine() {
+        return new Machine();
+    }
+
+    // evaluation state; copied wholesale to evaluate a bar that is still forming
+    private final class State {
+        long bars;
+        int newest = -1;
+        final double[] recent = new double[history * SERIES];
+        final int[] run = new int[rules.length];
+        final double[] extreme = new double[rules.length];
+        final boolean[] disarmed = new boolean[groups.length];
+
+        State() {
+            Arrays.fill(recent, Double.NaN);
+        }
+
+        void copyFrom(State other) {
+            bars = other.bars;
+            newest = other.newest;
+            System.arraycopy(other.recent, 0, recent, 0, recent.length);
+            System.arraycopy(other.run, 0, run, 0, run.length);
+            System.arraycopy(other.extreme, 0, extreme, 0, extreme.length);
+            System.arraycopy(other.disarmed, 0, disarmed, 0, disarmed.length);
+        }
+
+        double value(Operand operand) {
+            if (operand.column < 0) return operand.constant;
+            if (operand.lag == 0) return recent[newest * SERIES + operand.column];
+            if (operand.lag >= bars) return Double.NaN;
+            int slot = Math.floorMod(newest - operand.lag, history);
+            return recent[slot * SERIES + operand.column];
+        }
+    }
+
+    /**
+     * Runs the program over one series: {@link #advance} for every closed bar in order,
+     * {@link #peek} for the bar still forming. Both take the bar as the {@link #SERIES} columns
+     * ({@link #SMI} ... {@link #JMA_SLOPE}) and return, per group, the id of the strategy that fired
+     * on that bar or {@link #NONE}; the array is reused by the next call.
+     */
+    final class Machine {
+        private final State committed = new State();
+        private final State scratch = new State();
+        private final boolean[] truth = new boolean[rules.length];
+        private final int[] fired = new int[groups.length];
+
+        StrategyProgram program() {
+            return StrategyProgram.this;
+        }
+
+        /**
+         * Bars advanced past.
+         */
+        long bars() {
+            return committed.bars;
+        }
+
+        int[] advance(double[] bar) {
+            step(committed, bar);
+            return fired;
+        }
+
+        /**
+         * Evaluates a bar without advancing past it.
+         */
+        int[] peek(double[] bar) {
+            scratch.copyFrom(committed);
+            step(scratch, bar);
+            return fired;
+        }
+
+        private void step(State state, double[] bar) {
+            state.newest = (state.newest + 1) % history;
+            System.arraycopy(bar, 0, state.recent, state.newest * SERIES, SERIES);
+            state.bars++;
+
+            for (int r = 0; r < rules.length; r++) {
+                truth[r] = holds(state, r);
+            }
+
+            Arrays.fill(fired, NONE);
+            if (state.bars < minBars) return;
+            for (int g = 0; g < groups.length; g++) {
+                Group group = groups[g];
+                if (group.rearm < 0 || truth[group.rearm]) {
+                    state.disarmed[g] = false;
+                }
+                if (state.disarmed[g]) continue;
+                for (int s = 0; s < group.strategyIds.length; s++) {
+                    if (all(group.strategyRules[s])) {
+                        fired[g] = group.strategyIds[s];
+                        state.disarmed[g] = true;
+                        break;
+                    }
+                }
+            }
+        }
+
+        private boolean holds(State state, int r) {
+            Rule rule = rules[r];
+            double left = state.value(rule.left);
+            double right = state.value(rule.right);
+            boolean holds = switch (rule.op) {
+                case GT -> left > right;
+                case GE -> left >= right;
+                case LT -> left < right;
+                case LE -> left <= right;
+                case CROSSES_ABOVE -> left > right && state.value(rule.left.lagged()) <= state.value(rule.right.lagged());
+                case CROSSES_BELOW -> left < right && state.value(rule.left.lagged()) >= state.value(rule.right.lagged());
+            };
+            if (!rule.stateful()) return holds;
+
+            boolean below = rule.op == Op.LT || rule.op == Op.LE;
+            if (holds) {
+                int run = state.run[r];
+                state.extreme[r] = run == 0 ? left : below ? Math.min(state.extreme[r], left) : Math.max(state.extreme[r], left);
+                if (run < Integer.MAX_VALUE) state.run[r] = run + 1;
+            } else {
+                // also taken for NaN, which ends a run
+                state.run[r] = 0;
+            }
+            return state.run[r] >= rule.dwell
+                && (!rule.turn || (below ? left > state.extreme[r] : left < state.extreme[r]));
+        }
+
+        private boolean all(int[] strategyRules) {
+            for (int r : strategyRules) {
+                if (!truth[r]) return false;
+            }
+            return true;
+        }
+    }
+
+    private static final class BuiltIn {
+        static final StrategyConfig CONFIG = load();
+
+        private static StrategyConfig load() {
+            try (InputStream in = StrategyProgram.class.getResourceAsStream("/strategies.json")) {
+                if (in == null) {
+                    throw new IllegalStateException("strategies.json not on the classpath");
+                }
+                return read(in);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+}
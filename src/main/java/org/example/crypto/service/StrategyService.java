@@ -0,0 +1,77 @@
+package org.example.crypto.service;
+
+import jakarta.annotation.PostConstruct;
+import org.example.crypto.dto.StrategyConfig;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+
+/**
+ * The signal strategies in effect: {@code crypto.strategies-file} when set, else the built-in
+ * {@code strategies.json}. {@link #reload()} swaps them at runtime; live detection picks the new
+ * program up on its next evaluation, a config that does not compile leaves the old one in place.
+ */
+@Service
+public class StrategyService {
+
+    private static final Logger log = LoggerFactory.getLogger(StrategyService.class);
+
+    @Value("${crypto.strategies-file:}")
+    private String strategiesFile = "";
+
+    private volatile Loaded loaded;
+
+    private record Loaded(StrategyConfig config, StrategyProgram program) {}
+
+    @PostConstruct
+    public void init() {
+        reload();
+    }
+
+    /**
+     * Reads and compiles the strategies again; returns the number of active groups. Throws
+     * {@link IllegalArgumentException} (the previous strategies stay) if they do not compile.
+     */
+    public synchronized int reload() {
+        StrategyConfig config;
+        if (strategiesFile.isBlank()) {
+            config = StrategyProgram.builtIn();
+        } else {
+            try (InputStream in = Files.newInputStream(Path.of(strategiesFile))) {
+                config = StrategyProgram.read(in);
+            } catch (IOException e) {
+                throw new IllegalArgumentException("Cannot read " + strategiesFile + ": " + e.getMessage(), e);
+            }
+        }
+        StrategyProgram program = StrategyProgram.compile(config, Map.of());
+        loaded = new Loaded(config, program);
+        log.info("Loaded {} strategy group(s) from {}", program.groups(),
+            strategiesFile.isBlank() ? "strategies.json" : strategiesFile);
+        return program.groups();
+    }
+
+    StrategyConfig config() {
+        return current().config();
+    }
+
+    StrategyProgram program() {
+        return current().program();
+    }
+
+    // benchmarks construct the service without Spring
+    private Loaded current() {
+        Loaded current = loaded;
+        if (current == null) {
+            reload();
+            current = loaded;
+        }
+        return current;
+    }
+}
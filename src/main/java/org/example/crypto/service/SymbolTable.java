@@ -0,0 +1,111 @@
+package org.example.crypto.service;
+
+import java.util.Arrays;
+
+/**
+ * Interns identifiers such as contract names ("XRP_USDT") or intervals ("1m") to small
+ * int ids. Lookups work on a character range of a larger string, so the websocket parser
+ * can resolve the id of a field value without creating a substring.
+ *
+ * Registration is rare and copy-on-write; lookups are lock-free.
+ */
+public class SymbolTable {
+
+    private static final class Table {
+        final String[] names;   // id -> name
+        final int[] slots;      // open addressing, slot -> id + 1 (0 = empty)
+
+        Table(String[] names, int[] slots) {
+            this.names = names;
+            this.slots = slots;
+        }
+    }
+
+    private volatile Table table = new Table(new String[0], new int[16]);
+
+    public SymbolTable(String... initial) {
+        for (String name : initial) {
+            intern(name);
+        }
+    }
+
+    /**
+     * Returns the id of {@code name}, registering it if needed. Ids are dense and never reused.
+     */
+    public synchronized int intern(String name) {
+        int id = lookup(name);
+        if (id >= 0) {
+            return id;
+        }
+        Table current = table;
+        String[] names = Arrays.copyOf(current.names, current.names.length + 1);
+        names[names.length - 1] = name;
+
+        int capacity = current.slots.length;
+        while (names.length * 2 > capacity) {
+            capacity *= 2;
+        }
+        int[] slots = new int[capacity];
+        for (int i = 0; i < names.length; i++) {
+            String n = names[i];
+            int slot = hash(n, 0, n.length()) & (capacity - 1);
+            while (slots[slot] != 0) {
+                slot = (slot + 1) & (capacity - 1);
+            }
+            slots[slot] = i + 1;
+        }
+        table = new Table(names, slots);
+        return names.length - 1;
+    }
+
+    public int lookup(CharSequence name) {
+        return lookup(name, 0, name.length());
+    }
+
+    /**
+     * Returns the id of the identifier spelled by {@code src[from, to)}, or -1 if unknown.
+     */
+    public int lookup(CharSequence src, int from, int to) {
+        Table t = table;
+        int mask = t.slots.length - 1;
+        int slot = hash(src, from, to) & mask;
+        while (true) {
+            int entry = t.slots[slot];
+            if (entry == 0) {
+                return -1;
+            }
+            if (matches(t.names[entry - 1], src, from, to)) {
+                return entry - 1;
+            }
+            slot = (slot + 1) & mask;
+        }
+    }
+
+    public String name(int id) {
+        return table.names[id];
+    }
+
+    public int size() {
+        return table.names.length;
+    }
+
+    private static int hash(CharSequence src, int from, int to) {
+        int h = 0;
+        for (int i = from; i < to; i++) {
+            h = 31 * h + src.charAt(i);
+        }
+        return h ^ (h >>> 16);
+    }
+
+    private static boolean matches(String name, CharSequence src, int from, int to) {
+        if (name.length() != to - from) {
+            return false;
+        }
+        for (int i = 0; i < name.length(); i++) {
+            if (name.charAt(i) != src.charAt(from + i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -1,15 +1,24 @@
 package org.example.crypto.service;
 
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.stereotype.Service;
+import org.springframework.web.client.RestClientException;
+import org.springframework.web.client.RestClientResponseException;
 import org.springframework.web.client.RestTemplate;
 
 @Service
-public class TelegramNotificationService {
+public class TelegramNotificationService implements NotificationChannel {
 
-    private static final Logger log = LoggerFactory.getLogger(TelegramNotificationService.class);
+    public static final String CHANNEL = "telegram";
+
+    @Value("${telegram.api-url:https://api.telegram.org}")
+    private String apiUrl;
 
     @Value("${telegram.bot-token:}")
     private String botToken;
@@ -18,28 +27,75 @@ public class TelegramNotificationService {
     private String chatId;
 
     private final RestTemplate restTemplate = new RestTemplate();
+    private final ObjectMapper objectMapper = new ObjectMapper();
 
-    public void send(String message) {
-        if (botToken == null || botToken.isBlank() || chatId == null || chatId.isBlank()) {
-            log.warn("Telegram not configured. Message: {}", message);
-            return;
-        }
+    public TelegramNotificationService() {
+    }
 
-        try {
-            String url = "https://api.telegram.org/bot" + botToken + "/sendMessage";
+    public TelegramNotificationService(String apiUrl, String botToken, String chatId) {
+        this.apiUrl = apiUrl;
+        this.botToken = botToken;
+        this.chatId = chatId;
+    }
 
-            String payload = """
-                {"chat_id": "%s", "text": "%s", "parse_mode": "Markdown"}"""
-                .formatted(chatId, message.replace("\"", "\\\""));
+    @Override
+    public String name() {
+        return CHANNEL;
+    }
 
-            var headers = new org.springframework.http.HttpHeaders();
-            headers.setContentType(org.springframework.http.MediaType.APPLICATION_JSON);
-            var request = new org.springframework.http.HttpEntity<>(payload, headers);
+    @Override
+    public boolean isEnabled() {
+        return botToken != null && !botToken.isBlank() && chatId != null && !chatId.isBlank();
+    }
 
+    @Override
+    public int maxMessageLength() {
+        return 4096;
+    }
+
+    // Telegram allows about one message per second per chat
+    @Override
+    public long minIntervalMillis() {
+        return 1_000;
+    }
+
+    @Override
+    public void deliver(String message) {
+        String url = apiUrl + "/bot" + botToken + "/sendMessage";
+
+        String payload;
+        try {
+            payload = objectMapper.writeValueAsString(objectMapper.createObjectNode()
+                .put("chat_id", chatId)
+                .put("text", message)
+                .put("parse_mode", "Markdown"));
+        } catch (JsonProcessingException e) {
+            throw new NotificationDeliveryException(CHANNEL + " payload could not be serialized", e, false, -1);
+        }
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_JSON);
+        HttpEntity<String> request = new HttpEntity<>(payload, headers);
+        try {
             restTemplate.postForEntity(url, request, String.class);
-            log.info("Telegram notification sent");
-        } catch (Exception e) {
-            log.error("Failed to send Telegram notification", e);
+        } catch (RestClientException e) {
+            throw NotificationDeliveryException.of(CHANNEL, e, retryAfterMillis(e));
+        }
+    }
+
+    // 429 responses carry {"parameters": {"retry_after": <seconds>}}
+    private long retryAfterMillis(RestClientException e) {
+        if (e instanceof RestClientResponseException response) {
+            try {
+                JsonNode body = objectMapper.readTree(response.getResponseBodyAsString());
+                JsonNode retryAfter = body.path("parameters").path("retry_after");
+                if (retryAfter.isNumber()) {
+                    return retryAfter.asLong() * 1000;
+                }
+            } catch (Exception ignored) {
+                // not JSON; fall back to the dispatcher's backoff
+            }
         }
+        return -1;
     }
 }
@@ -0,0 +1,10 @@
+package org.example.crypto.service;
+
+/**
+ * Receives ticker updates from {@link GateIoWebSocketClient}.
+ * Callbacks run on the websocket thread, so they must not block.
+ */
+public interface TickerListener {
+
+    void onTicker(String contract, double last, double changePercentage, long updatedAtMillis);
+}
@@ -0,0 +1,84 @@
+package org.example.crypto.service;
+
+import org.example.crypto.dto.CandleColumns;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.example.crypto.service.CandleFileTest.assertColumnsEqual;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class CandleArchiveTest {
+
+    private static final String CONTRACT = "XRP_USDT";
+    private static final String INTERVAL = "1m";
+
+    @TempDir
+    Path dir;
+
+    private CandleArchive archive;
+    private final CandleColumns candles = TestCandles.candles(60, 9);
+
+    @AfterEach
+    void tearDown() {
+        archive.shutdown();
+    }
+
+    @Test
+    void liveUpdatesWriteClosedBars() {
+        archive = new CandleArchive(dir.toString());
+        archive.onCandlesReloaded(CONTRACT, INTERVAL, null, candles.slice(0, 10));
+        for (int i = 10; i < 20; i++) {
+            update(i, true);
+            update(i, false);
+        }
+        archive.awaitIdle();
+        // bar 19 is still forming
+        assertColumnsEqual(candles.slice(0, 19), archive.tail(CONTRACT, INTERVAL, 100));
+    }
+
+    @Test
+    void reloadAfterAnOutageFillsTheGapAndCorrectsTheFormingBar() {
+        archive = new CandleArchive(dir.toString());
+        archive.onCandlesReloaded(CONTRACT, INTERVAL, null, candles.slice(0, 20));
+        // bar 19 was forming, with only its open, when the connection dropped
+        double open = candles.open()[19];
+        archive.onCandleUpdated(CONTRACT, INTERVAL, null, false, candles.time()[19], open, open, open, open, 1);
+        // live again from bar 30; bars 30 and 31 close before the backfill lands
+        for (int i = 30; i < 33; i++) {
+            update(i, true);
+        }
+        // the backfill reloads the series with the REST bars of the gap
+        archive.onCandlesReloaded(CONTRACT, INTERVAL, null, candles.slice(0, 33));
+        archive.awaitIdle();
+
+        assertColumnsEqual(candles.slice(0, 32), archive.tail(CONTRACT, INTERVAL, 100));
+    }
+
+    @Test
+    void namesFromRequestsCannotLeaveTheHistoryDirectory() throws IOException {
+        Path root = dir.resolve("history");
+        archive = new CandleArchive(root.toString());
+
+        archive.tail(CONTRACT, "../../x", 10);
+        archive.range("../" + CONTRACT, INTERVAL, 0, Long.MAX_VALUE, 10);
+        archive.onCandlesReloaded("../../FOO_", INTERVAL, null, candles.slice(0, 10));
+        archive.onCandlesReloaded(CONTRACT, "1m/../../../x", null, candles.slice(0, 10));
+        archive.awaitIdle();
+
+        try (Stream<Path> files = Files.walk(dir)) {
+            assertEquals(List.of(dir), files.toList());
+        }
+    }
+
+    private void update(int i, boolean appended) {
+        archive.onCandleUpdated(CONTRACT, INTERVAL, null, appended, candles.time()[i], candles.open()[i],
+            candles.high()[i], candles.low()[i], candles.close()[i], candles.volume()[i]);
+    }
+}
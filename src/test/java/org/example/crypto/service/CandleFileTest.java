@@ -0,0 +1,85 @@
+package org.example.crypto.service;
+
+import org.example.crypto.dto.CandleColumns;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+class CandleFileTest {
+
+    @TempDir
+    Path dir;
+
+    private final CandleColumns candles = TestCandles.candles(100, 5);
+
+    @Test
+    void appendIgnoresBarsNotNewerThanTheLast() throws IOException {
+        try (CandleFile file = new CandleFile(dir.resolve("1m.bin"))) {
+            append(file, candles, 0, 10);
+            assertFalse(file.append(candles.time()[5], 1, 1, 1, 1, 1));
+            assertEquals(10, file.size());
+            assertEquals(candles.time()[9], file.lastTime());
+        }
+    }
+
+    @Test
+    void mergeReplacesInsertsAndAppends() throws IOException {
+        try (CandleFile file = new CandleFile(dir.resolve("1m.bin"))) {
+            // bars 0..19 with 10..14 missing and 8 still partial, as after an outage
+            append(file, candles, 0, 8);
+            file.append(candles.time()[8], candles.open()[8], candles.open()[8], candles.open()[8], candles.open()[8], 1);
+            append(file, candles, 15, 20);
+
+            int written = file.merge(candles.slice(8, 25));
+
+            assertEquals(25 - 8, written);
+            assertColumnsEqual(candles.slice(0, 25), file.tail(100));
+        }
+    }
+
+    @Test
+    void mergeKeepsStoredBarsTheMergeDoesNotCover() throws IOException {
+        try (CandleFile file = new CandleFile(dir.resolve("1m.bin"))) {
+            append(file, candles, 0, 20);
+            CandleColumns sparse = CandleColumns.concat(candles.slice(5, 6), candles.slice(12, 13));
+            assertEquals(0, file.merge(sparse));
+            assertColumnsEqual(candles.slice(0, 20), file.tail(100));
+        }
+    }
+
+    @Test
+    void mergedBarsSurviveReopening() throws IOException {
+        Path path = dir.resolve("1m.bin");
+        try (CandleFile file = new CandleFile(path)) {
+            append(file, candles, 0, 10);
+            append(file, candles, 30, 40);
+            file.merge(candles.slice(10, 30));
+        }
+        try (CandleFile file = new CandleFile(path)) {
+            assertEquals(40, file.size());
+            assertColumnsEqual(candles.slice(0, 40), file.tail(100));
+            assertColumnsEqual(candles.slice(12, 18), file.range(candles.time()[12], candles.time()[17], 100));
+        }
+    }
+
+    static void append(CandleFile file, CandleColumns bars, int from, int to) throws IOException {
+        for (int i = from; i < to; i++) {
+            file.append(bars.time()[i], bars.open()[i], bars.high()[i], bars.low()[i], bars.close()[i], bars.volume()[i]);
+        }
+    }
+
+    static void assertColumnsEqual(CandleColumns expected, CandleColumns actual) {
+        assertArrayEquals(expected.time(), actual.time());
+        assertArrayEquals(expected.open(), actual.open());
+        assertArrayEquals(expected.high(), actual.high());
+        assertArrayEquals(expected.low(), actual.low());
+        assertArrayEquals(expected.close(), actual.close());
+        assertArrayEquals(expected.volume(), actual.volume());
+    }
+}
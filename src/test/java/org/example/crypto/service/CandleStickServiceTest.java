@@ -0,0 +1,30 @@
+package org.example.crypto.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CandleStickServiceTest {
+
+    @Test
+    void supportsExchangeAndRolledUpIntervals() {
+        for (String interval : List.of("10s", "1m", "3m", "10m", "4h", "1d", "7d", "30d")) {
+            assertTrue(CandleStickService.isSupportedInterval(interval), interval);
+        }
+        for (String interval : List.of("", "1", "2m", "1w", "99d", "../../x", "1m/../x", "1M")) {
+            assertFalse(CandleStickService.isSupportedInterval(interval), interval);
+        }
+    }
+
+    @Test
+    void intervalLengths() {
+        assertEquals(10, CandleStickService.intervalSeconds("10s"));
+        assertEquals(180, CandleStickService.intervalSeconds("3m"));
+        assertEquals(14_400, CandleStickService.intervalSeconds("4h"));
+        assertEquals(604_800, CandleStickService.intervalSeconds("7d"));
+    }
+}
@@ -0,0 +1,45 @@
+package org.example.crypto.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class ContractRegistryTest {
+
+    @Test
+    void normalizesShortAndLowerCaseNames() {
+        assertEquals("XRP_USDT", ContractRegistry.normalize(" xrp "));
+        assertEquals("BTC_USDT", ContractRegistry.normalize("btc_usdt"));
+        assertEquals("1000PEPE_USDT", ContractRegistry.normalize("1000pepe"));
+    }
+
+    @Test
+    void rejectsMalformedNames() {
+        for (String name : List.of("../../FOO_", "FOO_", "_USDT", "XRP_USDT/..", "XRP-USDT_X", "A_B_C", "XRP USDT")) {
+            assertThrows(IllegalArgumentException.class, () -> ContractRegistry.normalize(name), name);
+        }
+    }
+
+    @Test
+    void addRegistersNoneWhenOneNameIsMalformed() {
+        ContractRegistry registry = new ContractRegistry();
+
+        assertThrows(IllegalArgumentException.class, () -> registry.add(List.of("XRP_USDT", "../../FOO_")));
+
+        assertEquals(List.of(), registry.contracts());
+        assertEquals(List.of("XRP_USDT"), registry.add(List.of("xrp")));
+    }
+
+    @Test
+    void malformedNamesResolveToNothing() {
+        ContractRegistry registry = new ContractRegistry();
+        registry.add(List.of("XRP_USDT"));
+
+        assertEquals("XRP_USDT", registry.resolve("xrp"));
+        assertNull(registry.resolve("../../XRP_USDT"));
+    }
+}
@@ -0,0 +1,201 @@
+package org.example.crypto.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * The streaming parser against Jackson reading the same frame the way the client used to
+ * ({@code asText}, {@code asDouble}, {@code asLong} on each field).
+ */
+class GateIoFrameParserTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final SymbolTable contracts = new SymbolTable("XRP_USDT", "BTC_USDT");
+    private final SymbolTable intervals = new SymbolTable("1m", "5m", "1h");
+    private final List<Object> events = new ArrayList<>();
+    private final GateIoFrameParser parser = new GateIoFrameParser(contracts, intervals, new GateIoFrameParser.Handler() {
+        @Override
+        public void onTicker(int contractId, double last, double changePercentage) {
+            events.add(new Ticker(contracts.name(contractId), last, changePercentage));
+        }
+
+        @Override
+        public void onCandle(int contractId, int intervalId, long time,
+                             double open, double high, double low, double close, long volume) {
+            events.add(new Candle(contracts.name(contractId), intervals.name(intervalId), time, open, high, low, close, volume));
+        }
+    });
+
+    private record Ticker(String contract, double last, double changePercentage) {}
+
+    private record Candle(String contract, String interval, long time,
+                          double open, double high, double low, double close, long volume) {}
+
+    @Test
+    void tickerFrame() throws Exception {
+        String frame = """
+            {"time":1700000001,"time_ms":1700000001104,"channel":"futures.tickers","event":"update","result":[\
+            {"contract":"XRP_USDT","last":"0.6123","change_percentage":"1.2312","funding_rate":"0.0001",\
+            "mark_price":"0.6124","total_size":"182391054","quanto_base_rate":"","low_24h":"0.5998"},\
+            {"contract":"BTC_USDT","last":"37012.4","change_percentage":"-0.4521","mark_price":"37013.1"}]}""";
+
+        assertMatchesJackson(frame, GateIoFrameParser.CHANNEL_TICKERS, 2);
+        assertEquals(new Ticker("XRP_USDT", 0.6123, 1.2312), events.get(0));
+    }
+
+    @Test
+    void candlestickFrame() throws Exception {
+        String frame = """
+            {"time":1700000001,"time_ms":1700000001233,"channel":"futures.candlesticks","event":"update","result":[\
+            {"t":1699999980,"v":12345,"c":"0.6123","h":"0.613","l":"0.611","o":"0.6115","n":"1m_XRP_USDT","a":"75521.3"},\
+            {"t":1699999980,"v":8421,"c":"37012.4","h":"37020.1","l":"36998.7","o":"37001","n":"5m_BTC_USDT","a":"31.17"}]}""";
+
+        assertMatchesJackson(frame, GateIoFrameParser.CHANNEL_CANDLESTICKS, 2);
+        assertEquals(new Candle("XRP_USDT", "1m", 1699999980, 0.6115, 0.613, 0.611, 0.6123, 12345), events.get(0));
+    }
+
+    @Test
+    void subscribeAcksAndErrorsAreNotUpdates() throws Exception {
+        assertMatchesJackson("""
+            {"time":1700000000,"time_ms":1700000000012,"channel":"futures.tickers","event":"subscribe",\
+            "payload":["XRP_USDT"],"error":null,"result":{"status":"success"}}""", GateIoFrameParser.CHANNEL_TICKERS, 0);
+        assertMatchesJackson("""
+            {"time":1700000000,"time_ms":1700000000015,"channel":"futures.candlesticks","event":"subscribe",\
+            "payload":["1m","XRP_USDT"],"error":{"code":2,"message":"unknown contract \\"FOO_USDT\\" [1m]"},\
+            "result":null}""", GateIoFrameParser.CHANNEL_CANDLESTICKS, 0);
+        assertMatchesJackson("""
+            {"time":1700000020,"time_ms":1700000020003,"channel":"futures.pong","event":"","result":null}""",
+            GateIoFrameParser.CHANNEL_OTHER, 0);
+    }
+
+    @Test
+    void fieldsMayComeInAnyOrder() throws Exception {
+        assertMatchesJackson("""
+            {"event":"update","channel":"futures.tickers","result":[\
+            {"change_percentage":"-3.1","mark_price":"0.5","last":"0.6","contract":"XRP_USDT"}],"time_ms":1700000001104}""",
+            GateIoFrameParser.CHANNEL_TICKERS, 1);
+        assertMatchesJackson("""
+            { "time_ms" : 1700000001233 , "channel" : "futures.candlesticks" , "event" : "update" , "result" : [ \
+            { "n" : "1h_BTC_USDT" , "o" : "1" , "a" : "2" , "l" : "0.5" , "v" : 7 , "c" : "1.5" , "h" : "2" , "t" : 1699999200 } ] }""",
+            GateIoFrameParser.CHANNEL_CANDLESTICKS, 1);
+    }
+
+    @Test
+    void resultBeforeChannelIsSkipped() throws Exception {
+        // Gate.io always sends channel and event first; the parser does not buffer for the rest
+        String frame = """
+            {"result":[{"contract":"XRP_USDT","last":"0.6"}],"channel":"futures.tickers","event":"update"}""";
+
+        assertFalse(parser.parse(frame));
+        assertTrue(events.isEmpty());
+        assertEquals(1, expected(objectMapper.readTree(frame)).size());
+    }
+
+    @Test
+    void escapedStrings() throws Exception {
+        assertMatchesJackson("""
+            {"channel":"futures\\u002etickers","event":"upd\\u0061te","result":[\
+            {"text":"a \\"quoted\\" }, ] and \\\\","contract":"XRP\\u005FUSDT","last":"0.61\\u0032","change_percentage":"1"},\
+            {"contract":"BTC_USDT","note":"\\\\","last":"\\u0033\\u0037\\u0030\\u0030\\u0030"}]}""",
+            GateIoFrameParser.CHANNEL_TICKERS, 2);
+        assertMatchesJackson("""
+            {"channel":"futures.candlesticks","event":"update","result":[\
+            {"\\u0074":1699999980,"v":1,"c":"1","h":"1","l":"1","o":"1","n":"1m\\u005fXRP\\/USDT"},\
+            {"t":1699999980,"v":1,"c":"1","h":"1","l":"1","o":"1","n":"1m\\u005fXRP_USDT"}]}""",
+            GateIoFrameParser.CHANNEL_CANDLESTICKS, 1);
+    }
+
+    @Test
+    void exponentsAndNegativeDecimals() throws Exception {
+        assertMatchesJackson("""
+            {"channel":"futures.tickers","event":"update","result":[\
+            {"contract":"XRP_USDT","last":"6.123e-1","change_percentage":"-0.0045"},\
+            {"contract":"BTC_USDT","last":3.70124E+4,"change_percentage":-12.5},\
+            {"contract":"XRP_USDT","last":"0.61234567890123456789","change_percentage":"-1E-7"},\
+            {"contract":"XRP_USDT","last":"-0","change_percentage":null},\
+            {"contract":"XRP_USDT","last":"+0.5","change_percentage":""}]}""",
+            GateIoFrameParser.CHANNEL_TICKERS, 5);
+        assertMatchesJackson("""
+            {"channel":"futures.candlesticks","event":"update","result":[\
+            {"t":1.6999998E9,"v":1.5e3,"c":"-1.25","h":"2.5E0","l":"-3.0e+1","o":0.000001,"n":"1m_XRP_USDT"},\
+            {"t":"1699999980","v":"-42","c":"123456789012345678","h":1e22,"l":1e-22,"o":"0.1000000000000000055511","n":"1m_BTC_USDT"}]}""",
+            GateIoFrameParser.CHANNEL_CANDLESTICKS, 2);
+    }
+
+    @Test
+    void unknownChannelsContractsAndIntervalsAreSkipped() throws Exception {
+        assertMatchesJackson("""
+            {"channel":"futures.trades","event":"update","result":[{"contract":"XRP_USDT","size":10,"price":"0.6"}]}""",
+            GateIoFrameParser.CHANNEL_OTHER, 0);
+        assertMatchesJackson("""
+            {"channel":"futures.tickers","event":"update","result":[{"contract":"ETH_USDT","last":"2000"},[1,2],"x",\
+            {"contract":"XRP_USDT","last":"0.6"}]}""", GateIoFrameParser.CHANNEL_TICKERS, 1);
+        assertMatchesJackson("""
+            {"channel":"futures.candlesticks","event":"update","result":[\
+            {"t":1,"v":1,"c":"1","h":"1","l":"1","o":"1","n":"4h_XRP_USDT"},\
+            {"t":1,"v":1,"c":"1","h":"1","l":"1","o":"1","n":"1m_ETH_USDT"},\
+            {"t":1,"v":1,"c":"1","h":"1","l":"1","o":"1","n":"XRPUSDT"}]}""", GateIoFrameParser.CHANNEL_CANDLESTICKS, 0);
+    }
+
+    @Test
+    void rejectsMalformedFrames() {
+        assertThrows(IllegalArgumentException.class, () -> parser.parse("{\"channel\":\"futures.tickers\""));
+        assertThrows(IllegalArgumentException.class, () -> parser.parse("{\"channel\" \"futures.tickers\"}"));
+        assertThrows(IllegalArgumentException.class, () -> parser.parse("{\"text\":\"\\x\",\"a\":1}"));
+        assertThrows(IllegalArgumentException.class, () -> parser.parse("[1,2]"));
+        assertThrows(IllegalArgumentException.class, () -> parser.parse(
+            "{\"channel\":\"futures.tickers\",\"event\":\"update\",\"result\":[{\"contract\":\"XRP\\u00\",\"last\":\"1\"}]}"));
+    }
+
+    // parses with both and compares everything the handler and accessors report
+    private void assertMatchesJackson(String frame, int channel, int updates) throws Exception {
+        events.clear();
+        JsonNode root = objectMapper.readTree(frame);
+        List<Object> expected = expected(root);
+
+        boolean dispatched = parser.parse(frame);
+
+        assertEquals(expected, events, frame);
+        assertEquals(updates, events.size(), frame);
+        assertEquals(channel, parser.channel(), frame);
+        assertEquals(root.path("time_ms").asLong(), parser.frameTimeMs(), frame);
+        // true for every update of a known channel, also when no result was for us
+        assertEquals(channel != GateIoFrameParser.CHANNEL_OTHER && "update".equals(root.path("event").asText())
+            && root.path("result").isArray(), dispatched, frame);
+    }
+
+    private List<Object> expected(JsonNode root) {
+        List<Object> expected = new ArrayList<>();
+        String channel = root.path("channel").asText();
+        if (!"update".equals(root.path("event").asText())) return expected;
+
+        for (JsonNode result : root.path("result")) {
+            if (!result.isObject()) continue;
+            if ("futures.tickers".equals(channel)) {
+                String contract = result.path("contract").asText();
+                if (contracts.lookup(contract) >= 0 && result.has("last")) {
+                    expected.add(new Ticker(contract, result.path("last").asDouble(),
+                        result.path("change_percentage").asDouble()));
+                }
+            } else if ("futures.candlesticks".equals(channel)) {
+                String n = result.path("n").asText();
+                int sep = n.indexOf('_');
+                if (sep > 0 && intervals.lookup(n.substring(0, sep)) >= 0 && contracts.lookup(n.substring(sep + 1)) >= 0) {
+                    expected.add(new Candle(n.substring(sep + 1), n.substring(0, sep), result.path("t").asLong(),
+                        result.path("o").asDouble(), result.path("h").asDouble(), result.path("l").asDouble(),
+                        result.path("c").asDouble(), result.path("v").asLong()));
+                }
+            }
+        }
+        return expected;
+    }
+}
@@ -0,0 +1,105 @@
+package org.example.crypto.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.example.crypto.dto.CandleColumns;
+import org.example.crypto.dto.WebSocketConnectionStats;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/**
+ * The pool without sockets: contracts are assigned as on subscribe, frames are fed to
+ * {@link GateIoWebSocketClient#handleMessage(String)} and outages are simulated.
+ */
+class GateIoWebSocketClientTest {
+
+    // A and C on connection 0, B and D on connection 1
+    private static final List<String> CONTRACTS = List.of("A_USDT", "B_USDT", "C_USDT", "D_USDT");
+
+    private final CandleColumns history = TestCandles.candles(100, 5);
+    private final long last = history.time()[history.size() - 1];
+    // contract -> {from, to} of the backfill requested
+    private final Map<String, long[]> backfills = new ConcurrentHashMap<>();
+    private CandleStickService candleStickService;
+    private GateIoWebSocketClient client;
+
+    @BeforeEach
+    void setUp() {
+        MeterRegistry meters = new SimpleMeterRegistry();
+        ContractRegistry registry = new ContractRegistry();
+        // no REST: the history is set below, backfills are recorded
+        candleStickService = new CandleStickService(registry, new CandleArchive(), meters) {
+            @Override
+            public void loadInitialCandles(String contract, String interval) {
+            }
+
+            @Override
+            public void backfill(String contract, String interval, long lastTime, long liveTime) {
+                backfills.put(contract + "/" + interval, new long[] {lastTime, liveTime});
+            }
+        };
+        client = new GateIoWebSocketClient(candleStickService, registry, meters, 2, 2);
+        registry.add(CONTRACTS);
+        for (String contract : CONTRACTS) {
+            candleStickService.replaceCandles(contract, "1m", history);
+        }
+    }
+
+    @AfterEach
+    void tearDown() {
+        client.shutdown();
+        candleStickService.shutdown();
+    }
+
+    @Test
+    void contractsMovedOffADeadConnectionBackfillTheirOutage() {
+        client.connectionLost(0, System.nanoTime() - TimeUnit.MILLISECONDS.toNanos(GateIoWebSocketClient.UNHEALTHY_AFTER_MS + 1_000));
+
+        client.rebalance();
+
+        List<WebSocketConnectionStats> stats = client.stats();
+        assertEquals(0, stats.get(0).contracts());
+        assertEquals(4, stats.get(1).contracts());
+        long live = last + 600;
+        for (String contract : CONTRACTS) {
+            client.handleMessage(candle(contract, live));
+        }
+        // the moved contracts' first live bar triggers the backfill of the hole behind it
+        assertArrayEquals(new long[] {last, live}, backfills.get("A_USDT/1m"));
+        assertArrayEquals(new long[] {last, live}, backfills.get("C_USDT/1m"));
+        // B and D stayed on the live connection
+        assertNull(backfills.get("B_USDT/1m"));
+        assertNull(backfills.get("D_USDT/1m"));
+
+        // only the first live bar is checked
+        backfills.clear();
+        client.handleMessage(candle("A_USDT", live + 60));
+        assertNull(backfills.get("A_USDT/1m"));
+    }
+
+    @Test
+    void connectionDownBrieflyKeepsItsContracts() {
+        client.connectionLost(0, System.nanoTime());
+
+        client.rebalance();
+
+        assertEquals(2, client.stats().get(0).contracts());
+        assertEquals(2, client.stats().get(1).contracts());
+    }
+
+    private static String candle(String contract, long time) {
+        return """
+            {"time":%d,"time_ms":%d000,"channel":"futures.candlesticks","event":"update","result":[{"t":%d,"v":10,"c":"0.61","h":"0.62","l":"0.6","o":"0.605","n":"1m_%s","a":"6.1"}]}"""
+            .formatted(time, time, time, contract);
+    }
+}
@@ -0,0 +1,55 @@
+package org.example.crypto.service;
+
+import org.example.crypto.dto.CandleColumns;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+
+/**
+ * The kernels in use ({@link IndicatorKernels#INSTANCE}, SIMD when the test JVM has the Vector
+ * API) against the scalar loops, bit for bit. 1001 bars leave a tail that fills no vector.
+ */
+class IndicatorKernelsTest {
+
+    private static final int BARS = 1001;
+
+    private final CandleColumns candles = TestCandles.candles(BARS, 17);
+    private final IndicatorKernels kernels = IndicatorKernels.INSTANCE;
+
+    @Test
+    void stochasticRangeMatchesScalar() {
+        int k = 10;
+        double[] rdiff = new double[BARS - k + 1];
+        double[] diff = new double[BARS - k + 1];
+        double[] scalarRdiff = new double[BARS - k + 1];
+        double[] scalarDiff = new double[BARS - k + 1];
+        kernels.stochasticRange(candles.high(), candles.low(), candles.close(), k, rdiff, diff);
+        IndicatorKernels.SCALAR.stochasticRange(candles.high(), candles.low(), candles.close(), k, scalarRdiff, scalarDiff);
+        assertArrayEquals(scalarRdiff, rdiff);
+        assertArrayEquals(scalarDiff, diff);
+    }
+
+    @Test
+    void trueRangeMatchesScalar() {
+        double[] out = new double[BARS];
+        double[] scalar = new double[BARS];
+        kernels.trueRange(candles.high(), candles.low(), candles.close(), out);
+        IndicatorKernels.SCALAR.trueRange(candles.high(), candles.low(), candles.close(), scalar);
+        assertArrayEquals(scalar, out);
+    }
+
+    @Test
+    void anglesMatchScalar() {
+        double[] atr = new double[BARS];
+        IndicatorKernels.SCALAR.trueRange(candles.high(), candles.low(), candles.close(), atr);
+        // a flat stretch has no range, where the angle is defined as 0
+        for (int i = 100; i < 140; i++) {
+            atr[i] = 0;
+        }
+        double[] out = new double[BARS];
+        double[] scalar = new double[BARS];
+        kernels.angles(candles.close(), atr, out);
+        IndicatorKernels.SCALAR.angles(candles.close(), atr, scalar);
+        assertArrayEquals(scalar, out);
+    }
+}
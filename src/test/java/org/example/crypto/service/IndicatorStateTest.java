@@ -0,0 +1,95 @@
+package org.example.crypto.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.example.crypto.dto.CandleColumns;
+import org.example.crypto.dto.EMACloudResult;
+import org.example.crypto.dto.MAAnglesResult;
+import org.example.crypto.dto.SMIResult;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * {@link IndicatorState} against the batch {@code calculate} methods, which remain the
+ * reference: the outputs must be equal, not merely close.
+ */
+class IndicatorStateTest {
+
+    private static final int BARS = 600;
+
+    private final SimpleMeterRegistry meters = new SimpleMeterRegistry();
+    private final SMIIndicatorService smi = new SMIIndicatorService(meters);
+    private final EMACloudIndicatorService emaCloud = new EMACloudIndicatorService(meters);
+    private final MAAnglesIndicatorService maAngles = new MAAnglesIndicatorService(meters);
+    private final CandleColumns candles = TestCandles.candles(BARS, 42);
+
+    @Test
+    void appendedBarsMatchBatch() {
+        IndicatorState state = new IndicatorState(BARS);
+        for (int i = 0; i < BARS; i++) {
+            append(state, i, i);
+            // the gates open at different bar counts; check around them and then periodically
+            if (i % 37 == 0 || i == BARS - 1) {
+                assertMatches(candles.slice(0, i + 1), state);
+            }
+        }
+    }
+
+    @Test
+    void replacedLastBarMatchesBatch() {
+        IndicatorState state = new IndicatorState(BARS);
+        for (int i = 0; i < BARS; i++) {
+            // a few ticks of the bar still forming, then its final values
+            double open = candles.open()[i];
+            state.update(i, true, candles.time()[i], open, open, open);
+            state.update(i, false, candles.time()[i], candles.high()[i], open, candles.close()[i]);
+            state.update(i, false, candles.time()[i], candles.high()[i], candles.low()[i], open);
+            state.update(i, false, candles.time()[i], candles.high()[i], candles.low()[i], candles.close()[i]);
+        }
+        assertMatches(candles, state);
+    }
+
+    @Test
+    void reloadMatchesBatch() {
+        IndicatorState state = new IndicatorState(BARS);
+        // state left over from another history must not leak into the reload
+        state.reload(1, TestCandles.candles(BARS, 7));
+        state.reload(2, candles);
+        assertMatches(candles, state);
+
+        state.reload(3, candles.slice(0, 300));
+        for (int i = 300; i < BARS; i++) {
+            append(state, i, 4 + i);
+        }
+        assertMatches(candles, state);
+    }
+
+    @Test
+    void evictedRingMatchesBatchOverEveryBarSinceReload() {
+        int capacity = 400;
+        IndicatorState state = new IndicatorState(capacity);
+        for (int i = 0; i < BARS; i++) {
+            append(state, i, i);
+        }
+        long from = candles.time()[BARS - capacity];
+        assertEquals(smi.calculate(candles).data().stream().filter(p -> p.time() >= from).toList(),
+            state.smiResult().data());
+        assertEquals(emaCloud.calculate(candles).data().stream().filter(p -> p.time() >= from).toList(),
+            state.emaCloudResult().data());
+        assertEquals(maAngles.calculate(candles).data().stream().filter(p -> p.time() >= from).toList(),
+            state.maAnglesResult().data());
+    }
+
+    private void append(IndicatorState state, int bar, long version) {
+        state.update(version, true, candles.time()[bar], candles.high()[bar], candles.low()[bar], candles.close()[bar]);
+    }
+
+    private void assertMatches(CandleColumns bars, IndicatorState state) {
+        SMIResult expectedSmi = smi.calculate(bars);
+        EMACloudResult expectedEmaCloud = emaCloud.calculate(bars);
+        MAAnglesResult expectedMaAngles = maAngles.calculate(bars);
+        assertEquals(expectedSmi, state.smiResult(), "SMI over " + bars.size() + " bars");
+        assertEquals(expectedEmaCloud, state.emaCloudResult(), "EMA Cloud over " + bars.size() + " bars");
+        assertEquals(expectedMaAngles, state.maAnglesResult(), "MA Angles over " + bars.size() + " bars");
+    }
+}
@@ -0,0 +1,224 @@
+package org.example.crypto.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.example.crypto.dto.NotificationStats;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * {@link NotificationDispatcher} driving the real Slack and Telegram channels against a local
+ * stub HTTP server, which answers with scripted responses and records every request.
+ */
+class NotificationDispatcherTest {
+
+    // timing checks allow this much early wake-up
+    private static final long SLACK_MS = 20;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final BlockingQueue<Request> requests = new LinkedBlockingQueue<>();
+    private final Queue<Response> responses = new ConcurrentLinkedQueue<>();
+    private HttpServer server;
+    private NotificationDispatcher dispatcher;
+
+    private record Request(long nanos, String path, JsonNode body) {}
+
+    private record Response(int status, Map<String, String> headers, String body) {}
+
+    @BeforeEach
+    void startServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/", this::handle);
+        server.start();
+    }
+
+    @AfterEach
+    void stop() {
+        if (dispatcher != null) {
+            dispatcher.shutdown();
+        }
+        server.stop(0);
+    }
+
+    @Test
+    void retriesServerErrorsWithExponentialBackoff() throws Exception {
+        respond(500, Map.of(), "");
+        respond(503, Map.of(), "");
+        start(slack());
+
+        dispatcher.publish("signal");
+
+        Request first = next();
+        Request second = next();
+        Request third = next();
+        assertTrue(millisBetween(first, second) >= NotificationDispatcher.BASE_BACKOFF_MS - SLACK_MS);
+        assertTrue(millisBetween(second, third) >= 2 * NotificationDispatcher.BASE_BACKOFF_MS - SLACK_MS);
+        assertEquals("signal", third.body().path("text").asText());
+        NotificationStats stats = awaitDelivered(1);
+        assertEquals(2, stats.retries());
+        assertEquals(0, stats.failed());
+    }
+
+    @Test
+    void slackRateLimitWaitsForRetryAfter() throws Exception {
+        respond(429, Map.of("Retry-After", "1"), "rate_limited");
+        start(slack());
+
+        dispatcher.publish("signal");
+
+        Request limited = next();
+        Request retried = next();
+        assertTrue(millisBetween(limited, retried) >= 1_000 - SLACK_MS);
+        awaitDelivered(1);
+    }
+
+    @Test
+    void telegramRateLimitWaitsForRetryAfterInTheBody() throws Exception {
+        respond(429, Map.of(), "{\"ok\": false, \"error_code\": 429, \"parameters\": {\"retry_after\": 2}}");
+        start(telegram());
+
+        dispatcher.publish("signal");
+
+        Request limited = next();
+        Request retried = next();
+        assertEquals("/botTOKEN/sendMessage", retried.path());
+        assertTrue(millisBetween(limited, retried) >= 2_000 - SLACK_MS);
+        assertEquals("42", retried.body().path("chat_id").asText());
+        awaitDelivered(1);
+    }
+
+    @Test
+    void rejectedPayloadIsNotRetried() throws Exception {
+        respond(400, Map.of(), "invalid_payload");
+        start(slack());
+
+        dispatcher.publish("signal");
+
+        next();
+        assertNull(requests.poll(2 * NotificationDispatcher.BASE_BACKOFF_MS, TimeUnit.MILLISECONDS));
+        assertEquals(1, dispatcher.stats().get(0).failed());
+    }
+
+    @Test
+    void telegramDeliveriesArePaced() throws Exception {
+        TelegramNotificationService telegram = telegram();
+        start(telegram);
+        // the interval is kept between attempts, so measure once the connection is open
+        dispatcher.publish("warm-up");
+        next();
+
+        dispatcher.publish("first");
+        Request first = next();
+        dispatcher.publish("second");
+        Request second = next();
+
+        assertTrue(millisBetween(first, second) >= telegram.minIntervalMillis() - SLACK_MS);
+    }
+
+    @Test
+    void messagesInOneWindowAreCoalescedIntoValidJson() throws Exception {
+        start(slack());
+        // quotes, backslashes and newlines must survive the join into one JSON body
+        List<String> messages = List.of("a \"quoted\" price", "C:\\path\\to", "line one\nline two");
+
+        messages.forEach(dispatcher::publish);
+
+        Request request = next();
+        assertEquals(String.join("\n\n", messages), request.body().path("text").asText());
+        assertNull(requests.poll(NotificationDispatcher.COALESCE_WINDOW_MS * 2, TimeUnit.MILLISECONDS));
+        assertEquals(3, awaitDelivered(3).delivered());
+    }
+
+    @Test
+    void coalescedBatchesAreSplitAtTheLengthLimit() throws Exception {
+        TelegramNotificationService telegram = telegram();
+        start(telegram);
+        String long1 = "x".repeat(3_000);
+        String long2 = "y".repeat(3_000);
+
+        dispatcher.publish(long1);
+        dispatcher.publish(long2);
+
+        assertEquals(long1, next().body().path("text").asText());
+        assertEquals(long2, next().body().path("text").asText());
+    }
+
+    private SlackNotificationService slack() {
+        return new SlackNotificationService(baseUrl() + "/services/hook");
+    }
+
+    private TelegramNotificationService telegram() {
+        return new TelegramNotificationService(baseUrl(), "TOKEN", "42");
+    }
+
+    private String baseUrl() {
+        return "http://127.0.0.1:" + server.getAddress().getPort();
+    }
+
+    private void start(NotificationChannel channel) {
+        dispatcher = new NotificationDispatcher(List.of(channel), new SimpleMeterRegistry());
+        dispatcher.init();
+    }
+
+    private void respond(int status, Map<String, String> headers, String body) {
+        responses.add(new Response(status, headers, body));
+    }
+
+    private Request next() throws InterruptedException {
+        Request request = requests.poll(10, TimeUnit.SECONDS);
+        assertNotNull(request, "no request reached the stub server");
+        return request;
+    }
+
+    private NotificationStats awaitDelivered(long count) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        NotificationStats stats = dispatcher.stats().get(0);
+        while (stats.delivered() < count && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+            stats = dispatcher.stats().get(0);
+        }
+        assertEquals(count, stats.delivered());
+        return stats;
+    }
+
+    private static long millisBetween(Request a, Request b) {
+        return TimeUnit.NANOSECONDS.toMillis(b.nanos() - a.nanos());
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        long now = System.nanoTime();
+        byte[] body = exchange.getRequestBody().readAllBytes();
+        requests.add(new Request(now, exchange.getRequestURI().getPath(), objectMapper.readTree(body)));
+        Response response = responses.poll();
+        if (response == null) {
+            response = new Response(200, Map.of(), "ok");
+        }
+        response.headers().forEach(exchange.getResponseHeaders()::add);
+        byte[] out = response.body().getBytes(StandardCharsets.UTF_8);
+        exchange.sendResponseHeaders(response.status(), out.length == 0 ? -1 : out.length);
+        try (OutputStream stream = exchange.getResponseBody()) {
+            stream.write(out);
+        }
+    }
+}
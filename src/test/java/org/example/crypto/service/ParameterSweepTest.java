@@ -0,0 +1,49 @@
+package org.example.crypto.service;
+
+import org.example.crypto.dto.StrategyConfig;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class ParameterSweepTest {
+
+    private static final StrategyConfig NO_PARAMS = new StrategyConfig(300, Map.of(), List.of());
+
+    @Test
+    void sweepsTheDeclaredParams() {
+        List<Backtester.Config> configs = ParameterSweep.combinations(
+            sweep(List.of(-50.0, -40.0), List.of(2, 4)), Backtester.Config.DEFAULT);
+
+        assertEquals(4, configs.size());
+        configs.forEach(Backtester.Config::program);
+    }
+
+    @Test
+    void rejectsSweepingAParamTheStrategiesDoNotDeclare() {
+        Backtester.Config live = Backtester.Config.of(NO_PARAMS);
+
+        assertThrows(IllegalArgumentException.class,
+            () -> ParameterSweep.combinations(sweep(List.of(-50.0), null), live));
+        assertThrows(IllegalArgumentException.class,
+            () -> ParameterSweep.combinations(sweep(null, List.of(3)), live));
+        // leaving them unswept still replays the strategies as they are
+        assertEquals(1, ParameterSweep.combinations(sweep(null, null), live).size());
+        live.program();
+    }
+
+    @Test
+    void rejectsOverridesOfUndeclaredParams() {
+        assertThrows(IllegalArgumentException.class,
+            () -> StrategyProgram.compile(StrategyProgram.builtIn(), Map.of("oversld", -50.0)));
+        StrategyProgram.compile(StrategyProgram.builtIn(), Map.of("oversold", -50.0));
+    }
+
+    private static BacktestService.Sweep sweep(List<Double> oversold, List<Integer> minDwell) {
+        return new BacktestService.Sweep(null, null, null, null, null, null, oversold, null, minDwell,
+            0.0005, 0, 0, "return", 0, 10);
+    }
+}
@@ -0,0 +1,291 @@
+package org.example.crypto.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * The rolling accumulators against recomputing each window from scratch, over random windows
+ * and values. Values repeat often, so the extremes see ties.
+ */
+class RollingTest {
+
+    private static final int VALUES = 2_000;
+
+    private final Random random = new Random(7);
+
+    @Test
+    void extremesMatchAScanOfTheWindow() {
+        for (int window : windows()) {
+            double[] values = values(VALUES);
+            Rolling.Extreme max = Rolling.max(window);
+            Rolling.Extreme min = Rolling.min(window);
+            assertEquals(Double.NEGATIVE_INFINITY, max.value());
+            assertEquals(Double.POSITIVE_INFINITY, min.value());
+
+            for (int i = 0; i < values.length; i++) {
+                max.add(values[i]);
+                min.add(values[i]);
+                int from = Math.max(0, i + 1 - window);
+                double next = value();
+                assertEquals(naiveMax(values, from, i + 1), max.value(), "max of " + window + " at " + i);
+                assertEquals(naiveMin(values, from, i + 1), min.value(), "min of " + window + " at " + i);
+                assertEquals(Math.max(naiveMax(values, from, i + 1), next), max.valueWith(next));
+                assertEquals(Math.min(naiveMin(values, from, i + 1), next), min.valueWith(next));
+            }
+        }
+    }
+
+    @Test
+    void anEmptyExtremeWindowHoldsNothing() {
+        Rolling.Extreme max = Rolling.max(0);
+        max.add(3);
+        assertEquals(Double.NEGATIVE_INFINITY, max.value());
+        assertEquals(2, max.valueWith(2));
+    }
+
+    @Test
+    void extremesStartOverAfterClear() {
+        int window = 5;
+        Rolling.Extreme max = Rolling.max(window);
+        for (int i = 0; i < 12; i++) {
+            max.add(100 + i);
+        }
+        max.clear();
+        assertEquals(Double.NEGATIVE_INFINITY, max.value());
+
+        double[] values = values(50);
+        for (int i = 0; i < values.length; i++) {
+            max.add(values[i]);
+            assertEquals(naiveMax(values, Math.max(0, i + 1 - window), i + 1), max.value());
+        }
+    }
+
+    @Test
+    void sumMatchesTheExactSumOfTheWindow() {
+        for (int window : windows()) {
+            double[] values = values(VALUES);
+            Rolling.Sum sum = new Rolling.Sum(window);
+            for (int i = 0; i < values.length; i++) {
+                sum.add(values[i]);
+                int from = Math.max(0, i + 1 - window);
+                double next = value();
+                assertEquals(exactSum(values, from, i + 1), sum.sum(), 1e-9, "sum of " + window + " at " + i);
+                assertEquals(exactSum(values, from, i + 1) + next, sum.sumWith(next), 1e-9);
+                assertEquals(i + 1 - from, sum.size());
+                if (sum.size() > 0) {
+                    assertEquals(exactSum(values, from, i + 1) / sum.size(), sum.mean(), 1e-9);
+                }
+            }
+        }
+    }
+
+    @Test
+    void sumDoesNotDriftOverALongRun() {
+        // large values with small differences, where plain adding and evicting loses digits
+        int window = 50;
+        double[] values = new double[200_000];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = 1e9 + random.nextDouble() * 1e-3;
+        }
+        Rolling.Sum sum = new Rolling.Sum(window);
+        for (double value : values) {
+            sum.add(value);
+        }
+        double exact = exactSum(values, values.length - window, values.length);
+        assertEquals(exact, sum.sum(), Math.ulp(exact));
+    }
+
+    @Test
+    void sumStartsOverAfterClear() {
+        Rolling.Sum sum = new Rolling.Sum(3);
+        sum.add(1e16);
+        sum.add(1);
+        sum.clear();
+        assertEquals(0, sum.size());
+        assertTrue(Double.isNaN(sum.mean()));
+        assertEquals(0, sum.sum());
+
+        sum.add(2);
+        sum.add(3);
+        assertEquals(5, sum.sum());
+        assertEquals(9, sum.sumWith(4));
+    }
+
+    @Test
+    void varianceMatchesTwoPassesOverTheWindow() {
+        for (int window : windows()) {
+            if (window == 0) continue;
+            double[] values = values(VALUES);
+            Rolling.Variance variance = new Rolling.Variance(window);
+            for (int i = 0; i < values.length; i++) {
+                variance.add(values[i]);
+                int from = Math.max(0, i + 1 - window);
+                int n = i + 1 - from;
+                double mean = exactSum(values, from, i + 1) / n;
+                double squares = 0;
+                for (int j = from; j <= i; j++) {
+                    squares += (values[j] - mean) * (values[j] - mean);
+                }
+                assertEquals(n, variance.size());
+                assertEquals(mean, variance.mean(), 1e-9, "mean of " + window + " at " + i);
+                assertEquals(squares / n, variance.populationVariance(), 1e-9, "variance of " + window + " at " + i);
+                if (n > 1) {
+                    assertEquals(squares / (n - 1), variance.sampleVariance(), 1e-9);
+                } else {
+                    assertTrue(Double.isNaN(variance.sampleVariance()));
+                }
+            }
+        }
+    }
+
+    @Test
+    void varianceOfAConstantWindowIsZero() {
+        Rolling.Variance variance = new Rolling.Variance(4);
+        for (int i = 0; i < 20; i++) {
+            variance.add(i < 10 ? i * 0.1 : 0.3);
+        }
+        assertEquals(0, variance.populationVariance());
+        assertEquals(0.3, variance.mean(), 1e-15);
+    }
+
+    @Test
+    void varianceStartsOverAfterClear() {
+        Rolling.Variance variance = new Rolling.Variance(3);
+        variance.add(100);
+        variance.add(-100);
+        variance.clear();
+        assertEquals(0, variance.size());
+        assertTrue(Double.isNaN(variance.mean()));
+        assertTrue(Double.isNaN(variance.populationVariance()));
+
+        variance.add(1);
+        variance.add(3);
+        assertEquals(2, variance.mean());
+        assertEquals(1, variance.populationVariance());
+        assertEquals(2, variance.sampleVariance());
+    }
+
+    @Test
+    void varianceRejectsAnEmptyWindow() {
+        assertThrows(IllegalArgumentException.class, () -> new Rolling.Variance(0));
+    }
+
+    @Test
+    void emaMatchesItsClosedForm() {
+        for (int period : windows()) {
+            if (period == 0) continue;
+            double alpha = 2.0 / (period + 1);
+            double[] values = values(300);
+            Rolling.Ema ema = new Rolling.Ema(period);
+            assertTrue(Double.isNaN(ema.value()));
+            for (int i = 0; i < values.length; i++) {
+                double next = value();
+                assertEquals(weighted(values, i, next, alpha), ema.with(next), 1e-9, "ema " + period + " at " + i);
+                assertEquals(weighted(values, i, values[i], alpha), ema.add(values[i]), 1e-9);
+            }
+        }
+    }
+
+    @Test
+    void rmaMatchesItsClosedForm() {
+        for (int period : windows()) {
+            if (period == 0) continue;
+            double alpha = 1.0 / period;
+            double[] values = values(300);
+            Rolling.Rma rma = new Rolling.Rma(period);
+            assertTrue(Double.isNaN(rma.value()));
+            for (int i = 0; i < values.length; i++) {
+                double next = value();
+                assertEquals(weighted(values, i, next, alpha), rma.with(next), 1e-9, "rma " + period + " at " + i);
+                assertEquals(weighted(values, i, values[i], alpha), rma.add(values[i]), 1e-9);
+            }
+        }
+    }
+
+    @Test
+    void averagesStartOverAfterClear() {
+        Rolling.Ema ema = new Rolling.Ema(9);
+        Rolling.Rma rma = new Rolling.Rma(9);
+        Rolling.Ema freshEma = new Rolling.Ema(9);
+        Rolling.Rma freshRma = new Rolling.Rma(9);
+        for (double value : values(20)) {
+            ema.add(value);
+            rma.add(value);
+        }
+        ema.clear();
+        rma.clear();
+        assertTrue(Double.isNaN(ema.value()));
+        assertTrue(Double.isNaN(rma.value()));
+
+        for (double value : values(20)) {
+            assertEquals(freshEma.add(value), ema.add(value));
+            assertEquals(freshRma.add(value), rma.add(value));
+        }
+    }
+
+    // 0 and 1 as edge cases, then random sizes
+    private int[] windows() {
+        int[] windows = new int[8];
+        windows[1] = 1;
+        for (int i = 2; i < windows.length; i++) {
+            windows[i] = 2 + random.nextInt(i < 5 ? 10 : 200);
+        }
+        return windows;
+    }
+
+    private double[] values(int n) {
+        double[] values = new double[n];
+        for (int i = 0; i < n; i++) {
+            values[i] = value();
+        }
+        return values;
+    }
+
+    // coarse values, so the same value comes up again
+    private double value() {
+        return (random.nextInt(400) - 200) / 8.0;
+    }
+
+    private static double naiveMax(double[] values, int from, int to) {
+        double max = Double.NEGATIVE_INFINITY;
+        for (int i = from; i < to; i++) {
+            max = Math.max(max, values[i]);
+        }
+        return max;
+    }
+
+    private static double naiveMin(double[] values, int from, int to) {
+        double min = Double.POSITIVE_INFINITY;
+        for (int i = from; i < to; i++) {
+            min = Math.min(min, values[i]);
+        }
+        return min;
+    }
+
+    private static double exactSum(double[] values, int from, int to) {
+        BigDecimal sum = BigDecimal.ZERO;
+        for (int i = from; i < to; i++) {
+            sum = sum.add(new BigDecimal(values[i]));
+        }
+        return sum.doubleValue();
+    }
+
+    // an average seeded with values[0], after values[1..last) and then x: every value weighted by
+    // alpha and the seed by what is left
+    private static double weighted(double[] values, int last, double x, double alpha) {
+        double[] series = new double[last + 1];
+        System.arraycopy(values, 0, series, 0, last);
+        series[last] = x;
+        double value = 0;
+        for (int k = 1; k < series.length; k++) {
+            value += alpha * Math.pow(1 - alpha, series.length - 1 - k) * series[k];
+        }
+        return value + Math.pow(1 - alpha, series.length - 1) * series[0];
+    }
+}
@@ -0,0 +1,115 @@
+package org.example.crypto.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.example.crypto.dto.CandleColumns;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SignalDetectionServiceTest {
+
+    private static final String WATCHED = "XRP_USDT";
+    private static final String UNWATCHED = "ETH_USDT";
+
+    private final BlockingQueue<String> sent = new LinkedBlockingQueue<>();
+    private final CandleColumns history = TestCandles.candles(200, 3);
+    private CandleStickService candleStickService;
+    private NotificationDispatcher dispatcher;
+    private SignalDetectionService detection;
+
+    @BeforeEach
+    void setUp() {
+        MeterRegistry meters = new SimpleMeterRegistry();
+        ContractRegistry registry = new ContractRegistry();
+        candleStickService = new CandleStickService(registry, new CandleArchive(), meters) {
+            @Override
+            public void loadInitialCandles(String contract, String interval) {
+            }
+        };
+        IncrementalIndicatorEngine engine = new IncrementalIndicatorEngine(candleStickService, meters);
+        GateIoWebSocketClient webSocketClient = new GateIoWebSocketClient(candleStickService, registry, meters);
+        dispatcher = new NotificationDispatcher(List.of(new NotificationChannel() {
+            @Override
+            public String name() {
+                return "test";
+            }
+
+            @Override
+            public boolean isEnabled() {
+                return true;
+            }
+
+            @Override
+            public int maxMessageLength() {
+                return 10_000;
+            }
+
+            @Override
+            public void deliver(String message) {
+                sent.add(message);
+            }
+        }), meters);
+        dispatcher.init();
+        detection = new SignalDetectionService(candleStickService, registry, engine, webSocketClient, dispatcher,
+            new StrategyService(), meters);
+        detection.init();
+        registry.add(List.of(WATCHED, UNWATCHED));
+        detection.watch(List.of(WATCHED));
+        candleStickService.replaceCandles(WATCHED, "1m", history);
+        candleStickService.replaceCandles(UNWATCHED, "1m", history);
+        detection.awaitIdle();
+    }
+
+    @AfterEach
+    void tearDown() {
+        detection.shutdown();
+        dispatcher.shutdown();
+        candleStickService.shutdown();
+    }
+
+    @Test
+    void healthCheckReportsTheCurrentRangeOfEveryContract() throws InterruptedException {
+        detection.healthCheck();
+        String first = next();
+        assertTrue(first.contains("*XRP*"), first);
+        assertTrue(first.contains("*ETH*"), first);
+
+        // a new bar far above the history on both contracts
+        long time = history.time()[history.size() - 1] + 60;
+        for (String contract : List.of(WATCHED, UNWATCHED)) {
+            candleStickService.updateCandle(contract, "1m", time, 0.7, 9.5, 0.7, 0.8, 10);
+        }
+        detection.awaitIdle();
+        detection.healthCheck();
+
+        String second = next();
+        assertTrue(rangeLine(second, "XRP").contains("H: 9.5000"), second);
+        assertTrue(rangeLine(second, "ETH").contains("H: 9.5000"), second);
+    }
+
+    private String next() throws InterruptedException {
+        String message = sent.poll(5, TimeUnit.SECONDS);
+        assertNotNull(message, "no health check was delivered");
+        return message;
+    }
+
+    // the 24h line that follows the coin's price line
+    private static String rangeLine(String message, String coin) {
+        String[] lines = message.split("\n");
+        for (int i = 0; i + 1 < lines.length; i++) {
+            if (lines[i].startsWith("> *" + coin + "*: ") && lines[i].contains("USDT")) {
+                return lines[i + 1];
+            }
+        }
+        return "";
+    }
+}
@@ -0,0 +1,120 @@
+package org.example.crypto.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SignalStoreTest {
+
+    private static final long BAR = 1_700_000_000L;
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void announcesEachSignalOnce() throws IOException {
+        try (SignalStore store = new SignalStore(null)) {
+            int xrp = store.contract("XRP_USDT");
+            long key = SignalStore.key(xrp, 2, true, BAR);
+
+            assertTrue(store.add(key));
+            assertFalse(store.add(key));
+            // side, strategy, bar and contract each make a different signal
+            assertTrue(store.add(SignalStore.key(xrp, 2, false, BAR)));
+            assertTrue(store.add(SignalStore.key(xrp, 3, true, BAR)));
+            assertTrue(store.add(SignalStore.key(xrp, 2, true, BAR + 60)));
+            assertTrue(store.add(SignalStore.key(store.contract("BTC_USDT"), 2, true, BAR)));
+
+            assertTrue(store.remove(key));
+            assertFalse(store.contains(key));
+            assertTrue(store.add(key));
+        }
+    }
+
+    @Test
+    void resetForgetsOnlyThatContract() throws IOException {
+        try (SignalStore store = new SignalStore(null)) {
+            int xrp = store.contract("XRP_USDT");
+            int btc = store.contract("BTC_USDT");
+            long xrpKey = SignalStore.key(xrp, 2, true, BAR);
+            long btcKey = SignalStore.key(btc, 2, true, BAR);
+            store.add(xrpKey);
+            store.add(btcKey);
+
+            store.reset(xrp);
+
+            assertFalse(store.contains(xrpKey));
+            assertTrue(store.contains(btcKey));
+            assertTrue(store.add(xrpKey));
+        }
+    }
+
+    @Test
+    void expiresSignalsADayOlderThanTheNewest() throws IOException {
+        try (SignalStore store = new SignalStore(null)) {
+            int xrp = store.contract("XRP_USDT");
+            long old = SignalStore.key(xrp, 2, true, BAR);
+            store.add(old);
+
+            store.add(SignalStore.key(xrp, 2, true, BAR + SignalStore.RETENTION_SECONDS + 60));
+
+            assertFalse(store.contains(old));
+            assertEquals(1, store.size());
+        }
+    }
+
+    @Test
+    void replaysTheJournalAfterARestart() throws IOException {
+        Path journal = dir.resolve("signals.journal");
+        long kept;
+        long removed;
+        long reset;
+        try (SignalStore store = new SignalStore(journal)) {
+            int xrp = store.contract("XRP_USDT");
+            int btc = store.contract("BTC_USDT");
+            kept = SignalStore.key(xrp, 2, true, BAR);
+            removed = SignalStore.key(xrp, 5, false, BAR);
+            reset = SignalStore.key(btc, 2, true, BAR);
+            store.add(kept);
+            store.add(removed);
+            store.add(reset);
+            store.remove(removed);
+            store.reset(btc);
+        }
+
+        // contracts are interned in a different order after the restart
+        try (SignalStore store = new SignalStore(journal)) {
+            int btc = store.contract("BTC_USDT");
+            int xrp = store.contract("XRP_USDT");
+            assertTrue(store.contains(SignalStore.key(xrp, 2, true, BAR)));
+            assertFalse(store.contains(SignalStore.key(xrp, 5, false, BAR)));
+            assertFalse(store.contains(SignalStore.key(btc, 2, true, BAR)));
+            assertFalse(store.add(SignalStore.key(xrp, 2, true, BAR)));
+        }
+    }
+
+    @Test
+    void tornRecordEndsTheReplay() throws IOException {
+        Path journal = dir.resolve("signals.journal");
+        long key;
+        try (SignalStore store = new SignalStore(journal)) {
+            key = SignalStore.key(store.contract("XRP_USDT"), 2, true, BAR);
+            store.add(key);
+        }
+        // half of an ADD record, as a crash mid-write leaves it
+        Files.write(journal, new byte[] {'A', 0, 0, 0}, StandardOpenOption.APPEND);
+
+        try (SignalStore store = new SignalStore(journal)) {
+            assertTrue(store.contains(SignalStore.key(store.contract("XRP_USDT"), 2, true, BAR)));
+            assertEquals(1, store.size());
+        }
+    }
+}
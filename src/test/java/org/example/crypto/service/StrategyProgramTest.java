@@ -0,0 +1,307 @@
+package org.example.crypto.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.example.crypto.dto.CandleColumns;
+import org.example.crypto.dto.EMACloudResult;
+import org.example.crypto.dto.MAAnglesResult;
+import org.example.crypto.dto.SMIResult;
+import org.example.crypto.dto.StrategyConfig;
+import org.example.crypto.dto.StrategyConfig.Condition;
+import org.example.crypto.dto.StrategyConfig.Group;
+import org.example.crypto.dto.StrategyConfig.Strategy;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class StrategyProgramTest {
+
+    private static final double NaN = Double.NaN;
+    private static final List<Condition> WHEN = List.of(new Condition("smi", "<", "0", null, null));
+
+    @Test
+    void compilesTheBuiltInStrategies() {
+        StrategyProgram.compile(StrategyProgram.builtIn(), Map.of());
+    }
+
+    @Test
+    void rejectsAStrategyIdReusedOnTheSameSide() {
+        StrategyConfig config = new StrategyConfig(300, Map.of(), List.of(
+            group("first", "LONG", 2), group("second", "LONG", 2)));
+
+        assertThrows(IllegalArgumentException.class, () -> StrategyProgram.compile(config, Map.of()));
+    }
+
+    @Test
+    void allowsTheSameStrategyIdOnOppositeSides() {
+        StrategyConfig config = new StrategyConfig(300, Map.of(), List.of(
+            group("long", "LONG", 2), group("short", "SHORT", 2)));
+
+        StrategyProgram.compile(config, Map.of());
+    }
+
+    @Test
+    void builtInStrategiesFireWhereTheBaselineRulesFired() {
+        StrategyProgram program = StrategyProgram.compile(StrategyProgram.builtIn(), Map.of());
+        SimpleMeterRegistry meters = new SimpleMeterRegistry();
+        SMIIndicatorService smiService = new SMIIndicatorService(meters);
+        EMACloudIndicatorService emaService = new EMACloudIndicatorService(meters);
+        MAAnglesIndicatorService maService = new MAAnglesIndicatorService(meters);
+
+        for (long seed = 1; seed <= 3; seed++) {
+            CandleColumns candles = TestCandles.candles(3_000, seed);
+            Map<Long, SMIResult.SMIPoint> smi = new HashMap<>();
+            smiService.calculate(candles).data().forEach(d -> smi.put(d.time(), d));
+            Map<Long, EMACloudResult.EMACloudPoint> ema = new HashMap<>();
+            emaService.calculate(candles).data().forEach(d -> ema.put(d.time(), d));
+            Map<Long, MAAnglesResult.MAAnglesPoint> ma = new HashMap<>();
+            maService.calculate(candles).data().forEach(d -> ma.put(d.time(), d));
+
+            List<String> expected = baselineSignals(candles, smi, ema, ma);
+            List<String> actual = new ArrayList<>();
+            StrategyProgram.Machine machine = program.newMachine();
+            double[] bar = new double[StrategyProgram.SERIES];
+            for (int i = 0; i < candles.size(); i++) {
+                long time = candles.time()[i];
+                SMIResult.SMIPoint s = smi.get(time);
+                EMACloudResult.EMACloudPoint e = ema.get(time);
+                MAAnglesResult.MAAnglesPoint m = ma.get(time);
+                bar[StrategyProgram.SMI] = s != null ? s.smi() : NaN;
+                bar[StrategyProgram.SIGNAL] = s != null ? s.signal() : NaN;
+                bar[StrategyProgram.FAST_EMA] = e != null ? e.fastEMA() : NaN;
+                bar[StrategyProgram.SLOW_EMA] = e != null ? e.slowEMA() : NaN;
+                bar[StrategyProgram.JMA_SLOPE] = m != null ? m.jmaSlope() : NaN;
+                int[] fired = machine.advance(bar);
+                for (int g = 0; g < fired.length; g++) {
+                    if (fired[g] != StrategyProgram.NONE) {
+                        actual.add(signal(i, program.side(g) > 0 ? "LONG" : "SHORT", fired[g]));
+                    }
+                }
+            }
+
+            assertFalse(expected.isEmpty(), "seed " + seed + " has no signals to compare");
+            assertEquals(expected, actual, "seed " + seed);
+        }
+    }
+
+    @Test
+    void dwellCountsTheRunAndTurnWaitsForTheComeback() {
+        StrategyProgram dwell = program(null, null, new Condition("smi", "<=", "-40", "3", null));
+        assertEquals(List.of(0, 0, 1, 1, 0, 0, 0, 1),
+            fired(dwell, -50, -60, -70, -80, -30, -50, -45, -41));
+
+        StrategyProgram turn = program(null, null, new Condition("smi", "<=", "-40", "3", true));
+        // the third bar is above the run's low; a new low waits for the next comeback; a run
+        // broken by the zone's edge starts over with its own low
+        assertEquals(List.of(0, 0, 1, 0, 1, 0, 0, 0, 1),
+            fired(turn, -50, -60, -55, -70, -65, -30, -50, -45, -41));
+        // still falling: in the zone long enough but never off its low
+        assertEquals(List.of(0, 0, 0, 0, 0), fired(turn, -50, -60, -70, -80, -90));
+    }
+
+    @Test
+    void overboughtTurnComesOffTheHigh() {
+        StrategyProgram turn = program(null, null, new Condition("smi", ">=", "40", "2", true));
+        assertEquals(List.of(0, 0, 1, 0, 1), fired(turn, 50, 60, 55, 70, 65));
+    }
+
+    @Test
+    void crossesNeedTheOperandsOnTheOtherSideOneBarBefore() {
+        StrategyProgram above = program(null, null, new Condition("smi", "crossesAbove", "signal", null, null));
+        double[][] bars = {{-1, 0}, {1, 0}, {2, 0}, {0, 0}, {1, 0}, {-1, 0}};
+        // touching counts as below on the bar before, not as a cross on the bar itself
+        assertEquals(List.of(0, 1, 0, 0, 1, 0), fired(above, bars));
+
+        StrategyProgram below = program(null, null, new Condition("smi", "crossesBelow", "signal", null, null));
+        assertEquals(List.of(0, 0, 0, 0, 0, 1), fired(below, bars));
+    }
+
+    @Test
+    void laggedOperandsReadEarlierBars() {
+        StrategyProgram lagged = program(null, null, new Condition("smi[1]", "crossesAbove", "0", null, null));
+        // smi[1] crosses on the bar after smi itself did
+        assertEquals(List.of(0, 0, 1, 0, 0), fired(lagged, -1, 1, 5, -3, -2));
+
+        StrategyProgram back = program(null, null, new Condition("smi", ">", "smi[2]", null, null));
+        // nothing two bars back until the third bar
+        assertEquals(List.of(0, 0, 1, 0, 1), fired(back, 1, 2, 3, 1, 4));
+
+        StrategyProgram crossedBelow = program(null, null, new Condition("smi[2]", "crossesBelow", "signal[2]", null, null));
+        double[][] bars = {{1, 0}, {-1, 0}, {-2, 0}, {-3, 0}, {-4, 0}};
+        assertEquals(List.of(0, 0, 0, 1, 0), fired(crossedBelow, bars));
+    }
+
+    @Test
+    void aGroupFiresOncePerEpisodeUntilRearmed() {
+        Condition oversold = new Condition("smi", "<=", "-40", null, null);
+        StrategyProgram rearmed = program(null, new Condition("smi", ">", "-40", null, null), oversold);
+        // quiet for the rest of the zone, and on the bar that leaves it
+        assertEquals(List.of(1, 0, 0, 0, 1, 0), fired(rearmed, -50, -60, -45, -30, -50, -55));
+
+        StrategyProgram everyBar = program(null, null, oversold);
+        assertEquals(List.of(1, 1, 1, 0, 1, 1), fired(everyBar, -50, -60, -45, -30, -50, -55));
+    }
+
+    @Test
+    void aHigherPriorityStrategyWinsTheBar() {
+        Condition oversold = new Condition("smi", "<=", "-40", null, null);
+        Condition bullish = new Condition("fastEma", ">", "slowEma", null, null);
+        StrategyConfig config = new StrategyConfig(null, Map.of(), List.of(new Group("g", "LONG", "g",
+            new Condition("smi", ">", "-40", null, null),
+            List.of(new Strategy(3, 2, null, List.of(oversold)), new Strategy(2, 1, null, List.of(oversold, bullish))))));
+        StrategyProgram program = StrategyProgram.compile(config, Map.of());
+
+        StrategyProgram.Machine machine = program.newMachine();
+        assertEquals(2, machine.advance(new double[] {-50, 0, 2, 1, 0})[0]);
+        assertEquals(StrategyProgram.NONE, machine.advance(new double[] {-50, 0, 2, 1, 0})[0]);
+        machine.advance(new double[] {0, 0, 2, 1, 0});
+        assertEquals(3, machine.advance(new double[] {-50, 0, 1, 2, 0})[0]);
+    }
+
+    @Test
+    void nothingFiresBeforeMinBars() {
+        StrategyProgram program = program(3, new Condition("smi", ">", "-40", null, null),
+            new Condition("smi", "<=", "-40", "2", null));
+        // the dwell counts bars before minBars, the firing waits for it
+        assertEquals(List.of(0, 0, 1, 0), fired(program, -50, -50, -50, -50));
+        // and a bar that is only peeked at does not count
+        StrategyProgram.Machine machine = program.newMachine();
+        machine.advance(bar(-50));
+        machine.advance(bar(-50));
+        assertEquals(1, machine.peek(bar(-50))[0]);
+        assertEquals(2, machine.bars());
+        assertEquals(1, machine.advance(bar(-50))[0]);
+    }
+
+    @Test
+    void naNOperandsNeverHold() {
+        StrategyProgram below = program(null, null, new Condition("smi", "<", "0", null, null));
+        assertEquals(List.of(0, 1, 0), fired(below, NaN, -1, NaN));
+        StrategyProgram above = program(null, null, new Condition("smi", ">=", "0", null, null));
+        assertEquals(List.of(0, 1), fired(above, NaN, 1));
+
+        // NaN ends a dwell run
+        StrategyProgram dwell = program(null, null, new Condition("smi", "<", "0", "2", null));
+        assertEquals(List.of(0, 0, 0, 1), fired(dwell, -1, NaN, -1, -1));
+
+        // and a cross needs both bars
+        StrategyProgram cross = program(null, null, new Condition("smi", "crossesAbove", "signal", null, null));
+        assertEquals(List.of(0, 0, 0), fired(cross, new double[][] {{-1, 0}, {-1, NaN}, {1, 0}}));
+    }
+
+    // the baseline's rules over a closed history: a zone scan plus trend/JMA, first signal per zone
+    private static List<String> baselineSignals(CandleColumns candles, Map<Long, SMIResult.SMIPoint> smi,
+                                                Map<Long, EMACloudResult.EMACloudPoint> ema,
+                                                Map<Long, MAAnglesResult.MAAnglesPoint> ma) {
+        List<String> signals = new ArrayList<>();
+        long[] time = candles.time();
+        boolean oversoldSignaled = false;
+        boolean overboughtSignaled = false;
+        // detection started once 300 bars were loaded
+        for (int i = 299; i < candles.size(); i++) {
+            var e = ema.get(time[i]);
+            var m = ma.get(time[i]);
+            var smiCur = smi.get(time[i]);
+            var smiPrev = smi.get(time[i - 1]);
+            if (e == null || m == null || smiCur == null || smiPrev == null) continue;
+
+            if (!oversoldSignaled && scanOversoldZone(smi, time, i)) {
+                if (e.upTrend() && m.jmaSlope() >= 0) {
+                    oversoldSignaled = true;
+                    signals.add(signal(i, "LONG", 2));
+                } else if (m.jmaSlope() >= 0) {
+                    oversoldSignaled = true;
+                    signals.add(signal(i, "LONG", 3));
+                }
+            }
+            if (smiCur.smi() > -40) oversoldSignaled = false;
+
+            if (!overboughtSignaled && scanOverboughtZone(smi, time, i)) {
+                if (e.downTrend() && m.jmaSlope() < 0) {
+                    overboughtSignaled = true;
+                    signals.add(signal(i, "SHORT", 2));
+                } else if (m.jmaSlope() < 0) {
+                    overboughtSignaled = true;
+                    signals.add(signal(i, "SHORT", 3));
+                }
+            }
+            if (smiCur.smi() < 40) overboughtSignaled = false;
+        }
+        return signals;
+    }
+
+    private static boolean scanOversoldZone(Map<Long, SMIResult.SMIPoint> smi, long[] time, int currentIdx) {
+        var smiCur = smi.get(time[currentIdx]);
+        if (smiCur == null || smiCur.smi() > -40) return false;
+        int dwellCount = 1;
+        double minSmi = smiCur.smi();
+        for (int j = currentIdx - 1; j >= 0; j--) {
+            var point = smi.get(time[j]);
+            if (point == null || point.smi() > -40) break;
+            dwellCount++;
+            minSmi = Math.min(minSmi, point.smi());
+        }
+        return dwellCount >= 4 && smiCur.smi() > minSmi;
+    }
+
+    private static boolean scanOverboughtZone(Map<Long, SMIResult.SMIPoint> smi, long[] time, int currentIdx) {
+        var smiCur = smi.get(time[currentIdx]);
+        if (smiCur == null || smiCur.smi() < 40) return false;
+        int dwellCount = 1;
+        double maxSmi = smiCur.smi();
+        for (int j = currentIdx - 1; j >= 0; j--) {
+            var point = smi.get(time[j]);
+            if (point == null || point.smi() < 40) break;
+            dwellCount++;
+            maxSmi = Math.max(maxSmi, point.smi());
+        }
+        return dwellCount >= 4 && smiCur.smi() < maxSmi;
+    }
+
+    private static String signal(int bar, String side, int strategy) {
+        return bar + " " + side + " " + strategy;
+    }
+
+    // one LONG group of a single strategy (id 1)
+    private static StrategyProgram program(Integer minBars, Condition rearm, Condition... when) {
+        StrategyConfig config = new StrategyConfig(minBars, Map.of(), List.of(
+            new Group("test", "LONG", "test", rearm, List.of(new Strategy(1, null, null, List.of(when))))));
+        return StrategyProgram.compile(config, Map.of());
+    }
+
+    private static List<Integer> fired(StrategyProgram program, double... smi) {
+        double[][] bars = new double[smi.length][];
+        for (int i = 0; i < smi.length; i++) {
+            bars[i] = new double[] {smi[i], 0};
+        }
+        return fired(program, bars);
+    }
+
+    // each bar as {smi, signal}
+    private static List<Integer> fired(StrategyProgram program, double[][] bars) {
+        StrategyProgram.Machine machine = program.newMachine();
+        List<Integer> fired = new ArrayList<>();
+        for (double[] smiAndSignal : bars) {
+            double[] bar = bar(smiAndSignal[0]);
+            bar[StrategyProgram.SIGNAL] = smiAndSignal[1];
+            fired.add(machine.advance(bar)[0]);
+        }
+        return fired;
+    }
+
+    private static double[] bar(double smi) {
+        double[] bar = new double[StrategyProgram.SERIES];
+        bar[StrategyProgram.SMI] = smi;
+        return bar;
+    }
+
+    private static Group group(String name, String side, int strategyId) {
+        return new Group(name, side, name, null, List.of(new Strategy(strategyId, null, null, WHEN)));
+    }
+}
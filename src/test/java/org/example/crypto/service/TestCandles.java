@@ -0,0 +1,41 @@
+package org.example.crypto.service;
+
+import org.example.crypto.dto.CandleColumns;
+
+import java.util.Random;
+
+/**
+ * Deterministic candle histories for tests, the same random walk as the benchmark fixtures.
+ */
+final class TestCandles {
+
+    private TestCandles() {
+    }
+
+    /**
+     * 1m candles following a seeded random walk, ending at {@code 1_700_000_000}.
+     */
+    static CandleColumns candles(int bars, long seed) {
+        Random random = new Random(seed);
+        long[] time = new long[bars];
+        double[] open = new double[bars];
+        double[] high = new double[bars];
+        double[] low = new double[bars];
+        double[] close = new double[bars];
+        long[] volume = new long[bars];
+
+        long t0 = 1_700_000_000L - bars * 60L;
+        double price = 0.6;
+        for (int i = 0; i < bars; i++) {
+            double o = price;
+            price = Math.max(0.01, price * (1 + random.nextGaussian() * 0.002));
+            time[i] = t0 + i * 60L;
+            open[i] = o;
+            close[i] = price;
+            high[i] = Math.max(o, price) * (1 + random.nextDouble() * 0.001);
+            low[i] = Math.min(o, price) * (1 - random.nextDouble() * 0.001);
+            volume[i] = 1_000 + random.nextInt(50_000);
+        }
+        return new CandleColumns(time, open, high, low, close, volume);
+    }
+}
@@ -0,0 +1,107 @@
+package org.example.crypto.service;
+
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * {@link IndicatorKernels} on the JDK Vector API: each lane computes one output element with
+ * the scalar kernel's operations in the scalar kernel's order, and the tail that does not fill
+ * a vector runs the scalar loop. Only loaded reflectively, so the application still starts when
+ * {@code jdk.incubator.vector} is not in the module graph; it is compiled as a source set of its
+ * own, the only compile that needs the module.
+ */
+final class VectorIndicatorKernels extends IndicatorKernels {
+
+    private static final VectorSpecies<Double> SPECIES = DoubleVector.SPECIES_PREFERRED;
+    private static final int LANES = SPECIES.length();
+
+    @Override
+    void stochasticRange(double[] high, double[] low, double[] close, int k, double[] rdiff, double[] diff) {
+        int r = 0;
+        for (; r <= rdiff.length - LANES; r += LANES) {
+            int i = r + k - 1;
+            DoubleVector hh = DoubleVector.fromArray(SPECIES, high, i);
+            DoubleVector ll = DoubleVector.fromArray(SPECIES, low, i);
+            for (int j = 1; j < k; j++) {
+                hh = hh.max(DoubleVector.fromArray(SPECIES, high, i - j));
+                ll = ll.min(DoubleVector.fromArray(SPECIES, low, i - j));
+            }
+            hh.sub(ll).intoArray(diff, r);
+            DoubleVector.fromArray(SPECIES, close, i).sub(hh.add(ll).div(2)).intoArray(rdiff, r);
+        }
+        for (; r < rdiff.length; r++) {
+            int i = r + k - 1;
+            double hh = high[i];
+            double ll = low[i];
+            for (int j = 1; j < k; j++) {
+                hh = Math.max(hh, high[i - j]);
+                ll = Math.min(ll, low[i - j]);
+            }
+            diff[r] = hh - ll;
+            rdiff[r] = close[i] - (hh + ll) / 2;
+        }
+    }
+
+    @Override
+    void smiRaw(double[] avgRel, double[] avgDiff, double[] out) {
+        DoubleVector zero = DoubleVector.zero(SPECIES);
+        int i = 0;
+        for (; i <= out.length - LANES; i += LANES) {
+            DoubleVector rel = DoubleVector.fromArray(SPECIES, avgRel, i);
+            DoubleVector dif = DoubleVector.fromArray(SPECIES, avgDiff, i);
+            VectorMask<Double> defined = dif.compare(VectorOperators.NE, 0);
+            zero.blend(rel.div(dif.div(2)).mul(100), defined).intoArray(out, i);
+        }
+        for (; i < out.length; i++) {
+            out[i] = avgDiff[i] != 0 ? (avgRel[i] / (avgDiff[i] / 2) * 100) : 0;
+        }
+    }
+
+    @Override
+    void trueRange(double[] high, double[] low, double[] close, double[] out) {
+        if (out.length == 0) return;
+        out[0] = high[0] - low[0];
+        int i = 1;
+        for (; i <= out.length - LANES; i += LANES) {
+            DoubleVector h = DoubleVector.fromArray(SPECIES, high, i);
+            DoubleVector l = DoubleVector.fromArray(SPECIES, low, i);
+            DoubleVector prevClose = DoubleVector.fromArray(SPECIES, close, i - 1);
+            DoubleVector hc = h.sub(prevClose).abs();
+            DoubleVector lc = l.sub(prevClose).abs();
+            h.sub(l).max(hc.max(lc)).intoArray(out, i);
+        }
+        for (; i < out.length; i++) {
+            double hl = high[i] - low[i];
+            double hc = Math.abs(high[i] - close[i - 1]);
+            double lc = Math.abs(low[i] - close[i - 1]);
+            out[i] = Math.max(hl, Math.max(hc, lc));
+        }
+    }
+
+    @Override
+    void angles(double[] line, double[] atr, double[] out) {
+        if (out.length == 0) return;
+        out[0] = 0;
+        int i = 1;
+        // the ratios on lanes, the arctangent in scalar: the vector ATAN is not Math.atan
+        for (; i <= out.length - LANES; i += LANES) {
+            DoubleVector.fromArray(SPECIES, line, i)
+                .sub(DoubleVector.fromArray(SPECIES, line, i - 1))
+                .div(DoubleVector.fromArray(SPECIES, atr, i))
+                .intoArray(out, i);
+        }
+        for (int j = 1; j < i; j++) {
+            out[j] = atr[j] > 0 ? MAAnglesIndicatorService.RAD2DEGREE * Math.atan(out[j]) : 0;
+        }
+        for (; i < out.length; i++) {
+            out[i] = atr[i] > 0 ? MAAnglesIndicatorService.RAD2DEGREE * Math.atan((line[i] - line[i - 1]) / atr[i]) : 0;
+        }
+    }
+
+    @Override
+    public String toString() {
+        return SPECIES.toString();
+    }
+}